@@ -1,30 +1,25 @@
+import sys
+
 import matplotlib as mpl
 from mpl_toolkits.mplot3d import Axes3D
 import numpy as np
 import matplotlib.pyplot as plt
 
-time = []
-real_pos_x = []
-real_pos_y = []
-real_pos_z = []
-real_yaw = []
-desired_pos_x = []
-desired_pos_y = []
-desired_pos_z = []
-desired_yaw = []
+# A flight data file written by utils.flightdata.FlightDataRecorder: a 64-byte header followed by
+# records of 22 little-endian doubles. The number of records is stored at byte 24 of the header.
+flight_data_file = sys.argv[1] if len(sys.argv) > 1 else "drone.fdr"
+number_of_records = int(np.fromfile(flight_data_file, dtype='<i8', count=4)[3])
+records = np.fromfile(flight_data_file, dtype='<f8', offset=64).reshape(-1, 22)[:number_of_records]
 
-with open("dronepose.log") as f:
-    for line in f:
-        p = [float(i) for i in line.split()]
-        time.append(p[0])
-        real_pos_x.append(p[1])
-        real_pos_y.append(p[2])
-        real_pos_z.append(p[3])
-        real_yaw.append(p[4])
-        desired_pos_x.append(p[5])
-        desired_pos_y.append(p[6])
-        desired_pos_z.append(p[7])
-        desired_yaw.append(p[8])
+time = records[:, 0].tolist()
+real_pos_x = records[:, 2].tolist()
+real_pos_y = records[:, 3].tolist()
+real_pos_z = records[:, 4].tolist()
+real_yaw = records[:, 5].tolist()
+desired_pos_x = records[:, 10].tolist()
+desired_pos_y = records[:, 11].tolist()
+desired_pos_z = records[:, 12].tolist()
+desired_yaw = records[:, 13].tolist()
 
 min_time = min(time)
 time = [x - min_time for x in time]
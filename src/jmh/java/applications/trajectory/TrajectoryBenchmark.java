@@ -0,0 +1,163 @@
+package applications.trajectory;
+
+import applications.trajectory.geom.point.Point3D;
+import applications.trajectory.geom.point.Point4D;
+import choreo.Choreography;
+import control.Trajectory4d;
+import control.TrajectoryState4d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation of every {@link Trajectory4d} in this package. The time advances by one
+ * control period in each invocation and loops over a window which is shorter than the finite
+ * trajectories, so that their moving part is measured instead of the final hold position.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+
+  private static final double CONTROL_PERIOD_IN_SECONDS = 0.02;
+  private static final double WINDOW_IN_SECONDS = 60;
+  private static final Point4D ORIGIN = Point4D.create(0, 0, 1.5, 0);
+  private static final Point4D DESTINATION = Point4D.create(100, 100, 1.5, 0);
+
+  @Param({
+    "CIRCLE",
+    "CONSTANT_YAW_CIRCLE",
+    "PENDULUM_SWING",
+    "HOLD_POSITION",
+    "STRAIGHT_LINE",
+    "STRAIGHT_LINE_WITH_SMOOTH_BRAKING",
+    "Z_DROP_LINE",
+    "CORKSCREW",
+    "WIGGLE",
+    "SAMPLED_CIRCLE"
+  })
+  private TrajectoryType trajectoryType;
+
+  private final TrajectoryState4d state = TrajectoryState4d.create();
+  private Trajectory4d trajectory;
+  private double currentTimeInSeconds;
+
+  @Setup
+  public void setUp() {
+    trajectory = trajectoryType.create();
+    currentTimeInSeconds = 0;
+    // the start time of the trajectory is the time of its first evaluation
+    trajectory.getDesiredPositionX(currentTimeInSeconds);
+  }
+
+  @Benchmark
+  public double position() {
+    advanceTime();
+    return trajectory.getDesiredPositionX(currentTimeInSeconds)
+        + trajectory.getDesiredPositionY(currentTimeInSeconds)
+        + trajectory.getDesiredPositionZ(currentTimeInSeconds)
+        + trajectory.getDesiredAngleZ(currentTimeInSeconds);
+  }
+
+  @Benchmark
+  public TrajectoryState4d state() {
+    advanceTime();
+    TrajectoryUtils.getDesiredState(trajectory, currentTimeInSeconds, state);
+    return state;
+  }
+
+  private void advanceTime() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    if (currentTimeInSeconds >= WINDOW_IN_SECONDS) {
+      currentTimeInSeconds -= WINDOW_IN_SECONDS;
+    }
+  }
+
+  /** The benchmarked trajectories. */
+  public enum TrajectoryType {
+    CIRCLE {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newCircleTrajectory4D(Point3D.create(0, 0, 1.5), 1, 0.1, 0.2);
+      }
+    },
+    CONSTANT_YAW_CIRCLE {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newConstantYawCircleTrajectory4D(
+            Point3D.create(0, 0, 1.5), 1, 0.1, 0.2, 0.5);
+      }
+    },
+    PENDULUM_SWING {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newPendulumSwingTrajectory(ORIGIN, 1, 0.1, 0.2);
+      }
+    },
+    HOLD_POSITION {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newHoldPositionTrajectory(ORIGIN);
+      }
+    },
+    STRAIGHT_LINE {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newStraightLineTrajectory(ORIGIN, DESTINATION, 1);
+      }
+    },
+    STRAIGHT_LINE_WITH_SMOOTH_BRAKING {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newStraightLineWithSmoothBrakingTrajectory(
+            ORIGIN, DESTINATION, 1, 0.9);
+      }
+    },
+    Z_DROP_LINE {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newZDropLineTrajectory(ORIGIN, DESTINATION, 1, 10, 0.5);
+      }
+    },
+    CORKSCREW {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newCorkscrewTrajectory(
+            ORIGIN, Point3D.create(100, 100, 100), 1, 0.5, 0.3, 0);
+      }
+    },
+    WIGGLE {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newWiggleTrajectory(ORIGIN, 50, 0.5);
+      }
+    },
+    SAMPLED_CIRCLE {
+      @Override
+      Trajectory4d create() {
+        return Trajectories.newSampledTrajectory(
+            Choreography.builder()
+                .withTrajectory(
+                    Trajectories.newFlatCircleTrajectory4D(Point3D.create(0, 0, 1.5), 1, 0.1))
+                .forTime(2 * WINDOW_IN_SECONDS)
+                .build(),
+            0.01);
+      }
+    };
+
+    abstract Trajectory4d create();
+  }
+}
@@ -0,0 +1,76 @@
+package choreo;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.geom.point.Point4D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the segment lookup of a {@link Choreography} of hold position segments, which keeps the
+ * cost of the segments themselves negligible. The choreography is played at the rate of a control
+ * loop, and is also evaluated at random points in time as done by previews or look-ahead queries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChoreographyBenchmark {
+
+  private static final double SEGMENT_DURATION_IN_SECONDS = 1;
+  private static final double CONTROL_PERIOD_IN_SECONDS = 0.02;
+  private static final int NUMBER_OF_RANDOM_TIMES = 1024;
+
+  @Param({"10", "100", "1000", "10000"})
+  private int numberOfSegments;
+
+  private final double[] randomTimes = new double[NUMBER_OF_RANDOM_TIMES];
+  private Choreography choreography;
+  private double currentTimeInSeconds;
+  private int nextRandomTime;
+
+  @Setup
+  public void setUp() {
+    final Choreography.BuildableStepBuilder builder = Choreography.builder();
+    for (int i = 0; i < numberOfSegments; i++) {
+      builder
+          .withTrajectory(Trajectories.newHoldPositionTrajectory(Point4D.create(i, 0, 1.5, 0)))
+          .forTime(SEGMENT_DURATION_IN_SECONDS);
+    }
+    choreography = builder.build();
+    choreography.getDesiredPositionX(0);
+
+    final Random random = new Random(0);
+    for (int i = 0; i < NUMBER_OF_RANDOM_TIMES; i++) {
+      randomTimes[i] = random.nextDouble() * choreography.getTrajectoryDuration();
+    }
+  }
+
+  @Benchmark
+  public double playback() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    if (currentTimeInSeconds >= choreography.getTrajectoryDuration()) {
+      currentTimeInSeconds = 0;
+    }
+    return choreography.getDesiredPositionX(currentTimeInSeconds);
+  }
+
+  @Benchmark
+  public double randomLookup() {
+    nextRandomTime = (nextRandomTime + 1) % NUMBER_OF_RANDOM_TIMES;
+    return choreography.getDesiredPositionX(randomTimes[nextRandomTime]);
+  }
+}
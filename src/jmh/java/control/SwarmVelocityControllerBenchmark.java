@@ -0,0 +1,102 @@
+package control;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.geom.point.Point3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one control tick of a whole swarm: a {@link SwarmVelocityController} against one
+ * {@link DroneVelocityController} per drone (through the primitive API). Each drone follows its own
+ * circle trajectory and the time advances by one control period in each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwarmVelocityControllerBenchmark {
+
+  private static final double CONTROL_PERIOD_IN_SECONDS = 0.02;
+
+  @Param({"10", "100", "1000"})
+  private int numberOfDrones;
+
+  private final double[] currentPose = new double[4];
+  private final double[] currentVelocity = new double[4];
+  private final double[] nextResponse = new double[4];
+
+  private SwarmVelocityController swarmVelocityController;
+  private DroneVelocityController[] droneVelocityControllers;
+  private double currentTimeInSeconds;
+
+  @Setup
+  public void setUp() {
+    final List<Trajectory4d> trajectories = new ArrayList<>();
+    droneVelocityControllers = new DroneVelocityController[numberOfDrones];
+    for (int i = 0; i < numberOfDrones; i++) {
+      final Trajectory4d trajectory =
+          Trajectories.newFlatCircleTrajectory4D(Point3D.create(i, 0, 1.5), 1, 0.1);
+      trajectories.add(trajectory);
+      droneVelocityControllers[i] =
+          DroneVelocityController.pidBuilder()
+              .withTrajectory4d(trajectory)
+              .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+              .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+              .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+              .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+              .build();
+    }
+
+    swarmVelocityController =
+        SwarmVelocityController.builder()
+            .withTrajectories(trajectories)
+            .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+            .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+            .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+            .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+            .build();
+
+    currentPose[PrimitiveVelocityController4d.X] = 1;
+    currentPose[PrimitiveVelocityController4d.Y] = 0.5;
+    currentPose[PrimitiveVelocityController4d.Z] = 1.5;
+    currentPose[PrimitiveVelocityController4d.YAW] = 0.1;
+    currentVelocity[PrimitiveVelocityController4d.X] = 0.2;
+    currentVelocity[PrimitiveVelocityController4d.Y] = -0.1;
+    currentTimeInSeconds = 0;
+  }
+
+  @Benchmark
+  public SwarmVelocityController swarmVelocityController() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    for (int i = 0; i < numberOfDrones; i++) {
+      swarmVelocityController.setCurrentState(i, currentPose, currentVelocity);
+    }
+    swarmVelocityController.computeNextResponses(currentTimeInSeconds);
+    return swarmVelocityController;
+  }
+
+  @Benchmark
+  public double[] independentDroneVelocityControllers() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    for (final DroneVelocityController droneVelocityController : droneVelocityControllers) {
+      droneVelocityController.computeNextResponse(
+          currentPose, currentVelocity, currentTimeInSeconds, nextResponse);
+    }
+    return nextResponse;
+  }
+}
@@ -0,0 +1,101 @@
+package control;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.geom.point.Point3D;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one tick of the velocity controllers, i.e., {@link
+ * DroneVelocityController#computeNextResponse} with and without a {@link PidCoFilter4d}, through
+ * both the primitive and the immutable API. The controlled drone follows a circle trajectory and the
+ * time advances by one control period in each invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VelocityControllerBenchmark {
+
+  private static final double CONTROL_PERIOD_IN_SECONDS = 0.02;
+
+  private final double[] currentPose = new double[4];
+  private final double[] currentVelocity = new double[4];
+  private final double[] nextResponse = new double[4];
+
+  private DroneVelocityController droneVelocityController;
+  private PidCoFilter4d pidCoFilter;
+  private Pose pose;
+  private InertialFrameVelocity velocity;
+  private double currentTimeInSeconds;
+
+  @Setup
+  public void setUp() {
+    droneVelocityController = createController();
+    pidCoFilter = PidCoFilter4d.create(createController(), 0.1);
+
+    currentPose[PrimitiveVelocityController4d.X] = 1;
+    currentPose[PrimitiveVelocityController4d.Y] = 0.5;
+    currentPose[PrimitiveVelocityController4d.Z] = 1.5;
+    currentPose[PrimitiveVelocityController4d.YAW] = 0.1;
+    currentVelocity[PrimitiveVelocityController4d.X] = 0.2;
+    currentVelocity[PrimitiveVelocityController4d.Y] = -0.1;
+
+    pose = Pose.builder().setX(1).setY(0.5).setZ(1.5).setYaw(0.1).build();
+    velocity = Velocity.builder().setLinearX(0.2).setLinearY(-0.1).setLinearZ(0).setAngularZ(0).build();
+    currentTimeInSeconds = 0;
+  }
+
+  @Benchmark
+  public double[] droneVelocityControllerPrimitive() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    droneVelocityController.computeNextResponse(
+        currentPose, currentVelocity, currentTimeInSeconds, nextResponse);
+    return nextResponse;
+  }
+
+  @Benchmark
+  public InertialFrameVelocity droneVelocityControllerImmutable() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    return droneVelocityController.computeNextResponse(pose, velocity, currentTimeInSeconds);
+  }
+
+  @Benchmark
+  public double[] pidCoFilterPrimitive() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    pidCoFilter.computeNextResponse(
+        currentPose, currentVelocity, currentTimeInSeconds, nextResponse);
+    return nextResponse;
+  }
+
+  @Benchmark
+  public InertialFrameVelocity pidCoFilterImmutable() {
+    currentTimeInSeconds += CONTROL_PERIOD_IN_SECONDS;
+    return pidCoFilter.computeNextResponse(pose, velocity, currentTimeInSeconds);
+  }
+
+  private static DroneVelocityController createController() {
+    return DroneVelocityController.pidBuilder()
+        .withTrajectory4d(Trajectories.newFlatCircleTrajectory4D(Point3D.create(0, 0, 1.5), 1, 0.1))
+        .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+        .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+        .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+        .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+        .build();
+  }
+}
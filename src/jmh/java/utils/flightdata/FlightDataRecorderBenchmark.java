@@ -0,0 +1,94 @@
+package utils.flightdata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of recording the flight data of a swarm of 50 drones, i.e., one record per
+ * drone per tick, with and without writing the records to the memory-mapped files. Each
+ * measurement is a batch of 1000 ticks, so that the reported time in milliseconds is the cost of
+ * one tick in microseconds. The files are large enough for a whole iteration, so that no record is
+ * dropped.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = 1000)
+@Measurement(iterations = 10, batchSize = 1000)
+@Fork(1)
+@State(Scope.Thread)
+public class FlightDataRecorderBenchmark {
+
+  private static final int NUMBER_OF_DRONES = 50;
+  private static final int TICKS_PER_ITERATION = 1000;
+
+  private final FlightDataRecorder[] recorders = new FlightDataRecorder[NUMBER_OF_DRONES];
+  private final double[] record = new double[FlightDataRecord.NUMBER_OF_FIELDS];
+
+  private Path directory;
+  private ScheduledExecutorService writer;
+  private double currentTimeInSeconds;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("flight-data-benchmark");
+    writer = Executors.newSingleThreadScheduledExecutor();
+    for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+      recorders[i] =
+          FlightDataRecorder.create(
+              directory.resolve("drone" + i + ".fdr"),
+              TICKS_PER_ITERATION,
+              TICKS_PER_ITERATION,
+              writer);
+    }
+    for (int i = 0; i < record.length; i++) {
+      record[i] = i * 0.1;
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws IOException {
+    writer.shutdownNow();
+    for (final FlightDataRecorder recorder : recorders) {
+      recorder.close();
+      if (recorder.getNumberOfDroppedRecords() > 0) {
+        throw new IllegalStateException("Records have been dropped.");
+      }
+      Files.delete(recorder.getFile());
+    }
+    Files.delete(directory);
+  }
+
+  @Benchmark
+  public void recordTick() {
+    currentTimeInSeconds += 0.01;
+    record[FlightDataRecord.SYSTEM_TIME] = currentTimeInSeconds;
+    for (final FlightDataRecorder recorder : recorders) {
+      recorder.record(record);
+    }
+  }
+
+  @Benchmark
+  public void recordAndWriteTick() {
+    recordTick();
+    for (final FlightDataRecorder recorder : recorders) {
+      recorder.drain();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package utils.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the filtering which the Kalman state estimator performs for every new message: a
+ * prediction and a position update of the four axes for a pose, a prediction and a velocity update
+ * for an odometry message.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KalmanFilterBenchmark {
+
+  private static final double TIME_STEP = 0.01;
+
+  private ConstantAccelerationKalmanFilter[] filters;
+  private double sample;
+
+  @Setup
+  public void setUp() {
+    filters = new ConstantAccelerationKalmanFilter[4];
+    for (int i = 0; i < filters.length; i++) {
+      filters[i] = ConstantAccelerationKalmanFilter.create(1);
+      filters[i].reset(0, 0.0004, 1, 1);
+    }
+  }
+
+  @Benchmark
+  public double poseUpdate() {
+    sample += TIME_STEP;
+    double sum = 0;
+    for (final ConstantAccelerationKalmanFilter filter : filters) {
+      filter.predict(TIME_STEP);
+      filter.updatePosition(sample, 0.0004);
+      sum += filter.extrapolatePosition(TIME_STEP);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double odometryUpdate() {
+    double sum = 0;
+    for (final ConstantAccelerationKalmanFilter filter : filters) {
+      filter.predict(TIME_STEP);
+      filter.updateVelocity(1, 0.01);
+      sum += filter.extrapolateVelocity(TIME_STEP);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,95 @@
+package utils.math;
+
+import applications.trajectory.geom.point.Point3D;
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reverse rotation of a point computed with EJML (the former implementation of {@link
+ * Transformations#reverseRotation(Point3D, double, double, double, RotationOrder)}) with the
+ * primitive {@link RotationMatrix3d}, with and without a precomputed matrix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RotationBenchmark {
+
+  private double aroundX;
+  private double aroundY;
+  private Point3D point;
+  private RotationMatrix3d precomputedRotation;
+
+  @Setup
+  public void setUp() {
+    aroundX = 0.3;
+    aroundY = 1.1;
+    point = Point3D.create(1.5, -0.4, 2.3);
+    precomputedRotation = RotationMatrix3d.createReverse(aroundX, aroundY, 0, RotationOrder.XYZ);
+  }
+
+  @Benchmark
+  public Point3D ejmlReverseRotation() {
+    final SimpleMatrix rotationMatrix =
+        getEjmlRotationMatrixX(-aroundX)
+            .mult(getEjmlRotationMatrixY(-aroundY))
+            .mult(getEjmlRotationMatrixZ(0));
+    final SimpleMatrix rotatedPoint =
+        rotationMatrix.mult(
+            new SimpleMatrix(new double[][] {{point.getX()}, {point.getY()}, {point.getZ()}}));
+    return Point3D.create(rotatedPoint.get(0, 0), rotatedPoint.get(1, 0), rotatedPoint.get(2, 0));
+  }
+
+  @Benchmark
+  public Point3D primitiveReverseRotation() {
+    return Transformations.reverseRotation(point, aroundX, aroundY, 0, RotationOrder.XYZ);
+  }
+
+  @Benchmark
+  public Point3D primitiveReverseRotationFastMath() {
+    return RotationMatrix3d.create(aroundX, aroundY, 0, RotationOrder.XYZ, MathMode.FAST)
+        .transpose()
+        .apply(point);
+  }
+
+  @Benchmark
+  public double precomputedReverseRotation() {
+    final double x = point.getX();
+    final double y = point.getY();
+    final double z = point.getZ();
+    return precomputedRotation.applyX(x, y, z)
+        + precomputedRotation.applyY(x, y, z)
+        + precomputedRotation.applyZ(x, y, z);
+  }
+
+  private static SimpleMatrix getEjmlRotationMatrixZ(double rotationAngle) {
+    final double sinZ = StrictMath.sin(rotationAngle);
+    final double cosZ = StrictMath.cos(rotationAngle);
+    return new SimpleMatrix(new double[][] {{cosZ, -sinZ, 0}, {sinZ, cosZ, 0}, {0, 0, 1}});
+  }
+
+  private static SimpleMatrix getEjmlRotationMatrixY(double rotationAngle) {
+    final double sinY = StrictMath.sin(rotationAngle);
+    final double cosY = StrictMath.cos(rotationAngle);
+    return new SimpleMatrix(new double[][] {{cosY, 0, sinY}, {0, 1, 0}, {-sinY, 0, cosY}});
+  }
+
+  private static SimpleMatrix getEjmlRotationMatrixX(double rotationAngle) {
+    final double sinX = StrictMath.sin(rotationAngle);
+    final double cosX = StrictMath.cos(rotationAngle);
+    return new SimpleMatrix(new double[][] {{1, 0, 0}, {0, cosX, -sinX}, {0, sinX, cosX}});
+  }
+}
@@ -0,0 +1,79 @@
+package utils.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the averaging which the state estimators perform for every new sample, for several sizes
+ * of the averaging window: the velocity averaging (four linear averages) and the pose averaging
+ * (three linear averages and a circular yaw average).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RunningAverageBenchmark {
+
+  @Param({"5", "50", "500"})
+  private int windowSize;
+
+  private RunningAverage[] linearAverages;
+  private CircularRunningAverage yawAverage;
+  private double sample;
+
+  @Setup
+  public void setUp() {
+    linearAverages = new RunningAverage[4];
+    for (int i = 0; i < linearAverages.length; i++) {
+      linearAverages[i] = RunningAverage.create(windowSize);
+    }
+    yawAverage = CircularRunningAverage.create(windowSize);
+    for (int i = 0; i < windowSize; i++) {
+      addSample();
+    }
+  }
+
+  @Benchmark
+  public double velocityAveraging() {
+    sample += 0.001;
+    double sum = 0;
+    for (final RunningAverage average : linearAverages) {
+      average.add(sample);
+      sum += average.getAverage();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double poseAveraging() {
+    sample += 0.001;
+    double sum = 0;
+    for (int i = 0; i < 3; i++) {
+      linearAverages[i].add(sample);
+      sum += linearAverages[i].getAverage();
+    }
+    yawAverage.add(sample);
+    return sum + yawAverage.getAverage();
+  }
+
+  private void addSample() {
+    sample += 0.001;
+    for (final RunningAverage average : linearAverages) {
+      average.add(sample);
+    }
+    yawAverage.add(sample);
+  }
+}
@@ -0,0 +1,61 @@
+package utils.math;
+
+import control.dto.BodyFrameVelocity;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the transformations which are computed for every received pose, i.e., the conversion of
+ * the orientation quaternion to euler angles and the conversion of the velocity to the body frame.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformationsBenchmark {
+
+  private double quaternionW;
+  private double quaternionX;
+  private double quaternionY;
+  private double quaternionZ;
+  private Pose pose;
+  private InertialFrameVelocity inertialFrameVelocity;
+
+  @Setup
+  public void setUp() {
+    // a rotation of 0.3 rad around the axis (0.2, 0.3, 0.93)
+    quaternionW = StrictMath.cos(0.15);
+    quaternionX = 0.2 * StrictMath.sin(0.15);
+    quaternionY = 0.3 * StrictMath.sin(0.15);
+    quaternionZ = 0.93 * StrictMath.sin(0.15);
+    pose = Pose.builder().setX(1).setY(2).setZ(1.5).setYaw(0.7).build();
+    inertialFrameVelocity =
+        Velocity.builder().setLinearX(0.4).setLinearY(-0.2).setLinearZ(0.1).setAngularZ(0.05).build();
+  }
+
+  @Benchmark
+  public EulerAngle quaternionToEulerAngle() {
+    return Transformations.quaternionToEulerAngle(
+        quaternionW, quaternionX, quaternionY, quaternionZ);
+  }
+
+  @Benchmark
+  public BodyFrameVelocity inertialFrameVelocityToBodyFrameVelocity() {
+    return Transformations.inertialFrameVelocityToBodyFrameVelocity(inertialFrameVelocity, pose);
+  }
+}
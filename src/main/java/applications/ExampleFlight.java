@@ -44,21 +44,33 @@ public final class ExampleFlight {
 
   /** Starts flying. */
   public void fly() {
-    // task to execute in case of emergency
-    final KeyboardEmergency keyboardEmergencyNotifier =
-        createKeyboardEmergencyNotifier(emergencyTask);
-    final XBox360ControllerEmergency xBox360ControllerEmergency =
-        createXBox360ControllerEmergency(emergencyTask);
-
     final TaskExecutor taskExecutor = TaskExecutorService.create();
-    keyboardEmergencyNotifier.registerTaskExecutor(taskExecutor);
-    xBox360ControllerEmergency.registerTaskExecutor(taskExecutor);
+    registerEmergencyNotifiers(connectedNode, emergencyTask, taskExecutor);
 
     // start fly task
     taskExecutor.submitTask(flyTask);
   }
 
-  private KeyboardEmergency createKeyboardEmergencyNotifier(Task emergencyTask) {
+  /**
+   * Submits an emergency task to a task executor when the xbox emergency button or the keyboard
+   * emergency button is pressed.
+   *
+   * @param connectedNode the connected node
+   * @param emergencyTask the task to execute in case of emergency
+   * @param taskExecutor the task executor of the drone
+   */
+  public static void registerEmergencyNotifiers(
+      ConnectedNode connectedNode, Task emergencyTask, TaskExecutor taskExecutor) {
+    final KeyboardEmergency keyboardEmergencyNotifier =
+        createKeyboardEmergencyNotifier(connectedNode, emergencyTask);
+    final XBox360ControllerEmergency xBox360ControllerEmergency =
+        createXBox360ControllerEmergency(connectedNode, emergencyTask);
+    keyboardEmergencyNotifier.registerTaskExecutor(taskExecutor);
+    xBox360ControllerEmergency.registerTaskExecutor(taskExecutor);
+  }
+
+  private static KeyboardEmergency createKeyboardEmergencyNotifier(
+      ConnectedNode connectedNode, Task emergencyTask) {
     final MessagesSubscriberService<Key> keyboardSubscriber =
         MessagesSubscriberService.create(
             connectedNode.<Key>newSubscriber("/keyboard/keydown", Key._TYPE),
@@ -68,7 +80,8 @@ public final class ExampleFlight {
     return keyboardEmergency;
   }
 
-  private XBox360ControllerEmergency createXBox360ControllerEmergency(Task emergencyTask) {
+  private static XBox360ControllerEmergency createXBox360ControllerEmergency(
+      ConnectedNode connectedNode, Task emergencyTask) {
     final MessagesSubscriberService<Joy> joystickSubscriber =
         MessagesSubscriberService.create(
             connectedNode.<Joy>newSubscriber("/bebop/joy", Joy._TYPE),
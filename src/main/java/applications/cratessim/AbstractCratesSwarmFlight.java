@@ -0,0 +1,60 @@
+package applications.cratessim;
+
+import applications.ExampleFlight;
+import applications.swarm.SwarmRuntime;
+import applications.trajectory.MultiTrajectoryServer;
+import com.google.common.base.Splitter;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.parameter.ParameterTree;
+
+import java.util.List;
+
+/**
+ * A ROS node which flies a swarm of drones in the Crates simulator with a {@link SwarmRuntime}. The
+ * model of the drones is read from the {@code beswarm/crates_model_name} parameter and their
+ * comma-separated names from the {@code beswarm/crates_drone_names} parameter. The i-th drone
+ * follows the i-th trajectory of the multi-trajectory server.
+ */
+public abstract class AbstractCratesSwarmFlight extends AbstractNodeMain {
+
+  private final String nodeName;
+  private final MultiTrajectoryServer multiTrajectoryServer;
+
+  protected AbstractCratesSwarmFlight(
+      String nodeName, MultiTrajectoryServer multiTrajectoryServer) {
+    this.nodeName = nodeName;
+    this.multiTrajectoryServer = multiTrajectoryServer;
+  }
+
+  @Override
+  public GraphName getDefaultNodeName() {
+    return GraphName.of(nodeName);
+  }
+
+  @Override
+  public void onStart(ConnectedNode connectedNode) {
+    final ParameterTree parameterTree = connectedNode.getParameterTree();
+    final String modelName = parameterTree.getString("beswarm/crates_model_name");
+    final List<String> droneNames =
+        Splitter.on(',')
+            .trimResults()
+            .omitEmptyStrings()
+            .splitToList(parameterTree.getString("beswarm/crates_drone_names"));
+
+    final SwarmRuntime swarmRuntime =
+        SwarmRuntime.builder()
+            .withMultiTrajectoryServer(multiTrajectoryServer)
+            .withSwarmMemberFactory(
+                CratesSwarmMemberFactory.create(connectedNode, modelName, droneNames))
+            .build();
+
+    for (int i = 0; i < swarmRuntime.getNumberOfDrones(); i++) {
+      ExampleFlight.registerEmergencyNotifiers(
+          connectedNode, swarmRuntime.getEmergencyTask(i), swarmRuntime.getTaskExecutor(i));
+    }
+
+    swarmRuntime.start();
+  }
+}
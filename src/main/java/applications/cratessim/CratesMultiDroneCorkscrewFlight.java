@@ -0,0 +1,12 @@
+package applications.cratessim;
+
+import applications.parrot.tumsim.multidrone.MultiDroneCorkscrewExample;
+
+/** Flies the drones of the {@link MultiDroneCorkscrewExample} in the Crates simulator. */
+public final class CratesMultiDroneCorkscrewFlight extends AbstractCratesSwarmFlight {
+
+  /** Default constructor. */
+  public CratesMultiDroneCorkscrewFlight() {
+    super("CratesMultiDroneCorkscrewFlight", new MultiDroneCorkscrewExample());
+  }
+}
@@ -0,0 +1,12 @@
+package applications.cratessim;
+
+import applications.parrot.tumsim.multidrone.MultiDroneStraightLineExample;
+
+/** Flies the drones of the {@link MultiDroneStraightLineExample} in the Crates simulator. */
+public final class CratesMultiDroneStraightLineFlight extends AbstractCratesSwarmFlight {
+
+  /** Default constructor. */
+  public CratesMultiDroneStraightLineFlight() {
+    super("CratesMultiDroneStraightLineFlight", new MultiDroneStraightLineExample());
+  }
+}
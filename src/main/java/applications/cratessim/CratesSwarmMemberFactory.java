@@ -0,0 +1,103 @@
+package applications.cratessim;
+
+import applications.swarm.SwarmMember;
+import applications.swarm.SwarmMemberFactory;
+import applications.trajectory.TrajectoryUtils;
+import com.google.common.collect.ImmutableList;
+import commands.Command;
+import commands.WaitForLocalizationDecorator;
+import commands.cratescommands.CratesFollowTrajectoryVel3d;
+import commands.cratescommands.CratesLand;
+import commands.cratescommands.CratesTakeOff;
+import control.DefaultPidParameters;
+import control.FiniteTrajectory4d;
+import control.LinearPidController1d;
+import control.localization.StateEstimator;
+import org.ros.node.ConnectedNode;
+import services.FlyingStateService;
+import services.LandService;
+import services.TakeOffService;
+import services.crates.CratesServiceFactory;
+import taskexecutor.Task;
+import taskexecutor.TaskType;
+import time.RosTime;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Creates the pipelines of drones in the Crates simulator. The services of each drone are created
+ * by a {@link CratesServiceFactory}. Each drone takes off, follows its trajectory with a 3d
+ * velocity controller with the default PID parameters and lands. Its emergency task lands.
+ */
+public final class CratesSwarmMemberFactory implements SwarmMemberFactory {
+
+  private final ConnectedNode connectedNode;
+  private final String modelName;
+  private final List<String> droneNames;
+
+  private CratesSwarmMemberFactory(
+      ConnectedNode connectedNode, String modelName, List<String> droneNames) {
+    this.connectedNode = connectedNode;
+    this.modelName = modelName;
+    this.droneNames = droneNames;
+  }
+
+  /**
+   * Creates a factory of drones in the Crates simulator.
+   *
+   * @param connectedNode the connected ROS node
+   * @param modelName the model of the drones
+   * @param droneNames the names of the drones, indexed by the index of the drone in the swarm
+   * @return a factory instance
+   */
+  public static CratesSwarmMemberFactory create(
+      ConnectedNode connectedNode, String modelName, List<String> droneNames) {
+    return new CratesSwarmMemberFactory(
+        connectedNode, modelName, ImmutableList.copyOf(droneNames));
+  }
+
+  @Override
+  public SwarmMember create(int droneIndex, FiniteTrajectory4d trajectory) {
+    checkElementIndex(droneIndex, droneNames.size(), "The drone index");
+    final String droneName = droneNames.get(droneIndex);
+    final CratesServiceFactory serviceFactory =
+        CratesServiceFactory.create(droneName, modelName, connectedNode);
+    final TakeOffService takeOffService = serviceFactory.createTakeOffService();
+    final LandService landService = serviceFactory.createLandService();
+    final FlyingStateService flyingStateService = serviceFactory.createFlyingStateService();
+    final StateEstimator stateEstimator = serviceFactory.createStateEstimator();
+
+    final Command followTrajectory =
+        CratesFollowTrajectoryVel3d.builder()
+            .withStateEstimator(stateEstimator)
+            .withVelocity3dService(serviceFactory.createVelocity3dService())
+            .withPidControllerLinearX(
+                LinearPidController1d.create(
+                    DefaultPidParameters.LINEAR_X.getParameters(),
+                    TrajectoryUtils.getTrajectoryLinearX(trajectory)))
+            .withPidControllerLinearY(
+                LinearPidController1d.create(
+                    DefaultPidParameters.LINEAR_Y.getParameters(),
+                    TrajectoryUtils.getTrajectoryLinearY(trajectory)))
+            .withPidControllerLinearZ(
+                LinearPidController1d.create(
+                    DefaultPidParameters.LINEAR_Z.getParameters(),
+                    TrajectoryUtils.getTrajectoryLinearZ(trajectory)))
+            .withTrajectoryAngularZ(TrajectoryUtils.getTrajectoryAngularZ(trajectory))
+            .withTimeProvider(RosTime.create(connectedNode))
+            .withDurationInSeconds(trajectory.getTrajectoryDuration())
+            .build();
+    final Task flyTask =
+        Task.create(
+            TaskType.NORMAL_TASK,
+            CratesTakeOff.create(takeOffService, flyingStateService),
+            WaitForLocalizationDecorator.create(stateEstimator, followTrajectory),
+            CratesLand.create(landService, flyingStateService));
+    final Task emergencyTask =
+        Task.create(
+            TaskType.FIRST_ORDER_EMERGENCY, CratesLand.create(landService, flyingStateService));
+    return SwarmMember.create(droneName, flyTask, emergencyTask);
+  }
+}
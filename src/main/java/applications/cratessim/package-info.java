@@ -1,5 +1,6 @@
 /**
- * This package contains the ros node classes to control the drones in the Crates simulator.
+ * This package contains the ros node classes and the swarm member factory to control the drones in
+ * the Crates simulator.
  *
  * @author Hoang Tung Dinh
  */
@@ -1,14 +1,24 @@
 package applications.parrot.bebop;
 
+import applications.ExampleFlight;
+import applications.swarm.SwarmRuntime;
+import applications.trajectory.MultiTrajectoryServer;
+import applications.trajectory.TrajectoryServer;
+import com.google.common.collect.ImmutableList;
+import commands.schedulers.SwarmTickBarrier;
 import control.FiniteTrajectory4d;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executors;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /** @author Hoang Tung Dinh */
 public abstract class AbstractTwoBebopFlight extends AbstractNodeMain {
+  private static final Logger logger = LoggerFactory.getLogger(AbstractTwoBebopFlight.class);
   private final String nodeName;
 
   protected AbstractTwoBebopFlight(String nodeName) {
@@ -32,33 +42,52 @@ public abstract class AbstractTwoBebopFlight extends AbstractNodeMain {
         connectedNode.getParameterTree().getString("beswarm/second_drone_pose_topic");
 
     // TODO: check drone name and pose topic (need to be different)
+    final List<String> droneNames = ImmutableList.of(firstBebopName, secondBebopName);
+    final List<String> poseTopics = ImmutableList.of(firstBebopPoseTopic, secondBebopPoseTopic);
 
-    final BebopFlight firstBebopFlight =
-        BebopFlight.create(
-            firstBebopName,
-            getConcreteTrajectoryForFirstBebop(),
-            connectedNode,
-            firstBebopPoseTopic);
-    final BebopFlight secondBebopFlight =
-        BebopFlight.create(
-            secondBebopName,
-            getConcreteTrajectoryForSecondBebop(),
-            connectedNode,
-            secondBebopPoseTopic);
+    // both drones sample their trajectories at the same time and publish in the same tick
+    final SwarmTickBarrier swarmTickBarrier =
+        SwarmTickBarrier.create(droneNames.size(), BebopFlight.CONTROL_RATE_IN_SECONDS);
+    final SwarmRuntime swarmRuntime =
+        SwarmRuntime.builder()
+            .withMultiTrajectoryServer(
+                new MultiTrajectoryServer() {
+                  @Override
+                  public List<TrajectoryServer> getAllDifferentTrajectories() {
+                    return ImmutableList.of(
+                        createTrajectoryServer(getConcreteTrajectoryForFirstBebop()),
+                        createTrajectoryServer(getConcreteTrajectoryForSecondBebop()));
+                  }
+                })
+            .withSwarmMemberFactory(
+                BebopSwarmMemberFactory.create(
+                    connectedNode, droneNames, poseTopics, swarmTickBarrier))
+            .withSwarmTickBarrier(swarmTickBarrier)
+            .build();
 
-    startFlying(firstBebopFlight);
-    startFlying(secondBebopFlight);
+    for (int i = 0; i < swarmRuntime.getNumberOfDrones(); i++) {
+      ExampleFlight.registerEmergencyNotifiers(
+          connectedNode, swarmRuntime.getEmergencyTask(i), swarmRuntime.getTaskExecutor(i));
+    }
+
+    // without this code, the take off message cannot be sent properly (I don't understand why).
+    try {
+      TimeUnit.SECONDS.sleep(3);
+    } catch (InterruptedException e) {
+      logger.info("Warm up time is interrupted.", e);
+      Thread.currentThread().interrupt();
+    }
+
+    swarmRuntime.start();
   }
 
-  private static void startFlying(final BebopFlight bebopFlight) {
-    Executors.newSingleThreadExecutor()
-        .submit(
-            new Runnable() {
-              @Override
-              public void run() {
-                bebopFlight.startFlying();
-              }
-            });
+  private static TrajectoryServer createTrajectoryServer(final FiniteTrajectory4d trajectory) {
+    return new TrajectoryServer() {
+      @Override
+      public FiniteTrajectory4d getConcreteTrajectory() {
+        return trajectory;
+      }
+    };
   }
 
   abstract FiniteTrajectory4d getConcreteTrajectoryForFirstBebop();
@@ -1,6 +1,7 @@
 package applications.parrot.bebop;
 
 import applications.ExampleFlight;
+import applications.swarm.SwarmMember;
 import com.google.common.collect.ImmutableList;
 import commands.Command;
 import commands.WaitForLocalizationDecorator;
@@ -8,6 +9,7 @@ import commands.bebopcommands.BebopFollowTrajectory;
 import commands.bebopcommands.BebopHover;
 import commands.bebopcommands.BebopLand;
 import commands.bebopcommands.BebopTakeOff;
+import commands.schedulers.SwarmTickBarrier;
 import control.FiniteTrajectory4d;
 import control.DroneVelocityController;
 import control.PidParameters;
@@ -33,6 +35,7 @@ import taskexecutor.Task;
 import taskexecutor.TaskType;
 import time.RosTime;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.TimeUnit;
@@ -40,6 +43,7 @@ import java.util.concurrent.TimeUnit;
 /** @author Hoang Tung Dinh */
 final class BebopFlight {
   private static final Logger logger = LoggerFactory.getLogger(BebopFlight.class);
+  static final double CONTROL_RATE_IN_SECONDS = 0.01;
   private final ExampleFlight exampleFlight;
 
   private BebopFlight(
@@ -87,11 +91,25 @@ final class BebopFlight {
         RosTime.create(connectedNode));
   }
 
-  private static ExampleFlight constructFlight(
-      ConnectedNode connectedNode,
+  /**
+   * Creates the pipeline of a bebop drone in a swarm. Unlike {@link #create(String,
+   * FiniteTrajectory4d, ConnectedNode, String)}, there is no warm up time, the caller should wait
+   * before starting the swarm.
+   *
+   * @param droneName the name of the drone
+   * @param trajectory the trajectory that the drone has to follow
+   * @param connectedNode the connected node
+   * @param poseTopic the topic providing the pose of the drone
+   * @param swarmTickBarrier the barrier synchronizing the control loops of the drones, or null if
+   *     the control loop of this drone runs on its own
+   * @return the pipeline of the drone
+   */
+  static SwarmMember createSwarmMember(
       String droneName,
       FiniteTrajectory4d trajectory,
-      String poseTopic) {
+      ConnectedNode connectedNode,
+      String poseTopic,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
     final PidParameters pidLinearX =
         getPidParameters(
             connectedNode,
@@ -144,11 +162,23 @@ final class BebopFlight {
             resetService,
             stateEstimator,
             trajectory,
-            droneName);
+            droneName,
+            swarmTickBarrier);
 
     final Task emergencyTask = createEmergencyTask(landService, flyingStateService);
+    return SwarmMember.create(droneName, flyTask, emergencyTask);
+  }
 
-    final ExampleFlight exampleFlight = ExampleFlight.create(connectedNode, flyTask, emergencyTask);
+  private static ExampleFlight constructFlight(
+      ConnectedNode connectedNode,
+      String droneName,
+      FiniteTrajectory4d trajectory,
+      String poseTopic) {
+    final SwarmMember swarmMember =
+        createSwarmMember(droneName, trajectory, connectedNode, poseTopic, null);
+    final ExampleFlight exampleFlight =
+        ExampleFlight.create(
+            connectedNode, swarmMember.getFlyTask(), swarmMember.getEmergencyTask());
 
     // without this code, the take off message cannot be sent properly (I don't understand why).
     try {
@@ -184,7 +214,8 @@ final class BebopFlight {
       ResetService resetService,
       StateEstimator stateEstimator,
       FiniteTrajectory4d trajectory,
-      String droneName) {
+      String droneName,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
 
     final Collection<Command> commands = new ArrayList<>();
 
@@ -215,7 +246,8 @@ final class BebopFlight {
             .withTimeProvider(RosTime.create(connectedNode))
             .withDurationInSeconds(trajectory.getTrajectoryDuration())
             .withVelocityController4d(velocityController4d)
-            .withControlRateInSeconds(0.01)
+            .withControlRateInSeconds(CONTROL_RATE_IN_SECONDS)
+            .withSwarmTickBarrier(swarmTickBarrier)
             .build();
 
     final Command waitForLocalizationThenFollowTrajectory =
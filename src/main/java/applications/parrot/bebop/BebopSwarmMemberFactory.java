@@ -0,0 +1,76 @@
+package applications.parrot.bebop;
+
+import applications.swarm.SwarmMember;
+import applications.swarm.SwarmMemberFactory;
+import com.google.common.collect.ImmutableList;
+import commands.schedulers.SwarmTickBarrier;
+import control.FiniteTrajectory4d;
+import org.ros.node.ConnectedNode;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Creates the pipelines of Bebop drones. Each drone is controlled through the topics of its
+ * driver, localized by its pose topic and its odometry, and flown with the PID parameters of the
+ * parameter server, as done by {@link BebopFlight}.
+ */
+public final class BebopSwarmMemberFactory implements SwarmMemberFactory {
+
+  private final ConnectedNode connectedNode;
+  private final List<String> droneNames;
+  private final List<String> poseTopics;
+  @Nullable private final SwarmTickBarrier swarmTickBarrier;
+
+  private BebopSwarmMemberFactory(
+      ConnectedNode connectedNode,
+      List<String> droneNames,
+      List<String> poseTopics,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
+    this.connectedNode = connectedNode;
+    this.droneNames = droneNames;
+    this.poseTopics = poseTopics;
+    this.swarmTickBarrier = swarmTickBarrier;
+  }
+
+  /**
+   * Creates a factory of Bebop drones.
+   *
+   * @param connectedNode the connected ROS node
+   * @param droneNames the names of the drones, indexed by the index of the drone in the swarm
+   * @param poseTopics the pose topics of the drones, in the same order as the names
+   * @param swarmTickBarrier the barrier which synchronizes the control loops of the drones, or null
+   *     if each drone runs its own control loop
+   * @return a factory instance
+   */
+  public static BebopSwarmMemberFactory create(
+      ConnectedNode connectedNode,
+      List<String> droneNames,
+      List<String> poseTopics,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
+    checkArgument(
+        droneNames.size() == poseTopics.size(),
+        "There must be one pose topic per drone, but there are %s drones and %s pose topics.",
+        droneNames.size(),
+        poseTopics.size());
+    return new BebopSwarmMemberFactory(
+        connectedNode,
+        ImmutableList.copyOf(droneNames),
+        ImmutableList.copyOf(poseTopics),
+        swarmTickBarrier);
+  }
+
+  @Override
+  public SwarmMember create(int droneIndex, FiniteTrajectory4d trajectory) {
+    checkElementIndex(droneIndex, droneNames.size(), "The drone index");
+    return BebopFlight.createSwarmMember(
+        droneNames.get(droneIndex),
+        trajectory,
+        connectedNode,
+        poseTopics.get(droneIndex),
+        swarmTickBarrier);
+  }
+}
@@ -2,6 +2,7 @@ package applications.parrot.tumsim;
 
 import applications.trajectory.TrajectoryServer;
 import control.FiniteTrajectory4d;
+import control.localization.GazeboModelStatesDemultiplexer;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
@@ -28,7 +29,10 @@ public abstract class AbstractTumSimulatorExample extends AbstractNodeMain
   @Override
   public void onStart(final ConnectedNode connectedNode) {
     final FiniteTrajectory4d trajectory = getConcreteTrajectory();
-    final TumExampleFlightFacade flight = TumExampleFlightFacade.create(trajectory, connectedNode);
+    final GazeboModelStatesDemultiplexer modelStatesDemultiplexer =
+        TumExampleFlightFacade.createModelStatesDemultiplexer(connectedNode);
+    final TumExampleFlightFacade flight =
+        TumExampleFlightFacade.create(trajectory, connectedNode, modelStatesDemultiplexer);
     flight.fly();
   }
 }
@@ -17,7 +17,7 @@ import control.VelocityController4d;
 import control.VelocityController4dLogger;
 import control.dto.DroneStateStamped;
 import control.localization.FakeStateEstimatorDecorator;
-import control.localization.GazeboModelStateEstimator;
+import control.localization.GazeboModelStatesDemultiplexer;
 import control.localization.StateEstimator;
 import gazebo_msgs.ModelStates;
 import org.apache.commons.math3.random.GaussianRandomGenerator;
@@ -53,7 +53,9 @@ final class TumExampleFlightFacade {
   private final StateEstimator stateEstimator;
 
   private TumExampleFlightFacade(
-      FiniteTrajectory4d trajectory4d, final ConnectedNode connectedNode) {
+      FiniteTrajectory4d trajectory4d,
+      final ConnectedNode connectedNode,
+      GazeboModelStatesDemultiplexer modelStatesDemultiplexer) {
     final String nodeName = connectedNode.getName().toString();
     final ParameterTree parameterTree = connectedNode.getParameterTree();
     final PidParameters pidLinearX =
@@ -94,7 +96,9 @@ final class TumExampleFlightFacade {
     }
 
     final ParrotServiceFactory parrotServiceFactory = TumSimServiceFactory.create(connectedNode);
-    stateEstimator = getFakeStateEstimator(getGazeboStateEstimator(connectedNode), connectedNode);
+    stateEstimator =
+        getFakeStateEstimator(
+            modelStatesDemultiplexer.getStateEstimator(MODEL_NAME), connectedNode);
     final LandService landService = parrotServiceFactory.createLandService();
     final FlyingStateService flyingStateService = parrotServiceFactory.createFlyingStateService();
     final TakeOffService takeOffService = parrotServiceFactory.createTakeOffService();
@@ -205,20 +209,32 @@ final class TumExampleFlightFacade {
    *
    * @param trajectory4d the trajectory which the drone will follow
    * @param connectedNode the connected node
+   * @param modelStatesDemultiplexer the demultiplexer of the model states of the node, shared by
+   *     all the drones of the node
    * @return a facade for flying with the drone in the Tum simulator
    */
   public static TumExampleFlightFacade create(
-      FiniteTrajectory4d trajectory4d, ConnectedNode connectedNode) {
-    return new TumExampleFlightFacade(trajectory4d, connectedNode);
+      FiniteTrajectory4d trajectory4d,
+      ConnectedNode connectedNode,
+      GazeboModelStatesDemultiplexer modelStatesDemultiplexer) {
+    return new TumExampleFlightFacade(trajectory4d, connectedNode, modelStatesDemultiplexer);
   }
 
-  private static StateEstimator getGazeboStateEstimator(ConnectedNode connectedNode) {
+  /**
+   * Creates the demultiplexer of the model states published by Gazebo. It subscribes to the model
+   * states topic, so it should be created once per node.
+   *
+   * @param connectedNode the connected node
+   * @return a demultiplexer which gives the state estimators of the drones of the node
+   */
+  public static GazeboModelStatesDemultiplexer createModelStatesDemultiplexer(
+      ConnectedNode connectedNode) {
     final MessagesSubscriberService<ModelStates> modelStateSubscriber =
         MessagesSubscriberService.create(
             connectedNode.<ModelStates>newSubscriber("/gazebo/model_states", ModelStates._TYPE),
             RosTime.create(connectedNode));
-    return GazeboModelStateEstimator.create(
-        modelStateSubscriber, MODEL_NAME, RosTime.create(connectedNode));
+    return GazeboModelStatesDemultiplexer.create(
+        modelStateSubscriber, RosTime.create(connectedNode));
   }
 
   private static StateEstimator getFakeStateEstimator(
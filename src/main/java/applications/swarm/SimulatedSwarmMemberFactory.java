@@ -0,0 +1,155 @@
+package applications.swarm;
+
+import com.google.common.collect.ImmutableList;
+import commands.Command;
+import commands.WaitForLocalizationDecorator;
+import commands.bebopcommands.BebopFollowTrajectory;
+import commands.bebopcommands.BebopLand;
+import commands.bebopcommands.BebopTakeOff;
+import commands.schedulers.ControlLoopScheduler;
+import commands.schedulers.ScheduledControlLoop;
+import control.DefaultPidParameters;
+import control.DroneVelocityController;
+import control.FiniteTrajectory4d;
+import control.dto.Pose;
+import simulation.SimulatedDrone;
+import taskexecutor.Task;
+import taskexecutor.TaskType;
+import time.TimeProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Creates the pipelines of {@link SimulatedDrone}s, so that a swarm can be flown by a {@link
+ * SwarmRuntime} in one process without ROS. Each drone starts on the ground below the first point
+ * of its trajectory, takes off, follows its trajectory with the default PID parameters and lands.
+ *
+ * <p>The drones run in real time. Their dynamics are stepped together by one periodic loop on a
+ * {@link ControlLoopScheduler}, which keeps running until {@link #shutdown()} is called. A step
+ * covers the time elapsed since the previous step, so that a late step does not slow the drones
+ * down.
+ */
+public final class SimulatedSwarmMemberFactory implements SwarmMemberFactory {
+
+  private static final double DEFAULT_PHYSICS_STEP_IN_SECONDS = 0.005;
+  private static final double DEFAULT_CONTROL_RATE_IN_SECONDS = 0.05;
+  private static final double PHYSICS_DURATION_IN_SECONDS = TimeUnit.DAYS.toSeconds(365);
+  private static final TimeProvider SYSTEM_TIME =
+      new TimeProvider() {
+        @Override
+        public long getCurrentTimeNanoSeconds() {
+          return System.nanoTime();
+        }
+
+        @Override
+        public double getCurrentTimeSeconds() {
+          return System.nanoTime() / 1.0e9;
+        }
+      };
+
+  private final List<SimulatedDrone> drones = new CopyOnWriteArrayList<>();
+  private final ScheduledControlLoop physicsLoop;
+
+  private SimulatedSwarmMemberFactory(
+      ControlLoopScheduler controlLoopScheduler, double physicsStepInSeconds) {
+    physicsLoop =
+        controlLoopScheduler.schedule(
+            new Runnable() {
+              private long lastStepTimeInNanoSeconds = SYSTEM_TIME.getCurrentTimeNanoSeconds();
+
+              @Override
+              public void run() {
+                final long currentTimeInNanoSeconds = SYSTEM_TIME.getCurrentTimeNanoSeconds();
+                final double durationInSeconds =
+                    (currentTimeInNanoSeconds - lastStepTimeInNanoSeconds) / 1.0e9;
+                lastStepTimeInNanoSeconds = currentTimeInNanoSeconds;
+                if (durationInSeconds > 0) {
+                  for (final SimulatedDrone drone : drones) {
+                    drone.step(durationInSeconds);
+                  }
+                }
+              }
+            },
+            physicsStepInSeconds,
+            PHYSICS_DURATION_IN_SECONDS);
+  }
+
+  /**
+   * Creates a factory whose drones are stepped every 5 milliseconds on the shared control loop
+   * scheduler.
+   *
+   * @return a factory instance
+   */
+  public static SimulatedSwarmMemberFactory create() {
+    return create(ControlLoopScheduler.getSharedInstance(), DEFAULT_PHYSICS_STEP_IN_SECONDS);
+  }
+
+  /**
+   * Creates a factory of simulated drones.
+   *
+   * @param controlLoopScheduler the scheduler which steps the dynamics of the drones
+   * @param physicsStepInSeconds the period of the steps of the dynamics
+   * @return a factory instance
+   */
+  public static SimulatedSwarmMemberFactory create(
+      ControlLoopScheduler controlLoopScheduler, double physicsStepInSeconds) {
+    checkArgument(physicsStepInSeconds > 0, "The physics step must be positive.");
+    return new SimulatedSwarmMemberFactory(controlLoopScheduler, physicsStepInSeconds);
+  }
+
+  @Override
+  public SwarmMember create(int droneIndex, FiniteTrajectory4d trajectory) {
+    final SimulatedDrone drone =
+        SimulatedDrone.builder()
+            .withTimeProvider(SYSTEM_TIME)
+            .withInitialPose(
+                Pose.builder()
+                    .setX(trajectory.getDesiredPositionX(0))
+                    .setY(trajectory.getDesiredPositionY(0))
+                    .setZ(0)
+                    .setYaw(trajectory.getDesiredAngleZ(0))
+                    .build())
+            .build();
+    drones.add(drone);
+
+    final Command followTrajectory =
+        BebopFollowTrajectory.builder()
+            .withStateEstimator(drone)
+            .withVelocity4dService(drone)
+            .withVelocityController4d(
+                DroneVelocityController.pidBuilder()
+                    .withTrajectory4d(trajectory)
+                    .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+                    .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+                    .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+                    .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+                    .build())
+            .withTimeProvider(SYSTEM_TIME)
+            .withDurationInSeconds(trajectory.getTrajectoryDuration())
+            .withControlRateInSeconds(DEFAULT_CONTROL_RATE_IN_SECONDS)
+            .build();
+    final Task flyTask =
+        Task.create(
+            TaskType.NORMAL_TASK,
+            BebopTakeOff.create(drone, drone, drone),
+            WaitForLocalizationDecorator.create(drone, followTrajectory),
+            BebopLand.create(drone, drone));
+    final Task emergencyTask =
+        Task.create(TaskType.FIRST_ORDER_EMERGENCY, BebopLand.create(drone, drone));
+    return SwarmMember.create("simulated_drone_" + droneIndex, flyTask, emergencyTask);
+  }
+
+  /** Returns the drones created by this factory, in the order of their creation. */
+  public ImmutableList<SimulatedDrone> getDrones() {
+    return ImmutableList.copyOf(drones);
+  }
+
+  /** Stops stepping the dynamics of the drones. */
+  public void shutdown() {
+    physicsLoop.cancel();
+  }
+}
@@ -0,0 +1,49 @@
+package applications.swarm;
+
+import taskexecutor.Task;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The pipeline of one drone of a swarm: the task which flies the drone (e.g., take off, follow a
+ * trajectory and land) and the task which is executed in case of emergency.
+ */
+public final class SwarmMember {
+  private final String droneName;
+  private final Task flyTask;
+  private final Task emergencyTask;
+
+  private SwarmMember(String droneName, Task flyTask, Task emergencyTask) {
+    checkArgument(
+        emergencyTask.hasHigherPriority(flyTask),
+        "The emergency task must have a higher priority than the fly task.");
+    this.droneName = droneName;
+    this.flyTask = flyTask;
+    this.emergencyTask = emergencyTask;
+  }
+
+  /**
+   * Creates a member of a swarm.
+   *
+   * @param droneName the name of the drone, used for logging
+   * @param flyTask the task which flies the drone
+   * @param emergencyTask the task which is executed in case of emergency, it must have a higher
+   *     priority than the fly task
+   * @return a swarm member instance
+   */
+  public static SwarmMember create(String droneName, Task flyTask, Task emergencyTask) {
+    return new SwarmMember(droneName, flyTask, emergencyTask);
+  }
+
+  public String getDroneName() {
+    return droneName;
+  }
+
+  public Task getFlyTask() {
+    return flyTask;
+  }
+
+  public Task getEmergencyTask() {
+    return emergencyTask;
+  }
+}
@@ -0,0 +1,22 @@
+package applications.swarm;
+
+import control.FiniteTrajectory4d;
+
+/**
+ * Creates the pipeline of each drone of a swarm. An implementation typically wraps a per-drone
+ * service factory (e.g., a {@link services.parrot.BebopServiceFactory} or a {@link
+ * services.crates.CratesServiceFactory}) and shares the resources which can be shared between the
+ * drones, such as the subscribers and the state estimators. See {@link
+ * applications.parrot.bebop.BebopSwarmMemberFactory}, {@link
+ * applications.cratessim.CratesSwarmMemberFactory} and {@link SimulatedSwarmMemberFactory}.
+ */
+public interface SwarmMemberFactory {
+  /**
+   * Creates the pipeline of one drone.
+   *
+   * @param droneIndex the index of the drone in the swarm, starting from zero
+   * @param trajectory the trajectory that the drone has to follow
+   * @return the pipeline of the drone
+   */
+  SwarmMember create(int droneIndex, FiniteTrajectory4d trajectory);
+}
@@ -0,0 +1,303 @@
+package applications.swarm;
+
+import applications.trajectory.MultiTrajectoryServer;
+import applications.trajectory.TrajectoryServer;
+import com.google.common.collect.ImmutableList;
+import commands.Command;
+import commands.schedulers.SwarmTickBarrier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import taskexecutor.Task;
+import taskexecutor.TaskExecutor;
+import taskexecutor.TaskExecutorService;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Flies a swarm of drones from one process. Each trajectory of a {@link MultiTrajectoryServer} is
+ * assigned to one drone, whose pipeline is created by a {@link SwarmMemberFactory}.
+ *
+ * <p>The drones are isolated from each other: the tasks of each drone are executed by its own
+ * {@link TaskExecutorService}, and a command which throws an exception only stops its own drone,
+ * which then executes its emergency task. As the commands block while they wait (e.g., for a flying
+ * state or for the end of a trajectory), each drone has its own worker thread, so the number of
+ * threads grows with the number of drones. These workers are idle most of the time: the periodic
+ * work of the drones (e.g., the control loops of the follow trajectory commands) is multiplexed on
+ * the shared {@link commands.schedulers.ControlLoopScheduler}, whose number of workers is bounded
+ * by the number of processors.
+ *
+ * <p>If the drones of the swarm are synchronized by a {@link SwarmTickBarrier}, a drone whose fly
+ * task fails or is preempted by its emergency task is removed from the barrier, so that the other
+ * drones do not wait for it.
+ *
+ * <p>A swarm of simulated drones can be flown without ROS with a {@link
+ * SimulatedSwarmMemberFactory}.
+ */
+public final class SwarmRuntime {
+
+  private static final Logger logger = LoggerFactory.getLogger(SwarmRuntime.class);
+
+  private final ImmutableList<DroneRunner> droneRunners;
+  private final CountDownLatch finishedDrones;
+  @Nullable private final SwarmTickBarrier swarmTickBarrier;
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  private SwarmRuntime(Builder builder) {
+    final List<TrajectoryServer> trajectoryServers =
+        builder.multiTrajectoryServer.getAllDifferentTrajectories();
+    finishedDrones = new CountDownLatch(trajectoryServers.size());
+    swarmTickBarrier = builder.swarmTickBarrier;
+
+    final ImmutableList.Builder<DroneRunner> droneRunnersBuilder = ImmutableList.builder();
+    for (int i = 0; i < trajectoryServers.size(); i++) {
+      final SwarmMember swarmMember =
+          builder.swarmMemberFactory.create(i, trajectoryServers.get(i).getConcreteTrajectory());
+      droneRunnersBuilder.add(new DroneRunner(swarmMember));
+    }
+    droneRunners = droneRunnersBuilder.build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Starts the fly tasks of all the drones. This method does not block.
+   *
+   * @throws IllegalStateException if the swarm has already been started
+   */
+  public void start() {
+    checkState(started.compareAndSet(false, true), "The swarm has already been started.");
+    logger.info("Start flying a swarm of {} drones.", droneRunners.size());
+    for (final DroneRunner droneRunner : droneRunners) {
+      droneRunner.start();
+    }
+  }
+
+  /** Submits the emergency task of each drone, which preempts its fly task. */
+  public void emergencyLand() {
+    logger.info("Emergency landing of the whole swarm.");
+    for (final DroneRunner droneRunner : droneRunners) {
+      droneRunner.submitEmergencyTask();
+    }
+  }
+
+  /**
+   * Blocks until each drone has finished either its fly task or its emergency task, or until the
+   * timeout elapses.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the time unit of {@code timeout}
+   * @return true if all the drones have finished, false if the timeout elapsed
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return finishedDrones.await(timeout, unit);
+  }
+
+  /** Returns the number of drones in the swarm. */
+  public int getNumberOfDrones() {
+    return droneRunners.size();
+  }
+
+  /**
+   * Gets the task executor of a drone, e.g., to register an emergency notifier for that drone.
+   *
+   * @param droneIndex the index of the drone in the swarm
+   * @return the task executor of the drone
+   */
+  public TaskExecutor getTaskExecutor(int droneIndex) {
+    return droneRunners.get(droneIndex).taskExecutor;
+  }
+
+  /**
+   * Gets the emergency task of a drone as it is executed by this runtime. Submitting this task
+   * instead of the emergency task of the {@link SwarmMember} lets the runtime know when the drone
+   * has finished.
+   *
+   * @param droneIndex the index of the drone in the swarm
+   * @return the emergency task of the drone
+   */
+  public Task getEmergencyTask(int droneIndex) {
+    return droneRunners.get(droneIndex).emergencyTask;
+  }
+
+  /**
+   * Gets the drones which have stopped flying because one of their commands threw an exception.
+   *
+   * @return the names of the failed drones
+   */
+  public ImmutableList<String> getFailedDroneNames() {
+    final ImmutableList.Builder<String> failedDroneNames = ImmutableList.builder();
+    for (final DroneRunner droneRunner : droneRunners) {
+      if (droneRunner.failed) {
+        failedDroneNames.add(droneRunner.swarmMember.getDroneName());
+      }
+    }
+    return failedDroneNames.build();
+  }
+
+  /** Stops the running tasks and the workers of all the drones. */
+  public void shutdown() {
+    for (final DroneRunner droneRunner : droneRunners) {
+      droneRunner.taskExecutor.shutdown();
+    }
+  }
+
+  private final class DroneRunner {
+    private final SwarmMember swarmMember;
+    private final TaskExecutorService taskExecutor = TaskExecutorService.create();
+    private final Task flyTask;
+    private final Task emergencyTask;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final AtomicBoolean removedFromBarrier = new AtomicBoolean();
+    private volatile boolean failed;
+    private volatile boolean flyTaskCompleted;
+
+    private DroneRunner(SwarmMember swarmMember) {
+      this.swarmMember = swarmMember;
+      this.flyTask = isolate(swarmMember.getFlyTask(), false);
+      this.emergencyTask = isolate(swarmMember.getEmergencyTask(), true);
+    }
+
+    private void start() {
+      taskExecutor.submitTask(flyTask);
+    }
+
+    private void submitEmergencyTask() {
+      taskExecutor.submitTask(emergencyTask);
+    }
+
+    private Task isolate(Task task, final boolean emergency) {
+      final ImmutableList.Builder<Command> commands = ImmutableList.builder();
+      if (emergency) {
+        commands.add(
+            new Command() {
+              @Override
+              public void execute() {
+                removeFromBarrier();
+              }
+            });
+      }
+      for (final Command command : task.getCommands()) {
+        commands.add(isolate(command, emergency));
+      }
+      commands.add(
+          new Command() {
+            @Override
+            public void execute() {
+              if (!emergency && !failed) {
+                flyTaskCompleted = true;
+              }
+              finish();
+            }
+          });
+      return Task.create(commands.build(), task.getTaskType());
+    }
+
+    private Command isolate(final Command command, final boolean emergency) {
+      return new Command() {
+        @Override
+        public void execute() {
+          if (failed && !emergency) {
+            return;
+          }
+
+          try {
+            command.execute();
+          } catch (RuntimeException e) {
+            failed = true;
+            logger.warn("A command of drone {} failed.", swarmMember.getDroneName(), e);
+            removeFromBarrier();
+            if (!emergency) {
+              // preempts the fly task of this drone only, the other drones keep flying
+              submitEmergencyTask();
+            }
+          }
+        }
+      };
+    }
+
+    /** Removes this drone from the barrier once, unless it has completed its fly task. */
+    private void removeFromBarrier() {
+      if (swarmTickBarrier != null
+          && !flyTaskCompleted
+          && removedFromBarrier.compareAndSet(false, true)) {
+        logger.info("Remove drone {} from the swarm tick barrier.", swarmMember.getDroneName());
+        swarmTickBarrier.removeDrone();
+      }
+    }
+
+    private void finish() {
+      if (finished.compareAndSet(false, true)) {
+        logger.info("Drone {} finished.", swarmMember.getDroneName());
+        finishedDrones.countDown();
+      }
+    }
+  }
+
+  /** {@code SwarmRuntime} builder static inner class. */
+  public static final class Builder {
+    private MultiTrajectoryServer multiTrajectoryServer;
+    private SwarmMemberFactory swarmMemberFactory;
+    @Nullable private SwarmTickBarrier swarmTickBarrier;
+
+    private Builder() {}
+
+    /**
+     * Sets the {@code multiTrajectoryServer} and returns a reference to this Builder so that the
+     * methods can be chained together.
+     *
+     * @param val the {@code multiTrajectoryServer} to set
+     * @return a reference to this Builder
+     */
+    public Builder withMultiTrajectoryServer(MultiTrajectoryServer val) {
+      multiTrajectoryServer = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code swarmMemberFactory} and returns a reference to this Builder so that the
+     * methods can be chained together.
+     *
+     * @param val the {@code swarmMemberFactory} to set
+     * @return a reference to this Builder
+     */
+    public Builder withSwarmMemberFactory(SwarmMemberFactory val) {
+      swarmMemberFactory = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code swarmTickBarrier} which synchronizes the control loops of the drones, if any,
+     * and returns a reference to this Builder so that the methods can be chained together.
+     *
+     * @param val the {@code swarmTickBarrier} to set
+     * @return a reference to this Builder
+     */
+    public Builder withSwarmTickBarrier(@Nullable SwarmTickBarrier val) {
+      swarmTickBarrier = val;
+      return this;
+    }
+
+    /**
+     * Returns a {@code SwarmRuntime} built from the parameters previously set. The pipelines of all
+     * the drones are created, but the drones do not fly until {@link SwarmRuntime#start()} is
+     * called.
+     *
+     * @return a {@code SwarmRuntime} built with parameters of this {@code SwarmRuntime.Builder}
+     */
+    public SwarmRuntime build() {
+      checkNotNull(multiTrajectoryServer, "missing multiTrajectoryServer");
+      checkNotNull(swarmMemberFactory, "missing swarmMemberFactory");
+      return new SwarmRuntime(this);
+    }
+  }
+}
@@ -0,0 +1,7 @@
+/**
+ * This package contains the runtime which flies a swarm of drones from one process.
+ */
+@ParametersAreNonnullByDefault
+package applications.swarm;
+
+import javax.annotation.ParametersAreNonnullByDefault;
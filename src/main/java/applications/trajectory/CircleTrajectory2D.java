@@ -2,7 +2,7 @@ package applications.trajectory;
 
 import applications.trajectory.geom.point.Point3D;
 import applications.trajectory.geom.point.Point4D;
-import control.Trajectory2d;
+import control.DifferentiableTrajectory2d;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -10,7 +10,7 @@ import static com.google.common.base.Preconditions.checkArgument;
  * A circular trajectory in 2 dimensions of motion specified in a frequency (How many revolutions
  * per second) and a radius. Created by Kristof Coninx.
  */
-final class CircleTrajectory2D extends PeriodicTrajectory implements Trajectory2d {
+final class CircleTrajectory2D extends PeriodicTrajectory implements DifferentiableTrajectory2d {
   private final double freq2pi;
 
   /**
@@ -53,6 +53,38 @@ final class CircleTrajectory2D extends PeriodicTrajectory implements Trajectory2
         + getRadius() * StrictMath.sin(freq2pi * currentTime + getPhaseDisplacement());
   }
 
+  @Override
+  public double getDesiredVelocityAbscissa(double timeInSeconds) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    return -getRadius()
+        * freq2pi
+        * StrictMath.sin(freq2pi * currentTime + getPhaseDisplacement());
+  }
+
+  @Override
+  public double getDesiredVelocityOrdinate(double timeInSeconds) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    return getRadius() * freq2pi * StrictMath.cos(freq2pi * currentTime + getPhaseDisplacement());
+  }
+
+  @Override
+  public double getDesiredAccelerationAbscissa(double timeInSeconds) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    return -getRadius()
+        * freq2pi
+        * freq2pi
+        * StrictMath.cos(freq2pi * currentTime + getPhaseDisplacement());
+  }
+
+  @Override
+  public double getDesiredAccelerationOrdinate(double timeInSeconds) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    return -getRadius()
+        * freq2pi
+        * freq2pi
+        * StrictMath.sin(freq2pi * currentTime + getPhaseDisplacement());
+  }
+
   static class Builder {
     private double radius;
     private double frequency;
@@ -2,8 +2,10 @@ package applications.trajectory;
 
 import applications.trajectory.geom.point.Point3D;
 import applications.trajectory.geom.point.Point4D;
-import control.Trajectory1d;
-import control.Trajectory4d;
+import control.DifferentiableTrajectory1d;
+import control.DifferentiableTrajectory4d;
+import control.PrimitiveVelocityController4d;
+import control.TrajectoryState4d;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -15,11 +17,11 @@ import static com.google.common.base.Preconditions.checkArgument;
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-final class CircleTrajectory4D extends PeriodicTrajectory implements Trajectory4d {
+final class CircleTrajectory4D extends PeriodicTrajectory implements DifferentiableTrajectory4d {
   private final Point3D location;
   private final CircleTrajectory2D xycircle;
   private final double scaleFactor;
-  private final Trajectory1d angularMotion;
+  private final DifferentiableTrajectory1d angularMotion;
 
   private CircleTrajectory4D(
       Point3D location, double phase, double radius, double frequency, double planeAngle) {
@@ -38,7 +40,7 @@ final class CircleTrajectory4D extends PeriodicTrajectory implements Trajectory4
       double radius,
       double frequency,
       double planeAngle,
-      Trajectory1d yawTrajectory) {
+      DifferentiableTrajectory1d yawTrajectory) {
     super(phase, Point4D.from(location, 0), radius, frequency);
     this.location = location;
     this.scaleFactor = StrictMath.sin(planeAngle);
@@ -95,6 +97,34 @@ final class CircleTrajectory4D extends PeriodicTrajectory implements Trajectory4
     return angularMotion.getDesiredPosition(timeInSeconds);
   }
 
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    final double ordinate = xycircle.getDesiredPositionOrdinate(timeInSeconds) - location.getY();
+    final double velocityOrdinate = xycircle.getDesiredVelocityOrdinate(timeInSeconds);
+    final double accelerationOrdinate = xycircle.getDesiredAccelerationOrdinate(timeInSeconds);
+
+    state.set(
+        PrimitiveVelocityController4d.X,
+        xycircle.getDesiredPositionAbscissa(timeInSeconds),
+        xycircle.getDesiredVelocityAbscissa(timeInSeconds),
+        xycircle.getDesiredAccelerationAbscissa(timeInSeconds));
+    state.set(
+        PrimitiveVelocityController4d.Y,
+        (1 - scaleFactor) * ordinate + location.getY(),
+        (1 - scaleFactor) * velocityOrdinate,
+        (1 - scaleFactor) * accelerationOrdinate);
+    state.set(
+        PrimitiveVelocityController4d.Z,
+        scaleFactor * ordinate + location.getZ(),
+        scaleFactor * velocityOrdinate,
+        scaleFactor * accelerationOrdinate);
+    state.set(
+        PrimitiveVelocityController4d.YAW,
+        angularMotion.getDesiredPosition(timeInSeconds),
+        angularMotion.getDesiredVelocity(timeInSeconds),
+        angularMotion.getDesiredAcceleration(timeInSeconds));
+  }
+
   @Override
   public String toString() {
     return "CircleTrajectory4D{"
@@ -2,7 +2,7 @@ package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
 import com.google.common.annotations.VisibleForTesting;
-import control.Trajectory1d;
+import control.DifferentiableTrajectory1d;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -12,7 +12,7 @@ import static com.google.common.base.Preconditions.checkArgument;
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-class ConstantVelocityAngularTrajectory1D extends PeriodicTrajectory implements Trajectory1d {
+class ConstantVelocityAngularTrajectory1D extends PeriodicTrajectory implements DifferentiableTrajectory1d {
   private static final double TWOPI = Math.PI * 2;
 
   /**
@@ -41,4 +41,16 @@ class ConstantVelocityAngularTrajectory1D extends PeriodicTrajectory implements
     final double currentTime = getRelativeTime(timeInSeconds);
     return (TWOPI * getFrequency() * currentTime + getPhaseDisplacement()) % TWOPI;
   }
+
+  @Override
+  public double getDesiredVelocity(double timeInSeconds) {
+    setStartTime(timeInSeconds);
+    return TWOPI * getFrequency();
+  }
+
+  @Override
+  public double getDesiredAcceleration(double timeInSeconds) {
+    setStartTime(timeInSeconds);
+    return 0;
+  }
 }
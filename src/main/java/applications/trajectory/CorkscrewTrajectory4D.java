@@ -3,10 +3,13 @@ package applications.trajectory;
 import applications.trajectory.geom.point.Point3D;
 import applications.trajectory.geom.point.Point4D;
 import com.google.auto.value.AutoValue;
+import control.DifferentiableTrajectory2d;
+import control.DifferentiableTrajectory4d;
 import control.FiniteTrajectory4d;
-import control.Trajectory2d;
+import control.PrimitiveVelocityController4d;
+import control.TrajectoryState4d;
+import utils.math.RotationMatrix3d;
 import utils.math.RotationOrder;
-import utils.math.Transformations;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -14,11 +17,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * Corkscrew motion around a straight line trajectory defined by an origin and destination point, a
  * radius as perpendicular distance to the straight line (origin-destination) and a frequency to
- * specify the number of revolutions.
+ * specify the number of revolutions. Once started, the trajectory only depends on the time, so it
+ * can be evaluated at any point in time and from several threads.
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements FiniteTrajectory4d {
+public final class CorkscrewTrajectory4D extends PeriodicTrajectory
+    implements FiniteTrajectory4d, DifferentiableTrajectory4d {
 
   private static final double EPSILON = 0.00000001d;
   private static final String VELOCITY_ERROR_MESSAGE =
@@ -29,8 +34,9 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
   private final double aroundY;
   private final Point4D origin;
   private final Point3D destination;
+  private final RotationMatrix3d reverseRotation;
 
-  private Point4DCache cache;
+  private volatile Point4DCache cache;
 
   private CorkscrewTrajectory4D(
       Point4D origin,
@@ -93,6 +99,8 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
         StrictMath.acos(
             translated.getX()
                 / StrictMath.sqrt(Math.pow(translated.getX(), 2) + StrictMath.pow(zyNorm, 2)));
+    // the rotation angles are constant, so the rotation matrix is only computed once
+    this.reverseRotation = RotationMatrix3d.createReverse(aroundX, aroundY, 0, RotationOrder.XYZ);
     //set initial cache
     this.cache = newCache(Point4D.origin(), -1);
   }
@@ -145,44 +153,36 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
 
   @Override
   public double getDesiredPositionX(double timeInSeconds) {
-    final double currentTime = getRelativeTime(timeInSeconds);
-    refreshCache(currentTime);
-    return translationTransform(getCachePoint()).getX();
+    return getPoint(getRelativeTime(timeInSeconds)).getX();
   }
 
-  private void refreshCache(double time) {
-    if (!isEqual(cache.getTimeMark(), time)) {
-      Point4D beforeTransPoint =
-          Point4D.create(
-              unitTrajectory.getDesiredPositionX(time),
-              unitTrajectory.getDesiredPositionY(time),
-              unitTrajectory.getDesiredPositionZ(time),
-              unitTrajectory.getDesiredAngleZ(time));
-      setCache(beforeTransPoint, time);
+  private Point4D getPoint(double time) {
+    // the cache is immutable, so that a concurrent reader never mixes two points in time
+    final Point4DCache currentCache = cache;
+    if (isEqual(currentCache.getTimeMark(), time)) {
+      return currentCache.getDestinationPoint();
     }
+    final Point4D point =
+        translationTransform(
+            Point4D.create(
+                unitTrajectory.getDesiredPositionX(time),
+                unitTrajectory.getDesiredPositionY(time),
+                unitTrajectory.getDesiredPositionZ(time),
+                unitTrajectory.getDesiredAngleZ(time)));
+    cache = newCache(point, time);
+    return point;
   }
 
   private Point4D translationTransform(Point4D toTrans) {
-    return rotationTransform(toTrans, aroundX, aroundY).plus(origin);
-  }
-
-  private Point4D getCachePoint() {
-    return this.cache.getDestinationPoint();
+    return rotationTransform(toTrans).plus(origin);
   }
 
   private static boolean isEqual(double a, double b) {
     return Math.abs(a - b) < EPSILON;
   }
 
-  private void setCache(Point4D beforeTransPoint, double time) {
-    this.cache = newCache(beforeTransPoint, time);
-  }
-
-  private static Point4D rotationTransform(Point4D toTrans, double aroundX, double aroundY) {
-    return Point4D.from(
-        Transformations.reverseRotation(
-            Point3D.project(toTrans), aroundX, aroundY, 0, RotationOrder.XYZ),
-        0);
+  private Point4D rotationTransform(Point4D toTrans) {
+    return Point4D.from(reverseRotation.apply(Point3D.project(toTrans)), 0);
   }
 
   @Override
@@ -203,9 +203,7 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
 
   @Override
   public double getDesiredPositionY(double timeInSeconds) {
-    final double currentTime = getRelativeTime(timeInSeconds);
-    refreshCache(currentTime);
-    return translationTransform(getCachePoint()).getY();
+    return getPoint(getRelativeTime(timeInSeconds)).getY();
   }
 
   private Point4D getOrigin() {
@@ -214,9 +212,7 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
 
   @Override
   public double getDesiredPositionZ(double timeInSeconds) {
-    final double currentTime = getRelativeTime(timeInSeconds);
-    refreshCache(currentTime);
-    return translationTransform(getCachePoint()).getZ();
+    return getPoint(getRelativeTime(timeInSeconds)).getZ();
   }
 
   private Point3D getDestination() {
@@ -225,9 +221,40 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
 
   @Override
   public double getDesiredAngleZ(double timeInSeconds) {
+    return getPoint(getRelativeTime(timeInSeconds)).getAngle();
+  }
+
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
     final double currentTime = getRelativeTime(timeInSeconds);
-    refreshCache(currentTime);
-    return translationTransform(getCachePoint()).getAngle();
+    final Point4D position = getPoint(currentTime);
+
+    // the velocity and the acceleration are only rotated, not translated
+    final TrajectoryState4d unitState = TrajectoryState4d.create();
+    unitTrajectory.getDesiredState(currentTime, unitState);
+    final double vx = unitState.getVelocity(PrimitiveVelocityController4d.X);
+    final double vy = unitState.getVelocity(PrimitiveVelocityController4d.Y);
+    final double vz = unitState.getVelocity(PrimitiveVelocityController4d.Z);
+    final double ax = unitState.getAcceleration(PrimitiveVelocityController4d.X);
+    final double ay = unitState.getAcceleration(PrimitiveVelocityController4d.Y);
+    final double az = unitState.getAcceleration(PrimitiveVelocityController4d.Z);
+
+    state.set(
+        PrimitiveVelocityController4d.X,
+        position.getX(),
+        reverseRotation.applyX(vx, vy, vz),
+        reverseRotation.applyX(ax, ay, az));
+    state.set(
+        PrimitiveVelocityController4d.Y,
+        position.getY(),
+        reverseRotation.applyY(vx, vy, vz),
+        reverseRotation.applyY(ax, ay, az));
+    state.set(
+        PrimitiveVelocityController4d.Z,
+        position.getZ(),
+        reverseRotation.applyZ(vx, vy, vz),
+        reverseRotation.applyZ(ax, ay, az));
+    state.set(PrimitiveVelocityController4d.YAW, position.getAngle(), 0, 0);
   }
 
   @AutoValue
@@ -329,20 +356,18 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
     }
   }
 
-  private final class UnitTrajectory implements FiniteTrajectory4d {
+  private final class UnitTrajectory implements FiniteTrajectory4d, DifferentiableTrajectory4d {
     private final LinearTrajectory1D linear;
     private final double endPoint;
     private final double speed;
     private final double frequency;
     private final double radius;
-    private Trajectory2d circlePlane;
-    private boolean atEnd;
+    private final DifferentiableTrajectory2d circlePlane;
 
     private UnitTrajectory(CircleTrajectory2D circlePlane, double speed, double endPoint) {
       this.linear = new LinearTrajectory1D(0, speed);
       this.circlePlane = circlePlane;
       this.endPoint = endPoint;
-      this.atEnd = false;
       this.speed = speed;
       this.frequency = circlePlane.getFrequency();
       this.radius = circlePlane.getRadius();
@@ -354,11 +379,7 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
 
     @Override
     public double getDesiredPositionX(double timeInSeconds) {
-      if (atEnd) {
-        return endPoint;
-      }
-      if (linear.getDesiredPosition(timeInSeconds) > endPoint) {
-        markEnd();
+      if (isAtEnd(timeInSeconds)) {
         return endPoint;
       }
       return linear.getDesiredPosition(timeInSeconds);
@@ -368,36 +389,22 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
       return radius;
     }
 
-    private void markEnd() {
-      this.atEnd = true;
-      this.circlePlane = new NoMovement2DTrajectory();
+    private boolean isAtEnd(double timeInSeconds) {
+      return linear.getDesiredPosition(timeInSeconds) > endPoint;
     }
 
     double getFrequency() {
       return frequency;
     }
 
-    private class NoMovement2DTrajectory implements Trajectory2d {
-
-      @Override
-      public double getDesiredPositionAbscissa(double timeInSeconds) {
-        return 0;
-      }
-
-      @Override
-      public double getDesiredPositionOrdinate(double timeInSeconds) {
-        return 0;
-      }
-    }
-
     @Override
     public double getDesiredPositionY(double timeInSeconds) {
-      return circlePlane.getDesiredPositionOrdinate(timeInSeconds);
+      return isAtEnd(timeInSeconds) ? 0 : circlePlane.getDesiredPositionOrdinate(timeInSeconds);
     }
 
     @Override
     public double getDesiredPositionZ(double timeInSeconds) {
-      return circlePlane.getDesiredPositionAbscissa(timeInSeconds);
+      return isAtEnd(timeInSeconds) ? 0 : circlePlane.getDesiredPositionAbscissa(timeInSeconds);
     }
 
     @Override
@@ -405,6 +412,29 @@ public final class CorkscrewTrajectory4D extends PeriodicTrajectory implements F
       return 0;
     }
 
+    @Override
+    public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+      if (isAtEnd(timeInSeconds)) {
+        state.set(PrimitiveVelocityController4d.X, endPoint, 0, 0);
+        state.set(PrimitiveVelocityController4d.Y, 0, 0, 0);
+        state.set(PrimitiveVelocityController4d.Z, 0, 0, 0);
+      } else {
+        state.set(
+            PrimitiveVelocityController4d.X, linear.getDesiredPosition(timeInSeconds), speed, 0);
+        state.set(
+            PrimitiveVelocityController4d.Y,
+            circlePlane.getDesiredPositionOrdinate(timeInSeconds),
+            circlePlane.getDesiredVelocityOrdinate(timeInSeconds),
+            circlePlane.getDesiredAccelerationOrdinate(timeInSeconds));
+        state.set(
+            PrimitiveVelocityController4d.Z,
+            circlePlane.getDesiredPositionAbscissa(timeInSeconds),
+            circlePlane.getDesiredVelocityAbscissa(timeInSeconds),
+            circlePlane.getDesiredAccelerationAbscissa(timeInSeconds));
+      }
+      state.set(PrimitiveVelocityController4d.YAW, 0, 0, 0);
+    }
+
     @Override
     public double getTrajectoryDuration() {
       return endPoint / speed;
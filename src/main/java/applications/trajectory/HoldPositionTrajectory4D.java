@@ -1,10 +1,12 @@
 package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
-import control.Trajectory4d;
+import control.DifferentiableTrajectory4d;
+import control.PrimitiveVelocityController4d;
+import control.TrajectoryState4d;
 
 /** @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be> */
-class HoldPositionTrajectory4D implements Trajectory4d {
+class HoldPositionTrajectory4D implements DifferentiableTrajectory4d {
   private final Point4D targetPoint;
 
   HoldPositionTrajectory4D(Point4D targetpoint) {
@@ -31,6 +33,14 @@ class HoldPositionTrajectory4D implements Trajectory4d {
     return targetPoint.getAngle();
   }
 
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    state.set(PrimitiveVelocityController4d.X, targetPoint.getX(), 0, 0);
+    state.set(PrimitiveVelocityController4d.Y, targetPoint.getY(), 0, 0);
+    state.set(PrimitiveVelocityController4d.Z, targetPoint.getZ(), 0, 0);
+    state.set(PrimitiveVelocityController4d.YAW, targetPoint.getAngle(), 0, 0);
+  }
+
   @Override
   public String toString() {
     return "HoldPositionTrajectory4D{" + "target point=" + targetPoint + '}';
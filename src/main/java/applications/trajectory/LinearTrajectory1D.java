@@ -1,13 +1,14 @@
 package applications.trajectory;
 
-import control.Trajectory1d;
+import control.DifferentiableTrajectory1d;
 
 /**
- * A linear trajectory in one dimension.
+ * A linear trajectory in one dimension. The time is relative to the start of the line, as given by
+ * the enclosing trajectory.
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-class LinearTrajectory1D extends BasicTrajectory implements Trajectory1d {
+class LinearTrajectory1D implements DifferentiableTrajectory1d {
   private final double startComp;
   private final double speedComp;
 
@@ -18,8 +19,16 @@ class LinearTrajectory1D extends BasicTrajectory implements Trajectory1d {
 
   @Override
   public double getDesiredPosition(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    return startComp + speedComp * currentTime;
+    return startComp + speedComp * timeInSeconds;
+  }
+
+  @Override
+  public double getDesiredVelocity(double timeInSeconds) {
+    return speedComp;
+  }
+
+  @Override
+  public double getDesiredAcceleration(double timeInSeconds) {
+    return 0;
   }
 }
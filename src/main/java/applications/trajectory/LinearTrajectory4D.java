@@ -1,20 +1,23 @@
 package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
-import control.Trajectory1d;
-import control.Trajectory4d;
+import control.DifferentiableTrajectory4d;
+import control.PrimitiveVelocityController4d;
+import control.TrajectoryState4d;
 
 /**
- * A linear trajectory in four dimensions as a composite of four 1d linear components.
+ * A linear trajectory in four dimensions as a composite of four 1d linear components. It does not
+ * start at its first evaluation: the time is relative to the start of the line, as given by the
+ * enclosing trajectory, so that it can be evaluated at any point in time.
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-class LinearTrajectory4D extends BasicTrajectory implements Trajectory4d {
+class LinearTrajectory4D implements DifferentiableTrajectory4d {
 
-  private final Trajectory1d linearX;
-  private final Trajectory1d linearY;
-  private final Trajectory1d linearZ;
-  private final Trajectory1d angleZ;
+  private final LinearTrajectory1D linearX;
+  private final LinearTrajectory1D linearY;
+  private final LinearTrajectory1D linearZ;
+  private final LinearTrajectory1D angleZ;
 
   LinearTrajectory4D(Point4D startComponent, Point4D speedComponent) {
     this.linearX = new LinearTrajectory1D(startComponent.getX(), speedComponent.getX());
@@ -25,29 +28,38 @@ class LinearTrajectory4D extends BasicTrajectory implements Trajectory4d {
 
   @Override
   public double getDesiredPositionX(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    return this.linearX.getDesiredPosition(currentTime);
+    return this.linearX.getDesiredPosition(timeInSeconds);
   }
 
   @Override
   public double getDesiredPositionY(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    return this.linearY.getDesiredPosition(currentTime);
+    return this.linearY.getDesiredPosition(timeInSeconds);
   }
 
   @Override
   public double getDesiredPositionZ(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    return this.linearZ.getDesiredPosition(currentTime);
+    return this.linearZ.getDesiredPosition(timeInSeconds);
   }
 
   @Override
   public double getDesiredAngleZ(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    return this.angleZ.getDesiredPosition(currentTime);
+    return this.angleZ.getDesiredPosition(timeInSeconds);
+  }
+
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    setAxisState(state, PrimitiveVelocityController4d.X, linearX, timeInSeconds);
+    setAxisState(state, PrimitiveVelocityController4d.Y, linearY, timeInSeconds);
+    setAxisState(state, PrimitiveVelocityController4d.Z, linearZ, timeInSeconds);
+    setAxisState(state, PrimitiveVelocityController4d.YAW, angleZ, timeInSeconds);
+  }
+
+  private static void setAxisState(
+      TrajectoryState4d state, int axis, LinearTrajectory1D trajectory, double timeInSeconds) {
+    state.set(
+        axis,
+        trajectory.getDesiredPosition(timeInSeconds),
+        trajectory.getDesiredVelocity(timeInSeconds),
+        trajectory.getDesiredAcceleration(timeInSeconds));
   }
 }
@@ -1,7 +1,7 @@
 package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
-import control.Trajectory1d;
+import control.DifferentiableTrajectory1d;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -13,7 +13,7 @@ import static com.google.common.base.Preconditions.checkArgument;
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-class PendulumSwingTrajectory1D extends PeriodicTrajectory implements Trajectory1d {
+class PendulumSwingTrajectory1D extends PeriodicTrajectory implements DifferentiableTrajectory1d {
   private static final double MAXRANGE_VELOCITY_PERIODIC_PART = 0.649091;
 
   /**
@@ -46,4 +46,28 @@ class PendulumSwingTrajectory1D extends PeriodicTrajectory implements Trajectory
                 TrajectoryUtils.pendulumAngleFromTime(currentTime, getFrequency())
                     + getPhaseDisplacement());
   }
+
+  @Override
+  public double getDesiredVelocity(double timeInSeconds) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    return -getRadius()
+        * StrictMath.sin(
+            TrajectoryUtils.pendulumAngleFromTime(currentTime, getFrequency())
+                + getPhaseDisplacement())
+        * TrajectoryUtils.pendulumAngularVelocityFromTime(currentTime, getFrequency());
+  }
+
+  @Override
+  public double getDesiredAcceleration(double timeInSeconds) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    final double angle =
+        TrajectoryUtils.pendulumAngleFromTime(currentTime, getFrequency())
+            + getPhaseDisplacement();
+    final double angularVelocity =
+        TrajectoryUtils.pendulumAngularVelocityFromTime(currentTime, getFrequency());
+    return -getRadius() * StrictMath.cos(angle) * angularVelocity * angularVelocity
+        - getRadius()
+            * StrictMath.sin(angle)
+            * TrajectoryUtils.pendulumAngularAccelerationFromTime(currentTime, getFrequency());
+  }
 }
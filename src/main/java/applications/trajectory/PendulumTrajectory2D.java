@@ -1,8 +1,8 @@
 package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
-import control.Trajectory1d;
-import control.Trajectory2d;
+import control.DifferentiableTrajectory1d;
+import control.DifferentiableTrajectory2d;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -13,9 +13,9 @@ import static com.google.common.base.Preconditions.checkArgument;
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-public final class PendulumTrajectory2D extends PeriodicTrajectory implements Trajectory2d {
-  private final Trajectory1d linearMovement;
-  private final Trajectory1d pendulumOrdinate;
+public final class PendulumTrajectory2D extends PeriodicTrajectory implements DifferentiableTrajectory2d {
+  private final DifferentiableTrajectory1d linearMovement;
+  private final DifferentiableTrajectory1d pendulumOrdinate;
 
   /**
    * Constructor
@@ -50,6 +50,26 @@ public final class PendulumTrajectory2D extends PeriodicTrajectory implements Tr
     return this.pendulumOrdinate.getDesiredPosition(timeInSeconds);
   }
 
+  @Override
+  public double getDesiredVelocityAbscissa(double timeInSeconds) {
+    return this.linearMovement.getDesiredVelocity(timeInSeconds);
+  }
+
+  @Override
+  public double getDesiredVelocityOrdinate(double timeInSeconds) {
+    return this.pendulumOrdinate.getDesiredVelocity(timeInSeconds);
+  }
+
+  @Override
+  public double getDesiredAccelerationAbscissa(double timeInSeconds) {
+    return this.linearMovement.getDesiredAcceleration(timeInSeconds);
+  }
+
+  @Override
+  public double getDesiredAccelerationOrdinate(double timeInSeconds) {
+    return this.pendulumOrdinate.getDesiredAcceleration(timeInSeconds);
+  }
+
   /** Builder class for 2D pendulum trajectories. */
   public static final class Builder {
     private double radius;
@@ -113,7 +133,7 @@ public final class PendulumTrajectory2D extends PeriodicTrajectory implements Tr
     }
   }
 
-  private class PendulumOrdinate implements Trajectory1d {
+  private class PendulumOrdinate implements DifferentiableTrajectory1d {
     @Override
     public double getDesiredPosition(double timeInSeconds) {
       setStartTime(timeInSeconds);
@@ -125,5 +145,33 @@ public final class PendulumTrajectory2D extends PeriodicTrajectory implements Tr
                   TrajectoryUtils.pendulumAngleFromTime(currentTime, getFrequency())
                       + getPhaseDisplacement());
     }
+
+    @Override
+    public double getDesiredVelocity(double timeInSeconds) {
+      setStartTime(timeInSeconds);
+
+      final double currentTime = timeInSeconds - getStartTime();
+      return getRadius()
+          * StrictMath.cos(
+              TrajectoryUtils.pendulumAngleFromTime(currentTime, getFrequency())
+                  + getPhaseDisplacement())
+          * TrajectoryUtils.pendulumAngularVelocityFromTime(currentTime, getFrequency());
+    }
+
+    @Override
+    public double getDesiredAcceleration(double timeInSeconds) {
+      setStartTime(timeInSeconds);
+
+      final double currentTime = timeInSeconds - getStartTime();
+      final double angle =
+          TrajectoryUtils.pendulumAngleFromTime(currentTime, getFrequency())
+              + getPhaseDisplacement();
+      final double angularVelocity =
+          TrajectoryUtils.pendulumAngularVelocityFromTime(currentTime, getFrequency());
+      return -getRadius() * StrictMath.sin(angle) * angularVelocity * angularVelocity
+          + getRadius()
+              * StrictMath.cos(angle)
+              * TrajectoryUtils.pendulumAngularAccelerationFromTime(currentTime, getFrequency());
+    }
   }
 }
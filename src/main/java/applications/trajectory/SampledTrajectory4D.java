@@ -0,0 +1,399 @@
+package applications.trajectory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import control.DifferentiableTrajectory4d;
+import control.FiniteTrajectory4d;
+import control.PrimitiveVelocityController4d;
+import control.TrajectoryState4d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A decorator which pre-samples a finite trajectory into a lookup table of primitive arrays and
+ * answers the queries by cubic interpolation between the samples. Evaluating this trajectory costs
+ * a few multiplications, whatever the cost of evaluating the sampled trajectory is.
+ *
+ * <p>The sampled trajectory is consumed while this table is built: it is evaluated from zero to its
+ * duration, at the sampling points and the midpoints between them, in strictly increasing order of
+ * time, so that trajectories which latch their start time or keep a state are sampled correctly.
+ * After its duration, this trajectory holds the last sampled position. The yaw is unwrapped while
+ * sampling so that the interpolation never crosses a jump of 2 pi.
+ *
+ * <p>The interpolation error is estimated at construction time by comparing the interpolated
+ * position with the sampled trajectory at the midpoint of each sampling interval only, see {@link
+ * #getMaximumInterpolationError()}. A trajectory which varies faster than the sampling interval can
+ * deviate more between the midpoints and the sampling points.
+ */
+public final class SampledTrajectory4D extends BasicTrajectory
+    implements FiniteTrajectory4d, DifferentiableTrajectory4d {
+  private static final int NUMBER_OF_AXES = 4;
+
+  private final double duration;
+  private final double samplingInterval;
+  private final int numberOfSamples;
+  private final double[][] positions;
+  private final double[][] velocities;
+  private final double maximumInterpolationError;
+  private final String sampledTrajectoryName;
+
+  private SampledTrajectory4D(FiniteTrajectory4d trajectory, double resolution, Method method) {
+    this.duration = trajectory.getTrajectoryDuration();
+    this.numberOfSamples = Math.max(2, (int) Math.ceil(duration / resolution) + 1);
+    this.samplingInterval = duration / (numberOfSamples - 1);
+    this.positions = new double[NUMBER_OF_AXES][numberOfSamples];
+    this.velocities = new double[NUMBER_OF_AXES][numberOfSamples];
+    this.sampledTrajectoryName = trajectory.toString();
+
+    final double[][] midpoints = new double[NUMBER_OF_AXES][numberOfSamples - 1];
+    final boolean useClosedForm =
+        method == Method.HERMITE && trajectory instanceof DifferentiableTrajectory4d;
+    sample(trajectory, useClosedForm, midpoints);
+    if (method == Method.CUBIC) {
+      estimateVelocities();
+    } else if (!useClosedForm) {
+      estimateVelocities(midpoints);
+    }
+    this.maximumInterpolationError = computeMaximumInterpolationError(midpoints);
+  }
+
+  /**
+   * Creates a builder of sampled trajectories.
+   *
+   * @return a builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Samples several finite trajectories in parallel, e.g., the trajectories of all the drones of a
+   * show. Each trajectory is sampled by one task of the executor, since a trajectory has to be
+   * evaluated in increasing order of time. This method blocks until all trajectories are sampled.
+   *
+   * @param trajectories the trajectories to be sampled
+   * @param resolution the maximum time between two samples
+   * @param method the interpolation method
+   * @param executor the executor which samples the trajectories
+   * @return the sampled trajectories, in the same order as {@code trajectories}
+   */
+  public static List<SampledTrajectory4D> sampleAll(
+      List<? extends FiniteTrajectory4d> trajectories,
+      final double resolution,
+      final Method method,
+      ExecutorService executor) {
+    final List<Future<SampledTrajectory4D>> futures = new ArrayList<>(trajectories.size());
+    for (final FiniteTrajectory4d trajectory : trajectories) {
+      final Builder builder =
+          builder().setTrajectory(trajectory).setResolution(resolution).setMethod(method);
+      futures.add(
+          executor.submit(
+              new Callable<SampledTrajectory4D>() {
+                @Override
+                public SampledTrajectory4D call() {
+                  return builder.build();
+                }
+              }));
+    }
+
+    final ImmutableList.Builder<SampledTrajectory4D> sampledTrajectories = ImmutableList.builder();
+    for (final Future<SampledTrajectory4D> future : futures) {
+      sampledTrajectories.add(Futures.getUnchecked(future));
+    }
+    return sampledTrajectories.build();
+  }
+
+  private void sample(
+      FiniteTrajectory4d trajectory, boolean useClosedForm, double[][] midpoints) {
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    for (int i = 0; i < numberOfSamples; i++) {
+      final double time = i * samplingInterval;
+      if (useClosedForm) {
+        ((DifferentiableTrajectory4d) trajectory).getDesiredState(time, state);
+      } else {
+        sampleTrajectory(trajectory, time, state);
+      }
+      for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+        positions[axis][i] = state.getPosition(axis);
+        velocities[axis][i] = state.getVelocity(axis);
+      }
+
+      if (i < numberOfSamples - 1) {
+        sampleTrajectory(trajectory, time + samplingInterval / 2, state);
+        for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+          midpoints[axis][i] = state.getPosition(axis);
+        }
+      }
+    }
+
+    unwrapYaw(midpoints[PrimitiveVelocityController4d.YAW]);
+  }
+
+  private static void sampleTrajectory(
+      FiniteTrajectory4d trajectory, double time, TrajectoryState4d state) {
+    state.set(PrimitiveVelocityController4d.X, trajectory.getDesiredPositionX(time), 0, 0);
+    state.set(PrimitiveVelocityController4d.Y, trajectory.getDesiredPositionY(time), 0, 0);
+    state.set(PrimitiveVelocityController4d.Z, trajectory.getDesiredPositionZ(time), 0, 0);
+    state.set(PrimitiveVelocityController4d.YAW, trajectory.getDesiredAngleZ(time), 0, 0);
+  }
+
+  private void unwrapYaw(double[] yawMidpoints) {
+    final double[] yaws = positions[PrimitiveVelocityController4d.YAW];
+    double offset = 0;
+    double previousYaw = yaws[0];
+    for (int i = 1; i < numberOfSamples; i++) {
+      final double rawYaw = yaws[i];
+      offset += unwrapOffset(rawYaw + offset - previousYaw);
+      yaws[i] = rawYaw + offset;
+      yawMidpoints[i - 1] += unwrapOffset(yawMidpoints[i - 1] - yaws[i - 1]);
+      previousYaw = yaws[i];
+    }
+  }
+
+  private static double unwrapOffset(double difference) {
+    return -PeriodicTrajectory.TWOPI * Math.round(difference / PeriodicTrajectory.TWOPI);
+  }
+
+  /** Estimates the velocities with central differences of the samples (Catmull-Rom spline). */
+  private void estimateVelocities() {
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      final double[] p = positions[axis];
+      final double[] v = velocities[axis];
+      v[0] = (p[1] - p[0]) / samplingInterval;
+      for (int i = 1; i < numberOfSamples - 1; i++) {
+        v[i] = (p[i + 1] - p[i - 1]) / (2 * samplingInterval);
+      }
+      v[numberOfSamples - 1] =
+          (p[numberOfSamples - 1] - p[numberOfSamples - 2]) / samplingInterval;
+    }
+  }
+
+  /**
+   * Estimates the velocities with central differences of the midpoints around each sample, with a
+   * step of half the sampling interval. The trajectory is not evaluated again, so that it is never
+   * evaluated backwards in time.
+   */
+  private void estimateVelocities(double[][] midpoints) {
+    final double halfInterval = samplingInterval / 2;
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      final double[] p = positions[axis];
+      final double[] m = midpoints[axis];
+      final double[] v = velocities[axis];
+      v[0] = (m[0] - p[0]) / halfInterval;
+      for (int i = 1; i < numberOfSamples - 1; i++) {
+        v[i] = (m[i] - m[i - 1]) / samplingInterval;
+      }
+      v[numberOfSamples - 1] = (p[numberOfSamples - 1] - m[numberOfSamples - 2]) / halfInterval;
+    }
+  }
+
+  private double computeMaximumInterpolationError(double[][] midpoints) {
+    double maximumError = 0;
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      for (int i = 0; i < numberOfSamples - 1; i++) {
+        final double error = Math.abs(interpolatePosition(axis, i, 0.5) - midpoints[axis][i]);
+        maximumError = Math.max(maximumError, error);
+      }
+    }
+    return maximumError;
+  }
+
+  /**
+   * Returns the largest difference between the interpolated position and the sampled trajectory,
+   * measured on all axes at the midpoints of the sampling intervals. The error is not measured
+   * elsewhere in the intervals. The yaw difference is in radians.
+   */
+  public double getMaximumInterpolationError() {
+    return maximumInterpolationError;
+  }
+
+  /** Returns the time between two consecutive samples. */
+  public double getSamplingInterval() {
+    return samplingInterval;
+  }
+
+  /** Returns the number of samples in the lookup table. */
+  public int getNumberOfSamples() {
+    return numberOfSamples;
+  }
+
+  @Override
+  public double getTrajectoryDuration() {
+    return duration;
+  }
+
+  @Override
+  public double getDesiredPositionX(double timeInSeconds) {
+    return getDesiredPosition(PrimitiveVelocityController4d.X, timeInSeconds);
+  }
+
+  @Override
+  public double getDesiredPositionY(double timeInSeconds) {
+    return getDesiredPosition(PrimitiveVelocityController4d.Y, timeInSeconds);
+  }
+
+  @Override
+  public double getDesiredPositionZ(double timeInSeconds) {
+    return getDesiredPosition(PrimitiveVelocityController4d.Z, timeInSeconds);
+  }
+
+  @Override
+  public double getDesiredAngleZ(double timeInSeconds) {
+    return getDesiredPosition(PrimitiveVelocityController4d.YAW, timeInSeconds);
+  }
+
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    if (currentTime >= duration) {
+      for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+        state.set(axis, positions[axis][numberOfSamples - 1], 0, 0);
+      }
+      return;
+    }
+
+    final int index = getIndex(currentTime);
+    final double s = getFraction(currentTime, index);
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      state.set(
+          axis,
+          interpolatePosition(axis, index, s),
+          interpolateVelocity(axis, index, s),
+          interpolateAcceleration(axis, index, s));
+    }
+  }
+
+  private double getDesiredPosition(int axis, double timeInSeconds) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    if (currentTime >= duration) {
+      return positions[axis][numberOfSamples - 1];
+    }
+    final int index = getIndex(currentTime);
+    return interpolatePosition(axis, index, getFraction(currentTime, index));
+  }
+
+  private int getIndex(double currentTime) {
+    if (currentTime <= 0) {
+      return 0;
+    }
+    return Math.min((int) (currentTime / samplingInterval), numberOfSamples - 2);
+  }
+
+  private double getFraction(double currentTime, int index) {
+    return Math.max(0, currentTime / samplingInterval - index);
+  }
+
+  private double interpolatePosition(int axis, int index, double s) {
+    final double s2 = s * s;
+    final double s3 = s2 * s;
+    return (2 * s3 - 3 * s2 + 1) * positions[axis][index]
+        + (s3 - 2 * s2 + s) * samplingInterval * velocities[axis][index]
+        + (-2 * s3 + 3 * s2) * positions[axis][index + 1]
+        + (s3 - s2) * samplingInterval * velocities[axis][index + 1];
+  }
+
+  private double interpolateVelocity(int axis, int index, double s) {
+    final double s2 = s * s;
+    return ((6 * s2 - 6 * s) * positions[axis][index]
+            + (-6 * s2 + 6 * s) * positions[axis][index + 1])
+            / samplingInterval
+        + (3 * s2 - 4 * s + 1) * velocities[axis][index]
+        + (3 * s2 - 2 * s) * velocities[axis][index + 1];
+  }
+
+  private double interpolateAcceleration(int axis, int index, double s) {
+    return ((12 * s - 6) * positions[axis][index] + (-12 * s + 6) * positions[axis][index + 1])
+            / (samplingInterval * samplingInterval)
+        + ((6 * s - 4) * velocities[axis][index] + (6 * s - 2) * velocities[axis][index + 1])
+            / samplingInterval;
+  }
+
+  @Override
+  public String toString() {
+    return "SampledTrajectory4D{"
+        + "trajectory="
+        + sampledTrajectoryName
+        + ", samples="
+        + numberOfSamples
+        + ", maximum error="
+        + maximumInterpolationError
+        + '}';
+  }
+
+  /** The interpolation method between two samples. */
+  public enum Method {
+    /**
+     * Cubic Hermite interpolation using the derivatives of the sampled trajectory: the closed-form
+     * derivatives if available, central differences of the positions sampled around each sample
+     * otherwise.
+     */
+    HERMITE,
+    /**
+     * Cubic interpolation (Catmull-Rom spline) using only the sampled positions. The derivatives are
+     * estimated from the neighbouring samples, so the sampled trajectory is only evaluated at the
+     * sampling points.
+     */
+    CUBIC
+  }
+
+  /** Builder class for sampled trajectories. */
+  public static final class Builder {
+    private FiniteTrajectory4d trajectory;
+    private double resolution;
+    private Method method;
+
+    private Builder() {
+      resolution = 0.01;
+      method = Method.HERMITE;
+    }
+
+    /**
+     * @param trajectory The finite trajectory to sample.
+     * @return this builder
+     */
+    public Builder setTrajectory(FiniteTrajectory4d trajectory) {
+      this.trajectory = trajectory;
+      return this;
+    }
+
+    /**
+     * Default resolution = 0.01.
+     *
+     * @param resolution The maximum time between two samples, in seconds.
+     * @return this builder
+     */
+    public Builder setResolution(double resolution) {
+      this.resolution = resolution;
+      return this;
+    }
+
+    /**
+     * Default value = HERMITE.
+     *
+     * @param method The interpolation method.
+     * @return this builder
+     */
+    public Builder setMethod(Method method) {
+      this.method = method;
+      return this;
+    }
+
+    /** @return a sampled trajectory configured by this builder. */
+    public SampledTrajectory4D build() {
+      checkNotNull(trajectory, "You have to supply a trajectory with setTrajectory()");
+      checkNotNull(method, "You have to supply a method with setMethod()");
+      checkArgument(resolution > 0, "The resolution should be strictly greater than 0.");
+      checkArgument(
+          trajectory.getTrajectoryDuration() > 0,
+          "The duration of the trajectory should be strictly greater than 0.");
+      return new SampledTrajectory4D(trajectory, resolution, method);
+    }
+  }
+}
@@ -2,8 +2,10 @@ package applications.trajectory;
 
 import applications.trajectory.geom.point.Point3D;
 import applications.trajectory.geom.point.Point4D;
+import control.DifferentiableTrajectory4d;
 import control.FiniteTrajectory4d;
 import control.Trajectory4d;
+import control.TrajectoryState4d;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -14,11 +16,13 @@ import static com.google.common.base.Preconditions.checkArgument;
  * tragjectory ( in time) to perform at the given velocity. The default value is 1, representing the
  * trajectory will reach its destination with a positive velocity in the direction of travel. This
  * will cause overshooting behavior. Choose a value < 1 to trigger the controller to start braking
- * sooner.
+ * sooner. Whether the trajectory moves or holds position only depends on the time, so once started,
+ * the trajectory can be evaluated at any point in time and from several threads.
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-class StraightLineTrajectory4D extends BasicTrajectory implements FiniteTrajectory4d {
+class StraightLineTrajectory4D extends BasicTrajectory
+    implements FiniteTrajectory4d, DifferentiableTrajectory4d {
   private final Point4D srcpoint;
   private final Point4D targetpoint;
   private final double velocity;
@@ -26,7 +30,7 @@ class StraightLineTrajectory4D extends BasicTrajectory implements FiniteTrajecto
   private final Trajectory4d holdTraj;
   private final double endTime;
   private final double totalDistance;
-  private Trajectory4d currentTraj;
+  private final double moveEndTime;
 
   StraightLineTrajectory4D(Point4D srcpoint, Point4D targetpoint, double velocity) {
     this(srcpoint, targetpoint, velocity, 1);
@@ -56,37 +60,42 @@ class StraightLineTrajectory4D extends BasicTrajectory implements FiniteTrajecto
             velocity * (diff.getZ() / totalDistance),
             diff.getAngle() / endTime);
     this.holdTraj = new HoldPositionTrajectory4D(targetpoint);
-    this.moveTraj =
-        new HoldPositionForwarder(srcpoint, speedComponent, endTime * velocityCutoffTimePercentage);
-    this.currentTraj = moveTraj;
+    this.moveTraj = new LinearTrajectory4D(srcpoint, speedComponent);
+    this.moveEndTime = endTime * velocityCutoffTimePercentage;
   }
 
   @Override
   public double getDesiredPositionX(double timeInSeconds) {
     final double currentTime = getRelativeTime(timeInSeconds);
-    return getCurrentTrajectory().getDesiredPositionX(currentTime);
+    return getCurrentTrajectory(currentTime).getDesiredPositionX(currentTime);
   }
 
   @Override
   public double getDesiredPositionY(double timeInSeconds) {
     final double currentTime = getRelativeTime(timeInSeconds);
-    return getCurrentTrajectory().getDesiredPositionY(currentTime);
+    return getCurrentTrajectory(currentTime).getDesiredPositionY(currentTime);
   }
 
   @Override
   public double getDesiredPositionZ(double timeInSeconds) {
     final double currentTime = getRelativeTime(timeInSeconds);
-    return getCurrentTrajectory().getDesiredPositionZ(currentTime);
+    return getCurrentTrajectory(currentTime).getDesiredPositionZ(currentTime);
   }
 
   @Override
   public double getDesiredAngleZ(double timeInSeconds) {
     final double currentTime = getRelativeTime(timeInSeconds);
-    return getCurrentTrajectory().getDesiredAngleZ(currentTime);
+    return getCurrentTrajectory(currentTime).getDesiredAngleZ(currentTime);
   }
 
-  protected Trajectory4d getCurrentTrajectory() {
-    return currentTraj;
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    TrajectoryUtils.getDesiredState(getCurrentTrajectory(currentTime), currentTime, state);
+  }
+
+  private Trajectory4d getCurrentTrajectory(double currentTime) {
+    return currentTime > moveEndTime ? holdTraj : moveTraj;
   }
 
   @Override
@@ -121,28 +130,4 @@ class StraightLineTrajectory4D extends BasicTrajectory implements FiniteTrajecto
   public final double getTotalDistance() {
     return totalDistance;
   }
-
-  private class HoldPositionForwarder extends Trajectory4DForwardingDecorator {
-    private final double endTime;
-
-    HoldPositionForwarder(Point4D srcComp, Point4D speedComp, double endTime) {
-      super(new LinearTrajectory4D(srcComp, speedComp));
-      this.endTime = endTime;
-    }
-
-    @Override
-    protected void positionDelegate(double timeInSeconds) {
-      if (timeInSeconds >= endTime) {
-        setHoldPosition(true);
-      }
-    }
-
-    private void setHoldPosition(boolean shouldHold) {
-      if (shouldHold) {
-        currentTraj = holdTraj;
-      } else {
-        currentTraj = moveTraj;
-      }
-    }
-  }
 }
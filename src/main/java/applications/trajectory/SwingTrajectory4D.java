@@ -1,20 +1,22 @@
 package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
-import control.Trajectory1d;
-import control.Trajectory2d;
-import control.Trajectory4d;
+import control.DifferentiableTrajectory1d;
+import control.DifferentiableTrajectory2d;
+import control.DifferentiableTrajectory4d;
+import control.PrimitiveVelocityController4d;
+import control.TrajectoryState4d;
 
 /**
  * Swing trajectory in 3D space as a 4D trajectory.
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-class SwingTrajectory4D extends PeriodicTrajectory implements Trajectory4d {
-  private final Trajectory2d swing;
+class SwingTrajectory4D extends PeriodicTrajectory implements DifferentiableTrajectory4d {
+  private final DifferentiableTrajectory2d swing;
   private final double yFactor;
   private final double xFactor;
-  private final Trajectory1d angularMotion;
+  private final DifferentiableTrajectory1d angularMotion;
 
   SwingTrajectory4D(
       Point4D origin, double phase, double xzPlaneAngle, double radius, double frequency) {
@@ -56,6 +58,34 @@ class SwingTrajectory4D extends PeriodicTrajectory implements Trajectory4d {
     return angularMotion.getDesiredPosition(timeInSeconds);
   }
 
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    final double abscissa = swing.getDesiredPositionAbscissa(timeInSeconds);
+    final double velocityAbscissa = swing.getDesiredVelocityAbscissa(timeInSeconds);
+    final double accelerationAbscissa = swing.getDesiredAccelerationAbscissa(timeInSeconds);
+
+    state.set(
+        PrimitiveVelocityController4d.X,
+        xFactor * abscissa,
+        xFactor * velocityAbscissa,
+        xFactor * accelerationAbscissa);
+    state.set(
+        PrimitiveVelocityController4d.Y,
+        yFactor * abscissa + this.getLinearDisplacement().getY(),
+        yFactor * velocityAbscissa,
+        yFactor * accelerationAbscissa);
+    state.set(
+        PrimitiveVelocityController4d.Z,
+        swing.getDesiredPositionOrdinate(timeInSeconds),
+        swing.getDesiredVelocityOrdinate(timeInSeconds),
+        swing.getDesiredAccelerationOrdinate(timeInSeconds));
+    state.set(
+        PrimitiveVelocityController4d.YAW,
+        angularMotion.getDesiredPosition(timeInSeconds),
+        angularMotion.getDesiredVelocity(timeInSeconds),
+        angularMotion.getDesiredAcceleration(timeInSeconds));
+  }
+
   @Override
   public String toString() {
     return "CircleTrajectory4D{"
@@ -223,4 +223,25 @@ public final class Trajectories {
       Point4D centerPoint, int wiggles, double timeToStayAtEdge) {
     return new WiggleTrajectory(centerPoint, wiggles, timeToStayAtEdge);
   }
+
+  /**
+   * Pre-samples a finite trajectory into a lookup table which is interpolated with cubic Hermite
+   * splines. The given trajectory is consumed by this method.
+   *
+   * @param trajectory the trajectory to sample.
+   * @param resolution the maximum time between two samples.
+   * @return A finite trajectory object.
+   */
+  public static SampledTrajectory4D newSampledTrajectory(
+      FiniteTrajectory4d trajectory, double resolution) {
+    return SampledTrajectory4D.builder()
+        .setTrajectory(trajectory)
+        .setResolution(resolution)
+        .build();
+  }
+
+  /** @return A builder instance for sampled trajectories for custom builds. */
+  public static SampledTrajectory4D.Builder sampledTrajectoryBuilder() {
+    return SampledTrajectory4D.builder();
+  }
 }
@@ -1,13 +1,15 @@
 package applications.trajectory;
 
+import control.DifferentiableTrajectory4d;
 import control.Trajectory4d;
+import control.TrajectoryState4d;
 
 /**
  * Forwarding decorator for trajectory4D instances with inner-trajectory4D hooks.
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-public abstract class Trajectory4DForwardingDecorator implements Trajectory4d {
+public abstract class Trajectory4DForwardingDecorator implements DifferentiableTrajectory4d {
   private final Trajectory4d target;
 
   /**
@@ -49,4 +51,10 @@ public abstract class Trajectory4DForwardingDecorator implements Trajectory4d {
     positionDelegate(timeInSeconds);
     return target.getDesiredAngleZ(timeInSeconds);
   }
+
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    positionDelegate(timeInSeconds);
+    TrajectoryUtils.getDesiredState(target, timeInSeconds, state);
+  }
 }
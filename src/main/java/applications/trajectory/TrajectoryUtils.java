@@ -1,8 +1,12 @@
 package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
+import control.DifferentiableTrajectory1d;
+import control.DifferentiableTrajectory4d;
+import control.PrimitiveVelocityController4d;
 import control.Trajectory1d;
 import control.Trajectory4d;
+import control.TrajectoryState4d;
 
 /**
  * Utility class for static utilities used in defining trajectories.
@@ -10,6 +14,12 @@ import control.Trajectory4d;
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
 public final class TrajectoryUtils {
+  /**
+   * The time step used to approximate the derivatives of trajectories which do not know their own
+   * derivatives.
+   */
+  public static final double FINITE_DIFFERENCE_STEP_IN_SECONDS = 0.01;
+
   private TrajectoryUtils() {}
 
   /**
@@ -23,14 +33,124 @@ public final class TrajectoryUtils {
         * StrictMath.cos(PeriodicTrajectory.TWOPI * frequency * currentTime);
   }
 
+  /**
+   * @param currentTime The time point in the motion.
+   * @param frequency The frequency of the pendulum movement.
+   * @return The time derivative of {@link #pendulumAngleFromTime(double, double)}.
+   */
+  public static double pendulumAngularVelocityFromTime(double currentTime, double frequency) {
+    final double freq2pi = PeriodicTrajectory.TWOPI * frequency;
+    return -PeriodicTrajectory.HALFPI * freq2pi * StrictMath.sin(freq2pi * currentTime);
+  }
+
+  /**
+   * @param currentTime The time point in the motion.
+   * @param frequency The frequency of the pendulum movement.
+   * @return The second time derivative of {@link #pendulumAngleFromTime(double, double)}.
+   */
+  public static double pendulumAngularAccelerationFromTime(double currentTime, double frequency) {
+    final double freq2pi = PeriodicTrajectory.TWOPI * frequency;
+    return -PeriodicTrajectory.HALFPI * freq2pi * freq2pi * StrictMath.cos(freq2pi * currentTime);
+  }
+
+  /**
+   * Gets the desired position, velocity and acceleration of a trajectory. The closed form of the
+   * derivatives is used if the trajectory is a {@link DifferentiableTrajectory4d}. Otherwise, the
+   * derivatives are approximated by central differences with a step of {@link
+   * #FINITE_DIFFERENCE_STEP_IN_SECONDS}. The trajectory is always evaluated at {@code
+   * timeInSeconds} first, so that trajectories starting at their first evaluation start at that
+   * time.
+   *
+   * @param trajectory the trajectory to sample
+   * @param timeInSeconds the point in time to get the state for
+   * @param state the state in which the result is written
+   */
+  public static void getDesiredState(
+      Trajectory4d trajectory, double timeInSeconds, TrajectoryState4d state) {
+    if (trajectory instanceof DifferentiableTrajectory4d) {
+      ((DifferentiableTrajectory4d) trajectory).getDesiredState(timeInSeconds, state);
+      return;
+    }
+
+    final double x = trajectory.getDesiredPositionX(timeInSeconds);
+    final double y = trajectory.getDesiredPositionY(timeInSeconds);
+    final double z = trajectory.getDesiredPositionZ(timeInSeconds);
+    final double yaw = trajectory.getDesiredAngleZ(timeInSeconds);
+
+    final double after = timeInSeconds + FINITE_DIFFERENCE_STEP_IN_SECONDS;
+    final double xAfter = trajectory.getDesiredPositionX(after);
+    final double yAfter = trajectory.getDesiredPositionY(after);
+    final double zAfter = trajectory.getDesiredPositionZ(after);
+    final double yawAfter = trajectory.getDesiredAngleZ(after);
+
+    final double before = timeInSeconds - FINITE_DIFFERENCE_STEP_IN_SECONDS;
+    final double xBefore = trajectory.getDesiredPositionX(before);
+    final double yBefore = trajectory.getDesiredPositionY(before);
+    final double zBefore = trajectory.getDesiredPositionZ(before);
+    final double yawBefore = trajectory.getDesiredAngleZ(before);
+
+    setFiniteDifferenceState(state, PrimitiveVelocityController4d.X, xBefore, x, xAfter);
+    setFiniteDifferenceState(state, PrimitiveVelocityController4d.Y, yBefore, y, yAfter);
+    setFiniteDifferenceState(state, PrimitiveVelocityController4d.Z, zBefore, z, zAfter);
+    setFiniteDifferenceState(state, PrimitiveVelocityController4d.YAW, yawBefore, yaw, yawAfter);
+  }
+
+  /**
+   * Gets the desired velocity of a one-dimensional trajectory. The closed form is used if the
+   * trajectory is a {@link DifferentiableTrajectory1d}. Otherwise, the velocity is approximated by a
+   * central difference with a step of {@link #FINITE_DIFFERENCE_STEP_IN_SECONDS}.
+   *
+   * @param trajectory the trajectory
+   * @param timeInSeconds the point in time to get the velocity for
+   * @return the desired velocity
+   */
+  public static double getDesiredVelocity(Trajectory1d trajectory, double timeInSeconds) {
+    if (trajectory instanceof DifferentiableTrajectory1d) {
+      return ((DifferentiableTrajectory1d) trajectory).getDesiredVelocity(timeInSeconds);
+    }
+    return getFiniteDifferenceVelocity(trajectory, timeInSeconds);
+  }
+
+  private static double getFiniteDifferenceVelocity(
+      Trajectory1d trajectory, double timeInSeconds) {
+    // evaluate the current time first for trajectories which start at their first evaluation
+    trajectory.getDesiredPosition(timeInSeconds);
+    final double after =
+        trajectory.getDesiredPosition(timeInSeconds + FINITE_DIFFERENCE_STEP_IN_SECONDS);
+    final double before =
+        trajectory.getDesiredPosition(timeInSeconds - FINITE_DIFFERENCE_STEP_IN_SECONDS);
+    return (after - before) / (2 * FINITE_DIFFERENCE_STEP_IN_SECONDS);
+  }
+
+  private static double getFiniteDifferenceAcceleration(
+      Trajectory1d trajectory, double timeInSeconds) {
+    final double current = trajectory.getDesiredPosition(timeInSeconds);
+    final double after =
+        trajectory.getDesiredPosition(timeInSeconds + FINITE_DIFFERENCE_STEP_IN_SECONDS);
+    final double before =
+        trajectory.getDesiredPosition(timeInSeconds - FINITE_DIFFERENCE_STEP_IN_SECONDS);
+    return (after - 2 * current + before)
+        / (FINITE_DIFFERENCE_STEP_IN_SECONDS * FINITE_DIFFERENCE_STEP_IN_SECONDS);
+  }
+
+  private static void setFiniteDifferenceState(
+      TrajectoryState4d state, int axis, double before, double current, double after) {
+    state.set(
+        axis,
+        current,
+        (after - before) / (2 * FINITE_DIFFERENCE_STEP_IN_SECONDS),
+        (after - 2 * current + before)
+            / (FINITE_DIFFERENCE_STEP_IN_SECONDS * FINITE_DIFFERENCE_STEP_IN_SECONDS));
+  }
+
   /**
    * Gets the one-dimensional trajectory linear x from a four-dimensional trajectory.
    *
    * @param trajectory4d the four-dimensional trajectory
    * @return an one-dimensional trajectory represents the trajectory in the x coordinate
    */
-  public static Trajectory1d getTrajectoryLinearX(final Trajectory4d trajectory4d) {
-    return new Trajectory1d() {
+  public static DifferentiableTrajectory1d getTrajectoryLinearX(final Trajectory4d trajectory4d) {
+    return new AxisTrajectory(trajectory4d, PrimitiveVelocityController4d.X) {
       @Override
       public double getDesiredPosition(double timeInSeconds) {
         return trajectory4d.getDesiredPositionX(timeInSeconds);
@@ -44,8 +164,8 @@ public final class TrajectoryUtils {
    * @param trajectory4d the four-dimensional trajectory
    * @return an one-dimensional trajectory represents the trajectory in the y coordinate
    */
-  public static Trajectory1d getTrajectoryLinearY(final Trajectory4d trajectory4d) {
-    return new Trajectory1d() {
+  public static DifferentiableTrajectory1d getTrajectoryLinearY(final Trajectory4d trajectory4d) {
+    return new AxisTrajectory(trajectory4d, PrimitiveVelocityController4d.Y) {
       @Override
       public double getDesiredPosition(double timeInSeconds) {
         return trajectory4d.getDesiredPositionY(timeInSeconds);
@@ -59,8 +179,8 @@ public final class TrajectoryUtils {
    * @param trajectory4d the four-dimensional trajectory
    * @return an one-dimensional trajectory represents the trajectory in the z coordinate
    */
-  public static Trajectory1d getTrajectoryLinearZ(final Trajectory4d trajectory4d) {
-    return new Trajectory1d() {
+  public static DifferentiableTrajectory1d getTrajectoryLinearZ(final Trajectory4d trajectory4d) {
+    return new AxisTrajectory(trajectory4d, PrimitiveVelocityController4d.Z) {
       @Override
       public double getDesiredPosition(double timeInSeconds) {
         return trajectory4d.getDesiredPositionZ(timeInSeconds);
@@ -75,8 +195,8 @@ public final class TrajectoryUtils {
    * @return an one-dimensional trajectory represents the trajectory in the angular z (the yaw)
    *     coordinate
    */
-  public static Trajectory1d getTrajectoryAngularZ(final Trajectory4d trajectory4d) {
-    return new Trajectory1d() {
+  public static DifferentiableTrajectory1d getTrajectoryAngularZ(final Trajectory4d trajectory4d) {
+    return new AxisTrajectory(trajectory4d, PrimitiveVelocityController4d.YAW) {
       @Override
       public double getDesiredPosition(double timeInSeconds) {
         return trajectory4d.getDesiredAngleZ(timeInSeconds);
@@ -96,4 +216,47 @@ public final class TrajectoryUtils {
         trajectory.getDesiredPositionX(time), trajectory.getDesiredPositionY(time),
         trajectory.getDesiredPositionZ(time), trajectory.getDesiredAngleZ(time));
   }
+
+  /**
+   * One axis of a four-dimensional trajectory. The derivatives are taken from the closed form of the
+   * four-dimensional trajectory when it is known. The state computed for the velocity is kept for
+   * the acceleration at the same point in time, but the views of the other axes evaluate the state
+   * again. The views of a {@link control.TrajectorySampler4d} share one state between all the axes.
+   */
+  private abstract static class AxisTrajectory implements DifferentiableTrajectory1d {
+    private final Trajectory4d trajectory4d;
+    private final int axis;
+    private final TrajectoryState4d state = TrajectoryState4d.create();
+    private double stateTimeInSeconds = Double.NaN;
+
+    AxisTrajectory(Trajectory4d trajectory4d, int axis) {
+      this.trajectory4d = trajectory4d;
+      this.axis = axis;
+    }
+
+    @Override
+    public double getDesiredVelocity(double timeInSeconds) {
+      if (trajectory4d instanceof DifferentiableTrajectory4d) {
+        return getState(timeInSeconds).getVelocity(axis);
+      }
+      return getFiniteDifferenceVelocity(this, timeInSeconds);
+    }
+
+    @Override
+    public double getDesiredAcceleration(double timeInSeconds) {
+      if (trajectory4d instanceof DifferentiableTrajectory4d) {
+        return getState(timeInSeconds).getAcceleration(axis);
+      }
+      return getFiniteDifferenceAcceleration(this, timeInSeconds);
+    }
+
+    private TrajectoryState4d getState(double timeInSeconds) {
+      // NaN is never equal to a time, so the first call always evaluates the trajectory
+      if (timeInSeconds != stateTimeInSeconds) {
+        ((DifferentiableTrajectory4d) trajectory4d).getDesiredState(timeInSeconds, state);
+        stateTimeInSeconds = timeInSeconds;
+      }
+      return state;
+    }
+  }
 }
@@ -2,7 +2,9 @@ package applications.trajectory;
 
 import applications.trajectory.geom.point.Point4D;
 import choreo.Choreography;
+import control.DifferentiableTrajectory4d;
 import control.FiniteTrajectory4d;
+import control.TrajectoryState4d;
 
 /**
  * Trajectory that performs a wiggle effect in place. Note that this trajectory does not keep to the
@@ -10,7 +12,8 @@ import control.FiniteTrajectory4d;
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-public class WiggleTrajectory extends BasicTrajectory implements FiniteTrajectory4d {
+public class WiggleTrajectory extends BasicTrajectory
+    implements FiniteTrajectory4d, DifferentiableTrajectory4d {
   private static final double WIGGLE_DISTANCE = 0.5d;
   private static final double TIME_TO_REST_AT_ORIGIN = 0.001d;
   private final FiniteTrajectory4d target;
@@ -69,4 +72,9 @@ public class WiggleTrajectory extends BasicTrajectory implements FiniteTrajector
   public double getDesiredAngleZ(double timeInSeconds) {
     return target.getDesiredAngleZ(timeInSeconds);
   }
+
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    TrajectoryUtils.getDesiredState(target, timeInSeconds, state);
+  }
 }
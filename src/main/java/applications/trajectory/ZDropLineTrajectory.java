@@ -3,8 +3,10 @@ package applications.trajectory;
 import applications.trajectory.geom.point.Point4D;
 import choreo.Choreography;
 import com.google.common.collect.Lists;
+import control.DifferentiableTrajectory4d;
 import control.FiniteTrajectory4d;
 import control.Trajectory4d;
+import control.TrajectoryState4d;
 
 import java.util.List;
 
@@ -17,7 +19,8 @@ import static com.google.common.base.Preconditions.checkArgument;
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-public class ZDropLineTrajectory extends BasicTrajectory implements FiniteTrajectory4d {
+public class ZDropLineTrajectory extends BasicTrajectory
+    implements FiniteTrajectory4d, DifferentiableTrajectory4d {
 
   private final FiniteTrajectory4d target;
   private final Point4D src;
@@ -87,6 +90,12 @@ public class ZDropLineTrajectory extends BasicTrajectory implements FiniteTrajec
     return getTargetTrajectory().getDesiredAngleZ(currentTime);
   }
 
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    final double currentTime = getRelativeTime(timeInSeconds);
+    TrajectoryUtils.getDesiredState(getTargetTrajectory(), currentTime, state);
+  }
+
   private FiniteTrajectory4d getTargetTrajectory() {
     return target;
   }
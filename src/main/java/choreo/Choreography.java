@@ -1,17 +1,19 @@
 package choreo;
 
-import applications.trajectory.BasicTrajectory;
+import applications.trajectory.TrajectoryUtils;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Queues;
+import control.DifferentiableTrajectory4d;
 import control.FiniteTrajectory4d;
 import control.Trajectory4d;
+import control.TrajectoryState4d;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -20,21 +22,53 @@ import static org.slf4j.LoggerFactory.getLogger;
  * from the lower level control point-of-view. Using the builder, one can create choreography
  * instances and configure them with different trajectories to be executed in sequence.
  *
- * <p>A choreography can and should only be consumed once and cannot be reused.
+ * <p>The segments of a choreography are immutable. Their start times are kept in a prefix-sum array
+ * so that the segment at any point in time is found by binary search, which allows evaluating the
+ * choreography at arbitrary points in time, e.g. for previews or look-ahead queries. Like other
+ * trajectories, the choreography starts at the first time it is evaluated. {@link #replay()} and
+ * {@link #seek(double)} create new choreographies of the same segments which start again at their
+ * first evaluation.
+ *
+ * <p>The segments are evaluated with their own time, which is zero at the beginning of the segment
+ * in every choreography sharing them. They are therefore started at time zero when the choreography
+ * is built, and must not be evaluated outside of it. Seeking, replaying and concurrent evaluations
+ * are correct as long as a segment only depends on its time once started, which is the case for the
+ * trajectories of {@link applications.trajectory.Trajectories}. The lookup itself is thread-safe.
  *
  * @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be>
  */
-public final class Choreography extends BasicTrajectory implements FiniteTrajectory4d {
-  private final ImmutableList<ChoreoSegment> initialSegments;
-  private final Queue<ChoreoSegment> segments;
-  private double timeWindowShift;
-  private boolean hasRun;
+public final class Choreography implements FiniteTrajectory4d, DifferentiableTrajectory4d {
+  private static final double UNSET = -1;
+
+  private final ImmutableList<ChoreoSegment> segments;
+  private final double[] segmentStartTimes;
+  private final double duration;
+  private final double timeOffset;
+  private volatile double startTime = UNSET;
+  private volatile int lastSegmentIndex = -1;
 
   private Choreography(List<ChoreoSegment> segmentsArg) {
-    super();
-    initialSegments = ImmutableList.copyOf(segmentsArg);
-    segments = Queues.newArrayDeque(segmentsArg);
-    timeWindowShift = 0d;
+    checkArgument(!segmentsArg.isEmpty(), "A choreography should contain at least one segment.");
+    segments = ImmutableList.copyOf(segmentsArg);
+    segmentStartTimes = new double[segments.size()];
+    double segmentStartTime = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      segmentStartTimes[i] = segmentStartTime;
+      segmentStartTime += segments.get(i).getDuration();
+      // trajectories start at their first evaluation, so each segment is started at its own
+      // beginning, whatever point in time is evaluated first; this happens before the choreography
+      // is published, so that all the threads see the started segments
+      segments.get(i).getTarget().getDesiredPositionX(0);
+    }
+    duration = segmentStartTime;
+    timeOffset = 0;
+  }
+
+  private Choreography(Choreography choreography, double timeOffset) {
+    this.segments = choreography.segments;
+    this.segmentStartTimes = choreography.segmentStartTimes;
+    this.duration = choreography.duration;
+    this.timeOffset = timeOffset;
   }
 
   /** @return A choreography builder instance. */
@@ -42,82 +76,140 @@ public final class Choreography extends BasicTrajectory implements FiniteTraject
     return new Builder();
   }
 
-  private void checkChoreoSegments(double timeInSeconds) {
-    logFirstTime();
-    double normTime = normalize(timeInSeconds);
-    if (normTime >= getCurrentSegment().getDuration()) {
-      shiftSegments();
-    }
+  /**
+   * Creates a choreography of the same segments which starts again from the beginning at its first
+   * evaluation.
+   *
+   * @return a new choreography which shares the segments of this choreography
+   */
+  public Choreography replay() {
+    return seek(0);
   }
 
-  private void logFirstTime() {
-    if (!hasRun && getLogger(Choreography.class).isDebugEnabled()) {
-      hasRun = true;
-      getLogger(Choreography.class).debug("Executing first choreo segment: " + segments.peek());
-    }
+  /**
+   * Creates a choreography of the same segments which starts at the given point in the choreography
+   * at its first evaluation.
+   *
+   * @param choreographyTimeInSeconds the point in the choreography, relative to its beginning, to
+   *     start at
+   * @return a new choreography which shares the segments of this choreography
+   */
+  public Choreography seek(double choreographyTimeInSeconds) {
+    checkArgument(choreographyTimeInSeconds >= 0, "The time to seek to should be >= 0.");
+    return new Choreography(this, choreographyTimeInSeconds);
   }
 
-  private void shiftSegments() {
-    if (this.segments.size() > 1) {
-      this.timeWindowShift += segments.poll().getDuration();
-      if (getLogger(Choreography.class).isDebugEnabled()) {
-        getLogger(Choreography.class).debug("Executing next choreo segment: " + segments.peek());
-      }
+  /** @return The number of segments of this choreography. */
+  public int getNumberOfSegments() {
+    return segments.size();
+  }
+
+  /**
+   * @param index the index of a segment
+   * @return The start time of the segment relative to the beginning of the choreography.
+   */
+  public double getSegmentStartTime(int index) {
+    checkElementIndex(index, segments.size());
+    return segmentStartTimes[index];
+  }
+
+  /**
+   * Gets the index of the segment executed at a point in the choreography. Points before the
+   * beginning belong to the first segment, points after the end to the last segment.
+   *
+   * @param choreographyTimeInSeconds the point in time relative to the beginning of the choreography
+   * @return the index of the segment executed at that point
+   */
+  public int getSegmentIndex(double choreographyTimeInSeconds) {
+    final int searchResult = Arrays.binarySearch(segmentStartTimes, choreographyTimeInSeconds);
+    if (searchResult >= 0) {
+      return searchResult;
     }
+    final int insertionPoint = -searchResult - 1;
+    return Math.max(0, insertionPoint - 1);
   }
 
-  private double normalize(double timeInSeconds) {
-    return timeInSeconds - timeWindowShift;
+  private double getChoreographyTime(double timeInSeconds) {
+    double start = startTime;
+    if (start == UNSET) {
+      synchronized (this) {
+        if (startTime == UNSET) {
+          startTime = timeInSeconds;
+        }
+        start = startTime;
+      }
+    }
+    return timeInSeconds - start + timeOffset;
   }
 
-  private ChoreoSegment getCurrentSegment() {
-    return segments.peek();
+  private int getCurrentSegmentIndex(double choreographyTime) {
+    final int index = getSegmentIndex(choreographyTime);
+    // only the progress of the choreography is logged, not the look-ups back in time
+    if (index > lastSegmentIndex) {
+      lastSegmentIndex = index;
+      if (getLogger(Choreography.class).isDebugEnabled()) {
+        getLogger(Choreography.class).debug("Executing choreo segment: " + segments.get(index));
+      }
+    }
+    return index;
   }
 
   @Override
   public double getDesiredPositionX(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    checkChoreoSegments(currentTime);
-    return getCurrentSegment().getTarget().getDesiredPositionX(currentTime);
+    final double choreographyTime = getChoreographyTime(timeInSeconds);
+    final int index = getCurrentSegmentIndex(choreographyTime);
+    return segments
+        .get(index)
+        .getTarget()
+        .getDesiredPositionX(choreographyTime - segmentStartTimes[index]);
   }
 
   @Override
   public double getDesiredPositionY(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    checkChoreoSegments(currentTime);
-    return getCurrentSegment().getTarget().getDesiredPositionY(currentTime);
+    final double choreographyTime = getChoreographyTime(timeInSeconds);
+    final int index = getCurrentSegmentIndex(choreographyTime);
+    return segments
+        .get(index)
+        .getTarget()
+        .getDesiredPositionY(choreographyTime - segmentStartTimes[index]);
   }
 
   @Override
   public double getDesiredPositionZ(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    checkChoreoSegments(currentTime);
-    return getCurrentSegment().getTarget().getDesiredPositionZ(currentTime);
+    final double choreographyTime = getChoreographyTime(timeInSeconds);
+    final int index = getCurrentSegmentIndex(choreographyTime);
+    return segments
+        .get(index)
+        .getTarget()
+        .getDesiredPositionZ(choreographyTime - segmentStartTimes[index]);
   }
 
   @Override
   public double getDesiredAngleZ(double timeInSeconds) {
-    setStartTime(timeInSeconds);
-    final double currentTime = timeInSeconds - getStartTime();
-    checkChoreoSegments(currentTime);
-    return getCurrentSegment().getTarget().getDesiredAngleZ(currentTime);
+    final double choreographyTime = getChoreographyTime(timeInSeconds);
+    final int index = getCurrentSegmentIndex(choreographyTime);
+    return segments
+        .get(index)
+        .getTarget()
+        .getDesiredAngleZ(choreographyTime - segmentStartTimes[index]);
+  }
+
+  @Override
+  public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+    final double choreographyTime = getChoreographyTime(timeInSeconds);
+    final int index = getCurrentSegmentIndex(choreographyTime);
+    TrajectoryUtils.getDesiredState(
+        segments.get(index).getTarget(), choreographyTime - segmentStartTimes[index], state);
   }
 
   @Override
   public String toString() {
-    return "Choreography{" + "Choreo segments=" + initialSegments + '}';
+    return "Choreography{" + "Choreo segments=" + segments + '}';
   }
 
   @Override
   public double getTrajectoryDuration() {
-    double totalDuration = 0;
-    for (ChoreoSegment s : initialSegments) {
-      totalDuration += s.getDuration();
-    }
-    return totalDuration;
+    return duration;
   }
 
   /** Step builder instance that can be built or further configured with trajectories. */
@@ -1,13 +1,26 @@
 package commands;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import commands.schedulers.ControlLoopMetrics;
+import commands.schedulers.ControlLoopScheduler;
+import commands.schedulers.ControlLoopMetricsSink;
+import commands.schedulers.DiscreteEventExecutor;
 import commands.schedulers.PeriodicTaskRunner;
+import commands.schedulers.ScheduledControlLoop;
+import commands.schedulers.StateTriggeredTaskRunner;
+import commands.schedulers.SwarmTickBarrier;
 import control.dto.DroneStateStamped;
+import control.localization.ObservableStateEstimator;
 import control.localization.StateEstimator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import time.TimeProvider;
 
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkState;
+
 /**
  * Follow trajectory command.
  *
@@ -22,25 +35,89 @@ public abstract class AbstractFollowTrajectory implements Command {
   private final double controlRateInSeconds;
   private final double droneStateLifeDurationInSeconds;
   private final TimeProvider timeProvider;
+  private final ControlLoopMetricsSink metricsSink;
+  private final boolean runOnNewState;
+  @Nullable private final SwarmTickBarrier swarmTickBarrier;
 
   protected AbstractFollowTrajectory(
       StateEstimator stateEstimator,
       double durationInSeconds,
       double controlRateInSeconds,
       double droneStateLifeDurationInSeconds,
-      TimeProvider timeProvider) {
+      TimeProvider timeProvider,
+      @Nullable ControlLoopMetricsSink metricsSink,
+      boolean runOnNewState,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
     this.stateEstimator = stateEstimator;
     this.durationInSeconds = durationInSeconds;
     this.controlRateInSeconds = controlRateInSeconds;
     this.droneStateLifeDurationInSeconds = droneStateLifeDurationInSeconds;
-    this.timeProvider = timeProvider;
+    // the drones of a formation sample their trajectories at the logical time of the common tick
+    this.timeProvider = swarmTickBarrier == null ? timeProvider : swarmTickBarrier.getClock();
+    this.metricsSink = metricsSink == null ? ControlLoopMetrics.create() : metricsSink;
+    this.runOnNewState = runOnNewState;
+    this.swarmTickBarrier = swarmTickBarrier;
   }
 
   @Override
   public final void execute() {
     logger.debug("Execute follow trajectory command.");
     final Runnable controlLoop = createControlLoop();
-    PeriodicTaskRunner.run(controlLoop, controlRateInSeconds, durationInSeconds);
+    try {
+      if (swarmTickBarrier != null) {
+        if (!swarmTickBarrier.run(controlLoop, durationInSeconds)) {
+          logger.warn("The drone arrived too late at the swarm tick barrier. Skip the trajectory.");
+          metricsSink.recordMissedTicks(
+              (long) Math.ceil(durationInSeconds / swarmTickBarrier.getRateInSeconds()));
+        }
+      } else if (runOnNewState && stateEstimator instanceof ObservableStateEstimator) {
+        final long coalescedStates =
+            StateTriggeredTaskRunner.run(
+                controlLoop, (ObservableStateEstimator) stateEstimator, durationInSeconds);
+        metricsSink.recordMissedTicks(coalescedStates);
+      } else {
+        final ScheduledControlLoop scheduledControlLoop =
+            PeriodicTaskRunner.run(controlLoop, controlRateInSeconds, durationInSeconds);
+        metricsSink.recordMissedTicks(scheduledControlLoop.getMissedTicks());
+      }
+    } finally {
+      onExecuted();
+    }
+    logger.debug("Follow trajectory command finished: {}", metricsSink);
+  }
+
+  /**
+   * Called when {@link #execute()} returns, also when the command has been interrupted, e.g., to
+   * release the resources of the controller. The default implementation does nothing.
+   */
+  protected void onExecuted() {}
+
+  /**
+   * Starts the control loop of this command on the given scheduler and returns without blocking, so
+   * that the loops of many commands can be started and awaited by a single thread. The loop runs at
+   * the control rate, the missed ticks can be read from the returned handle once it is retired.
+   *
+   * @param scheduler the scheduler which executes the control loop
+   * @return the handle of the registered loop
+   * @throws IllegalStateException if this command runs in the common tick of a swarm tick barrier
+   */
+  public final ScheduledControlLoop start(ControlLoopScheduler scheduler) {
+    checkState(
+        swarmTickBarrier == null,
+        "A command synchronized by a swarm tick barrier cannot be started on its own.");
+    logger.debug("Start follow trajectory command.");
+    return scheduler.schedule(createControlLoop(), controlRateInSeconds, durationInSeconds);
+  }
+
+  /**
+   * Gets the sink which receives the timing measurements of the control loop of this command. If no
+   * sink has been set when building the command, it is a {@link ControlLoopMetrics}, which can be
+   * read after the command has been executed.
+   *
+   * @return the metrics sink of this command
+   */
+  public final ControlLoopMetricsSink getMetricsSink() {
+    return metricsSink;
   }
 
   protected abstract AbstractControlLoop createControlLoop();
@@ -52,18 +129,33 @@ public abstract class AbstractFollowTrajectory implements Command {
     private int counter;
     private double lastTimeStamp = Double.MIN_VALUE;
 
+    private final long controlRateInNanoSeconds;
+    private final Ticker ticker;
+    private boolean firstTick = true;
+    private long lastTickTimeInNanoSeconds;
+    private boolean responseComputed;
+    private long responseComputedInNanoSeconds;
+
     protected AbstractControlLoop() {
       this.startTimeInSeconds = timeProvider.getCurrentTimeSeconds();
       this.stateLifeDurationInNumberOfControlLoops =
           (int) Math.ceil(droneStateLifeDurationInSeconds / controlRateInSeconds);
+      this.controlRateInNanoSeconds = Math.round(controlRateInSeconds * 1.0e9);
+      // the ticks of a loop running in virtual time are spaced in virtual time
+      this.ticker = DiscreteEventExecutor.getCurrentTicker();
     }
 
     @Override
     public void run() {
+      final long tickStartInNanoSeconds = System.nanoTime();
+      recordJitter(ticker.read());
+      responseComputed = false;
+
       logger.trace("Start a control loop.");
       final Optional<DroneStateStamped> currentState = stateEstimator.getCurrentState();
       if (!currentState.isPresent()) {
         logger.trace("Cannot get state. Haven't sent any velocity.");
+        recordTickDuration(tickStartInNanoSeconds);
         return;
       }
 
@@ -71,17 +163,61 @@ public abstract class AbstractFollowTrajectory implements Command {
 
       if (counter >= stateLifeDurationInNumberOfControlLoops) {
         logger.debug("Pose is outdated. Stop sending velocity.");
+        recordTickDuration(tickStartInNanoSeconds);
       } else {
         logger.trace("Got pose and velocity. Start computing the next velocity response.");
         final double currentTimeInSeconds =
             timeProvider.getCurrentTimeSeconds() - startTimeInSeconds;
         computeAndSendResponse(currentTimeInSeconds, currentState.get());
+        recordLatencies(tickStartInNanoSeconds);
       }
     }
 
+    /**
+     * Computes the next response and sends it to the drone. Implementations should call {@link
+     * #markResponseComputed()} after computing and before sending the response, so that the
+     * compute latency and the publish latency can be measured separately.
+     *
+     * @param currentTimeInSeconds the time since the start of the control loop
+     * @param currentState the current state of the drone
+     */
     protected abstract void computeAndSendResponse(
         double currentTimeInSeconds, DroneStateStamped currentState);
 
+    /** Marks that the response of the current tick has been computed and is about to be sent. */
+    protected final void markResponseComputed() {
+      responseComputedInNanoSeconds = System.nanoTime();
+      responseComputed = true;
+    }
+
+    private void recordJitter(long tickTimeInNanoSeconds) {
+      if (firstTick) {
+        firstTick = false;
+      } else {
+        final long intervalInNanoSeconds = tickTimeInNanoSeconds - lastTickTimeInNanoSeconds;
+        metricsSink.recordJitter(Math.abs(intervalInNanoSeconds - controlRateInNanoSeconds));
+      }
+      lastTickTimeInNanoSeconds = tickTimeInNanoSeconds;
+    }
+
+    private void recordLatencies(long tickStartInNanoSeconds) {
+      final long tickEndInNanoSeconds = recordTickDuration(tickStartInNanoSeconds);
+      if (responseComputed) {
+        metricsSink.recordComputeLatency(responseComputedInNanoSeconds - tickStartInNanoSeconds);
+        metricsSink.recordPublishLatency(tickEndInNanoSeconds - responseComputedInNanoSeconds);
+      } else {
+        metricsSink.recordComputeLatency(tickEndInNanoSeconds - tickStartInNanoSeconds);
+      }
+    }
+
+    private long recordTickDuration(long tickStartInNanoSeconds) {
+      final long tickEndInNanoSeconds = System.nanoTime();
+      if (tickEndInNanoSeconds - tickStartInNanoSeconds > controlRateInNanoSeconds) {
+        metricsSink.recordOverrun();
+      }
+      return tickEndInNanoSeconds;
+    }
+
     private void setCounter(DroneStateStamped currentState) {
       final double currentTimeStamp = currentState.getTimeStampInSeconds();
       if (currentTimeStamp == lastTimeStamp) {
@@ -103,6 +239,9 @@ public abstract class AbstractFollowTrajectory implements Command {
     protected Double controlRateInSeconds;
     protected Double droneStateLifeDurationInSeconds;
     protected TimeProvider timeProvider;
+    @Nullable protected ControlLoopMetricsSink metricsSink;
+    protected boolean runOnNewState;
+    @Nullable protected SwarmTickBarrier swarmTickBarrier;
 
     protected AbstractBuilder() {
       controlRateInSeconds = DEFAULT_CONTROL_RATE_IN_SECONDS;
@@ -170,5 +309,49 @@ public abstract class AbstractFollowTrajectory implements Command {
       timeProvider = val;
       return self();
     }
+
+    /**
+     * Sets the {@code metricsSink} and returns a reference to this Builder so that the methods can
+     * be chained together. This parameter is optional, a new {@link ControlLoopMetrics} is used by
+     * default.
+     *
+     * @param val the {@code metricsSink} to set
+     * @return a reference to this Builder
+     */
+    public T withMetricsSink(ControlLoopMetricsSink val) {
+      metricsSink = val;
+      return self();
+    }
+
+    /**
+     * Sets the {@code runOnNewState} and returns a reference to this Builder so that the methods
+     * can be chained together. If it is true and the state estimator is an {@link
+     * ObservableStateEstimator}, the control loop runs each time a new state is estimated instead
+     * of at the control rate, which is then only used to measure the timing of the loop. This
+     * parameter is optional, the control loop runs at the control rate by default.
+     *
+     * @param val the {@code runOnNewState} to set
+     * @return a reference to this Builder
+     */
+    public T withRunOnNewState(boolean val) {
+      runOnNewState = val;
+      return self();
+    }
+
+    /**
+     * Sets the {@code swarmTickBarrier} and returns a reference to this Builder so that the methods
+     * can be chained together. If it is set, the control loop runs in the common tick of the
+     * barrier together with the loops of the other drones of the formation, and reads its time from
+     * the {@link commands.schedulers.SwarmClock} of the barrier instead of the time provider. The
+     * control rate should then be the rate of the barrier. This parameter is optional, the control
+     * loop runs on its own by default.
+     *
+     * @param val the {@code swarmTickBarrier} to set
+     * @return a reference to this Builder
+     */
+    public T withSwarmTickBarrier(@Nullable SwarmTickBarrier val) {
+      swarmTickBarrier = val;
+      return self();
+    }
   }
 }
@@ -1,12 +1,20 @@
 package commands;
 
+import commands.schedulers.ControlLoopMetricsSink;
+import commands.schedulers.SwarmTickBarrier;
 import control.VelocityController4d;
 import control.dto.DroneStateStamped;
 import control.dto.InertialFrameVelocity;
 import control.localization.StateEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import services.Velocity4dService;
 import time.TimeProvider;
 
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -16,6 +24,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public abstract class AbstractParrotFollowTrajectory extends AbstractFollowTrajectory {
 
+  private static final Logger logger =
+      LoggerFactory.getLogger(AbstractParrotFollowTrajectory.class);
+
   private final VelocityController4d velocityController4d;
   private final Velocity4dService velocity4dService;
 
@@ -26,18 +37,35 @@ public abstract class AbstractParrotFollowTrajectory extends AbstractFollowTraje
       double droneStateLifeDurationInSeconds,
       TimeProvider timeProvider,
       VelocityController4d velocityController4d,
-      Velocity4dService velocity4dService) {
+      Velocity4dService velocity4dService,
+      @Nullable ControlLoopMetricsSink metricsSink,
+      boolean runOnNewState,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
     super(
         stateEstimator,
         durationInSeconds,
         controlRateInSeconds,
         droneStateLifeDurationInSeconds,
-        timeProvider);
+        timeProvider,
+        metricsSink,
+        runOnNewState,
+        swarmTickBarrier);
 
     this.velocityController4d = velocityController4d;
     this.velocity4dService = velocity4dService;
   }
 
+  @Override
+  protected final void onExecuted() {
+    if (velocityController4d instanceof Closeable) {
+      try {
+        ((Closeable) velocityController4d).close();
+      } catch (IOException e) {
+        logger.warn("Cannot close the velocity controller.", e);
+      }
+    }
+  }
+
   @Override
   protected final AbstractFollowTrajectory.AbstractControlLoop createControlLoop() {
     return new ControlLoop();
@@ -53,6 +81,7 @@ public abstract class AbstractParrotFollowTrajectory extends AbstractFollowTraje
       final InertialFrameVelocity nextVelocity =
           velocityController4d.computeNextResponse(
               currentState.pose(), currentState.inertialFrameVelocity(), currentTimeInSeconds);
+      markResponseComputed();
       velocity4dService.sendInertialFrameVelocity(nextVelocity, currentState.pose());
     }
   }
@@ -68,7 +97,8 @@ public abstract class AbstractParrotFollowTrajectory extends AbstractFollowTraje
 
     /**
      * Sets the {@code velocityController4d} and returns a reference to this Builder so that the
-     * methods can be chained together.
+     * methods can be chained together. If the controller is {@link Closeable}, e.g., a {@link
+     * control.VelocityController4dLogger}, it is closed once the command has been executed.
      *
      * @param val the {@code velocityController4d} to set
      * @return a reference to this Builder
@@ -1,5 +1,6 @@
 package commands;
 
+import commands.schedulers.DiscreteEventExecutor;
 import control.dto.BodyFrameVelocity;
 import control.dto.Velocity;
 import control.localization.StateEstimator;
@@ -38,7 +39,8 @@ public abstract class AbstractParrotHover extends AbstractHover {
     // TODO: test the drone to see if we need the HOVER flying state feedback here
 
     try {
-      TimeUnit.MILLISECONDS.sleep((long) (getDurationInSeconds() * 1000));
+      DiscreteEventExecutor.sleepOnCurrentThread(
+          (long) (getDurationInSeconds() * 1000), TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       logger.debug("AbstractParrotHover command is interrupted.", e);
       Thread.currentThread().interrupt();
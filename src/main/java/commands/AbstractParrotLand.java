@@ -10,14 +10,16 @@ import services.rossubscribers.FlyingState;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Command for landing.
+ * Command for landing. The landing message is resent periodically until the drone is landed. The
+ * command returns as soon as the LANDED flying state is received or the executing thread is
+ * interrupted.
  *
  * @author Hoang Tung Dinh
  */
 public abstract class AbstractParrotLand implements Command {
 
   private static final Logger logger = LoggerFactory.getLogger(AbstractParrotLand.class);
-  private static final int SLEEP_DURATION_IN_MILLISECONDS = 50;
+  private static final int RESEND_PERIOD_IN_MILLISECONDS = 50;
 
   private final LandService landService;
   private final FlyingStateService flyingStateService;
@@ -31,34 +33,35 @@ public abstract class AbstractParrotLand implements Command {
   public final void execute() {
     logger.debug("Execute land command.");
 
-    while (true) {
-      final Optional<FlyingState> currentFlyingState = flyingStateService.getCurrentFlyingState();
+    try (final FlyingStateCondition flyingStateCondition =
+        FlyingStateCondition.create(flyingStateService)) {
+      while (true) {
+        final Optional<FlyingState> currentFlyingState = flyingStateService.getCurrentFlyingState();
 
-      if (currentFlyingState.isPresent()) {
-        if (currentFlyingState.get() == FlyingState.LANDED) {
-          logger.info("Successfully landed.");
-          return;
-        }
+        if (currentFlyingState.isPresent()) {
+          if (currentFlyingState.get() == FlyingState.LANDED) {
+            logger.info("Successfully landed.");
+            return;
+          }
 
-        if (currentFlyingState.get() != FlyingState.LANDING) {
-          logger.trace("Current state is {}. Send a landing message.", currentFlyingState.get());
+          if (currentFlyingState.get() != FlyingState.LANDING) {
+            logger.trace("Current state is {}. Send a landing message.", currentFlyingState.get());
+            landService.sendLandingMessage();
+          }
+        } else {
+          logger.trace("Cannot get flying state. Send a landing message.");
           landService.sendLandingMessage();
         }
-      } else {
-        logger.trace("Cannot get flying state. Send a landing message.");
-        landService.sendLandingMessage();
-      }
-
-      try {
-        TimeUnit.MILLISECONDS.sleep(SLEEP_DURATION_IN_MILLISECONDS);
-      } catch (InterruptedException e) {
-        logger.debug("Sleep is interrupted in land command.", e);
-        Thread.currentThread().interrupt();
-      }
 
-      if (Thread.interrupted()) {
-        return;
+        // the landing message is resent if the drone is not landed before the deadline
+        flyingStateCondition.await(
+            FlyingStateCondition.isIn(FlyingState.LANDED),
+            RESEND_PERIOD_IN_MILLISECONDS,
+            TimeUnit.MILLISECONDS);
       }
+    } catch (InterruptedException e) {
+      logger.debug("Land command is interrupted.", e);
+      Thread.currentThread().interrupt();
     }
   }
 }
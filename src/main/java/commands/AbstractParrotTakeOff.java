@@ -1,6 +1,7 @@
 package commands;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import services.FlyingStateService;
@@ -11,13 +12,16 @@ import services.rossubscribers.FlyingState;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Take off command for parrot drones.
+ * Take off command for parrot drones. The reset and take off messages are resent periodically
+ * until the expected flying state is received. Each step returns as soon as its flying state is
+ * received, and the command stops as soon as the executing thread is interrupted.
  *
  * @author Hoang Tung Dinh
  */
 public abstract class AbstractParrotTakeOff implements Command {
 
   private static final Logger logger = LoggerFactory.getLogger(AbstractParrotTakeOff.class);
+  private static final long RESEND_PERIOD_IN_MILLISECONDS = 50;
 
   private final TakeOffService takeOffService;
   private final FlyingStateService flyingStateService;
@@ -35,77 +39,63 @@ public abstract class AbstractParrotTakeOff implements Command {
   @Override
   public void execute() {
     logger.debug("Execute take off command.");
-    sendResetMessageAndWaitForFlyingState();
-    logger.debug("The drone is in LANDED state. Start sending taking off message.");
-    sendTakeOffMessages();
-    waitUntilInHoveringState();
+    try (final FlyingStateCondition flyingStateCondition =
+        FlyingStateCondition.create(flyingStateService)) {
+      sendResetMessageAndWaitForFlyingState(flyingStateCondition);
+      logger.debug("The drone is in LANDED state. Start sending taking off message.");
+      sendTakeOffMessages(flyingStateCondition);
+      waitUntilInHoveringState(flyingStateCondition);
+    } catch (InterruptedException e) {
+      logger.debug("Take off command is interrupted.", e);
+      Thread.currentThread().interrupt();
+    }
   }
 
   /** Waits until the drone is in HOVERING state. */
-  private void waitUntilInHoveringState() {
-    while (true) {
-      final Optional<FlyingState> currentFlyingState = flyingStateService.getCurrentFlyingState();
-      // This is a hack to make the code work with both the Tum simulator and the bebop drone. If
-      // the drone took off successfully, the bebop flying state is HOVERING while the flying
-      // state of the ArDrone in the Tum simulator is FLYING.
-      // TODO: refactor this code
-      if (currentFlyingState.isPresent() && isInHoveringState(currentFlyingState.get())) {
-        return;
-      }
-      try {
-        TimeUnit.MILLISECONDS.sleep(50);
-      } catch (InterruptedException e) {
-        logger.debug(
-            "Sleep while waiting for the drone in hovering state take off execution is interrupted.",
-            e);
-      }
-    }
+  private void waitUntilInHoveringState(FlyingStateCondition flyingStateCondition)
+      throws InterruptedException {
+    // This is a hack to make the code work with both the Tum simulator and the bebop drone. If
+    // the drone took off successfully, the bebop flying state is HOVERING while the flying
+    // state of the ArDrone in the Tum simulator is FLYING.
+    // TODO: refactor this code
+    flyingStateCondition.await(
+        new Predicate<Optional<FlyingState>>() {
+          @Override
+          public boolean apply(Optional<FlyingState> currentFlyingState) {
+            return currentFlyingState.isPresent() && isInHoveringState(currentFlyingState.get());
+          }
+        });
   }
 
   protected abstract boolean isInHoveringState(FlyingState currentFlyingState);
 
   /** Sends take off messages until the drone state is TAKING_OFF. */
-  private void sendTakeOffMessages() {
-    while (true) {
+  private void sendTakeOffMessages(FlyingStateCondition flyingStateCondition)
+      throws InterruptedException {
+    do {
       takeOffService.sendTakingOffMessage();
-
-      try {
-        TimeUnit.MILLISECONDS.sleep(50);
-      } catch (InterruptedException e) {
-        logger.debug(
-            "Sleep while waiting for flying state in take off execution is interrupted.", e);
-      }
-
-      final Optional<FlyingState> currentFlyingState = flyingStateService.getCurrentFlyingState();
-      if (currentFlyingState.isPresent() && currentFlyingState.get() == FlyingState.TAKING_OFF) {
-        break;
-      }
-    }
+    } while (!flyingStateCondition.await(
+        FlyingStateCondition.isIn(FlyingState.TAKING_OFF),
+        RESEND_PERIOD_IN_MILLISECONDS,
+        TimeUnit.MILLISECONDS));
   }
 
   /**
    * Sends the reset message to the drone until the state of the drone is {@link
    * FlyingState#LANDED}.
    */
-  private void sendResetMessageAndWaitForFlyingState() {
+  private void sendResetMessageAndWaitForFlyingState(FlyingStateCondition flyingStateCondition)
+      throws InterruptedException {
     while (true) {
       // if there is no flying state received yet, then send the reset message
       if (!flyingStateService.getCurrentFlyingState().isPresent()) {
         resetService.sendResetMessage();
       }
 
-      try {
-        TimeUnit.MILLISECONDS.sleep(50);
-      } catch (InterruptedException e) {
-        logger.debug(
-            "Sleep while waiting for flying state in  sendResetMessageAndWaitForFlyingState in "
-                + "take off execution is interrupted.",
-            e);
-        Thread.currentThread().interrupt();
-      }
-
-      final Optional<FlyingState> currentFlyingState = flyingStateService.getCurrentFlyingState();
-      if (currentFlyingState.isPresent() && currentFlyingState.get() == FlyingState.LANDED) {
+      if (flyingStateCondition.await(
+          FlyingStateCondition.isIn(FlyingState.LANDED),
+          RESEND_PERIOD_IN_MILLISECONDS,
+          TimeUnit.MILLISECONDS)) {
         // if the drone is in LANDED state then return
         return;
       }
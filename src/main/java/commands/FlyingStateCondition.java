@@ -0,0 +1,168 @@
+package commands;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import commands.schedulers.DiscreteEventExecutor;
+import services.FlyingStateObserver;
+import services.FlyingStateService;
+import services.ObservableFlyingStateService;
+import services.rossubscribers.FlyingState;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A condition wait on the flying state of a drone. If the flying state service is an {@link
+ * ObservableFlyingStateService}, a waiting command is woken up as soon as a flying state is
+ * received. Otherwise, the flying state is polled. Waiting always reacts to interruption
+ * immediately by throwing an {@link InterruptedException}. If a {@link DiscreteEventExecutor} is
+ * running on the current thread, waiting runs the events of this executor until the flying state
+ * satisfies the predicate or the timeout elapses in virtual time.
+ *
+ * <p>The condition must be closed after use to remove its observer from the flying state service.
+ */
+final class FlyingStateCondition implements AutoCloseable {
+
+  private static final long POLLING_PERIOD_IN_NANOSECONDS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final FlyingStateService flyingStateService;
+  private final Lock lock = new ReentrantLock();
+  private final Condition flyingStateReceived = lock.newCondition();
+  @Nullable private final FlyingStateObserver flyingStateObserver;
+
+  private FlyingStateCondition(FlyingStateService flyingStateService) {
+    this.flyingStateService = flyingStateService;
+    if (flyingStateService instanceof ObservableFlyingStateService) {
+      flyingStateObserver =
+          new FlyingStateObserver() {
+            @Override
+            public void onNewFlyingState(FlyingState flyingState) {
+              signalFlyingStateReceived();
+            }
+          };
+      ((ObservableFlyingStateService) flyingStateService)
+          .registerFlyingStateObserver(flyingStateObserver);
+    } else {
+      flyingStateObserver = null;
+    }
+  }
+
+  /**
+   * Creates a condition wait on the flying state provided by a flying state service.
+   *
+   * @param flyingStateService the flying state service of the drone
+   * @return a condition instance, which must be closed after use
+   */
+  static FlyingStateCondition create(FlyingStateService flyingStateService) {
+    return new FlyingStateCondition(flyingStateService);
+  }
+
+  /**
+   * Waits until the current flying state satisfies a predicate or the timeout elapses. The
+   * deadline is fixed when this method is called, so that spurious wake-ups do not extend it.
+   *
+   * @param predicate the predicate on the current flying state, which is absent if no flying state
+   *     has been received yet
+   * @param timeout the maximum time to wait
+   * @param unit the time unit of {@code timeout}
+   * @return true if the flying state satisfies the predicate, false if the timeout elapsed
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  boolean await(Predicate<Optional<FlyingState>> predicate, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    final Optional<DiscreteEventExecutor> discreteEventExecutor =
+        DiscreteEventExecutor.getCurrent();
+    if (discreteEventExecutor.isPresent()) {
+      return discreteEventExecutor.get().awaitCondition(asCondition(predicate), timeout, unit);
+    }
+    return await(predicate, true, System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  /**
+   * Waits without timeout until the current flying state satisfies a predicate.
+   *
+   * @param predicate the predicate on the current flying state, which is absent if no flying state
+   *     has been received yet
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  void await(Predicate<Optional<FlyingState>> predicate) throws InterruptedException {
+    final Optional<DiscreteEventExecutor> discreteEventExecutor =
+        DiscreteEventExecutor.getCurrent();
+    if (discreteEventExecutor.isPresent()) {
+      discreteEventExecutor.get().awaitCondition(asCondition(predicate));
+    } else {
+      await(predicate, false, 0);
+    }
+  }
+
+  /**
+   * Creates a predicate which is satisfied if the current flying state is the expected one.
+   *
+   * @param expectedFlyingState the expected flying state
+   * @return the predicate
+   */
+  static Predicate<Optional<FlyingState>> isIn(final FlyingState expectedFlyingState) {
+    return new Predicate<Optional<FlyingState>>() {
+      @Override
+      public boolean apply(Optional<FlyingState> currentFlyingState) {
+        return currentFlyingState.isPresent() && currentFlyingState.get() == expectedFlyingState;
+      }
+    };
+  }
+
+  @Override
+  public void close() {
+    if (flyingStateObserver != null) {
+      ((ObservableFlyingStateService) flyingStateService)
+          .removeFlyingStateObserver(flyingStateObserver);
+    }
+  }
+
+  private Supplier<Boolean> asCondition(final Predicate<Optional<FlyingState>> predicate) {
+    return new Supplier<Boolean>() {
+      @Override
+      public Boolean get() {
+        return predicate.apply(flyingStateService.getCurrentFlyingState());
+      }
+    };
+  }
+
+  private boolean await(
+      Predicate<Optional<FlyingState>> predicate, boolean timed, long deadlineInNanoSeconds)
+      throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (true) {
+        if (predicate.apply(flyingStateService.getCurrentFlyingState())) {
+          return true;
+        }
+
+        long waitingTimeInNanoSeconds =
+            flyingStateObserver == null ? POLLING_PERIOD_IN_NANOSECONDS : Long.MAX_VALUE;
+        if (timed) {
+          final long remainingTimeInNanoSeconds = deadlineInNanoSeconds - System.nanoTime();
+          if (remainingTimeInNanoSeconds <= 0) {
+            return false;
+          }
+          waitingTimeInNanoSeconds = Math.min(waitingTimeInNanoSeconds, remainingTimeInNanoSeconds);
+        }
+        flyingStateReceived.awaitNanos(waitingTimeInNanoSeconds);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void signalFlyingStateReceived() {
+    lock.lock();
+    try {
+      flyingStateReceived.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -1,16 +1,24 @@
 package commands;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import commands.schedulers.DiscreteEventExecutor;
 import control.dto.DroneStateStamped;
+import control.localization.ObservableStateEstimator;
 import control.localization.StateEstimator;
+import control.localization.StateObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Waits until receiving a valid pose and then executes a {@link Command}
+ * Waits until receiving a valid pose and then executes a {@link Command}. If the state estimator is
+ * an {@link ObservableStateEstimator}, the decorator is woken up by the new states instead of
+ * polling the state estimator. If a {@link DiscreteEventExecutor} is running on the current thread,
+ * the decorator runs the events of this executor until a valid pose is estimated.
  *
  * @author Hoang Tung Dinh
  */
@@ -44,30 +52,95 @@ public final class WaitForLocalizationDecorator implements Command {
   public void execute() {
     logger.debug("Start waiting for localization.");
 
+    final Optional<DiscreteEventExecutor> discreteEventExecutor =
+        DiscreteEventExecutor.getCurrent();
+    if (discreteEventExecutor.isPresent()) {
+      if (!waitForNewStatesInVirtualTime(discreteEventExecutor.get())) {
+        return;
+      }
+    } else if (stateEstimator instanceof ObservableStateEstimator) {
+      if (!waitForNewStates((ObservableStateEstimator) stateEstimator)) {
+        return;
+      }
+    } else if (!pollForNewStates()) {
+      return;
+    }
+
+    command.execute();
+  }
+
+  private boolean waitForNewStates(ObservableStateEstimator observableStateEstimator) {
+    final CountDownLatch localizationLatch = new CountDownLatch(1);
+    final StateObserver stateObserver =
+        new StateObserver() {
+          @Override
+          public void onNewState(DroneStateStamped state) {
+            if (isSecondDifferentState(state)) {
+              localizationLatch.countDown();
+            }
+          }
+        };
+
+    observableStateEstimator.registerStateObserver(stateObserver);
+    try {
+      final Optional<DroneStateStamped> currentState = observableStateEstimator.getCurrentState();
+      if (currentState.isPresent() && isSecondDifferentState(currentState.get())) {
+        localizationLatch.countDown();
+      }
+      localizationLatch.await();
+      return true;
+    } catch (InterruptedException e) {
+      logger.debug("Waiting for localization is interrupted.", e);
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      observableStateEstimator.removeStateObserver(stateObserver);
+    }
+  }
+
+  private boolean waitForNewStatesInVirtualTime(DiscreteEventExecutor discreteEventExecutor) {
+    try {
+      discreteEventExecutor.awaitCondition(
+          new Supplier<Boolean>() {
+            @Override
+            public Boolean get() {
+              final Optional<DroneStateStamped> currentState = stateEstimator.getCurrentState();
+              return currentState.isPresent() && isSecondDifferentState(currentState.get());
+            }
+          });
+      return true;
+    } catch (InterruptedException e) {
+      logger.debug("Waiting for localization is interrupted.", e);
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private boolean pollForNewStates() {
     while (true) {
       final Optional<DroneStateStamped> droneStateStampedOptional =
           stateEstimator.getCurrentState();
 
-      if (droneStateStampedOptional.isPresent()) {
-        final DroneStateStamped droneStateStamped = droneStateStampedOptional.get();
-        if (lastReceivedPose == null) {
-          lastReceivedPose = droneStateStamped;
-        } else {
-          if (droneStateStamped.getTimeStampInSeconds()
-              != lastReceivedPose.getTimeStampInSeconds()) {
-            break;
-          }
-        }
+      if (droneStateStampedOptional.isPresent()
+          && isSecondDifferentState(droneStateStampedOptional.get())) {
+        return true;
       }
 
       try {
         TimeUnit.MILLISECONDS.sleep(SLEEP_DURATION_IN_MILLISECONDS);
       } catch (InterruptedException e) {
-        logger.debug("Sleep is interrupted in land command.", e);
+        logger.debug("Waiting for localization is interrupted.", e);
         Thread.currentThread().interrupt();
+        return false;
       }
     }
+  }
 
-    command.execute();
+  private synchronized boolean isSecondDifferentState(DroneStateStamped droneStateStamped) {
+    if (lastReceivedPose == null) {
+      lastReceivedPose = droneStateStamped;
+      return false;
+    }
+    return droneStateStamped.getTimeStampInSeconds() != lastReceivedPose.getTimeStampInSeconds();
   }
 }
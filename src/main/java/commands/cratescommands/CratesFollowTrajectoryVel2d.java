@@ -1,6 +1,8 @@
 package commands.cratescommands;
 
 import commands.AbstractFollowTrajectory;
+import commands.schedulers.ControlLoopMetricsSink;
+import commands.schedulers.SwarmTickBarrier;
 import control.LinearPidController1d;
 import control.Trajectory1d;
 import control.dto.DroneStateStamped;
@@ -8,6 +10,8 @@ import control.localization.StateEstimator;
 import services.Velocity2dService;
 import time.TimeProvider;
 
+import javax.annotation.Nullable;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -35,13 +39,19 @@ public final class CratesFollowTrajectoryVel2d extends AbstractFollowTrajectory
       LinearPidController1d pidControllerLinearX,
       LinearPidController1d pidControllerLinearY,
       Trajectory1d trajectoryLinearZ,
-      Trajectory1d trajectoryAngularZ) {
+      Trajectory1d trajectoryAngularZ,
+      @Nullable ControlLoopMetricsSink metricsSink,
+      boolean runOnNewState,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
     super(
         stateEstimator,
         durationInSeconds,
         controlRateInSeconds,
         droneStateLifeDurationInSeconds,
-        timeProvider);
+        timeProvider,
+        metricsSink,
+        runOnNewState,
+        swarmTickBarrier);
     this.velocity2dService = velocity2dService;
     this.pidControllerLinearX = pidControllerLinearX;
     this.pidControllerLinearY = pidControllerLinearY;
@@ -78,12 +88,12 @@ public final class CratesFollowTrajectoryVel2d extends AbstractFollowTrajectory
               currentState.pose().y(),
               currentState.inertialFrameVelocity().linearY(),
               currentTimeInSeconds);
+      final double desiredPositionZ = trajectoryLinearZ.getDesiredPosition(currentTimeInSeconds);
+      final double desiredAngleZ = trajectoryAngularZ.getDesiredPosition(currentTimeInSeconds);
+      markResponseComputed();
 
       velocity2dService.sendVelocityHeightMessage(
-          nextVelocityX,
-          nextVelocityY,
-          trajectoryLinearZ.getDesiredPosition(currentTimeInSeconds),
-          trajectoryAngularZ.getDesiredPosition(currentTimeInSeconds));
+          nextVelocityX, nextVelocityY, desiredPositionZ, desiredAngleZ);
     }
   }
 
@@ -190,7 +200,10 @@ public final class CratesFollowTrajectoryVel2d extends AbstractFollowTrajectory
           pidControllerLinearX,
           pidControllerLinearY,
           trajectoryLinearZ,
-          trajectoryAngularZ);
+          trajectoryAngularZ,
+          metricsSink,
+          runOnNewState,
+          swarmTickBarrier);
     }
   }
 }
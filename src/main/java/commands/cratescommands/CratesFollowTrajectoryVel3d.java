@@ -1,6 +1,8 @@
 package commands.cratescommands;
 
 import commands.AbstractFollowTrajectory;
+import commands.schedulers.ControlLoopMetricsSink;
+import commands.schedulers.SwarmTickBarrier;
 import control.LinearPidController1d;
 import control.Trajectory1d;
 import control.dto.DroneStateStamped;
@@ -8,6 +10,8 @@ import control.localization.StateEstimator;
 import services.Velocity3dService;
 import time.TimeProvider;
 
+import javax.annotation.Nullable;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -35,13 +39,19 @@ public final class CratesFollowTrajectoryVel3d extends AbstractFollowTrajectory
       LinearPidController1d pidControllerLinearX,
       LinearPidController1d pidControllerLinearY,
       LinearPidController1d pidControllerLinearZ,
-      Trajectory1d trajectoryAngularZ) {
+      Trajectory1d trajectoryAngularZ,
+      @Nullable ControlLoopMetricsSink metricsSink,
+      boolean runOnNewState,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
     super(
         stateEstimator,
         durationInSeconds,
         controlRateInSeconds,
         droneStateLifeDurationInSeconds,
-        timeProvider);
+        timeProvider,
+        metricsSink,
+        runOnNewState,
+        swarmTickBarrier);
     this.velocity3dService = velocity3dService;
     this.pidControllerLinearX = pidControllerLinearX;
     this.pidControllerLinearY = pidControllerLinearY;
@@ -85,12 +95,11 @@ public final class CratesFollowTrajectoryVel3d extends AbstractFollowTrajectory
               currentState.pose().z(),
               currentState.inertialFrameVelocity().linearZ(),
               currentTimeInSeconds);
+      final double desiredAngleZ = trajectoryAngularZ.getDesiredPosition(currentTimeInSeconds);
+      markResponseComputed();
 
       velocity3dService.sendVelocity3dMessage(
-          nextVelocityX,
-          nextVelocityY,
-          nextVelocityZ,
-          trajectoryAngularZ.getDesiredPosition(currentTimeInSeconds));
+          nextVelocityX, nextVelocityY, nextVelocityZ, desiredAngleZ);
     }
   }
 
@@ -197,7 +206,10 @@ public final class CratesFollowTrajectoryVel3d extends AbstractFollowTrajectory
           pidControllerLinearX,
           pidControllerLinearY,
           pidControllerLinearZ,
-          trajectoryAngularZ);
+          trajectoryAngularZ,
+          metricsSink,
+          runOnNewState,
+          swarmTickBarrier);
     }
   }
 }
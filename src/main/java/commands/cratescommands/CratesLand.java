@@ -0,0 +1,23 @@
+package commands.cratescommands;
+
+import commands.AbstractParrotLand;
+import services.FlyingStateService;
+import services.LandService;
+
+/** Land command for drones in the Crates simulator. */
+public final class CratesLand extends AbstractParrotLand {
+  private CratesLand(LandService landService, FlyingStateService flyingStateService) {
+    super(landService, flyingStateService);
+  }
+
+  /**
+   * Creates a land command.
+   *
+   * @param landService the land service of the drone
+   * @param flyingStateService the flying state service of the drone
+   * @return a land command
+   */
+  public static CratesLand create(LandService landService, FlyingStateService flyingStateService) {
+    return new CratesLand(landService, flyingStateService);
+  }
+}
@@ -0,0 +1,41 @@
+package commands.cratescommands;
+
+import commands.AbstractParrotTakeOff;
+import services.FlyingStateService;
+import services.ResetService;
+import services.TakeOffService;
+import services.rossubscribers.FlyingState;
+
+/**
+ * Take off command for drones in the Crates simulator. The simulator has no reset rosservice: a
+ * drone is ready to take off as soon as it publishes its state, so no reset message is sent.
+ */
+public final class CratesTakeOff extends AbstractParrotTakeOff {
+
+  private static final ResetService NO_RESET =
+      new ResetService() {
+        @Override
+        public void sendResetMessage() {}
+      };
+
+  private CratesTakeOff(TakeOffService takeOffService, FlyingStateService flyingStateService) {
+    super(takeOffService, flyingStateService, NO_RESET);
+  }
+
+  /**
+   * Creates an instance of the {@link CratesTakeOff} command.
+   *
+   * @param takeOffService the take off service
+   * @param flyingStateService the flying state service
+   * @return an instance of the {@link CratesTakeOff} command
+   */
+  public static CratesTakeOff create(
+      TakeOffService takeOffService, FlyingStateService flyingStateService) {
+    return new CratesTakeOff(takeOffService, flyingStateService);
+  }
+
+  @Override
+  protected boolean isInHoveringState(FlyingState currentFlyingState) {
+    return currentFlyingState == FlyingState.HOVERING;
+  }
+}
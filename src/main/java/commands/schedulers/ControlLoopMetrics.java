@@ -0,0 +1,90 @@
+package commands.schedulers;
+
+import utils.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ControlLoopMetricsSink} which keeps histograms of the jitter, compute latency and
+ * publish latency of a control loop, and counts its overruns and missed ticks.
+ */
+public final class ControlLoopMetrics implements ControlLoopMetricsSink {
+
+  private final LatencyHistogram jitterHistogram = LatencyHistogram.create();
+  private final LatencyHistogram computeLatencyHistogram = LatencyHistogram.create();
+  private final LatencyHistogram publishLatencyHistogram = LatencyHistogram.create();
+  private final AtomicLong numberOfOverruns = new AtomicLong();
+  private final AtomicLong numberOfMissedTicks = new AtomicLong();
+
+  private ControlLoopMetrics() {}
+
+  /**
+   * Creates an empty control loop metrics.
+   *
+   * @return an empty control loop metrics
+   */
+  public static ControlLoopMetrics create() {
+    return new ControlLoopMetrics();
+  }
+
+  @Override
+  public void recordJitter(long jitterInNanoSeconds) {
+    jitterHistogram.record(jitterInNanoSeconds);
+  }
+
+  @Override
+  public void recordComputeLatency(long latencyInNanoSeconds) {
+    computeLatencyHistogram.record(latencyInNanoSeconds);
+  }
+
+  @Override
+  public void recordPublishLatency(long latencyInNanoSeconds) {
+    publishLatencyHistogram.record(latencyInNanoSeconds);
+  }
+
+  @Override
+  public void recordOverrun() {
+    numberOfOverruns.incrementAndGet();
+  }
+
+  @Override
+  public void recordMissedTicks(long numberOfMissedTicks) {
+    this.numberOfMissedTicks.addAndGet(numberOfMissedTicks);
+  }
+
+  public LatencyHistogram getJitterHistogram() {
+    return jitterHistogram;
+  }
+
+  public LatencyHistogram getComputeLatencyHistogram() {
+    return computeLatencyHistogram;
+  }
+
+  public LatencyHistogram getPublishLatencyHistogram() {
+    return publishLatencyHistogram;
+  }
+
+  public long getNumberOfOverruns() {
+    return numberOfOverruns.get();
+  }
+
+  public long getNumberOfMissedTicks() {
+    return numberOfMissedTicks.get();
+  }
+
+  @Override
+  public String toString() {
+    return "ControlLoopMetrics{"
+        + "jitter={"
+        + jitterHistogram
+        + "}, computeLatency={"
+        + computeLatencyHistogram
+        + "}, publishLatency={"
+        + publishLatencyHistogram
+        + "}, overruns="
+        + numberOfOverruns.get()
+        + ", missedTicks="
+        + numberOfMissedTicks.get()
+        + "}";
+  }
+}
@@ -0,0 +1,41 @@
+package commands.schedulers;
+
+/**
+ * A sink which receives the timing measurements of a periodic control loop. All durations are in
+ * nanoseconds. The methods are called from the thread executing the control loop, so
+ * implementations should be cheap and must not block.
+ */
+public interface ControlLoopMetricsSink {
+
+  /**
+   * Records the deviation between the measured interval of two consecutive ticks and the control
+   * rate.
+   *
+   * @param jitterInNanoSeconds the absolute deviation
+   */
+  void recordJitter(long jitterInNanoSeconds);
+
+  /**
+   * Records the time from the start of a tick until the response has been computed.
+   *
+   * @param latencyInNanoSeconds the compute latency
+   */
+  void recordComputeLatency(long latencyInNanoSeconds);
+
+  /**
+   * Records the time needed to send a computed response.
+   *
+   * @param latencyInNanoSeconds the publish latency
+   */
+  void recordPublishLatency(long latencyInNanoSeconds);
+
+  /** Records a tick which took longer than the control rate. */
+  void recordOverrun();
+
+  /**
+   * Records the ticks which have been skipped by the scheduler because they fired too late.
+   *
+   * @param numberOfMissedTicks the number of missed ticks
+   */
+  void recordMissedTicks(long numberOfMissedTicks);
+}
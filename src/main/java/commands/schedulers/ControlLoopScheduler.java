@@ -0,0 +1,156 @@
+package commands.schedulers;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A scheduler which multiplexes the periodic control loops of all drones onto a small, bounded pool
+ * of worker threads. Each registered loop keeps its own period and deadline, and is retired when
+ * its deadline has passed.
+ */
+public final class ControlLoopScheduler {
+
+  private static final int DEFAULT_NUMBER_OF_WORKERS =
+      Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  private final ScheduledThreadPoolExecutor executor;
+  private final int numberOfWorkers;
+  private final Set<ScheduledControlLoop> loops =
+      Collections.newSetFromMap(new ConcurrentHashMap<ScheduledControlLoop, Boolean>());
+
+  private ControlLoopScheduler(int numberOfWorkers) {
+    this.numberOfWorkers = numberOfWorkers;
+    this.executor =
+        new ScheduledThreadPoolExecutor(
+            numberOfWorkers,
+            new ThreadFactoryBuilder().setNameFormat("control-loop-%d").setDaemon(true).build());
+    // retired loops must not stay in the work queue until their next planned tick
+    executor.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Creates a control loop scheduler with its own worker pool.
+   *
+   * @param numberOfWorkers the number of worker threads shared by all loops
+   * @return a control loop scheduler
+   */
+  public static ControlLoopScheduler create(int numberOfWorkers) {
+    checkArgument(numberOfWorkers > 0, "The number of workers must be positive.");
+    return new ControlLoopScheduler(numberOfWorkers);
+  }
+
+  /**
+   * Gets the scheduler shared by all the commands in this process. Its number of workers is equal
+   * to the number of available processors (at least two).
+   *
+   * @return the shared control loop scheduler
+   */
+  public static ControlLoopScheduler getSharedInstance() {
+    return SharedInstanceHolder.INSTANCE;
+  }
+
+  /**
+   * Registers a task to be executed periodically, starting immediately. This method does not block.
+   *
+   * @param task the task to be executed
+   * @param rateInSeconds the period between two consecutive executions
+   * @param durationInSeconds the duration after which the loop is retired
+   * @return the handle of the registered loop
+   */
+  public ScheduledControlLoop schedule(
+      Runnable task, double rateInSeconds, double durationInSeconds) {
+    checkArgument(rateInSeconds > 0, "The rate must be positive.");
+    checkArgument(durationInSeconds >= 0, "The duration must not be negative.");
+
+    final long periodInNanoSeconds = Math.round(rateInSeconds * 1.0e9);
+    final long durationInNanoSeconds = Math.round(durationInSeconds * 1.0e9);
+
+    final ScheduledControlLoop loop =
+        new ScheduledControlLoop(
+            task,
+            periodInNanoSeconds,
+            System.nanoTime(),
+            durationInNanoSeconds,
+            Ticker.systemTicker());
+    removeRetiredLoops();
+    loops.add(loop);
+
+    loop.setFuture(
+        executor.scheduleAtFixedRate(
+            new Runnable() {
+              @Override
+              public void run() {
+                loop.tick();
+              }
+            },
+            0,
+            periodInNanoSeconds,
+            TimeUnit.NANOSECONDS));
+
+    // retire the loop on time even if its last ticks are delayed
+    loop.setRetirementFuture(
+        executor.schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                loop.retire();
+              }
+            },
+            durationInNanoSeconds,
+            TimeUnit.NANOSECONDS));
+
+    return loop;
+  }
+
+  /** Returns the number of worker threads of this scheduler. */
+  public int getNumberOfWorkers() {
+    return numberOfWorkers;
+  }
+
+  /** Returns the number of worker threads that have been started so far. */
+  public int getNumberOfStartedWorkers() {
+    return executor.getPoolSize();
+  }
+
+  /** Returns the number of ticks and retirements which are waiting in the work queue. */
+  public int getNumberOfQueuedTasks() {
+    return executor.getQueue().size();
+  }
+
+  /** Returns the number of loops which have not been retired yet. */
+  public int getNumberOfActiveLoops() {
+    removeRetiredLoops();
+    return loops.size();
+  }
+
+  /** Retires all registered loops and terminates the worker threads. */
+  public void shutdown() {
+    executor.shutdownNow();
+    for (final ScheduledControlLoop loop : loops) {
+      loop.retire();
+    }
+    loops.clear();
+  }
+
+  private void removeRetiredLoops() {
+    final Iterator<ScheduledControlLoop> iterator = loops.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().isRetired()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private static final class SharedInstanceHolder {
+    private static final ControlLoopScheduler INSTANCE = create(DEFAULT_NUMBER_OF_WORKERS);
+  }
+}
@@ -0,0 +1,337 @@
+package commands.schedulers;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import time.VirtualClock;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A discrete-event executor which runs the commands in virtual time. The events are tasks scheduled
+ * at a point in the time of a {@link VirtualClock}. Advancing the executor runs the due events in
+ * the order of their times, and in the order of their scheduling for events at the same time, and
+ * moves the clock to the time of each event before running it.
+ *
+ * <p>No thread ever waits in virtual time. While {@link #run(Runnable)} executes, the executor is
+ * bound to the calling thread and can be found with {@link #getCurrent()}. The {@link
+ * PeriodicTaskRunner}, the {@link StateTriggeredTaskRunner}, the waits of the take off, land and
+ * hover commands and the {@link commands.WaitForLocalizationDecorator} then advance the executor
+ * instead of sleeping, and the simulated world, e.g., the dynamics of the drones, is driven by the
+ * events scheduled on the same executor. A flight of several minutes is thus replayed in a fraction
+ * of a second, and the runs of the same flight execute the same events in the same order.
+ *
+ * <p>The executor is not thread-safe, it must only be used by the thread which runs it.
+ */
+public final class DiscreteEventExecutor {
+
+  private static final ThreadLocal<DiscreteEventExecutor> currentExecutor = new ThreadLocal<>();
+
+  private final VirtualClock clock;
+  private final Ticker ticker;
+  private final PriorityQueue<Event> events = new PriorityQueue<>();
+  private long numberOfScheduledEvents;
+
+  private DiscreteEventExecutor(final VirtualClock clock) {
+    this.clock = clock;
+    this.ticker =
+        new Ticker() {
+          @Override
+          public long read() {
+            return clock.getCurrentTimeNanoSeconds();
+          }
+        };
+  }
+
+  /**
+   * Creates an executor with a new virtual clock.
+   *
+   * @return an executor instance
+   */
+  public static DiscreteEventExecutor create() {
+    return create(VirtualClock.create());
+  }
+
+  /**
+   * Creates an executor which advances the given virtual clock. The clock must not be advanced by
+   * anything else.
+   *
+   * @param clock the virtual clock
+   * @return an executor instance
+   */
+  public static DiscreteEventExecutor create(VirtualClock clock) {
+    return new DiscreteEventExecutor(clock);
+  }
+
+  /**
+   * Gets the executor which is running on the current thread.
+   *
+   * @return the executor bound to the current thread by {@link #run(Runnable)}, absent if the
+   *     current thread runs in real time
+   */
+  public static Optional<DiscreteEventExecutor> getCurrent() {
+    return Optional.fromNullable(currentExecutor.get());
+  }
+
+  /**
+   * Gets the ticker of the current thread.
+   *
+   * @return the ticker of the executor running on the current thread, or the system ticker if the
+   *     current thread runs in real time
+   */
+  public static Ticker getCurrentTicker() {
+    final DiscreteEventExecutor executor = currentExecutor.get();
+    return executor == null ? Ticker.systemTicker() : executor.ticker;
+  }
+
+  /**
+   * Sleeps in the virtual time of the executor running on the current thread, or in real time if
+   * there is no such executor.
+   *
+   * @param duration the sleeping time
+   * @param unit the time unit of {@code duration}
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  public static void sleepOnCurrentThread(long duration, TimeUnit unit)
+      throws InterruptedException {
+    final DiscreteEventExecutor executor = currentExecutor.get();
+    if (executor == null) {
+      unit.sleep(duration);
+    } else {
+      executor.sleep(duration, unit);
+    }
+  }
+
+  /** Returns the virtual clock advanced by this executor. */
+  public VirtualClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Runs a piece of work, e.g., the commands of a task, with this executor bound to the current
+   * thread, so that the work runs in virtual time.
+   *
+   * @param work the work to be run
+   * @throws IllegalStateException if an executor is already running on the current thread
+   */
+  public void run(Runnable work) {
+    checkState(
+        currentExecutor.get() == null,
+        "A discrete-event executor is already running on the current thread.");
+    currentExecutor.set(this);
+    try {
+      work.run();
+    } finally {
+      currentExecutor.remove();
+    }
+  }
+
+  /**
+   * Schedules a task to be executed once after the given delay. This method does not block.
+   *
+   * @param task the task to be executed
+   * @param delay the delay from the current virtual time
+   * @param unit the time unit of {@code delay}
+   */
+  public void schedule(Runnable task, long delay, TimeUnit unit) {
+    checkArgument(delay >= 0, "The delay must not be negative.");
+    scheduleAt(clock.getCurrentTimeNanoSeconds() + unit.toNanos(delay), task);
+  }
+
+  /**
+   * Registers a task to be executed periodically, starting at the current virtual time, as {@link
+   * ControlLoopScheduler#schedule(Runnable, double, double)} does in real time. This method does
+   * not block.
+   *
+   * @param task the task to be executed
+   * @param rateInSeconds the period between two consecutive executions
+   * @param durationInSeconds the duration after which the loop is retired
+   * @return the handle of the registered loop
+   */
+  public ScheduledControlLoop schedule(
+      Runnable task, double rateInSeconds, double durationInSeconds) {
+    checkArgument(rateInSeconds > 0, "The rate must be positive.");
+    checkArgument(durationInSeconds >= 0, "The duration must not be negative.");
+
+    final long periodInNanoSeconds = Math.max(1, Math.round(rateInSeconds * 1.0e9));
+    final long durationInNanoSeconds = Math.round(durationInSeconds * 1.0e9);
+    final long startTimeInNanoSeconds = clock.getCurrentTimeNanoSeconds();
+
+    final ScheduledControlLoop loop =
+        new ScheduledControlLoop(
+            task, periodInNanoSeconds, startTimeInNanoSeconds, durationInNanoSeconds, ticker);
+    scheduleAt(
+        startTimeInNanoSeconds,
+        new Runnable() {
+          private long tickIndex;
+
+          @Override
+          public void run() {
+            if (loop.isRetired()) {
+              return;
+            }
+            loop.tick();
+            tickIndex++;
+            // the ticks are planned from the start time, so that the rate does not drift
+            scheduleAt(startTimeInNanoSeconds + tickIndex * periodInNanoSeconds, this);
+          }
+        });
+    scheduleAt(
+        startTimeInNanoSeconds + durationInNanoSeconds,
+        new Runnable() {
+          @Override
+          public void run() {
+            loop.retire();
+          }
+        });
+
+    return loop;
+  }
+
+  /**
+   * Advances the virtual time by the given duration, running all the events which are due until
+   * then.
+   *
+   * @param duration the duration, which must not be negative
+   * @param unit the time unit of {@code duration}
+   */
+  public void advance(long duration, TimeUnit unit) {
+    checkArgument(duration >= 0, "The duration must not be negative.");
+    advanceTo(clock.getCurrentTimeNanoSeconds() + unit.toNanos(duration));
+  }
+
+  /**
+   * Advances the virtual time to the given time, running all the events which are due until then.
+   *
+   * @param timeInNanoSeconds the time, which must not be before the current virtual time
+   */
+  public void advanceTo(long timeInNanoSeconds) {
+    checkArgument(
+        timeInNanoSeconds >= clock.getCurrentTimeNanoSeconds(),
+        "The virtual time cannot go backwards.");
+    while (hasEventUntil(timeInNanoSeconds)) {
+      runNextEvent();
+    }
+    clock.advanceTo(timeInNanoSeconds);
+  }
+
+  /**
+   * Advances the virtual time by the given duration like {@link #advance(long, TimeUnit)}, but
+   * stops as soon as the current thread is interrupted.
+   *
+   * @param duration the sleeping time
+   * @param unit the time unit of {@code duration}
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  public void sleep(long duration, TimeUnit unit) throws InterruptedException {
+    checkArgument(duration >= 0, "The duration must not be negative.");
+    final long deadlineInNanoSeconds = getDeadline(unit.toNanos(duration));
+    while (hasEventUntil(deadlineInNanoSeconds)) {
+      throwIfInterrupted();
+      runNextEvent();
+    }
+    throwIfInterrupted();
+    clock.advanceTo(deadlineInNanoSeconds);
+  }
+
+  /**
+   * Runs the events until a condition is satisfied or the timeout elapses in virtual time. The
+   * condition is checked before running the first event and after each event.
+   *
+   * @param condition the condition
+   * @param timeout the maximum time to wait
+   * @param unit the time unit of {@code timeout}
+   * @return true if the condition is satisfied, false if the timeout elapsed
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  public boolean awaitCondition(Supplier<Boolean> condition, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    final long deadlineInNanoSeconds = getDeadline(unit.toNanos(timeout));
+    while (!condition.get()) {
+      throwIfInterrupted();
+      if (!hasEventUntil(deadlineInNanoSeconds)) {
+        clock.advanceTo(deadlineInNanoSeconds);
+        return false;
+      }
+      runNextEvent();
+    }
+    return true;
+  }
+
+  /**
+   * Runs the events until a condition is satisfied. The condition is checked before running the
+   * first event and after each event.
+   *
+   * @param condition the condition
+   * @throws InterruptedException if the current thread is interrupted
+   * @throws IllegalStateException if no event is left while the condition is not satisfied, i.e.,
+   *     the condition would never be satisfied
+   */
+  public void awaitCondition(Supplier<Boolean> condition) throws InterruptedException {
+    while (!condition.get()) {
+      throwIfInterrupted();
+      checkState(
+          !events.isEmpty(), "No event is left, the condition can never be satisfied anymore.");
+      runNextEvent();
+    }
+  }
+
+  /** Returns the number of events which are waiting to be run. */
+  public int getNumberOfPendingEvents() {
+    return events.size();
+  }
+
+  private void scheduleAt(long timeInNanoSeconds, Runnable task) {
+    events.add(new Event(timeInNanoSeconds, numberOfScheduledEvents, task));
+    numberOfScheduledEvents++;
+  }
+
+  private boolean hasEventUntil(long timeInNanoSeconds) {
+    final Event nextEvent = events.peek();
+    return nextEvent != null && nextEvent.timeInNanoSeconds <= timeInNanoSeconds;
+  }
+
+  private void runNextEvent() {
+    final Event event = events.poll();
+    clock.advanceTo(event.timeInNanoSeconds);
+    event.task.run();
+  }
+
+  private long getDeadline(long durationInNanoSeconds) {
+    final long currentTimeInNanoSeconds = clock.getCurrentTimeNanoSeconds();
+    // a very long timeout must not overflow
+    return durationInNanoSeconds > Long.MAX_VALUE - currentTimeInNanoSeconds
+        ? Long.MAX_VALUE
+        : currentTimeInNanoSeconds + durationInNanoSeconds;
+  }
+
+  private static void throwIfInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+  }
+
+  private static final class Event implements Comparable<Event> {
+    private final long timeInNanoSeconds;
+    private final long sequenceNumber;
+    private final Runnable task;
+
+    Event(long timeInNanoSeconds, long sequenceNumber, Runnable task) {
+      this.timeInNanoSeconds = timeInNanoSeconds;
+      this.sequenceNumber = sequenceNumber;
+      this.task = task;
+    }
+
+    @Override
+    public int compareTo(Event other) {
+      final int timeComparison = Long.compare(timeInNanoSeconds, other.timeInNanoSeconds);
+      return timeComparison != 0
+          ? timeComparison
+          : Long.compare(sequenceNumber, other.sequenceNumber);
+    }
+  }
+}
@@ -1,14 +1,10 @@
 package commands.schedulers;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-
 /** @author Hoang Tung Dinh */
 public final class PeriodicTaskRunner {
 
@@ -18,35 +14,98 @@ public final class PeriodicTaskRunner {
 
   /**
    * Runs a java task. Note that this task is a {@link Runnable} object, and is different from the
-   * {@link taskexecutor.Task} which defines a list of drone's commands.
+   * {@link taskexecutor.Task} which defines a list of drone's commands. The task is executed by the
+   * shared {@link ControlLoopScheduler}, and this method blocks until the duration expires. If a
+   * {@link DiscreteEventExecutor} is running on the current thread, the task is executed by this
+   * executor in virtual time instead.
    *
    * @param task the {@link Runnable} task
    * @param rateInSeconds the rate of executing this task
    * @param durationInSeconds the duration in which the task will be executed
+   * @return the retired loop which has executed the task
    */
-  public static void run(Runnable task, double rateInSeconds, double durationInSeconds) {
-    final long initialDelay = 0;
-    final long rateInMilliSeconds = (long) (rateInSeconds * 1000);
-
-    final Future<?> future =
-        Executors.newSingleThreadScheduledExecutor()
-            .scheduleAtFixedRate(task, initialDelay, rateInMilliSeconds, TimeUnit.MILLISECONDS);
+  public static ScheduledControlLoop run(
+      Runnable task, double rateInSeconds, double durationInSeconds) {
+    final Optional<DiscreteEventExecutor> discreteEventExecutor =
+        DiscreteEventExecutor.getCurrent();
+    if (discreteEventExecutor.isPresent()) {
+      return run(task, rateInSeconds, durationInSeconds, discreteEventExecutor.get());
+    }
+    return run(task, rateInSeconds, durationInSeconds, ControlLoopScheduler.getSharedInstance());
+  }
 
-    final long durationInMilliSeconds = (long) (durationInSeconds * 1000);
+  /**
+   * Runs a java task on the given scheduler. This method blocks until the duration expires.
+   *
+   * @param task the {@link Runnable} task
+   * @param rateInSeconds the rate of executing this task
+   * @param durationInSeconds the duration in which the task will be executed
+   * @param scheduler the scheduler which executes the task
+   * @return the retired loop which has executed the task
+   */
+  public static ScheduledControlLoop run(
+      Runnable task,
+      double rateInSeconds,
+      double durationInSeconds,
+      ControlLoopScheduler scheduler) {
+    final ScheduledControlLoop loop = scheduler.schedule(task, rateInSeconds, durationInSeconds);
 
     try {
-      future.get(durationInMilliSeconds, TimeUnit.MILLISECONDS);
+      loop.awaitRetirement();
+      logger.debug("The executing task is run out of time. Stop executing the task");
     } catch (InterruptedException ignored) {
       logger.debug("The executing task is interrupted. Stop executing the task.");
-      // the task is cancelled if time ran out or the current thread is interrupted while
-      // waiting.
-      future.cancel(true);
+      loop.cancel();
       Thread.currentThread().interrupt();
-    } catch (TimeoutException ignored) {
+    }
+
+    logMissedTicks(loop);
+    return loop;
+  }
+
+  /**
+   * Runs a java task in the virtual time of the given discrete-event executor. This method returns
+   * when the duration expires in virtual time.
+   *
+   * @param task the {@link Runnable} task
+   * @param rateInSeconds the rate of executing this task
+   * @param durationInSeconds the duration in which the task will be executed
+   * @param discreteEventExecutor the executor which executes the task
+   * @return the retired loop which has executed the task
+   */
+  public static ScheduledControlLoop run(
+      Runnable task,
+      double rateInSeconds,
+      double durationInSeconds,
+      DiscreteEventExecutor discreteEventExecutor) {
+    final ScheduledControlLoop loop =
+        discreteEventExecutor.schedule(task, rateInSeconds, durationInSeconds);
+
+    try {
+      discreteEventExecutor.awaitCondition(
+          new Supplier<Boolean>() {
+            @Override
+            public Boolean get() {
+              return loop.isRetired();
+            }
+          });
       logger.debug("The executing task is run out of time. Stop executing the task");
-      future.cancel(true);
-    } catch (ExecutionException e) {
-      logger.debug("An execution exception occurs.", e);
+    } catch (InterruptedException ignored) {
+      logger.debug("The executing task is interrupted. Stop executing the task.");
+      loop.cancel();
+      Thread.currentThread().interrupt();
+    }
+
+    logMissedTicks(loop);
+    return loop;
+  }
+
+  private static void logMissedTicks(ScheduledControlLoop loop) {
+    if (loop.getMissedTicks() > 0) {
+      logger.info(
+          "The task missed {} of {} ticks.",
+          loop.getMissedTicks(),
+          loop.getMissedTicks() + loop.getExecutedTicks());
     }
   }
 }
@@ -0,0 +1,156 @@
+package commands.schedulers;
+
+import com.google.common.base.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A periodic task which has been registered in a {@link ControlLoopScheduler}. The loop runs its
+ * task once per period until its deadline has passed or until it is cancelled, after which it is
+ * retired and removed from the scheduler.
+ *
+ * <p>A tick that fires more than one period later than planned (e.g., because all the workers of
+ * the scheduler were busy) is not executed anymore. It is counted as a missed tick instead, so that
+ * the task is never executed in a burst to catch up with the schedule.
+ *
+ * <p>The times of the loop are read from a {@link Ticker}, which is the system ticker for the loops
+ * of a {@link ControlLoopScheduler} and the virtual clock for the loops of a {@link
+ * DiscreteEventExecutor}.
+ */
+public final class ScheduledControlLoop {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScheduledControlLoop.class);
+
+  private final Runnable task;
+  private final Ticker ticker;
+  private final long periodInNanoSeconds;
+  private final long startTimeInNanoSeconds;
+  private final long deadlineInNanoSeconds;
+
+  private final AtomicLong executedTicks = new AtomicLong();
+  private final AtomicLong missedTicks = new AtomicLong();
+  private final AtomicBoolean retired = new AtomicBoolean(false);
+  private final CountDownLatch retirementLatch = new CountDownLatch(1);
+
+  // only accessed by the tick currently being executed, ticks of the same loop never overlap
+  private long tickIndex;
+  private volatile Future<?> future;
+  private volatile Future<?> retirementFuture;
+
+  ScheduledControlLoop(
+      Runnable task,
+      long periodInNanoSeconds,
+      long startTimeInNanoSeconds,
+      long durationInNanoSeconds,
+      Ticker ticker) {
+    this.task = task;
+    this.ticker = ticker;
+    this.periodInNanoSeconds = periodInNanoSeconds;
+    this.startTimeInNanoSeconds = startTimeInNanoSeconds;
+    this.deadlineInNanoSeconds = startTimeInNanoSeconds + durationInNanoSeconds;
+  }
+
+  void setFuture(Future<?> future) {
+    this.future = future;
+    // the loop can be retired before its future is known
+    if (retired.get()) {
+      future.cancel(false);
+    }
+  }
+
+  void setRetirementFuture(Future<?> retirementFuture) {
+    this.retirementFuture = retirementFuture;
+    // a loop cancelled early must not leave its retirement in the queue of the scheduler
+    if (retired.get()) {
+      retirementFuture.cancel(false);
+    }
+  }
+
+  void tick() {
+    final long currentTimeInNanoSeconds = ticker.read();
+    if (currentTimeInNanoSeconds - deadlineInNanoSeconds >= 0) {
+      retire();
+      return;
+    }
+
+    final long plannedTimeInNanoSeconds = startTimeInNanoSeconds + tickIndex * periodInNanoSeconds;
+    tickIndex++;
+
+    if (currentTimeInNanoSeconds - plannedTimeInNanoSeconds >= periodInNanoSeconds) {
+      missedTicks.incrementAndGet();
+      logger.trace("Skip a control loop tick that is more than one period late.");
+      return;
+    }
+
+    try {
+      task.run();
+      executedTicks.incrementAndGet();
+    } catch (RuntimeException e) {
+      logger.debug("An exception occurs while executing the task. Stop executing the task.", e);
+      retire();
+    }
+  }
+
+  void retire() {
+    if (retired.compareAndSet(false, true)) {
+      cancelIfPresent(future);
+      cancelIfPresent(retirementFuture);
+      retirementLatch.countDown();
+    }
+  }
+
+  private static void cancelIfPresent(@Nullable Future<?> future) {
+    if (future != null) {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * Blocks until this loop is retired, i.e., its deadline has passed, it has been cancelled or its
+   * task has thrown an exception.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public void awaitRetirement() throws InterruptedException {
+    retirementLatch.await();
+  }
+
+  /**
+   * Blocks until this loop is retired or the waiting time elapses.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the time unit of the {@code timeout} argument
+   * @return true if the loop is retired, false if the waiting time elapsed before that
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public boolean awaitRetirement(long timeout, TimeUnit unit) throws InterruptedException {
+    return retirementLatch.await(timeout, unit);
+  }
+
+  /** Stops executing the task and retires this loop. A running tick is not interrupted. */
+  public void cancel() {
+    retire();
+  }
+
+  /** Returns true if this loop has been retired. */
+  public boolean isRetired() {
+    return retired.get();
+  }
+
+  /** Returns the number of ticks in which the task has been executed. */
+  public long getExecutedTicks() {
+    return executedTicks.get();
+  }
+
+  /** Returns the number of ticks that have been skipped because they fired too late. */
+  public long getMissedTicks() {
+    return missedTicks.get();
+  }
+}
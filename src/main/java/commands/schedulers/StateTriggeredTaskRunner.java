@@ -0,0 +1,167 @@
+package commands.schedulers;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import control.dto.DroneStateStamped;
+import control.localization.ObservableStateEstimator;
+import control.localization.StateObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs a java task each time an {@link ObservableStateEstimator} publishes a new state, instead of
+ * at a fixed rate. The task is executed on its own worker thread, so that the thread delivering the
+ * states is never blocked. If new states arrive while the task is still pending, they are coalesced
+ * into a single execution and counted as missed ticks.
+ *
+ * <p>If a {@link DiscreteEventExecutor} is running on the current thread, the task is executed as
+ * an event of this executor at the virtual time at which the state is published, and the duration
+ * elapses in virtual time.
+ */
+public final class StateTriggeredTaskRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(StateTriggeredTaskRunner.class);
+
+  private StateTriggeredTaskRunner() {}
+
+  /**
+   * Runs a java task on each new state of the state estimator. This method blocks until the
+   * duration expires.
+   *
+   * @param task the {@link Runnable} task
+   * @param stateEstimator the state estimator whose new states trigger the task
+   * @param durationInSeconds the duration in which the task will be executed
+   * @return the number of states which did not trigger an execution of the task because the task
+   *     was still pending
+   */
+  public static long run(
+      final Runnable task, ObservableStateEstimator stateEstimator, double durationInSeconds) {
+    checkArgument(durationInSeconds >= 0, "The duration must not be negative.");
+
+    final Optional<DiscreteEventExecutor> discreteEventExecutor =
+        DiscreteEventExecutor.getCurrent();
+    if (discreteEventExecutor.isPresent()) {
+      return runInVirtualTime(
+          task, stateEstimator, durationInSeconds, discreteEventExecutor.get());
+    }
+
+    final ExecutorService executor =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("state-triggered-%d").setDaemon(true).build());
+    final AtomicBoolean tickPending = new AtomicBoolean();
+    final AtomicLong coalescedStates = new AtomicLong();
+    final Runnable tick =
+        new Runnable() {
+          @Override
+          public void run() {
+            tickPending.set(false);
+            task.run();
+          }
+        };
+    final StateObserver stateObserver =
+        new StateObserver() {
+          @Override
+          public void onNewState(DroneStateStamped state) {
+            if (!tickPending.compareAndSet(false, true)) {
+              coalescedStates.incrementAndGet();
+              return;
+            }
+            try {
+              executor.execute(tick);
+            } catch (RejectedExecutionException e) {
+              logger.trace("A new state arrived after the task has been stopped.", e);
+            }
+          }
+        };
+
+    stateEstimator.registerStateObserver(stateObserver);
+    try {
+      TimeUnit.NANOSECONDS.sleep(Math.round(durationInSeconds * 1.0e9));
+      logger.debug("The executing task is run out of time. Stop executing the task");
+    } catch (InterruptedException e) {
+      logger.debug("The executing task is interrupted. Stop executing the task.", e);
+      Thread.currentThread().interrupt();
+    } finally {
+      stateEstimator.removeStateObserver(stateObserver);
+      executor.shutdown();
+    }
+
+    awaitTermination(executor);
+
+    if (coalescedStates.get() > 0) {
+      logger.info("The task skipped {} coalesced states.", coalescedStates.get());
+    }
+
+    return coalescedStates.get();
+  }
+
+  private static long runInVirtualTime(
+      final Runnable task,
+      ObservableStateEstimator stateEstimator,
+      double durationInSeconds,
+      final DiscreteEventExecutor discreteEventExecutor) {
+    final AtomicBoolean tickPending = new AtomicBoolean();
+    final AtomicBoolean stopped = new AtomicBoolean();
+    final AtomicLong coalescedStates = new AtomicLong();
+    final Runnable tick =
+        new Runnable() {
+          @Override
+          public void run() {
+            tickPending.set(false);
+            // a tick scheduled by the last state must not run during the next command
+            if (!stopped.get()) {
+              task.run();
+            }
+          }
+        };
+    final StateObserver stateObserver =
+        new StateObserver() {
+          @Override
+          public void onNewState(DroneStateStamped state) {
+            if (!tickPending.compareAndSet(false, true)) {
+              coalescedStates.incrementAndGet();
+              return;
+            }
+            discreteEventExecutor.schedule(tick, 0, TimeUnit.NANOSECONDS);
+          }
+        };
+
+    stateEstimator.registerStateObserver(stateObserver);
+    try {
+      discreteEventExecutor.sleep(Math.round(durationInSeconds * 1.0e9), TimeUnit.NANOSECONDS);
+      logger.debug("The executing task is run out of time. Stop executing the task");
+    } catch (InterruptedException e) {
+      logger.debug("The executing task is interrupted. Stop executing the task.", e);
+      Thread.currentThread().interrupt();
+    } finally {
+      stateEstimator.removeStateObserver(stateObserver);
+      stopped.set(true);
+    }
+
+    if (coalescedStates.get() > 0) {
+      logger.info("The task skipped {} coalesced states.", coalescedStates.get());
+    }
+
+    return coalescedStates.get();
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    try {
+      // the tick in progress, if any, must not overlap with the next command
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      logger.debug("Waiting for the last execution of the task is interrupted.", e);
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package commands.schedulers;
+
+import time.TimeProvider;
+
+/**
+ * The logical time shared by the drones synchronized by a {@link SwarmTickBarrier}. The time is
+ * zero until the first tick of the barrier and then follows the time elapsed since the first tick,
+ * rounded to a multiple of the control period. It advances by at least one control period per
+ * tick, and by several periods after a late tick. All the drones of a tick read the same time,
+ * regardless of when their control loop is executed within the tick.
+ */
+public final class SwarmClock implements TimeProvider {
+
+  private volatile long logicalTimeInNanoSeconds;
+
+  SwarmClock() {}
+
+  @Override
+  public long getCurrentTimeNanoSeconds() {
+    return logicalTimeInNanoSeconds;
+  }
+
+  @Override
+  public double getCurrentTimeSeconds() {
+    return logicalTimeInNanoSeconds / 1.0e9;
+  }
+
+  void setLogicalTime(long newLogicalTimeInNanoSeconds) {
+    logicalTimeInNanoSeconds = newLogicalTimeInNanoSeconds;
+  }
+}
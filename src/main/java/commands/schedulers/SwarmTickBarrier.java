@@ -0,0 +1,312 @@
+package commands.schedulers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.metrics.LatencyHistogram;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A common tick for the control loops of the drones of a formation. The control loops do not start
+ * until the loops of all the drones have arrived at the barrier. From then on, all the loops are
+ * executed in one periodic tick on a {@link ControlLoopScheduler}, one after the other, and read
+ * the same logical time from the {@link SwarmClock} of the barrier. The drones thus sample their
+ * trajectories at the same point in time and publish their responses within the same tick.
+ *
+ * <p>The logical time is derived from the number of control periods elapsed since the first tick,
+ * so that a tick skipped by the scheduler does not make the formation lag behind, and it advances
+ * by at least one control period per tick. The time between the starts of the first and the last
+ * control loop of a tick, i.e., the spread of the times at which the drones start computing their
+ * responses, is recorded as the inter-drone skew.
+ *
+ * <p>A drone which will not arrive at the barrier, e.g., because its pipeline failed or has been
+ * preempted by an emergency task, must be removed with {@link #removeDrone()}, so that the other
+ * drones do not wait for it.
+ */
+public final class SwarmTickBarrier {
+
+  private static final Logger logger = LoggerFactory.getLogger(SwarmTickBarrier.class);
+
+  private final double rateInSeconds;
+  private final long periodInNanoSeconds;
+  private final ControlLoopScheduler scheduler;
+  private final SwarmClock clock = new SwarmClock();
+  private final LatencyHistogram skew = LatencyHistogram.create();
+
+  private int numberOfExpectedDrones;
+  // the drones which have left while waiting and have not been removed by removeDrone() yet
+  private int numberOfDepartedDrones;
+  private boolean started;
+  private volatile Participant[] participants = new Participant[0];
+  @Nullable private volatile ScheduledControlLoop sharedLoop;
+  // only accessed by the tick
+  private boolean firstTickExecuted;
+  private long startTimeInNanoSeconds;
+  private long lastTickIndex = -1;
+
+  private SwarmTickBarrier(
+      int numberOfDrones, double rateInSeconds, ControlLoopScheduler scheduler) {
+    checkArgument(numberOfDrones > 0, "The number of drones must be positive.");
+    checkArgument(rateInSeconds > 0, "The rate must be positive.");
+    this.numberOfExpectedDrones = numberOfDrones;
+    this.rateInSeconds = rateInSeconds;
+    this.periodInNanoSeconds = Math.round(rateInSeconds * 1.0e9);
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Creates a barrier whose tick runs on the shared {@link ControlLoopScheduler}.
+   *
+   * @param numberOfDrones the number of drones in the formation
+   * @param rateInSeconds the period of the common tick
+   * @return a barrier instance
+   */
+  public static SwarmTickBarrier create(int numberOfDrones, double rateInSeconds) {
+    return create(numberOfDrones, rateInSeconds, ControlLoopScheduler.getSharedInstance());
+  }
+
+  /**
+   * Creates a barrier whose tick runs on the given scheduler.
+   *
+   * @param numberOfDrones the number of drones in the formation
+   * @param rateInSeconds the period of the common tick
+   * @param scheduler the scheduler which executes the common tick
+   * @return a barrier instance
+   */
+  public static SwarmTickBarrier create(
+      int numberOfDrones, double rateInSeconds, ControlLoopScheduler scheduler) {
+    return new SwarmTickBarrier(numberOfDrones, rateInSeconds, scheduler);
+  }
+
+  /**
+   * Gets the clock shared by the drones. The control loops should read their time from this clock,
+   * and should be created before they are passed to {@link #run(Runnable, double)}, so that they
+   * all start at logical time zero.
+   *
+   * @return the shared clock
+   */
+  public SwarmClock getClock() {
+    return clock;
+  }
+
+  /** Returns the period of the common tick. */
+  public double getRateInSeconds() {
+    return rateInSeconds;
+  }
+
+  /**
+   * Gets the histogram of the inter-drone skew, i.e., the time between the starts of the first and
+   * the last control loop of each tick.
+   *
+   * @return the inter-drone skew histogram
+   */
+  public LatencyHistogram getSkew() {
+    return skew;
+  }
+
+  /**
+   * Runs the control loop of a drone in the common tick. This method blocks until the loops of all
+   * the drones have arrived and the loop of this drone has been executed for the given duration,
+   * or until the current thread is interrupted. A drone interrupted before the common tick has
+   * started leaves the barrier, and the other drones do not wait for it anymore.
+   *
+   * @param controlLoop the control loop of the drone
+   * @param durationInSeconds the duration in which the control loop is executed
+   * @return false if the common tick had already started, in which case the loop is not executed
+   *     because it cannot be synchronized with the other drones anymore, true otherwise
+   */
+  public boolean run(Runnable controlLoop, double durationInSeconds) {
+    checkArgument(durationInSeconds >= 0, "The duration must not be negative.");
+    final Participant participant =
+        new Participant(controlLoop, (long) Math.ceil(durationInSeconds / rateInSeconds));
+
+    synchronized (this) {
+      if (started) {
+        logger.warn("The formation has already started. The control loop is not executed.");
+        return false;
+      }
+      addParticipant(participant);
+      startIfAllDronesArrived();
+    }
+
+    try {
+      awaitFinished(participant);
+    } catch (InterruptedException e) {
+      logger.debug("The control loop is interrupted. Remove it from the common tick.");
+      leave(participant);
+      Thread.currentThread().interrupt();
+    }
+    return true;
+  }
+
+  private void awaitFinished(Participant participant) throws InterruptedException {
+    while (!participant.finished.await(periodInNanoSeconds, TimeUnit.NANOSECONDS)) {
+      final ScheduledControlLoop currentSharedLoop = sharedLoop;
+      // the last ticks may be dropped if the shared loop is retired before they are executed
+      if (currentSharedLoop != null && currentSharedLoop.isRetired()) {
+        finish(participant);
+      }
+    }
+  }
+
+  private synchronized void leave(Participant participant) {
+    removeParticipant(participant);
+    if (!started) {
+      numberOfExpectedDrones--;
+      numberOfDepartedDrones++;
+      startIfAllDronesArrived();
+    }
+  }
+
+  /**
+   * Removes a drone which will not arrive at the barrier (e.g., because it could not take off), so
+   * that the other drones do not wait for it. This method can be called for every drone whose
+   * pipeline has stopped: a drone which has already left the barrier because it was interrupted is
+   * not removed twice, and removing a drone after the common tick has started has no effect.
+   *
+   * @throws IllegalStateException if all the drones have already been removed
+   */
+  public synchronized void removeDrone() {
+    if (started) {
+      return;
+    }
+    if (numberOfDepartedDrones > 0) {
+      numberOfDepartedDrones--;
+      return;
+    }
+    checkState(numberOfExpectedDrones > 0, "There is no drone to remove.");
+    numberOfExpectedDrones--;
+    startIfAllDronesArrived();
+  }
+
+  private void startIfAllDronesArrived() {
+    final Participant[] currentParticipants = participants;
+    if (started
+        || currentParticipants.length == 0
+        || currentParticipants.length < numberOfExpectedDrones) {
+      return;
+    }
+
+    started = true;
+    long maxNumberOfTicks = 0;
+    for (final Participant participant : currentParticipants) {
+      maxNumberOfTicks = Math.max(maxNumberOfTicks, participant.numberOfTicks);
+    }
+    logger.debug("All {} drones arrived. Start the common tick.", currentParticipants.length);
+    sharedLoop =
+        scheduler.schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                tick();
+              }
+            },
+            rateInSeconds,
+            (maxNumberOfTicks + 1) * rateInSeconds);
+  }
+
+  private void tick() {
+    final long tickStartInNanoSeconds = System.nanoTime();
+    final Participant[] currentParticipants = participants;
+    if (currentParticipants.length == 0) {
+      cancelSharedLoop();
+      return;
+    }
+
+    if (!firstTickExecuted) {
+      firstTickExecuted = true;
+      startTimeInNanoSeconds = tickStartInNanoSeconds;
+    }
+    final long tickIndex =
+        computeTickIndex(
+            lastTickIndex, tickStartInNanoSeconds - startTimeInNanoSeconds, periodInNanoSeconds);
+    lastTickIndex = tickIndex;
+    clock.setLogicalTime(tickIndex * periodInNanoSeconds);
+
+    boolean controlLoopExecuted = false;
+    long firstLoopStartInNanoSeconds = 0;
+    long lastLoopStartInNanoSeconds = 0;
+    for (final Participant participant : currentParticipants) {
+      if (tickIndex >= participant.numberOfTicks) {
+        finish(participant);
+        continue;
+      }
+
+      lastLoopStartInNanoSeconds = System.nanoTime();
+      if (!controlLoopExecuted) {
+        controlLoopExecuted = true;
+        firstLoopStartInNanoSeconds = lastLoopStartInNanoSeconds;
+      }
+      // a failing drone must not stop the tick of the other drones
+      try {
+        participant.controlLoop.run();
+      } catch (RuntimeException e) {
+        logger.warn("A control loop failed. Remove it from the common tick.", e);
+        finish(participant);
+      }
+    }
+
+    if (controlLoopExecuted) {
+      skew.record(lastLoopStartInNanoSeconds - firstLoopStartInNanoSeconds);
+    }
+  }
+
+  /**
+   * Computes the index of a tick from the time elapsed since the first tick, rounded to the
+   * nearest number of periods. The index is always greater than the index of the previous tick, so
+   * that a late tick followed by a tick on time does not repeat the logical time.
+   */
+  static long computeTickIndex(
+      long previousTickIndex, long elapsedTimeInNanoSeconds, long periodInNanoSeconds) {
+    final long roundedTickIndex =
+        (elapsedTimeInNanoSeconds + periodInNanoSeconds / 2) / periodInNanoSeconds;
+    return Math.max(previousTickIndex + 1, roundedTickIndex);
+  }
+
+  private void finish(Participant participant) {
+    removeParticipant(participant);
+    participant.finished.countDown();
+  }
+
+  private synchronized void addParticipant(Participant participant) {
+    final Participant[] newParticipants = Arrays.copyOf(participants, participants.length + 1);
+    newParticipants[participants.length] = participant;
+    participants = newParticipants;
+  }
+
+  private synchronized void removeParticipant(Participant participant) {
+    final Participant[] newParticipants = new Participant[participants.length];
+    int size = 0;
+    for (final Participant currentParticipant : participants) {
+      if (currentParticipant != participant) {
+        newParticipants[size] = currentParticipant;
+        size++;
+      }
+    }
+    participants = Arrays.copyOf(newParticipants, size);
+  }
+
+  private void cancelSharedLoop() {
+    final ScheduledControlLoop currentSharedLoop = sharedLoop;
+    if (currentSharedLoop != null) {
+      currentSharedLoop.cancel();
+    }
+  }
+
+  private static final class Participant {
+    private final Runnable controlLoop;
+    private final long numberOfTicks;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private Participant(Runnable controlLoop, long numberOfTicks) {
+      this.controlLoop = controlLoop;
+      this.numberOfTicks = numberOfTicks;
+    }
+  }
+}
@@ -1,11 +1,15 @@
 package commands.tumsimcommands;
 
 import commands.AbstractParrotFollowTrajectory;
+import commands.schedulers.ControlLoopMetricsSink;
+import commands.schedulers.SwarmTickBarrier;
 import control.VelocityController4d;
 import control.localization.StateEstimator;
 import services.Velocity4dService;
 import time.TimeProvider;
 
+import javax.annotation.Nullable;
+
 /**
  * Follow trajectory command for drones in Tum simulator.
  *
@@ -20,7 +24,10 @@ public final class TumSimFollowTrajectory extends AbstractParrotFollowTrajectory
       double droneStateLifeDurationInSeconds,
       TimeProvider timeProvider,
       VelocityController4d velocityController4d,
-      Velocity4dService velocity4dService) {
+      Velocity4dService velocity4dService,
+      @Nullable ControlLoopMetricsSink metricsSink,
+      boolean runOnNewState,
+      @Nullable SwarmTickBarrier swarmTickBarrier) {
     super(
         stateEstimator,
         durationInSeconds,
@@ -28,7 +35,10 @@ public final class TumSimFollowTrajectory extends AbstractParrotFollowTrajectory
         droneStateLifeDurationInSeconds,
         timeProvider,
         velocityController4d,
-        velocity4dService);
+        velocity4dService,
+        metricsSink,
+        runOnNewState,
+        swarmTickBarrier);
   }
 
   /**
@@ -64,7 +74,10 @@ public final class TumSimFollowTrajectory extends AbstractParrotFollowTrajectory
           droneStateLifeDurationInSeconds,
           timeProvider,
           velocityController4d,
-          velocity4dService);
+          velocity4dService,
+          metricsSink,
+          runOnNewState,
+          swarmTickBarrier);
     }
   }
 }
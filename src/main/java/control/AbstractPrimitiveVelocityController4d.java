@@ -0,0 +1,106 @@
+package control;
+
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+
+/**
+ * Base class of the {@link PrimitiveVelocityController4d} implementations. It implements the
+ * immutable {@link VelocityController4d} API as a thin adapter over the primitive one. Instances
+ * reuse their buffers, so they must not be shared between concurrent control loops.
+ */
+public abstract class AbstractPrimitiveVelocityController4d
+    implements PrimitiveVelocityController4d {
+
+  private final double[] poseBuffer = new double[4];
+  private final double[] velocityBuffer = new double[4];
+  private final double[] responseBuffer = new double[4];
+
+  protected AbstractPrimitiveVelocityController4d() {}
+
+  @Override
+  public final InertialFrameVelocity computeNextResponse(
+      Pose currentPose, InertialFrameVelocity currentVelocity, double currentTimeInSeconds) {
+    copyPose(currentPose, poseBuffer);
+    copyVelocity(currentVelocity, velocityBuffer);
+    computeNextResponse(poseBuffer, velocityBuffer, currentTimeInSeconds, responseBuffer);
+    return Velocity.builder()
+        .setLinearX(responseBuffer[X])
+        .setLinearY(responseBuffer[Y])
+        .setLinearZ(responseBuffer[Z])
+        .setAngularZ(responseBuffer[YAW])
+        .build();
+  }
+
+  /**
+   * Gets a primitive view of a velocity controller. If the controller does not implement the
+   * primitive API itself, the returned controller delegates to its immutable API and thus
+   * allocates in every call.
+   *
+   * @param velocityController4d the velocity controller
+   * @return the controller itself if it is a {@link PrimitiveVelocityController4d}, an adapter
+   *     otherwise
+   */
+  public static PrimitiveVelocityController4d asPrimitive(
+      VelocityController4d velocityController4d) {
+    if (velocityController4d instanceof PrimitiveVelocityController4d) {
+      return (PrimitiveVelocityController4d) velocityController4d;
+    } else {
+      return new ImmutableControllerAdapter(velocityController4d);
+    }
+  }
+
+  static void copyPose(Pose pose, double[] destination) {
+    destination[X] = pose.x();
+    destination[Y] = pose.y();
+    destination[Z] = pose.z();
+    destination[YAW] = pose.yaw();
+  }
+
+  static void copyVelocity(InertialFrameVelocity velocity, double[] destination) {
+    destination[X] = velocity.linearX();
+    destination[Y] = velocity.linearY();
+    destination[Z] = velocity.linearZ();
+    destination[YAW] = velocity.angularZ();
+  }
+
+  private static final class ImmutableControllerAdapter implements PrimitiveVelocityController4d {
+    private final VelocityController4d velocityController4d;
+
+    private ImmutableControllerAdapter(VelocityController4d velocityController4d) {
+      this.velocityController4d = velocityController4d;
+    }
+
+    @Override
+    public InertialFrameVelocity computeNextResponse(
+        Pose currentPose, InertialFrameVelocity currentVelocity, double currentTimeInSeconds) {
+      return velocityController4d.computeNextResponse(
+          currentPose, currentVelocity, currentTimeInSeconds);
+    }
+
+    @Override
+    public void computeNextResponse(
+        double[] currentPose,
+        double[] currentVelocity,
+        double currentTimeInSeconds,
+        double[] nextResponse) {
+      final Pose pose =
+          Pose.builder()
+              .setX(currentPose[X])
+              .setY(currentPose[Y])
+              .setZ(currentPose[Z])
+              .setYaw(currentPose[YAW])
+              .build();
+      final InertialFrameVelocity velocity =
+          Velocity.builder()
+              .setLinearX(currentVelocity[X])
+              .setLinearY(currentVelocity[Y])
+              .setLinearZ(currentVelocity[Z])
+              .setAngularZ(currentVelocity[YAW])
+              .build();
+      copyVelocity(
+          velocityController4d.computeNextResponse(pose, velocity, currentTimeInSeconds),
+          nextResponse);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package control;
+
+/**
+ * A {@link Trajectory1d} which knows the first and second derivatives of its position.
+ */
+public interface DifferentiableTrajectory1d extends Trajectory1d {
+  /**
+   * Gets the desired velocity of the drone.
+   *
+   * @param timeInSeconds the point in time to get the velocity for.
+   * @return The desired velocity in the dimension specified by this object for the given point in
+   *     time.
+   */
+  double getDesiredVelocity(double timeInSeconds);
+
+  /**
+   * Gets the desired acceleration of the drone.
+   *
+   * @param timeInSeconds the point in time to get the acceleration for.
+   * @return The desired acceleration in the dimension specified by this object for the given point
+   *     in time.
+   */
+  double getDesiredAcceleration(double timeInSeconds);
+}
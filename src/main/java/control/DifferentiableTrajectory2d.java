@@ -0,0 +1,31 @@
+package control;
+
+/**
+ * A {@link Trajectory2d} which knows the first and second derivatives of its position.
+ */
+public interface DifferentiableTrajectory2d extends Trajectory2d {
+
+  /**
+   * @param timeInSeconds the point in time to get the velocity for.
+   * @return The desired velocity along the abscissa for the given point in time.
+   */
+  double getDesiredVelocityAbscissa(double timeInSeconds);
+
+  /**
+   * @param timeInSeconds the point in time to get the velocity for.
+   * @return The desired velocity along the ordinate for the given point in time.
+   */
+  double getDesiredVelocityOrdinate(double timeInSeconds);
+
+  /**
+   * @param timeInSeconds the point in time to get the acceleration for.
+   * @return The desired acceleration along the abscissa for the given point in time.
+   */
+  double getDesiredAccelerationAbscissa(double timeInSeconds);
+
+  /**
+   * @param timeInSeconds the point in time to get the acceleration for.
+   * @return The desired acceleration along the ordinate for the given point in time.
+   */
+  double getDesiredAccelerationOrdinate(double timeInSeconds);
+}
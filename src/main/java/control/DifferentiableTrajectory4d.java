@@ -0,0 +1,17 @@
+package control;
+
+/**
+ * A {@link Trajectory4d} which knows its own derivatives, so that the desired position, velocity
+ * and acceleration can be obtained in a single evaluation instead of sampling the trajectory several
+ * times.
+ */
+public interface DifferentiableTrajectory4d extends Trajectory4d {
+  /**
+   * Writes the desired position, velocity and acceleration of all axes into {@code state}. The
+   * positions are equal to the values returned by the position getters for the same point in time.
+   *
+   * @param timeInSeconds the point in time to get the state for.
+   * @param state the state in which the result is written
+   */
+  void getDesiredState(double timeInSeconds, TrajectoryState4d state);
+}
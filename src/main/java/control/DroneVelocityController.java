@@ -1,10 +1,5 @@
 package control;
 
-import applications.trajectory.TrajectoryUtils;
-import control.dto.InertialFrameVelocity;
-import control.dto.Pose;
-import control.dto.Velocity;
-
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -14,7 +9,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  *
  * @author Hoang Tung Dinh
  */
-public final class DroneVelocityController implements VelocityController4d {
+public final class DroneVelocityController extends AbstractPrimitiveVelocityController4d {
 
   private final VelocityController1d controllerLinearX;
   private final VelocityController1d controllerLinearY;
@@ -53,37 +48,24 @@ public final class DroneVelocityController implements VelocityController4d {
     return new CompositionBuilder();
   }
 
-  /**
-   * Compute the next velocity (response) of the control loop.
-   *
-   * @param currentPose the current pose of the drone
-   * @param currentVelocity the current velocity of the drone
-   * @param currentTimeInSeconds the current time which will be used to get the desired position of
-   *     the drone
-   * @return the next velocity (response) of the drone
-   */
   @Override
-  public InertialFrameVelocity computeNextResponse(
-      Pose currentPose, InertialFrameVelocity currentVelocity, double currentTimeInSeconds) {
-    final double linearX =
+  public void computeNextResponse(
+      double[] currentPose,
+      double[] currentVelocity,
+      double currentTimeInSeconds,
+      double[] nextResponse) {
+    nextResponse[X] =
         controllerLinearX.computeNextResponse(
-            currentPose.x(), currentVelocity.linearX(), currentTimeInSeconds);
-    final double linearY =
+            currentPose[X], currentVelocity[X], currentTimeInSeconds);
+    nextResponse[Y] =
         controllerLinearY.computeNextResponse(
-            currentPose.y(), currentVelocity.linearY(), currentTimeInSeconds);
-    final double linearZ =
+            currentPose[Y], currentVelocity[Y], currentTimeInSeconds);
+    nextResponse[Z] =
         controllerLinearZ.computeNextResponse(
-            currentPose.z(), currentVelocity.linearZ(), currentTimeInSeconds);
-    final double angularZ =
+            currentPose[Z], currentVelocity[Z], currentTimeInSeconds);
+    nextResponse[YAW] =
         controllerAngularZ.computeNextResponse(
-            currentPose.yaw(), currentVelocity.angularZ(), currentTimeInSeconds);
-
-    return Velocity.builder()
-        .setLinearX(linearX)
-        .setLinearY(linearY)
-        .setLinearZ(linearZ)
-        .setAngularZ(angularZ)
-        .build();
+            currentPose[YAW], currentVelocity[YAW], currentTimeInSeconds);
   }
 
   /** {@code DroneVelocityController} builder static inner class. */
@@ -169,10 +151,12 @@ public final class DroneVelocityController implements VelocityController4d {
       checkNotNull(angularZParameters, "missing withAngularZParameters");
       checkNotNull(trajectory4d, "missing withTrajectory4d");
 
-      final Trajectory1d linearTrajectoryX = TrajectoryUtils.getTrajectoryLinearX(trajectory4d);
-      final Trajectory1d linearTrajectoryY = TrajectoryUtils.getTrajectoryLinearY(trajectory4d);
-      final Trajectory1d linearTrajectoryZ = TrajectoryUtils.getTrajectoryLinearZ(trajectory4d);
-      final Trajectory1d angularTrajectoryZ = TrajectoryUtils.getTrajectoryAngularZ(trajectory4d);
+      // the four controllers share one sample of the trajectory per point in time
+      final TrajectorySampler4d sampler = TrajectorySampler4d.create(trajectory4d);
+      final Trajectory1d linearTrajectoryX = sampler.getTrajectoryLinearX();
+      final Trajectory1d linearTrajectoryY = sampler.getTrajectoryLinearY();
+      final Trajectory1d linearTrajectoryZ = sampler.getTrajectoryLinearZ();
+      final Trajectory1d angularTrajectoryZ = sampler.getTrajectoryAngularZ();
 
       final VelocityController1d ctrlLinearX =
           LinearPidController1d.create(linearXParameters, linearTrajectoryX);
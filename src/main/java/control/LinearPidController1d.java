@@ -1,5 +1,7 @@
 package control;
 
+import applications.trajectory.TrajectoryUtils;
+
 /**
  * The one-dimensional PID controller to control linear velocity.
  *
@@ -8,7 +10,6 @@ package control;
  */
 public final class LinearPidController1d implements VelocityController1d {
 
-  private static final double DELTA_TIME_IN_SECOND = 0.1;
   private final PidParameters parameters;
   private final Trajectory1d trajectory;
   private double lastTimeInSeconds = -1;
@@ -31,13 +32,6 @@ public final class LinearPidController1d implements VelocityController1d {
     return new LinearPidController1d(parameters, trajectory);
   }
 
-  private static double getDesiredVelocity(Trajectory1d trajectory, double desiredTimeInSeconds) {
-    final double firstPoint = trajectory.getDesiredPosition(desiredTimeInSeconds);
-    final double secondPoint =
-        trajectory.getDesiredPosition(desiredTimeInSeconds + DELTA_TIME_IN_SECOND);
-    return (secondPoint - firstPoint) / DELTA_TIME_IN_SECOND;
-  }
-
   @Override
   public double computeNextResponse(
       double currentPosition, double currentVelocity, double currentTimeInSeconds) {
@@ -48,7 +42,9 @@ public final class LinearPidController1d implements VelocityController1d {
 
     final double pTerm = parameters.kp() * error;
     final double dTerm =
-        parameters.kd() * (getDesiredVelocity(trajectory, desiredTimeInSeconds) - currentVelocity);
+        parameters.kd()
+            * (TrajectoryUtils.getDesiredVelocity(trajectory, desiredTimeInSeconds)
+                - currentVelocity);
     final double iTerm = parameters.ki() * accumulatedError;
 
     double outVelocity = pTerm + dTerm + iTerm;
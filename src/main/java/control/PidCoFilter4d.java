@@ -1,25 +1,20 @@
 package control;
 
-import control.dto.InertialFrameVelocity;
-import control.dto.Pose;
-import control.dto.Velocity;
-
-import javax.annotation.Nullable;
-
 /**
  * The controller output filter for a pid controller. TODO: test this class
  *
  * @author Hoang Tung Dinh
  * @see <a href="http://controlguru.com/pid-with-controller-output-co-filter/">Equation</a>
  */
-public final class PidCoFilter4d implements VelocityController4d {
-  private final VelocityController4d pidController;
+public final class PidCoFilter4d extends AbstractPrimitiveVelocityController4d {
+  private final PrimitiveVelocityController4d pidController;
   private final double filterTimeConstance;
-  @Nullable private InertialFrameVelocity lastResponse;
+  private final double[] lastResponse = new double[4];
+  private boolean hasLastResponse;
   private double lastTimeInSeconds;
 
   private PidCoFilter4d(VelocityController4d pidController, double filterTimeConstance) {
-    this.pidController = pidController;
+    this.pidController = asPrimitive(pidController);
     this.filterTimeConstance = filterTimeConstance;
   }
 
@@ -29,46 +24,25 @@ public final class PidCoFilter4d implements VelocityController4d {
   }
 
   @Override
-  public InertialFrameVelocity computeNextResponse(
-      Pose currentPose, InertialFrameVelocity currentVelocity, double currentTimeInSeconds) {
-    final InertialFrameVelocity rawControllerOutput =
-        pidController.computeNextResponse(currentPose, currentVelocity, currentTimeInSeconds);
-    if (lastResponse == null) {
-      lastResponse = rawControllerOutput;
+  public void computeNextResponse(
+      double[] currentPose,
+      double[] currentVelocity,
+      double currentTimeInSeconds,
+      double[] nextResponse) {
+    pidController.computeNextResponse(
+        currentPose, currentVelocity, currentTimeInSeconds, nextResponse);
+    if (!hasLastResponse) {
+      System.arraycopy(nextResponse, 0, lastResponse, 0, lastResponse.length);
+      hasLastResponse = true;
       lastTimeInSeconds = currentTimeInSeconds;
-      return rawControllerOutput;
     } else {
-      return getFilteredResponse(rawControllerOutput, currentTimeInSeconds);
+      for (int i = 0; i < lastResponse.length; i++) {
+        nextResponse[i] =
+            getFilteredResponse(nextResponse[i], currentTimeInSeconds, lastResponse[i]);
+      }
     }
   }
 
-  private InertialFrameVelocity getFilteredResponse(
-      InertialFrameVelocity rawControllerOutput, double currentTimeInSeconds) {
-
-    final double filteredLinearX =
-        getFilteredResponse(
-            rawControllerOutput.linearX(), currentTimeInSeconds, lastResponse.linearX());
-
-    final double filteredLinearY =
-        getFilteredResponse(
-            rawControllerOutput.linearY(), currentTimeInSeconds, lastResponse.linearY());
-
-    final double filteredLinearZ =
-        getFilteredResponse(
-            rawControllerOutput.linearZ(), currentTimeInSeconds, lastResponse.linearZ());
-
-    final double filteredAngularZ =
-        getFilteredResponse(
-            rawControllerOutput.angularZ(), currentTimeInSeconds, lastResponse.angularZ());
-
-    return Velocity.builder()
-        .setLinearX(filteredLinearX)
-        .setLinearY(filteredLinearY)
-        .setLinearZ(filteredLinearZ)
-        .setAngularZ(filteredAngularZ)
-        .build();
-  }
-
   private double getFilteredResponse(
       double rawControllerOutput, double currentTimeInSeconds, double lastRespose) {
     return rawControllerOutput
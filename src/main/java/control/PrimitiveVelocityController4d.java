@@ -0,0 +1,33 @@
+package control;
+
+/**
+ * A {@link VelocityController4d} which can compute its response on primitive arrays without
+ * allocating any object. The pose, the velocity and the response are arrays of four elements,
+ * indexed by {@link #X}, {@link #Y}, {@link #Z} and {@link #YAW}.
+ */
+public interface PrimitiveVelocityController4d extends VelocityController4d {
+  /** Index of the x component. */
+  int X = 0;
+  /** Index of the y component. */
+  int Y = 1;
+  /** Index of the z component. */
+  int Z = 2;
+  /** Index of the yaw component. */
+  int YAW = 3;
+
+  /**
+   * Compute the next velocity (response) of the control loop and writes it into {@code
+   * nextResponse}. The input arrays are not modified.
+   *
+   * @param currentPose the current pose of the drone (x, y, z, yaw)
+   * @param currentVelocity the current velocity of the drone in the inertial frame
+   * @param currentTimeInSeconds the current time which will be used to get the desired position of
+   *     the drone
+   * @param nextResponse the array in which the next velocity (response) of the drone is written
+   */
+  void computeNextResponse(
+      double[] currentPose,
+      double[] currentVelocity,
+      double currentTimeInSeconds,
+      double[] nextResponse);
+}
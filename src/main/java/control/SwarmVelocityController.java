@@ -0,0 +1,339 @@
+package control;
+
+import com.google.common.collect.ImmutableList;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import services.Velocity4dService;
+import utils.math.EulerAngle;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A PID velocity controller for a swarm of drones which share the same PID parameters. It computes
+ * the same responses as one {@link DroneVelocityController} per drone, but keeps the state of all
+ * the drones in primitive arrays (one array per quantity, indexed by {@code axis * numberOfDrones +
+ * droneIndex}) instead of in one object per drone and axis.
+ *
+ * <p>A tick has two phases. The trajectories are first sampled once per drone (which requires a
+ * virtual call per drone), and the position and velocity errors are gathered into the arrays. The
+ * PID equation is then evaluated for all the drones of an axis in one branch-free loop over the
+ * arrays, which the JIT compiler can unroll and vectorize. The responses can afterwards be sent to
+ * the velocity service of each drone.
+ *
+ * <p>All the drones are controlled at the same points in time. This class is not thread-safe and
+ * is meant to be used by a single control loop.
+ */
+public final class SwarmVelocityController {
+
+  private static final int NUMBER_OF_AXES = 4;
+
+  private final int numberOfDrones;
+  private final TrajectorySampler4d[] samplers;
+
+  // the pid parameters, indexed by axis
+  private final double[] kp = new double[NUMBER_OF_AXES];
+  private final double[] kd = new double[NUMBER_OF_AXES];
+  private final double[] ki = new double[NUMBER_OF_AXES];
+  private final double[] lagTimeInSeconds = new double[NUMBER_OF_AXES];
+  private final double[] minVelocity = new double[NUMBER_OF_AXES];
+  private final double[] maxVelocity = new double[NUMBER_OF_AXES];
+  private final double[] minIntegralError = new double[NUMBER_OF_AXES];
+  private final double[] maxIntegralError = new double[NUMBER_OF_AXES];
+  private final double[] lastTimeInSeconds = new double[NUMBER_OF_AXES];
+
+  // the state of the drones, indexed by axis * numberOfDrones + droneIndex
+  private final double[] currentPositions;
+  private final double[] currentVelocities;
+  private final double[] positionErrors;
+  private final double[] velocityErrors;
+  private final double[] accumulatedErrors;
+  private final double[] nextResponses;
+  private final Pose[] currentPoses;
+
+  private SwarmVelocityController(
+      List<Trajectory4d> trajectories, List<PidParameters> pidParameters) {
+    numberOfDrones = trajectories.size();
+    samplers = new TrajectorySampler4d[numberOfDrones];
+    for (int i = 0; i < numberOfDrones; i++) {
+      samplers[i] = TrajectorySampler4d.create(trajectories.get(i));
+    }
+
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      final PidParameters parameters = pidParameters.get(axis);
+      kp[axis] = parameters.kp();
+      kd[axis] = parameters.kd();
+      ki[axis] = parameters.ki();
+      lagTimeInSeconds[axis] = parameters.lagTimeInSeconds();
+      minVelocity[axis] = parameters.minVelocity();
+      maxVelocity[axis] = parameters.maxVelocity();
+      minIntegralError[axis] = parameters.minIntegralError();
+      maxIntegralError[axis] = parameters.maxIntegralError();
+      lastTimeInSeconds[axis] = -1;
+    }
+
+    final int size = NUMBER_OF_AXES * numberOfDrones;
+    currentPositions = new double[size];
+    currentVelocities = new double[size];
+    positionErrors = new double[size];
+    velocityErrors = new double[size];
+    accumulatedErrors = new double[size];
+    nextResponses = new double[size];
+    currentPoses = new Pose[numberOfDrones];
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Returns the number of controlled drones. */
+  public int getNumberOfDrones() {
+    return numberOfDrones;
+  }
+
+  /**
+   * Sets the current state of a drone, which is used in the next tick.
+   *
+   * @param droneIndex the index of the drone
+   * @param pose the current pose of the drone
+   * @param velocity the current velocity of the drone in the inertial frame
+   */
+  public void setCurrentState(int droneIndex, Pose pose, InertialFrameVelocity velocity) {
+    currentPositions[index(PrimitiveVelocityController4d.X, droneIndex)] = pose.x();
+    currentPositions[index(PrimitiveVelocityController4d.Y, droneIndex)] = pose.y();
+    currentPositions[index(PrimitiveVelocityController4d.Z, droneIndex)] = pose.z();
+    currentPositions[index(PrimitiveVelocityController4d.YAW, droneIndex)] = pose.yaw();
+    currentVelocities[index(PrimitiveVelocityController4d.X, droneIndex)] = velocity.linearX();
+    currentVelocities[index(PrimitiveVelocityController4d.Y, droneIndex)] = velocity.linearY();
+    currentVelocities[index(PrimitiveVelocityController4d.Z, droneIndex)] = velocity.linearZ();
+    currentVelocities[index(PrimitiveVelocityController4d.YAW, droneIndex)] = velocity.angularZ();
+    currentPoses[droneIndex] = pose;
+  }
+
+  /**
+   * Sets the current state of a drone, which is used in the next tick.
+   *
+   * @param droneIndex the index of the drone
+   * @param currentPose the current pose of the drone (x, y, z, yaw)
+   * @param currentVelocity the current velocity of the drone in the inertial frame
+   */
+  public void setCurrentState(int droneIndex, double[] currentPose, double[] currentVelocity) {
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      currentPositions[index(axis, droneIndex)] = currentPose[axis];
+      currentVelocities[index(axis, droneIndex)] = currentVelocity[axis];
+    }
+    currentPoses[droneIndex] = null;
+  }
+
+  /**
+   * Computes the next responses of all the drones from their current states.
+   *
+   * @param currentTimeInSeconds the current time which will be used to get the desired positions
+   *     of the drones
+   */
+  public void computeNextResponses(double currentTimeInSeconds) {
+    gatherErrors(currentTimeInSeconds);
+
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      final double desiredTimeInSeconds = currentTimeInSeconds + lagTimeInSeconds[axis];
+      final double dtInSeconds;
+      if (lastTimeInSeconds[axis] < 0) {
+        dtInSeconds = 0;
+      } else {
+        dtInSeconds = desiredTimeInSeconds - lastTimeInSeconds[axis];
+      }
+      lastTimeInSeconds[axis] = desiredTimeInSeconds;
+
+      computeAxis(axis * numberOfDrones, (axis + 1) * numberOfDrones, axis, dtInSeconds);
+    }
+  }
+
+  /**
+   * Gets one component of the last computed response of a drone.
+   *
+   * @param droneIndex the index of the drone
+   * @param axis the index of the axis, as defined in {@link PrimitiveVelocityController4d}
+   * @return the velocity of the drone in the axis
+   */
+  public double getNextResponse(int droneIndex, int axis) {
+    return nextResponses[index(axis, droneIndex)];
+  }
+
+  /**
+   * Writes the last computed response of a drone into an array.
+   *
+   * @param droneIndex the index of the drone
+   * @param nextResponse the array of four elements in which the response is written
+   */
+  public void getNextResponse(int droneIndex, double[] nextResponse) {
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      nextResponse[axis] = nextResponses[index(axis, droneIndex)];
+    }
+  }
+
+  /**
+   * Sends the last computed response of each drone to its velocity service. The responses are only
+   * sent to the drones whose current state has been set with a {@link Pose}, which is needed to
+   * transform the responses into the body frame of the drones.
+   *
+   * @param velocity4dServices the velocity services of the drones, in the order of the drones
+   */
+  public void sendNextResponses(List<? extends Velocity4dService> velocity4dServices) {
+    checkArgument(
+        velocity4dServices.size() == numberOfDrones,
+        "There must be one velocity service per drone.");
+    for (int i = 0; i < numberOfDrones; i++) {
+      final Pose currentPose = currentPoses[i];
+      if (currentPose != null) {
+        velocity4dServices.get(i).sendInertialFrameVelocity(createNextResponse(i), currentPose);
+      }
+    }
+  }
+
+  private InertialFrameVelocity createNextResponse(int droneIndex) {
+    return Velocity.builder()
+        .setLinearX(getNextResponse(droneIndex, PrimitiveVelocityController4d.X))
+        .setLinearY(getNextResponse(droneIndex, PrimitiveVelocityController4d.Y))
+        .setLinearZ(getNextResponse(droneIndex, PrimitiveVelocityController4d.Z))
+        .setAngularZ(getNextResponse(droneIndex, PrimitiveVelocityController4d.YAW))
+        .build();
+  }
+
+  private void gatherErrors(double currentTimeInSeconds) {
+    for (int i = 0; i < numberOfDrones; i++) {
+      final TrajectorySampler4d sampler = samplers[i];
+      for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+        final int index = index(axis, i);
+        final double desiredTimeInSeconds = currentTimeInSeconds + lagTimeInSeconds[axis];
+        double currentPosition = currentPositions[index];
+        if (axis == PrimitiveVelocityController4d.YAW) {
+          // as in AngularPidController1d, the angle distance to the desired yaw is minimized
+          final double desiredYaw = sampler.getPosition(axis, currentTimeInSeconds);
+          currentPosition =
+              desiredYaw - EulerAngle.computeAngleDistance(currentPosition, desiredYaw);
+        }
+        positionErrors[index] = sampler.getPosition(axis, desiredTimeInSeconds) - currentPosition;
+        velocityErrors[index] =
+            sampler.getState(desiredTimeInSeconds).getVelocity(axis) - currentVelocities[index];
+      }
+    }
+  }
+
+  private void computeAxis(int start, int end, int axis, double dtInSeconds) {
+    final double axisKp = kp[axis];
+    final double axisKd = kd[axis];
+    final double axisKi = ki[axis];
+    final double axisMinVelocity = minVelocity[axis];
+    final double axisMaxVelocity = maxVelocity[axis];
+    final double axisMinIntegralError = minIntegralError[axis];
+    final double axisMaxIntegralError = maxIntegralError[axis];
+
+    for (int i = start; i < end; i++) {
+      final double unboundedAccumulatedError =
+          accumulatedErrors[i] + positionErrors[i] * dtInSeconds;
+      final double accumulatedError =
+          Math.min(Math.max(unboundedAccumulatedError, axisMinIntegralError), axisMaxIntegralError);
+      accumulatedErrors[i] = accumulatedError;
+
+      final double response =
+          axisKp * positionErrors[i] + axisKd * velocityErrors[i] + axisKi * accumulatedError;
+      nextResponses[i] = Math.min(Math.max(response, axisMinVelocity), axisMaxVelocity);
+    }
+  }
+
+  private int index(int axis, int droneIndex) {
+    return axis * numberOfDrones + droneIndex;
+  }
+
+  /** {@code SwarmVelocityController} builder static inner class. */
+  public static final class Builder {
+    private List<Trajectory4d> trajectories;
+    private PidParameters linearXParameters;
+    private PidParameters linearYParameters;
+    private PidParameters linearZParameters;
+    private PidParameters angularZParameters;
+
+    private Builder() {}
+
+    /**
+     * Sets the {@code trajectories} and returns a reference to this Builder so that the methods can
+     * be chained together. The i-th trajectory is followed by the drone with index i.
+     *
+     * @param val the {@code trajectories} to set
+     * @return a reference to this Builder
+     */
+    public Builder withTrajectories(List<? extends Trajectory4d> val) {
+      trajectories = ImmutableList.<Trajectory4d>copyOf(val);
+      return this;
+    }
+
+    /**
+     * Sets the {@code linearXParameters} and returns a reference to this Builder so that the
+     * methods can be chained together.
+     *
+     * @param val the {@code linearXParameters} to set
+     * @return a reference to this Builder
+     */
+    public Builder withLinearXParameters(PidParameters val) {
+      linearXParameters = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code linearYParameters} and returns a reference to this Builder so that the
+     * methods can be chained together.
+     *
+     * @param val the {@code linearYParameters} to set
+     * @return a reference to this Builder
+     */
+    public Builder withLinearYParameters(PidParameters val) {
+      linearYParameters = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code linearZParameters} and returns a reference to this Builder so that the
+     * methods can be chained together.
+     *
+     * @param val the {@code linearZParameters} to set
+     * @return a reference to this Builder
+     */
+    public Builder withLinearZParameters(PidParameters val) {
+      linearZParameters = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code angularZParameters} and returns a reference to this Builder so that the
+     * methods can be chained together.
+     *
+     * @param val the {@code angularZParameters} to set
+     * @return a reference to this Builder
+     */
+    public Builder withAngularZParameters(PidParameters val) {
+      angularZParameters = val;
+      return this;
+    }
+
+    /**
+     * Returns a {@code SwarmVelocityController} built from the parameters previously set.
+     *
+     * @return a {@code SwarmVelocityController} built with parameters of this {@code
+     *     SwarmVelocityController.Builder}
+     */
+    public SwarmVelocityController build() {
+      checkNotNull(trajectories, "missing trajectories");
+      checkNotNull(linearXParameters, "missing linearXParameters");
+      checkNotNull(linearYParameters, "missing linearYParameters");
+      checkNotNull(linearZParameters, "missing linearZParameters");
+      checkNotNull(angularZParameters, "missing angularZParameters");
+      return new SwarmVelocityController(
+          trajectories,
+          ImmutableList.of(
+              linearXParameters, linearYParameters, linearZParameters, angularZParameters));
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package control;
+
+import applications.trajectory.TrajectoryUtils;
+
+/**
+ * A per-tick sample context of a {@link Trajectory4d}. The four-dimensional trajectory is evaluated
+ * once per point in time and the result is shared by the one-dimensional views of its axes, so that
+ * the four axis controllers of a {@link DroneVelocityController} do not evaluate the trajectory four
+ * times for the same time stamp.
+ *
+ * <p>The last few sampled points in time are remembered, since the axis controllers may sample the
+ * trajectory at different points in time in the same tick (e.g., with and without the lag time).
+ * Trajectories which are not a {@link DifferentiableTrajectory4d} are evaluated per axis, and their
+ * derivatives are only approximated (once for all axes) when an axis asks for them. This class is
+ * not thread-safe and is meant to be used by a single control loop.
+ */
+public final class TrajectorySampler4d {
+  private static final int NUMBER_OF_SLOTS = 4;
+  private static final int NUMBER_OF_AXES = 4;
+
+  private final Trajectory4d trajectory;
+  private final Sample[] samples = new Sample[NUMBER_OF_SLOTS];
+  private int nextSlot;
+
+  private TrajectorySampler4d(Trajectory4d trajectory) {
+    this.trajectory = trajectory;
+    for (int i = 0; i < NUMBER_OF_SLOTS; i++) {
+      samples[i] = new Sample();
+    }
+  }
+
+  /**
+   * Creates a sample context of a trajectory.
+   *
+   * @param trajectory the four-dimensional trajectory to be sampled
+   * @return a sample context of the trajectory
+   */
+  public static TrajectorySampler4d create(Trajectory4d trajectory) {
+    return new TrajectorySampler4d(trajectory);
+  }
+
+  /** Returns the sampled trajectory. */
+  public Trajectory4d getTrajectory() {
+    return trajectory;
+  }
+
+  /**
+   * Gets the desired position of one axis at the given point in time.
+   *
+   * @param axis the index of the axis, as defined in {@link PrimitiveVelocityController4d}
+   * @param timeInSeconds the point in time to get the position for
+   * @return the desired position (or yaw angle) of the axis
+   */
+  public double getPosition(int axis, double timeInSeconds) {
+    final Sample sample = getSample(timeInSeconds);
+    if (!sample.hasPosition[axis]) {
+      sample.state.set(axis, getDesiredPosition(axis, timeInSeconds), 0, 0);
+      sample.hasPosition[axis] = true;
+    }
+    return sample.state.getPosition(axis);
+  }
+
+  /**
+   * Gets the desired position, velocity and acceleration of all axes at the given point in time.
+   * The returned state must not be modified, and is only valid until another point in time is
+   * sampled.
+   *
+   * @param timeInSeconds the point in time to get the state for
+   * @return the state whose positions, velocities and accelerations are set
+   */
+  public TrajectoryState4d getState(double timeInSeconds) {
+    final Sample sample = getSample(timeInSeconds);
+    if (!sample.hasDerivatives) {
+      TrajectoryUtils.getDesiredState(trajectory, timeInSeconds, sample.state);
+      sample.setComplete();
+    }
+    return sample.state;
+  }
+
+  /**
+   * Gets the view of the x axis of the trajectory.
+   *
+   * @return an one-dimensional trajectory represents the trajectory in the x coordinate
+   */
+  public DifferentiableTrajectory1d getTrajectoryLinearX() {
+    return new AxisView(PrimitiveVelocityController4d.X);
+  }
+
+  /**
+   * Gets the view of the y axis of the trajectory.
+   *
+   * @return an one-dimensional trajectory represents the trajectory in the y coordinate
+   */
+  public DifferentiableTrajectory1d getTrajectoryLinearY() {
+    return new AxisView(PrimitiveVelocityController4d.Y);
+  }
+
+  /**
+   * Gets the view of the z axis of the trajectory.
+   *
+   * @return an one-dimensional trajectory represents the trajectory in the z coordinate
+   */
+  public DifferentiableTrajectory1d getTrajectoryLinearZ() {
+    return new AxisView(PrimitiveVelocityController4d.Z);
+  }
+
+  /**
+   * Gets the view of the yaw of the trajectory.
+   *
+   * @return an one-dimensional trajectory represents the trajectory in the angular z (the yaw)
+   *     coordinate
+   */
+  public DifferentiableTrajectory1d getTrajectoryAngularZ() {
+    return new AxisView(PrimitiveVelocityController4d.YAW);
+  }
+
+  private Sample getSample(double timeInSeconds) {
+    for (final Sample sample : samples) {
+      if (sample.isValid && sample.timeInSeconds == timeInSeconds) {
+        return sample;
+      }
+    }
+
+    final Sample sample = samples[nextSlot];
+    nextSlot = (nextSlot + 1) % NUMBER_OF_SLOTS;
+    sample.reset(timeInSeconds);
+
+    if (trajectory instanceof DifferentiableTrajectory4d) {
+      ((DifferentiableTrajectory4d) trajectory).getDesiredState(timeInSeconds, sample.state);
+      sample.setComplete();
+    }
+    return sample;
+  }
+
+  private double getDesiredPosition(int axis, double timeInSeconds) {
+    switch (axis) {
+      case PrimitiveVelocityController4d.X:
+        return trajectory.getDesiredPositionX(timeInSeconds);
+      case PrimitiveVelocityController4d.Y:
+        return trajectory.getDesiredPositionY(timeInSeconds);
+      case PrimitiveVelocityController4d.Z:
+        return trajectory.getDesiredPositionZ(timeInSeconds);
+      case PrimitiveVelocityController4d.YAW:
+        return trajectory.getDesiredAngleZ(timeInSeconds);
+      default:
+        throw new IllegalArgumentException("Unknown axis: " + axis);
+    }
+  }
+
+  private static final class Sample {
+    private final TrajectoryState4d state = TrajectoryState4d.create();
+    private final boolean[] hasPosition = new boolean[NUMBER_OF_AXES];
+    private double timeInSeconds;
+    private boolean isValid;
+    private boolean hasDerivatives;
+
+    private void reset(double newTimeInSeconds) {
+      timeInSeconds = newTimeInSeconds;
+      isValid = true;
+      hasDerivatives = false;
+      for (int i = 0; i < NUMBER_OF_AXES; i++) {
+        hasPosition[i] = false;
+      }
+    }
+
+    private void setComplete() {
+      hasDerivatives = true;
+      for (int i = 0; i < NUMBER_OF_AXES; i++) {
+        hasPosition[i] = true;
+      }
+    }
+  }
+
+  private final class AxisView implements DifferentiableTrajectory1d {
+    private final int axis;
+
+    AxisView(int axis) {
+      this.axis = axis;
+    }
+
+    @Override
+    public double getDesiredPosition(double timeInSeconds) {
+      return getPosition(axis, timeInSeconds);
+    }
+
+    @Override
+    public double getDesiredVelocity(double timeInSeconds) {
+      return getState(timeInSeconds).getVelocity(axis);
+    }
+
+    @Override
+    public double getDesiredAcceleration(double timeInSeconds) {
+      return getState(timeInSeconds).getAcceleration(axis);
+    }
+  }
+}
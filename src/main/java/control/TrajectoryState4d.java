@@ -0,0 +1,81 @@
+package control;
+
+import java.util.Arrays;
+
+/**
+ * A mutable holder of the desired position, velocity and acceleration of a {@link Trajectory4d} at
+ * a point in time. The components are indexed by {@link PrimitiveVelocityController4d#X}, {@link
+ * PrimitiveVelocityController4d#Y}, {@link PrimitiveVelocityController4d#Z} and {@link
+ * PrimitiveVelocityController4d#YAW}. An instance is meant to be reused by a single control loop, so
+ * that sampling a trajectory does not allocate any object.
+ */
+public final class TrajectoryState4d {
+  private static final int NUMBER_OF_AXES = 4;
+
+  private final double[] position = new double[NUMBER_OF_AXES];
+  private final double[] velocity = new double[NUMBER_OF_AXES];
+  private final double[] acceleration = new double[NUMBER_OF_AXES];
+
+  private TrajectoryState4d() {}
+
+  /**
+   * Creates a state in which all components are zero.
+   *
+   * @return a new state
+   */
+  public static TrajectoryState4d create() {
+    return new TrajectoryState4d();
+  }
+
+  /**
+   * Sets the position, velocity and acceleration of one axis.
+   *
+   * @param axis the index of the axis
+   * @param positionValue the desired position
+   * @param velocityValue the desired velocity
+   * @param accelerationValue the desired acceleration
+   */
+  public void set(int axis, double positionValue, double velocityValue, double accelerationValue) {
+    position[axis] = positionValue;
+    velocity[axis] = velocityValue;
+    acceleration[axis] = accelerationValue;
+  }
+
+  /**
+   * Copies all components of another state into this state.
+   *
+   * @param other the state to be copied
+   */
+  public void copyFrom(TrajectoryState4d other) {
+    System.arraycopy(other.position, 0, position, 0, NUMBER_OF_AXES);
+    System.arraycopy(other.velocity, 0, velocity, 0, NUMBER_OF_AXES);
+    System.arraycopy(other.acceleration, 0, acceleration, 0, NUMBER_OF_AXES);
+  }
+
+  /** Returns the desired position (or the yaw angle) of the given axis. */
+  public double getPosition(int axis) {
+    return position[axis];
+  }
+
+  /** Returns the desired velocity of the given axis. */
+  public double getVelocity(int axis) {
+    return velocity[axis];
+  }
+
+  /** Returns the desired acceleration of the given axis. */
+  public double getAcceleration(int axis) {
+    return acceleration[axis];
+  }
+
+  @Override
+  public String toString() {
+    return "TrajectoryState4d{"
+        + "position="
+        + Arrays.toString(position)
+        + ", velocity="
+        + Arrays.toString(velocity)
+        + ", acceleration="
+        + Arrays.toString(acceleration)
+        + '}';
+  }
+}
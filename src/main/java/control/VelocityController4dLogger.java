@@ -1,107 +1,132 @@
 package control;
 
-import control.dto.InertialFrameVelocity;
-import control.dto.Pose;
+import applications.trajectory.TrajectoryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import time.TimeProvider;
+import utils.flightdata.FlightDataRecord;
+import utils.flightdata.FlightDataRecorder;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
 
 /**
- * A decorator for logging the state of a {@link VelocityController4d}. This class is assumed to be
- * used with Logback's <a href="http://logback.qos.ch/manual/appenders.html#SiftingAppender">SiftingAppender</a> and
- * <a href="http://logback.qos.ch/manual/mdc.html">Mapped Diagnostic Contexts</a>.
+ * A decorator for recording the state of a {@link VelocityController4d}. At each tick, the actual
+ * and desired pose and velocity of the drone and the response of the decorated controller are
+ * recorded in a {@link FlightDataRecorder}. Recording a tick copies a few doubles into the buffer
+ * of the recorder, it neither formats text nor allocates any object.
+ *
+ * <p>The logger must be closed when the controller is not used anymore, which writes the last
+ * records to the file and closes the recorder. A follow trajectory command closes its controller
+ * once it has been executed.
  *
  * @author Hoang Tung Dinh
  */
-public final class VelocityController4dLogger implements VelocityController4d {
+public final class VelocityController4dLogger extends AbstractPrimitiveVelocityController4d
+    implements Closeable {
 
   private static final Logger logger = LoggerFactory.getLogger(VelocityController4dLogger.class);
+  private static final int NUMBER_OF_AXES = 4;
 
-  private final VelocityController4d velocityController4d;
+  private final PrimitiveVelocityController4d velocityController4d;
   private final Trajectory4d desiredTrajectory;
   private final TimeProvider systemTimeProvider;
-  private final String loggerName;
+  @Nullable private final FlightDataRecorder recorder;
+  private final TrajectoryState4d desiredState = TrajectoryState4d.create();
+  private final double[] record = new double[FlightDataRecord.NUMBER_OF_FIELDS];
 
   private VelocityController4dLogger(
       VelocityController4d velocityController4d,
       Trajectory4d desiredTrajectory,
       TimeProvider systemTimeProvider,
-      String loggerName) {
-    this.velocityController4d = velocityController4d;
+      @Nullable FlightDataRecorder recorder) {
+    this.velocityController4d = asPrimitive(velocityController4d);
     this.desiredTrajectory = desiredTrajectory;
     this.systemTimeProvider = systemTimeProvider;
-    this.loggerName = loggerName;
+    this.recorder = recorder;
   }
 
+  /**
+   * Creates a decorator which records the state of the controller in the given recorder.
+   *
+   * @param velocityController4d the decorated controller
+   * @param desiredTrajectory the trajectory followed by the controller
+   * @param systemTimeProvider the provider of the time stamps of the records
+   * @param recorder the recorder, which is closed when the decorator is closed
+   * @return a decorator instance
+   */
   public static VelocityController4dLogger create(
       VelocityController4d velocityController4d,
       Trajectory4d desiredTrajectory,
       TimeProvider systemTimeProvider,
-      String loggerName) {
+      FlightDataRecorder recorder) {
     return new VelocityController4dLogger(
-        velocityController4d, desiredTrajectory, systemTimeProvider, loggerName);
+        velocityController4d, desiredTrajectory, systemTimeProvider, recorder);
   }
 
-  @Override
-  public InertialFrameVelocity computeNextResponse(
-      Pose currentPose, InertialFrameVelocity currentVelocity, double currentTimeInSeconds) {
-    final double currentSystemTimeInSeconds = systemTimeProvider.getCurrentTimeSeconds();
-    logPose(currentPose, currentTimeInSeconds, currentSystemTimeInSeconds);
-    logVelocity(currentVelocity, currentTimeInSeconds, currentSystemTimeInSeconds);
-    return velocityController4d.computeNextResponse(
-        currentPose, currentVelocity, currentTimeInSeconds);
+  /**
+   * Creates a decorator which records the state of the controller in a file named after the drone
+   * in the default directory of {@link FlightDataRecorder#createInDefaultDirectory(String)}. If the
+   * file cannot be created, nothing is recorded.
+   *
+   * @param velocityController4d the decorated controller
+   * @param desiredTrajectory the trajectory followed by the controller
+   * @param systemTimeProvider the provider of the time stamps of the records
+   * @param droneName the name of the drone
+   * @return a decorator instance
+   */
+  public static VelocityController4dLogger create(
+      VelocityController4d velocityController4d,
+      Trajectory4d desiredTrajectory,
+      TimeProvider systemTimeProvider,
+      String droneName) {
+    FlightDataRecorder recorder = null;
+    try {
+      recorder = FlightDataRecorder.createInDefaultDirectory(droneName);
+    } catch (IOException e) {
+      logger.warn("Cannot create the flight data recorder. The flight will not be recorded.", e);
+    }
+    return new VelocityController4dLogger(
+        velocityController4d, desiredTrajectory, systemTimeProvider, recorder);
   }
 
-  private void logVelocity(
-      InertialFrameVelocity currentVelocity,
+  @Override
+  public void computeNextResponse(
+      double[] currentPose,
+      double[] currentVelocity,
       double currentTimeInSeconds,
-      double currentSystemTimeInSeconds) {
-    final double deltaTimeInSeconds = 0.1;
-    final double desiredVelocityX =
-        (desiredTrajectory.getDesiredPositionX(currentTimeInSeconds + deltaTimeInSeconds)
-                - desiredTrajectory.getDesiredPositionX(currentTimeInSeconds))
-            / deltaTimeInSeconds;
-    final double desiredVelocityY =
-        (desiredTrajectory.getDesiredPositionY(currentTimeInSeconds + deltaTimeInSeconds)
-                - desiredTrajectory.getDesiredPositionY(currentTimeInSeconds))
-            / deltaTimeInSeconds;
-    final double desiredVelocityZ =
-        (desiredTrajectory.getDesiredPositionZ(currentTimeInSeconds + deltaTimeInSeconds)
-                - desiredTrajectory.getDesiredPositionZ(currentTimeInSeconds))
-            / deltaTimeInSeconds;
-    final double desiredVelocityYaw =
-        (desiredTrajectory.getDesiredAngleZ(currentTimeInSeconds + deltaTimeInSeconds)
-                - desiredTrajectory.getDesiredAngleZ(currentTimeInSeconds))
-            / deltaTimeInSeconds;
+      double[] nextResponse) {
+    velocityController4d.computeNextResponse(
+        currentPose, currentVelocity, currentTimeInSeconds, nextResponse);
+    if (recorder != null) {
+      record(currentPose, currentVelocity, currentTimeInSeconds, nextResponse);
+    }
+  }
 
-    MDC.put("loggerName", loggerName + "_velocity");
-    logger.trace(
-        "{} {} {} {} {} {} {} {} {}",
-        currentSystemTimeInSeconds,
-        currentVelocity.linearX(),
-        currentVelocity.linearY(),
-        currentVelocity.linearZ(),
-        currentVelocity.angularZ(),
-        desiredVelocityX,
-        desiredVelocityY,
-        desiredVelocityZ,
-        desiredVelocityYaw);
+  /** Writes the queued records to the file and closes the recorder. */
+  @Override
+  public void close() {
+    if (recorder != null) {
+      recorder.close();
+    }
   }
 
-  private void logPose(
-      Pose currentPose, double currentTimeInSeconds, double currentSystemTimeInSeconds) {
-    MDC.put("loggerName", loggerName + "_pose");
-    logger.trace(
-        "{} {} {} {} {} {} {} {} {}",
-        currentSystemTimeInSeconds,
-        currentPose.x(),
-        currentPose.y(),
-        currentPose.z(),
-        currentPose.yaw(),
-        desiredTrajectory.getDesiredPositionX(currentTimeInSeconds),
-        desiredTrajectory.getDesiredPositionY(currentTimeInSeconds),
-        desiredTrajectory.getDesiredPositionZ(currentTimeInSeconds),
-        desiredTrajectory.getDesiredAngleZ(currentTimeInSeconds));
+  private void record(
+      double[] currentPose,
+      double[] currentVelocity,
+      double currentTimeInSeconds,
+      double[] nextResponse) {
+    TrajectoryUtils.getDesiredState(desiredTrajectory, currentTimeInSeconds, desiredState);
+    record[FlightDataRecord.SYSTEM_TIME] = systemTimeProvider.getCurrentTimeSeconds();
+    record[FlightDataRecord.TRAJECTORY_TIME] = currentTimeInSeconds;
+    for (int axis = 0; axis < NUMBER_OF_AXES; axis++) {
+      record[FlightDataRecord.ACTUAL_POSE + axis] = currentPose[axis];
+      record[FlightDataRecord.ACTUAL_VELOCITY + axis] = currentVelocity[axis];
+      record[FlightDataRecord.DESIRED_POSE + axis] = desiredState.getPosition(axis);
+      record[FlightDataRecord.DESIRED_VELOCITY + axis] = desiredState.getVelocity(axis);
+      record[FlightDataRecord.COMMAND + axis] = nextResponse[axis];
+    }
+    recorder.record(record);
   }
 }
@@ -1,32 +1,49 @@
 package control.localization;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.EvictingQueue;
 import control.dto.DroneStateStamped;
 import control.dto.InertialFrameVelocity;
 import control.dto.Pose;
 import control.dto.Velocity;
 import geometry_msgs.PoseStamped;
+import services.rossubscribers.MessageObserver;
 import services.rossubscribers.MessagesSubscriberService;
+import utils.math.EulerAngle;
+import utils.math.RunningAverage;
 
 import javax.annotation.Nullable;
-import java.util.Collection;
 
 /**
- * A localization that gets both pose and velocity from ArMarker.
+ * A localization that gets both pose and velocity from ArMarker. Each pose is processed once, when
+ * it arrives, and the resulting state is pushed to the state observers.
  *
  * @author Hoang Tung Dinh
  */
-public final class BebopStateEstimatorWithPoseStamped implements StateEstimator {
+public final class BebopStateEstimatorWithPoseStamped implements ObservableStateEstimator {
 
   private final MessagesSubscriberService<PoseStamped> poseSubscriber;
-  private final EvictingQueue<InertialFrameVelocity> velocityQueue;
+  private final RunningAverage linearXAverage;
+  private final RunningAverage linearYAverage;
+  private final RunningAverage linearZAverage;
+  private final RunningAverage angularZAverage;
+  private final StatePublisher statePublisher = StatePublisher.create();
   @Nullable private PoseStamped lastPoseStamped;
+  @Nullable private volatile PoseStamped lastProcessedPoseStamped;
 
   private BebopStateEstimatorWithPoseStamped(
       MessagesSubscriberService<PoseStamped> poseSubscriber, int numOfVelocitiesToAverage) {
     this.poseSubscriber = poseSubscriber;
-    velocityQueue = EvictingQueue.create(numOfVelocitiesToAverage);
+    linearXAverage = RunningAverage.create(numOfVelocitiesToAverage);
+    linearYAverage = RunningAverage.create(numOfVelocitiesToAverage);
+    linearZAverage = RunningAverage.create(numOfVelocitiesToAverage);
+    angularZAverage = RunningAverage.create(numOfVelocitiesToAverage);
+    poseSubscriber.registerMessageObserver(
+        new MessageObserver<PoseStamped>() {
+          @Override
+          public void onNewMessage(PoseStamped message) {
+            processPose(message);
+          }
+        });
   }
 
   public static BebopStateEstimatorWithPoseStamped create(
@@ -36,81 +53,73 @@ public final class BebopStateEstimatorWithPoseStamped implements StateEstimator
 
   @Override
   public Optional<DroneStateStamped> getCurrentState() {
+    // the pose is normally processed on arrival, this only catches up with a pose which has not
+    // been pushed to this estimator
     final Optional<PoseStamped> poseStamped = poseSubscriber.getMostRecentMessage();
+    if (poseStamped.isPresent() && poseStamped.get() != lastProcessedPoseStamped) {
+      processPose(poseStamped.get());
+    }
+    return statePublisher.getLatestState();
+  }
+
+  @Override
+  public void registerStateObserver(StateObserver stateObserver) {
+    statePublisher.registerStateObserver(stateObserver);
+  }
+
+  @Override
+  public void removeStateObserver(StateObserver stateObserver) {
+    statePublisher.removeStateObserver(stateObserver);
+  }
 
-    // if there is no pose available yet
-    if (!poseStamped.isPresent()) {
-      return Optional.absent();
+  private synchronized void processPose(PoseStamped poseStamped) {
+    if (poseStamped == lastProcessedPoseStamped) {
+      return;
     }
+    lastProcessedPoseStamped = poseStamped;
 
     // if there is no pose stored yet
     if (lastPoseStamped == null) {
-      lastPoseStamped = poseStamped.get();
-      return Optional.absent();
+      lastPoseStamped = poseStamped;
+      return;
     }
 
-    // if there is at least one pose stored and the pose now is different from the most recent pose
-    if (!lastPoseStamped.getHeader().getStamp().equals(poseStamped.get().getHeader().getStamp())) {
-      // compute the velocity between two most recent pose
-      final double timeDelta =
-          poseStamped.get().getHeader().getStamp().toSeconds()
-              - lastPoseStamped.getHeader().getStamp().toSeconds();
-      final Pose mostRecentPose = Pose.create(poseStamped.get());
-      final Pose secondMostRecentPose = Pose.create(lastPoseStamped);
-      final InertialFrameVelocity inertialFrameVelocity =
-          getVelocity(mostRecentPose, secondMostRecentPose, timeDelta);
-      // put the velocity into the queue
-      velocityQueue.add(inertialFrameVelocity);
-      lastPoseStamped = poseStamped.get();
+    // if the pose is the same as the most recent pose, the state has been published already
+    if (lastPoseStamped.getHeader().getStamp().equals(poseStamped.getHeader().getStamp())) {
+      return;
     }
 
-    if (velocityQueue.remainingCapacity() == 0) {
-      final InertialFrameVelocity currentVelocity = getAverageVelocity(velocityQueue);
-      return Optional.of(
+    // compute the velocity between two most recent pose
+    final double timeDelta =
+        poseStamped.getHeader().getStamp().toSeconds()
+            - lastPoseStamped.getHeader().getStamp().toSeconds();
+    final Pose mostRecentPose = Pose.create(poseStamped);
+    final Pose secondMostRecentPose = Pose.create(lastPoseStamped);
+    // add the velocity to the running averages
+    addVelocity(mostRecentPose, secondMostRecentPose, timeDelta);
+    lastPoseStamped = poseStamped;
+
+    if (linearXAverage.isFull()) {
+      final InertialFrameVelocity currentVelocity =
+          Velocity.builder()
+              .setLinearX(linearXAverage.getAverage())
+              .setLinearY(linearYAverage.getAverage())
+              .setLinearZ(linearZAverage.getAverage())
+              .setAngularZ(angularZAverage.getAverage())
+              .build();
+      statePublisher.publish(
           DroneStateStamped.create(
-              Pose.create(lastPoseStamped),
-              currentVelocity,
-              lastPoseStamped.getHeader().getStamp().toSeconds()));
-    } else {
-      return Optional.absent();
+              mostRecentPose, currentVelocity, poseStamped.getHeader().getStamp().toSeconds()));
     }
   }
 
-  private static InertialFrameVelocity getAverageVelocity(
-      Collection<InertialFrameVelocity> velocities) {
-    double linearX = 0;
-    double linearY = 0;
-    double linearZ = 0;
-    double angularZ = 0;
-
-    for (final InertialFrameVelocity velocity : velocities) {
-      linearX += velocity.linearX();
-      linearY += velocity.linearY();
-      linearZ += velocity.linearZ();
-      angularZ += velocity.angularZ();
-    }
-
-    final int numberOfVelocities = velocities.size();
-
-    return Velocity.builder()
-        .setLinearX(linearX / numberOfVelocities)
-        .setLinearY(linearY / numberOfVelocities)
-        .setLinearZ(linearZ / numberOfVelocities)
-        .setAngularZ(angularZ / numberOfVelocities)
-        .build();
-  }
-
-  private static InertialFrameVelocity getVelocity(
-      Pose mostRecentPose, Pose secondMostRecentPose, double timeDelta) {
-    final double velLinearX = (mostRecentPose.x() - secondMostRecentPose.x()) / timeDelta;
-    final double velLinearY = (mostRecentPose.y() - secondMostRecentPose.y()) / timeDelta;
-    final double velLinearZ = (mostRecentPose.z() - secondMostRecentPose.z()) / timeDelta;
-    final double velAngularZ = (mostRecentPose.yaw() - secondMostRecentPose.yaw()) / timeDelta;
-    return Velocity.builder()
-        .setLinearX(velLinearX)
-        .setLinearY(velLinearY)
-        .setLinearZ(velLinearZ)
-        .setAngularZ(velAngularZ)
-        .build();
+  private void addVelocity(Pose mostRecentPose, Pose secondMostRecentPose, double timeDelta) {
+    linearXAverage.add((mostRecentPose.x() - secondMostRecentPose.x()) / timeDelta);
+    linearYAverage.add((mostRecentPose.y() - secondMostRecentPose.y()) / timeDelta);
+    linearZAverage.add((mostRecentPose.z() - secondMostRecentPose.z()) / timeDelta);
+    // the yaw difference must not jump by 2 pi when the yaw wraps at pi
+    angularZAverage.add(
+        EulerAngle.computeAngleDistance(secondMostRecentPose.yaw(), mostRecentPose.yaw())
+            / timeDelta);
   }
 }
@@ -10,27 +10,49 @@ import geometry_msgs.PoseStamped;
 import nav_msgs.Odometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import services.rossubscribers.MessageObserver;
 import services.rossubscribers.MessagesSubscriberService;
 import utils.math.Transformations;
 
+import javax.annotation.Nullable;
+
 /**
- * A localization that gets the pose from ArMarker and the velocity from odometry.
+ * A localization that gets the pose from ArMarker and the velocity from odometry. The state is
+ * estimated once when a new pose or a new odometry message arrives, and is pushed to the state
+ * observers.
  *
  * @author Hoang Tung Dinh
  */
-public final class BebopStateEstimatorWithPoseStampedAndOdom implements StateEstimator {
+public final class BebopStateEstimatorWithPoseStampedAndOdom implements ObservableStateEstimator {
 
   private static final Logger logger =
       LoggerFactory.getLogger(BebopStateEstimatorWithPoseStampedAndOdom.class);
 
   private final MessagesSubscriberService<PoseStamped> poseSubscriber;
   private final MessagesSubscriberService<Odometry> odometrySubscriber;
+  private final StatePublisher statePublisher = StatePublisher.create();
+  @Nullable private volatile PoseStamped lastProcessedPoseStamped;
+  @Nullable private volatile Odometry lastProcessedOdometry;
 
   private BebopStateEstimatorWithPoseStampedAndOdom(
       MessagesSubscriberService<PoseStamped> poseSubscriber,
       MessagesSubscriberService<Odometry> odometrySubscriber) {
     this.poseSubscriber = poseSubscriber;
     this.odometrySubscriber = odometrySubscriber;
+    poseSubscriber.registerMessageObserver(
+        new MessageObserver<PoseStamped>() {
+          @Override
+          public void onNewMessage(PoseStamped message) {
+            process(message, odometrySubscriber.getMostRecentMessage().orNull());
+          }
+        });
+    odometrySubscriber.registerMessageObserver(
+        new MessageObserver<Odometry>() {
+          @Override
+          public void onNewMessage(Odometry message) {
+            process(poseSubscriber.getMostRecentMessage().orNull(), message);
+          }
+        });
   }
 
   /**
@@ -49,38 +71,51 @@ public final class BebopStateEstimatorWithPoseStampedAndOdom implements StateEst
 
   @Override
   public Optional<DroneStateStamped> getCurrentState() {
-    final Optional<PoseStamped> poseStamped = poseSubscriber.getMostRecentMessage();
-
-    if (!poseStamped.isPresent()) {
-      return Optional.absent();
+    // the messages are normally processed on arrival, this only catches up with messages which have
+    // not been pushed to this estimator
+    final PoseStamped poseStamped = poseSubscriber.getMostRecentMessage().orNull();
+    final Odometry odometry = odometrySubscriber.getMostRecentMessage().orNull();
+    if (poseStamped != lastProcessedPoseStamped || odometry != lastProcessedOdometry) {
+      process(poseStamped, odometry);
     }
+    return statePublisher.getLatestState();
+  }
 
-    final Pose pose = Pose.create(poseStamped.get());
-    final Optional<InertialFrameVelocity> inertialFrameVelocity = getVelocity(pose);
+  @Override
+  public void registerStateObserver(StateObserver stateObserver) {
+    statePublisher.registerStateObserver(stateObserver);
+  }
+
+  @Override
+  public void removeStateObserver(StateObserver stateObserver) {
+    statePublisher.removeStateObserver(stateObserver);
+  }
 
-    if (!inertialFrameVelocity.isPresent()) {
-      return Optional.absent();
+  private synchronized void process(
+      @Nullable PoseStamped poseStamped, @Nullable Odometry odometry) {
+    if (poseStamped == lastProcessedPoseStamped && odometry == lastProcessedOdometry) {
+      return;
     }
+    lastProcessedPoseStamped = poseStamped;
+    lastProcessedOdometry = odometry;
 
-    final DroneStateStamped droneState =
-        DroneStateStamped.create(
-            pose,
-            inertialFrameVelocity.get(),
-            poseStamped.get().getHeader().getStamp().toSeconds());
-    return Optional.of(droneState);
-  }
+    if (poseStamped == null) {
+      return;
+    }
 
-  private Optional<InertialFrameVelocity> getVelocity(Pose pose) {
-    final Optional<Odometry> odometryOptional = odometrySubscriber.getMostRecentMessage();
-    if (odometryOptional.isPresent()) {
-      final BodyFrameVelocity bodyFrameVelocity =
-          Velocity.createLocalVelocityFrom(odometryOptional.get().getTwist().getTwist());
-      final InertialFrameVelocity inertialFrameVelocity =
-          Transformations.bodyFrameVelocityToInertialFrameVelocity(bodyFrameVelocity, pose);
-      return Optional.of(inertialFrameVelocity);
-    } else {
+    if (odometry == null) {
       logger.debug("Cannot get Bebop odometry.");
-      return Optional.absent();
+      return;
     }
+
+    final Pose pose = Pose.create(poseStamped);
+    final BodyFrameVelocity bodyFrameVelocity =
+        Velocity.createLocalVelocityFrom(odometry.getTwist().getTwist());
+    final InertialFrameVelocity inertialFrameVelocity =
+        Transformations.bodyFrameVelocityToInertialFrameVelocity(bodyFrameVelocity, pose);
+
+    statePublisher.publish(
+        DroneStateStamped.create(
+            pose, inertialFrameVelocity, poseStamped.getHeader().getStamp().toSeconds()));
   }
 }
@@ -7,19 +7,36 @@ import control.dto.InertialFrameVelocity;
 import control.dto.Pose;
 import control.dto.Velocity;
 import hal_quadrotor.State;
+import services.rossubscribers.MessageObserver;
 import services.rossubscribers.MessagesSubscriberService;
 import time.TimeProvider;
 import utils.math.Transformations;
 
-/** @author Hoang Tung Dinh */
-public final class CratesSimStateEstimator implements StateEstimator {
+import javax.annotation.Nullable;
+
+/**
+ * A state estimator for a drone in the Crates simulator. Each state message is converted once, when
+ * it arrives, and is stamped with its arrival time.
+ *
+ * @author Hoang Tung Dinh
+ */
+public final class CratesSimStateEstimator implements ObservableStateEstimator {
   private final MessagesSubscriberService<State> stateSubscriber;
   private final TimeProvider timeProvider;
+  private final StatePublisher statePublisher = StatePublisher.create();
+  @Nullable private volatile State lastProcessedState;
 
   private CratesSimStateEstimator(
       MessagesSubscriberService<State> stateSubscriber, TimeProvider timeProvider) {
     this.stateSubscriber = stateSubscriber;
     this.timeProvider = timeProvider;
+    stateSubscriber.registerMessageObserver(
+        new MessageObserver<State>() {
+          @Override
+          public void onNewMessage(State message) {
+            processState(message);
+          }
+        });
   }
 
   /**
@@ -36,13 +53,30 @@ public final class CratesSimStateEstimator implements StateEstimator {
 
   @Override
   public Optional<DroneStateStamped> getCurrentState() {
+    // the state is normally processed on arrival, this only catches up with a state which has not
+    // been pushed to this estimator
     final Optional<State> stateOptional = stateSubscriber.getMostRecentMessage();
-
-    if (!stateOptional.isPresent()) {
-      return Optional.absent();
+    if (stateOptional.isPresent() && stateOptional.get() != lastProcessedState) {
+      processState(stateOptional.get());
     }
+    return statePublisher.getLatestState();
+  }
+
+  @Override
+  public void registerStateObserver(StateObserver stateObserver) {
+    statePublisher.registerStateObserver(stateObserver);
+  }
 
-    final State state = stateOptional.get();
+  @Override
+  public void removeStateObserver(StateObserver stateObserver) {
+    statePublisher.removeStateObserver(stateObserver);
+  }
+
+  private synchronized void processState(State state) {
+    if (state == lastProcessedState) {
+      return;
+    }
+    lastProcessedState = state;
 
     final Pose pose =
         Pose.builder()
@@ -64,6 +98,7 @@ public final class CratesSimStateEstimator implements StateEstimator {
         Transformations.bodyFrameVelocityToInertialFrameVelocity(bodyFrameVelocity, pose);
 
     final double timeStampInSeconds = timeProvider.getCurrentTimeSeconds();
-    return Optional.of(DroneStateStamped.create(pose, inertialFrameVelocity, timeStampInSeconds));
+    statePublisher.publish(
+        DroneStateStamped.create(pose, inertialFrameVelocity, timeStampInSeconds));
   }
 }
@@ -1,7 +1,6 @@
 package control.localization;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.EvictingQueue;
 import control.dto.DroneStateStamped;
 import control.dto.InertialFrameVelocity;
 import control.dto.Pose;
@@ -9,11 +8,8 @@ import control.dto.Velocity;
 import org.apache.commons.math3.random.GaussianRandomGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-
-import javax.annotation.Nullable;
-import java.util.Collection;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import utils.math.CircularRunningAverage;
+import utils.math.RunningAverage;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -23,45 +19,65 @@ import static com.google.common.base.Preconditions.checkArgument;
  * state received. This class should be used with a very precise state estimator (e.g., {@link
  * GazeboModelStateEstimator} or {@link CratesSimStateEstimator}) and should be used only for
  * simulation purpose. This decorator assumes that the noise for all pose and velocity dimensions is
- * from the same Gaussian distribution.
+ * from the same Gaussian distribution. The noisy states are averaged with running averages, the yaw
+ * being averaged as an angle. Each averaged state is pushed to the state observers.
  *
- * <p>TODO: test this class
+ * <p>The states are updated by the tick of a {@link FakeStateEstimatorGroup}, which is shared by
+ * the fake state estimators of a simulated swarm.
  *
  * @author Hoang Tung Dinh
  */
-public final class FakeStateEstimatorDecorator implements StateEstimator {
+public final class FakeStateEstimatorDecorator implements ObservableStateEstimator {
+
+  /** The number of noisy values of a state: four pose and four velocity dimensions. */
+  static final int NUMBER_OF_NOISY_DIMENSIONS = 8;
 
   private static final Logger logger = LoggerFactory.getLogger(FakeStateEstimatorDecorator.class);
 
+  private final FakeStateEstimatorGroup group;
   private final StateEstimator actualStateEstimator;
-  private final GaussianRandomGenerator noiseGenerator;
-  private final double noiseMean;
-  private final double noiseDeviation;
-  private final EvictingQueue<DroneStateStamped> stateQueue;
-
-  @Nullable private DroneStateStamped currentState;
-
-  private FakeStateEstimatorDecorator(
-      final StateEstimator actualStateEstimator,
-      double localizationFrequency,
-      GaussianRandomGenerator noiseGenerator,
-      double noiseMean,
-      double noiseDeviation,
+  private final RunningAverage xAverage;
+  private final RunningAverage yAverage;
+  private final RunningAverage zAverage;
+  private final CircularRunningAverage yawAverage;
+  private final RunningAverage linearXAverage;
+  private final RunningAverage linearYAverage;
+  private final RunningAverage linearZAverage;
+  private final RunningAverage angularZAverage;
+  private final StatePublisher statePublisher = StatePublisher.create();
+  private volatile boolean ownsGroup;
+
+  FakeStateEstimatorDecorator(
+      FakeStateEstimatorGroup group,
+      StateEstimator actualStateEstimator,
       int numberOfAveragingPoses) {
+    this.group = group;
     this.actualStateEstimator = actualStateEstimator;
-    this.noiseGenerator = noiseGenerator;
-    this.noiseMean = noiseMean;
-    this.noiseDeviation = noiseDeviation;
 
     checkArgument(numberOfAveragingPoses >= 1, "numberOfAveragingPoses must be at least one.");
-    this.stateQueue = EvictingQueue.create(numberOfAveragingPoses);
-
-    final long localizationRateInNanoSeconds = (long) (1000000000L / localizationFrequency);
-    Executors.newSingleThreadScheduledExecutor()
-        .scheduleAtFixedRate(
-            new StateGetter(), 0, localizationRateInNanoSeconds, TimeUnit.NANOSECONDS);
+    this.xAverage = RunningAverage.create(numberOfAveragingPoses);
+    this.yAverage = RunningAverage.create(numberOfAveragingPoses);
+    this.zAverage = RunningAverage.create(numberOfAveragingPoses);
+    this.yawAverage = CircularRunningAverage.create(numberOfAveragingPoses);
+    this.linearXAverage = RunningAverage.create(numberOfAveragingPoses);
+    this.linearYAverage = RunningAverage.create(numberOfAveragingPoses);
+    this.linearZAverage = RunningAverage.create(numberOfAveragingPoses);
+    this.angularZAverage = RunningAverage.create(numberOfAveragingPoses);
   }
 
+  /**
+   * Creates a fake state estimator with its own {@link FakeStateEstimatorGroup}. The fake state
+   * estimators of a simulated swarm should rather be added to a shared group with {@link
+   * FakeStateEstimatorGroup#addStateEstimator(StateEstimator, int)}.
+   *
+   * @param actualStateEstimator the precise state estimator of the drone
+   * @param localizationFrequency the frequency at which the state is updated, in Hz
+   * @param noiseGenerator the generator of the noise added to the actual states
+   * @param noiseMean the mean of the noise
+   * @param noiseDeviation the standard deviation of the noise
+   * @param numberOfAveragingPoses the number of most recent noisy states which are averaged
+   * @return a fake state estimator
+   */
   public static FakeStateEstimatorDecorator create(
       StateEstimator actualStateEstimator,
       double localizationFrequency,
@@ -69,131 +85,100 @@ public final class FakeStateEstimatorDecorator implements StateEstimator {
       double noiseMean,
       double noiseDeviation,
       int numberOfAveragingPoses) {
-    return new FakeStateEstimatorDecorator(
-        actualStateEstimator,
-        localizationFrequency,
-        noiseGenerator,
-        noiseMean,
-        noiseDeviation,
-        numberOfAveragingPoses);
+    final FakeStateEstimatorGroup group =
+        FakeStateEstimatorGroup.create(
+            localizationFrequency, noiseGenerator, noiseMean, noiseDeviation);
+    final FakeStateEstimatorDecorator stateEstimator =
+        group.addStateEstimator(actualStateEstimator, numberOfAveragingPoses);
+    stateEstimator.ownsGroup = true;
+    return stateEstimator;
   }
 
   @Override
   public Optional<DroneStateStamped> getCurrentState() {
-    if (currentState == null) {
-      return Optional.absent();
-    } else {
-      return Optional.of(currentState);
-    }
+    return statePublisher.getLatestState();
   }
 
-  private final class StateGetter implements Runnable {
-
-    private StateGetter() {}
-
-    @Override
-    public void run() {
-      final Optional<DroneStateStamped> actualCurrentState = actualStateEstimator.getCurrentState();
-      if (actualCurrentState.isPresent()) {
-        final DroneStateStamped state = actualCurrentState.get();
-        logGroundTruthPose(state);
-        final DroneStateStamped newState = addNoiseToState(state);
-        currentState = getAveragedState(newState);
-      } else {
-        currentState = null;
-      }
-    }
-
-    private DroneStateStamped getAveragedState(DroneStateStamped newState) {
-      final double timeStamp = newState.getTimeStampInSeconds();
-      stateQueue.add(newState);
-      final Pose averagedPose = getAveragedPose(stateQueue);
-      final InertialFrameVelocity averagedVelocity = getAveragedVelocity(stateQueue);
-      return DroneStateStamped.create(averagedPose, averagedVelocity, timeStamp);
-    }
-
-    private InertialFrameVelocity getAveragedVelocity(EvictingQueue<DroneStateStamped> stateQueue) {
-      double linearX = 0;
-      double linearY = 0;
-      double linearZ = 0;
-      double angularZ = 0;
-
-      for (final DroneStateStamped state : stateQueue) {
-        final InertialFrameVelocity velocity = state.inertialFrameVelocity();
-        linearX += velocity.linearX();
-        linearY += velocity.linearY();
-        linearZ += velocity.linearZ();
-        angularZ += velocity.angularZ();
-      }
-
-      final int queueSize = stateQueue.size();
-      return Velocity.builder()
-          .setLinearX(linearX / queueSize)
-          .setLinearY(linearY / queueSize)
-          .setLinearZ(linearZ / queueSize)
-          .setAngularZ(angularZ / queueSize)
-          .build();
-    }
+  @Override
+  public void registerStateObserver(StateObserver stateObserver) {
+    statePublisher.registerStateObserver(stateObserver);
+  }
 
-    private Pose getAveragedPose(Collection<DroneStateStamped> stateQueue) {
-      double x = 0;
-      double y = 0;
-      double z = 0;
-      double yaw = 0;
-
-      for (final DroneStateStamped state : stateQueue) {
-        final Pose pose = state.pose();
-        x += pose.x();
-        y += pose.y();
-        z += pose.z();
-        yaw += pose.yaw();
-      }
-
-      final int queueSize = stateQueue.size();
-      return Pose.builder()
-          .setX(x / queueSize)
-          .setY(y / queueSize)
-          .setZ(z / queueSize)
-          .setYaw(yaw / queueSize)
-          .build();
-    }
+  @Override
+  public void removeStateObserver(StateObserver stateObserver) {
+    statePublisher.removeStateObserver(stateObserver);
+  }
 
-    private void logGroundTruthPose(DroneStateStamped state) {
-      logger.trace(
-          "{} {} {} {} {}",
-          state.getTimeStampInSeconds(),
-          state.pose().x(),
-          state.pose().y(),
-          state.pose().z(),
-          state.pose().yaw());
+  /**
+   * Stops updating the state of this estimator. If this estimator has been created with its own
+   * group, the group is shut down as well.
+   */
+  public void shutdown() {
+    group.removeStateEstimator(this);
+    if (ownsGroup) {
+      group.shutdown();
     }
+  }
 
-    private DroneStateStamped addNoiseToState(DroneStateStamped state) {
-      final Pose noisyPose = addNoiseToPose(state.pose());
-      final InertialFrameVelocity noisyVelocity = addNoiseToVelocity(state.inertialFrameVelocity());
-      return DroneStateStamped.create(noisyPose, noisyVelocity, state.getTimeStampInSeconds());
+  /**
+   * Updates the state with a new noisy sample of the actual state. This method is only called by
+   * the tick of the group.
+   *
+   * @param noises the noise buffer of the tick
+   * @param offset the index of the first of the {@link #NUMBER_OF_NOISY_DIMENSIONS} noises of this
+   *     estimator in the buffer
+   */
+  void update(double[] noises, int offset) {
+    final Optional<DroneStateStamped> actualCurrentState = actualStateEstimator.getCurrentState();
+    if (actualCurrentState.isPresent()) {
+      final DroneStateStamped state = actualCurrentState.get();
+      logGroundTruthPose(state);
+      addNoisyState(state, noises, offset);
+      statePublisher.publish(getAveragedState(state.getTimeStampInSeconds()));
+    } else {
+      statePublisher.clear();
     }
+  }
 
-    private InertialFrameVelocity addNoiseToVelocity(InertialFrameVelocity inertialFrameVelocity) {
-      return Velocity.builder()
-          .setLinearX(inertialFrameVelocity.linearX() + generateNoise())
-          .setLinearY(inertialFrameVelocity.linearY() + generateNoise())
-          .setLinearZ(inertialFrameVelocity.linearZ() + generateNoise())
-          .setAngularZ(inertialFrameVelocity.angularZ() + generateNoise())
-          .build();
-    }
+  private void addNoisyState(DroneStateStamped state, double[] noises, int offset) {
+    final Pose pose = state.pose();
+    xAverage.add(pose.x() + noises[offset]);
+    yAverage.add(pose.y() + noises[offset + 1]);
+    zAverage.add(pose.z() + noises[offset + 2]);
+    yawAverage.add(pose.yaw() + noises[offset + 3]);
+
+    final InertialFrameVelocity velocity = state.inertialFrameVelocity();
+    linearXAverage.add(velocity.linearX() + noises[offset + 4]);
+    linearYAverage.add(velocity.linearY() + noises[offset + 5]);
+    linearZAverage.add(velocity.linearZ() + noises[offset + 6]);
+    angularZAverage.add(velocity.angularZ() + noises[offset + 7]);
+  }
 
-    private Pose addNoiseToPose(Pose pose) {
-      return Pose.builder()
-          .setX(pose.x() + generateNoise())
-          .setY(pose.y() + generateNoise())
-          .setZ(pose.z() + generateNoise())
-          .setYaw(pose.yaw() + generateNoise())
-          .build();
-    }
+  private DroneStateStamped getAveragedState(double timeStamp) {
+    final Pose averagedPose =
+        Pose.builder()
+            .setX(xAverage.getAverage())
+            .setY(yAverage.getAverage())
+            .setZ(zAverage.getAverage())
+            .setYaw(yawAverage.getAverage())
+            .build();
+    final InertialFrameVelocity averagedVelocity =
+        Velocity.builder()
+            .setLinearX(linearXAverage.getAverage())
+            .setLinearY(linearYAverage.getAverage())
+            .setLinearZ(linearZAverage.getAverage())
+            .setAngularZ(angularZAverage.getAverage())
+            .build();
+    return DroneStateStamped.create(averagedPose, averagedVelocity, timeStamp);
+  }
 
-    private double generateNoise() {
-      return noiseGenerator.nextNormalizedDouble() * noiseDeviation + noiseMean;
-    }
+  private static void logGroundTruthPose(DroneStateStamped state) {
+    logger.trace(
+        "{} {} {} {} {}",
+        state.getTimeStampInSeconds(),
+        state.pose().x(),
+        state.pose().y(),
+        state.pose().z(),
+        state.pose().yaw());
   }
 }
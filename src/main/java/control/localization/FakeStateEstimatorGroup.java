@@ -0,0 +1,192 @@
+package control.localization;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.math3.random.GaussianRandomGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A group of {@link FakeStateEstimatorDecorator}s which share the same localization frequency and
+ * noise distribution. The whole group is updated by one periodic tick, and the noise of all the
+ * drones of a tick is generated in one batch into a primitive buffer. By default, the ticks of all
+ * the groups run on one shared daemon thread, so that a large simulated swarm does not need one
+ * thread per drone.
+ */
+public final class FakeStateEstimatorGroup {
+
+  private static final Logger logger = LoggerFactory.getLogger(FakeStateEstimatorGroup.class);
+
+  private final GaussianRandomGenerator noiseGenerator;
+  private final double noiseMean;
+  private final double noiseDeviation;
+  private final ScheduledFuture<?> tickFuture;
+  private volatile FakeStateEstimatorDecorator[] members = new FakeStateEstimatorDecorator[0];
+  // only accessed by the tick
+  private double[] noiseBuffer = new double[0];
+
+  private FakeStateEstimatorGroup(
+      double localizationFrequency,
+      GaussianRandomGenerator noiseGenerator,
+      double noiseMean,
+      double noiseDeviation,
+      ScheduledExecutorService executor) {
+    checkArgument(localizationFrequency > 0, "The localization frequency must be positive.");
+    this.noiseGenerator = noiseGenerator;
+    this.noiseMean = noiseMean;
+    this.noiseDeviation = noiseDeviation;
+
+    final long localizationRateInNanoSeconds = (long) (1000000000L / localizationFrequency);
+    tickFuture =
+        executor.scheduleAtFixedRate(
+            new Runnable() {
+              @Override
+              public void run() {
+                tick();
+              }
+            },
+            0,
+            localizationRateInNanoSeconds,
+            TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Creates a group whose ticks run on the thread shared by all the fake state estimators.
+   *
+   * @param localizationFrequency the frequency at which the states are updated, in Hz
+   * @param noiseGenerator the generator of the noise added to the actual states
+   * @param noiseMean the mean of the noise
+   * @param noiseDeviation the standard deviation of the noise
+   * @return an empty group
+   */
+  public static FakeStateEstimatorGroup create(
+      double localizationFrequency,
+      GaussianRandomGenerator noiseGenerator,
+      double noiseMean,
+      double noiseDeviation) {
+    return create(
+        localizationFrequency,
+        noiseGenerator,
+        noiseMean,
+        noiseDeviation,
+        SharedExecutorHolder.INSTANCE);
+  }
+
+  /**
+   * Creates a group whose ticks run on the given executor.
+   *
+   * @param localizationFrequency the frequency at which the states are updated, in Hz
+   * @param noiseGenerator the generator of the noise added to the actual states
+   * @param noiseMean the mean of the noise
+   * @param noiseDeviation the standard deviation of the noise
+   * @param executor the executor running the ticks of the group
+   * @return an empty group
+   */
+  public static FakeStateEstimatorGroup create(
+      double localizationFrequency,
+      GaussianRandomGenerator noiseGenerator,
+      double noiseMean,
+      double noiseDeviation,
+      ScheduledExecutorService executor) {
+    return new FakeStateEstimatorGroup(
+        localizationFrequency, noiseGenerator, noiseMean, noiseDeviation, executor);
+  }
+
+  /**
+   * Adds a drone to the group.
+   *
+   * @param actualStateEstimator the precise state estimator of the drone
+   * @param numberOfAveragingPoses the number of most recent noisy states which are averaged
+   * @return the fake state estimator of the drone
+   */
+  public FakeStateEstimatorDecorator addStateEstimator(
+      StateEstimator actualStateEstimator, int numberOfAveragingPoses) {
+    final FakeStateEstimatorDecorator stateEstimator =
+        new FakeStateEstimatorDecorator(this, actualStateEstimator, numberOfAveragingPoses);
+    synchronized (this) {
+      final FakeStateEstimatorDecorator[] newMembers = Arrays.copyOf(members, members.length + 1);
+      newMembers[members.length] = stateEstimator;
+      members = newMembers;
+    }
+    return stateEstimator;
+  }
+
+  /**
+   * Removes a drone from the group. Its state estimator is not updated anymore.
+   *
+   * @param stateEstimator the fake state estimator of the drone
+   */
+  public synchronized void removeStateEstimator(FakeStateEstimatorDecorator stateEstimator) {
+    final FakeStateEstimatorDecorator[] newMembers =
+        new FakeStateEstimatorDecorator[members.length];
+    int size = 0;
+    for (final FakeStateEstimatorDecorator member : members) {
+      if (member != stateEstimator) {
+        newMembers[size] = member;
+        size++;
+      }
+    }
+    members = Arrays.copyOf(newMembers, size);
+  }
+
+  /** Stops updating the states of the group. */
+  public void shutdown() {
+    tickFuture.cancel(false);
+  }
+
+  /** Returns true if the group has been shut down. */
+  public boolean isShutdown() {
+    return tickFuture.isCancelled();
+  }
+
+  @VisibleForTesting
+  void tick() {
+    final FakeStateEstimatorDecorator[] currentMembers = members;
+    final int numberOfNoises =
+        currentMembers.length * FakeStateEstimatorDecorator.NUMBER_OF_NOISY_DIMENSIONS;
+    if (noiseBuffer.length < numberOfNoises) {
+      noiseBuffer = new double[numberOfNoises];
+    }
+
+    for (int i = 0; i < numberOfNoises; i++) {
+      noiseBuffer[i] = noiseGenerator.nextNormalizedDouble() * noiseDeviation + noiseMean;
+    }
+
+    for (int i = 0; i < currentMembers.length; i++) {
+      // a failing drone must not stop the tick of the other drones
+      try {
+        currentMembers[i].update(
+            noiseBuffer, i * FakeStateEstimatorDecorator.NUMBER_OF_NOISY_DIMENSIONS);
+      } catch (RuntimeException e) {
+        logger.warn("Cannot update a fake state estimator.", e);
+      }
+    }
+  }
+
+  private static final class SharedExecutorHolder {
+    private static final ScheduledExecutorService INSTANCE = createSharedExecutor();
+
+    private SharedExecutorHolder() {}
+
+    private static ScheduledExecutorService createSharedExecutor() {
+      final ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("fake-localization-%d")
+                  .setDaemon(true)
+                  .build());
+      // the ticks of the groups which are shut down must not stay in the work queue
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+}
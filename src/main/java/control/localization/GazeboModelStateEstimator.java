@@ -2,39 +2,30 @@ package control.localization;
 
 import com.google.common.base.Optional;
 import control.dto.DroneStateStamped;
-import control.dto.InertialFrameVelocity;
-import control.dto.Pose;
-import control.dto.Velocity;
 import gazebo_msgs.ModelStates;
-import geometry_msgs.Point;
-import geometry_msgs.Quaternion;
-import geometry_msgs.Twist;
 import services.rossubscribers.MessagesSubscriberService;
 import time.TimeProvider;
-import utils.math.Transformations;
 
 /**
- * A state estimator that gets drone state directly from gazebo's ground truth.
+ * A state estimator that gets drone state directly from gazebo's ground truth. The states are
+ * converted and pushed to this estimator by a {@link GazeboModelStatesDemultiplexer}, which can be
+ * shared by the estimators of all the drones in the simulation.
  *
  * @author Hoang Tung Dinh
  */
-public final class GazeboModelStateEstimator implements StateEstimator {
-  private final MessagesSubscriberService<ModelStates> modelStateSubscriber;
-  private final String modelName;
-  private final TimeProvider timeProvider;
+public final class GazeboModelStateEstimator implements ObservableStateEstimator {
+  private final GazeboModelStatesDemultiplexer demultiplexer;
+  private final StatePublisher statePublisher = StatePublisher.create();
 
-  private GazeboModelStateEstimator(
-      MessagesSubscriberService<ModelStates> modelStateSubscriber,
-      String modelName,
-      TimeProvider timeProvider) {
-    this.modelStateSubscriber = modelStateSubscriber;
-    this.modelName = modelName;
-    this.timeProvider = timeProvider;
+  GazeboModelStateEstimator(GazeboModelStatesDemultiplexer demultiplexer) {
+    this.demultiplexer = demultiplexer;
   }
 
   /**
    * Creates a state estimator that use the ModelStates topics in Gazebo to get the current state of
-   * the drone.
+   * the drone. The estimator has its own {@link GazeboModelStatesDemultiplexer}. If several drones
+   * share the same subscriber, their estimators should be created by {@link
+   * GazeboModelStatesDemultiplexer#getStateEstimator(String)} instead.
    *
    * @param modelStateSubscriber the rostopic subscriber to a topic publishing model state messages
    * @param modelName the name of the drone model. A model state topic in Gazebo contains the states
@@ -46,55 +37,29 @@ public final class GazeboModelStateEstimator implements StateEstimator {
       MessagesSubscriberService<ModelStates> modelStateSubscriber,
       String modelName,
       TimeProvider timeProvider) {
-    return new GazeboModelStateEstimator(modelStateSubscriber, modelName, timeProvider);
+    return GazeboModelStatesDemultiplexer.create(modelStateSubscriber, timeProvider)
+        .getStateEstimator(modelName);
   }
 
-  private static InertialFrameVelocity getInertialFrameVelocity(
-      ModelStates modelStates, int index) {
-    final Twist gazeboTwist = modelStates.getTwist().get(index);
-    return Velocity.builder()
-        .setLinearX(gazeboTwist.getLinear().getX())
-        .setLinearY(gazeboTwist.getLinear().getY())
-        .setLinearZ(gazeboTwist.getLinear().getZ())
-        .setAngularZ(gazeboTwist.getAngular().getZ())
-        .build();
-  }
-
-  private static Pose getDronePose(ModelStates modelStates, int index) {
-    final geometry_msgs.Pose gazeboPose = modelStates.getPose().get(index);
-    return convertGazeboPoseToDronePose(gazeboPose);
+  @Override
+  public Optional<DroneStateStamped> getCurrentState() {
+    // the model states are normally processed on arrival, this only catches up with a message
+    // which has not been pushed to the demultiplexer
+    demultiplexer.catchUp();
+    return statePublisher.getLatestState();
   }
 
-  private static Pose convertGazeboPoseToDronePose(geometry_msgs.Pose gazeboPose) {
-    final Point currentPoint = gazeboPose.getPosition();
-    final Quaternion currentOrientation = gazeboPose.getOrientation();
-    final double currentYaw = Transformations.quaternionToEulerAngle(currentOrientation).angleZ();
-    return Pose.builder()
-        .setX(currentPoint.getX())
-        .setY(currentPoint.getY())
-        .setZ(currentPoint.getZ())
-        .setYaw(currentYaw)
-        .build();
+  @Override
+  public void registerStateObserver(StateObserver stateObserver) {
+    statePublisher.registerStateObserver(stateObserver);
   }
 
   @Override
-  public Optional<DroneStateStamped> getCurrentState() {
-    final Optional<ModelStates> modelStateOptional = modelStateSubscriber.getMostRecentMessage();
-    if (!modelStateOptional.isPresent()) {
-      return Optional.absent();
-    }
-
-    final ModelStates modelStates = modelStateOptional.get();
-    final int index = modelStates.getName().indexOf(modelName);
-    if (index == -1) {
-      return Optional.absent();
-    }
-
-    final Pose pose = getDronePose(modelStates, index);
-    final InertialFrameVelocity inertialFrameVelocity =
-        getInertialFrameVelocity(modelStates, index);
+  public void removeStateObserver(StateObserver stateObserver) {
+    statePublisher.removeStateObserver(stateObserver);
+  }
 
-    final double timeStampInSeconds = timeProvider.getCurrentTimeSeconds();
-    return Optional.of(DroneStateStamped.create(pose, inertialFrameVelocity, timeStampInSeconds));
+  void publish(DroneStateStamped state) {
+    statePublisher.publish(state);
   }
 }
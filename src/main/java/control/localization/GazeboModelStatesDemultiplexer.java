@@ -0,0 +1,191 @@
+package control.localization;
+
+import control.dto.DroneStateStamped;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import gazebo_msgs.ModelStates;
+import geometry_msgs.Point;
+import geometry_msgs.Quaternion;
+import geometry_msgs.Twist;
+import services.rossubscribers.MessageObserver;
+import services.rossubscribers.MessagesSubscriberService;
+import time.TimeProvider;
+import utils.math.Transformations;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the model states published by Gazebo into the states of the individual drones. A model
+ * states message contains the states of all models in the simulation environment, so that all the
+ * drones can share one subscription. Each message is processed once, when it arrives: the state of
+ * each drone having a {@link GazeboModelStateEstimator} is converted and pushed to that estimator.
+ *
+ * <p>The index of each drone in the list of model names is cached. The cached indices are
+ * revalidated by comparing one name per drone, and are only recomputed when the list of model names
+ * has changed (e.g., a model has been spawned or deleted) or while a drone is missing from it. The
+ * states are stamped with the arrival time of the message.
+ *
+ * <p>One demultiplexer should be created per subscriber, i.e., per node, and shared by all the
+ * drones of that node.
+ */
+public final class GazeboModelStatesDemultiplexer {
+
+  private static final int NOT_FOUND = -1;
+
+  private final MessagesSubscriberService<ModelStates> modelStateSubscriber;
+  private final TimeProvider timeProvider;
+  private final List<ModelEntry> modelEntries = new ArrayList<>();
+  private final Map<String, GazeboModelStateEstimator> stateEstimators = new HashMap<>();
+  private int cachedNumberOfModels = NOT_FOUND;
+  @Nullable private volatile ModelStates lastProcessedModelStates;
+
+  private GazeboModelStatesDemultiplexer(
+      MessagesSubscriberService<ModelStates> modelStateSubscriber, TimeProvider timeProvider) {
+    this.modelStateSubscriber = modelStateSubscriber;
+    this.timeProvider = timeProvider;
+    modelStateSubscriber.registerMessageObserver(
+        new MessageObserver<ModelStates>() {
+          @Override
+          public void onNewMessage(ModelStates message) {
+            processModelStates(message);
+          }
+        });
+  }
+
+  /**
+   * Creates a demultiplexer of the model states published by Gazebo.
+   *
+   * @param modelStateSubscriber the rostopic subscriber to a topic publishing model state messages
+   * @param timeProvider the time provider
+   * @return a demultiplexer instance
+   */
+  public static GazeboModelStatesDemultiplexer create(
+      MessagesSubscriberService<ModelStates> modelStateSubscriber, TimeProvider timeProvider) {
+    return new GazeboModelStatesDemultiplexer(modelStateSubscriber, timeProvider);
+  }
+
+  /**
+   * Gets the state estimator of a drone. The same estimator is returned for the same model name.
+   *
+   * @param modelName the name of the drone model in Gazebo
+   * @return the state estimator of the drone
+   */
+  public synchronized GazeboModelStateEstimator getStateEstimator(String modelName) {
+    final GazeboModelStateEstimator existingStateEstimator = stateEstimators.get(modelName);
+    if (existingStateEstimator != null) {
+      return existingStateEstimator;
+    }
+
+    final GazeboModelStateEstimator stateEstimator = new GazeboModelStateEstimator(this);
+    stateEstimators.put(modelName, stateEstimator);
+    // the index of the new model is looked up with the next message
+    modelEntries.add(new ModelEntry(modelName, stateEstimator));
+    cachedNumberOfModels = NOT_FOUND;
+    return stateEstimator;
+  }
+
+  /**
+   * Processes the most recent message of the subscriber if it has not been pushed to this
+   * demultiplexer yet.
+   */
+  void catchUp() {
+    final ModelStates modelStates = modelStateSubscriber.getMostRecentMessage().orNull();
+    if (modelStates != null && modelStates != lastProcessedModelStates) {
+      processModelStates(modelStates);
+    }
+  }
+
+  private synchronized void processModelStates(ModelStates modelStates) {
+    if (modelStates == lastProcessedModelStates) {
+      return;
+    }
+    lastProcessedModelStates = modelStates;
+
+    final List<String> modelNames = modelStates.getName();
+    if (!areIndicesValid(modelNames)) {
+      recomputeIndices(modelNames);
+    }
+
+    final double timeStampInSeconds = timeProvider.getCurrentTimeSeconds();
+    for (final ModelEntry modelEntry : modelEntries) {
+      if (modelEntry.index != NOT_FOUND) {
+        modelEntry.stateEstimator.publish(
+            DroneStateStamped.create(
+                getDronePose(modelStates, modelEntry.index),
+                getInertialFrameVelocity(modelStates, modelEntry.index),
+                timeStampInSeconds));
+      }
+    }
+  }
+
+  private boolean areIndicesValid(List<String> modelNames) {
+    if (modelNames.size() != cachedNumberOfModels) {
+      return false;
+    }
+    for (final ModelEntry modelEntry : modelEntries) {
+      // a model which has not been found may have been spawned since, e.g., in place of a deleted
+      // model, without changing the number of models
+      if (modelEntry.index == NOT_FOUND
+          || !modelEntry.modelName.equals(modelNames.get(modelEntry.index))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void recomputeIndices(List<String> modelNames) {
+    final Map<String, Integer> indices = new HashMap<>();
+    for (int i = 0; i < modelNames.size(); i++) {
+      indices.put(modelNames.get(i), i);
+    }
+    for (final ModelEntry modelEntry : modelEntries) {
+      final Integer index = indices.get(modelEntry.modelName);
+      modelEntry.index = index == null ? NOT_FOUND : index;
+    }
+    cachedNumberOfModels = modelNames.size();
+  }
+
+  private static InertialFrameVelocity getInertialFrameVelocity(
+      ModelStates modelStates, int index) {
+    final Twist gazeboTwist = modelStates.getTwist().get(index);
+    return Velocity.builder()
+        .setLinearX(gazeboTwist.getLinear().getX())
+        .setLinearY(gazeboTwist.getLinear().getY())
+        .setLinearZ(gazeboTwist.getLinear().getZ())
+        .setAngularZ(gazeboTwist.getAngular().getZ())
+        .build();
+  }
+
+  private static Pose getDronePose(ModelStates modelStates, int index) {
+    final geometry_msgs.Pose gazeboPose = modelStates.getPose().get(index);
+    return convertGazeboPoseToDronePose(gazeboPose);
+  }
+
+  private static Pose convertGazeboPoseToDronePose(geometry_msgs.Pose gazeboPose) {
+    final Point currentPoint = gazeboPose.getPosition();
+    final Quaternion currentOrientation = gazeboPose.getOrientation();
+    final double currentYaw = Transformations.quaternionToEulerAngle(currentOrientation).angleZ();
+    return Pose.builder()
+        .setX(currentPoint.getX())
+        .setY(currentPoint.getY())
+        .setZ(currentPoint.getZ())
+        .setYaw(currentYaw)
+        .build();
+  }
+
+  private static final class ModelEntry {
+    private final String modelName;
+    private final GazeboModelStateEstimator stateEstimator;
+    private int index = NOT_FOUND;
+
+    private ModelEntry(String modelName, GazeboModelStateEstimator stateEstimator) {
+      this.modelName = modelName;
+      this.stateEstimator = stateEstimator;
+    }
+  }
+}
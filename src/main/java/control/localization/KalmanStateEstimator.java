@@ -0,0 +1,459 @@
+package control.localization;
+
+import com.google.common.base.Optional;
+import control.dto.DroneStateStamped;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import geometry_msgs.Point;
+import geometry_msgs.PoseStamped;
+import geometry_msgs.Twist;
+import nav_msgs.Odometry;
+import services.rossubscribers.MessageObserver;
+import services.rossubscribers.MessagesSubscriberService;
+import time.TimeProvider;
+import utils.math.ConstantAccelerationKalmanFilter;
+import utils.math.EulerAngle;
+import utils.math.MathMode;
+import utils.math.RunningAverage;
+import utils.math.Transformations;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A state estimator which fuses the poses from ArMarker and, optionally, the velocities from
+ * odometry with one constant acceleration Kalman filter per axis (x, y, z and yaw). Each message is
+ * processed once, when it arrives, and the filtered state is pushed to the state observers.
+ *
+ * <p>The transport delay of the messages, i.e., the time between the time stamp of a message and
+ * its arrival, is measured and averaged. The state returned by {@link #getCurrentState()} is
+ * predicted forward to the time of the call, which compensates for the transport delay and for the
+ * time since the last message arrived. The time stamp of the returned state remains the time stamp
+ * of the last measurement, so that the control loops can still detect that no new measurement has
+ * arrived. The prediction horizon is bounded to avoid extrapolating the state for too long.
+ */
+public final class KalmanStateEstimator implements ObservableStateEstimator {
+
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int Z = 2;
+  private static final int YAW = 3;
+  private static final int NUMBER_OF_AXES = 4;
+  private static final int MIN_NUMBER_OF_POSE_UPDATES = 2;
+
+  private final MessagesSubscriberService<PoseStamped> poseSubscriber;
+  @Nullable private final MessagesSubscriberService<Odometry> odometrySubscriber;
+  private final TimeProvider timeProvider;
+  private final double positionMeasurementVariance;
+  private final double yawMeasurementVariance;
+  private final double velocityMeasurementVariance;
+  private final double yawRateMeasurementVariance;
+  private final double initialVelocityVariance;
+  private final double initialAccelerationVariance;
+  private final double maxPredictionHorizonInSeconds;
+
+  private final ConstantAccelerationKalmanFilter[] filters =
+      new ConstantAccelerationKalmanFilter[NUMBER_OF_AXES];
+  private final RunningAverage transportDelayAverage;
+  private final StatePublisher statePublisher = StatePublisher.create();
+
+  private boolean initialized;
+  private int numberOfPoseUpdates;
+  private boolean velocityMeasured;
+  private double filterTimeInSeconds;
+  private double lastArrivalTimeInSeconds;
+  @Nullable private volatile PoseStamped lastProcessedPoseStamped;
+  @Nullable private volatile Odometry lastProcessedOdometry;
+
+  private KalmanStateEstimator(Builder builder) {
+    this.poseSubscriber = builder.poseSubscriber;
+    this.odometrySubscriber = builder.odometrySubscriber;
+    this.timeProvider = builder.timeProvider;
+    this.positionMeasurementVariance = builder.positionMeasurementVariance;
+    this.yawMeasurementVariance = builder.yawMeasurementVariance;
+    this.velocityMeasurementVariance = builder.velocityMeasurementVariance;
+    this.yawRateMeasurementVariance = builder.yawRateMeasurementVariance;
+    this.initialVelocityVariance = builder.initialVelocityVariance;
+    this.initialAccelerationVariance = builder.initialAccelerationVariance;
+    this.maxPredictionHorizonInSeconds = builder.maxPredictionHorizonInSeconds;
+
+    for (int i = 0; i < NUMBER_OF_AXES; i++) {
+      final double jerkSpectralDensity =
+          i == YAW ? builder.angularJerkSpectralDensity : builder.linearJerkSpectralDensity;
+      filters[i] = ConstantAccelerationKalmanFilter.create(jerkSpectralDensity);
+    }
+    transportDelayAverage = RunningAverage.create(builder.numberOfAveragedTransportDelays);
+
+    poseSubscriber.registerMessageObserver(
+        new MessageObserver<PoseStamped>() {
+          @Override
+          public void onNewMessage(PoseStamped message) {
+            processPose(message);
+          }
+        });
+    if (odometrySubscriber != null) {
+      odometrySubscriber.registerMessageObserver(
+          new MessageObserver<Odometry>() {
+            @Override
+            public void onNewMessage(Odometry message) {
+              processOdometry(message);
+            }
+          });
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public Optional<DroneStateStamped> getCurrentState() {
+    // the messages are normally processed on arrival, this only catches up with messages which have
+    // not been pushed to this estimator
+    final Optional<PoseStamped> poseStamped = poseSubscriber.getMostRecentMessage();
+    if (poseStamped.isPresent() && poseStamped.get() != lastProcessedPoseStamped) {
+      processPose(poseStamped.get());
+    }
+    if (odometrySubscriber != null) {
+      final Optional<Odometry> odometry = odometrySubscriber.getMostRecentMessage();
+      if (odometry.isPresent() && odometry.get() != lastProcessedOdometry) {
+        processOdometry(odometry.get());
+      }
+    }
+
+    synchronized (this) {
+      if (!hasConverged()) {
+        return Optional.absent();
+      }
+      final double timeSinceArrival =
+          timeProvider.getCurrentTimeSeconds() - lastArrivalTimeInSeconds;
+      return Optional.of(
+          computeState(Math.max(0, timeSinceArrival) + transportDelayAverage.getAverage()));
+    }
+  }
+
+  @Override
+  public void registerStateObserver(StateObserver stateObserver) {
+    statePublisher.registerStateObserver(stateObserver);
+  }
+
+  @Override
+  public void removeStateObserver(StateObserver stateObserver) {
+    statePublisher.removeStateObserver(stateObserver);
+  }
+
+  /** Returns the average time between the time stamp of a message and its arrival. */
+  public synchronized double getAverageTransportDelayInSeconds() {
+    return transportDelayAverage.getAverage();
+  }
+
+  private synchronized void processPose(PoseStamped poseStamped) {
+    if (poseStamped == lastProcessedPoseStamped) {
+      return;
+    }
+    lastProcessedPoseStamped = poseStamped;
+
+    final double timeStampInSeconds = poseStamped.getHeader().getStamp().toSeconds();
+    final Point position = poseStamped.getPose().getPosition();
+    final double yaw =
+        Transformations.quaternionToEulerAngle(poseStamped.getPose().getOrientation()).angleZ();
+
+    if (!initialized) {
+      resetFilter(X, position.getX(), positionMeasurementVariance);
+      resetFilter(Y, position.getY(), positionMeasurementVariance);
+      resetFilter(Z, position.getZ(), positionMeasurementVariance);
+      resetFilter(YAW, yaw, yawMeasurementVariance);
+      initialized = true;
+      filterTimeInSeconds = timeStampInSeconds;
+    } else {
+      predictTo(timeStampInSeconds);
+      filters[X].updatePosition(position.getX(), positionMeasurementVariance);
+      filters[Y].updatePosition(position.getY(), positionMeasurementVariance);
+      filters[Z].updatePosition(position.getZ(), positionMeasurementVariance);
+      // the yaw innovation must not jump by 2 pi when the yaw wraps at pi
+      final double estimatedYaw = filters[YAW].getPosition();
+      filters[YAW].updatePosition(
+          estimatedYaw + EulerAngle.computeAngleDistance(estimatedYaw, yaw),
+          yawMeasurementVariance);
+      filters[YAW].setPosition(EulerAngle.computeAngleDistance(0, filters[YAW].getPosition()));
+    }
+
+    numberOfPoseUpdates++;
+    recordArrival(timeStampInSeconds);
+    publishState();
+  }
+
+  private synchronized void processOdometry(Odometry odometry) {
+    if (odometry == lastProcessedOdometry) {
+      return;
+    }
+    lastProcessedOdometry = odometry;
+
+    // the body frame velocity cannot be rotated before the yaw is known
+    if (!initialized) {
+      return;
+    }
+
+    final double timeStampInSeconds = odometry.getHeader().getStamp().toSeconds();
+    predictTo(timeStampInSeconds);
+
+    final Twist twist = odometry.getTwist().getTwist();
+    final double yaw = filters[YAW].getPosition();
+    final double sin = MathMode.getDefault().sin(yaw);
+    final double cos = MathMode.getDefault().cos(yaw);
+    final double bodyLinearX = twist.getLinear().getX();
+    final double bodyLinearY = twist.getLinear().getY();
+
+    filters[X].updateVelocity(bodyLinearX * cos - bodyLinearY * sin, velocityMeasurementVariance);
+    filters[Y].updateVelocity(bodyLinearX * sin + bodyLinearY * cos, velocityMeasurementVariance);
+    filters[Z].updateVelocity(twist.getLinear().getZ(), velocityMeasurementVariance);
+    filters[YAW].updateVelocity(twist.getAngular().getZ(), yawRateMeasurementVariance);
+
+    velocityMeasured = true;
+    recordArrival(timeStampInSeconds);
+    publishState();
+  }
+
+  private void resetFilter(int axis, double position, double positionVariance) {
+    filters[axis].reset(
+        position, positionVariance, initialVelocityVariance, initialAccelerationVariance);
+  }
+
+  private void predictTo(double timeStampInSeconds) {
+    // late measurements are applied at the current time of the filter
+    if (timeStampInSeconds > filterTimeInSeconds) {
+      final double timeDelta = timeStampInSeconds - filterTimeInSeconds;
+      for (int i = 0; i < NUMBER_OF_AXES; i++) {
+        filters[i].predict(timeDelta);
+      }
+      filterTimeInSeconds = timeStampInSeconds;
+    }
+  }
+
+  private void recordArrival(double timeStampInSeconds) {
+    lastArrivalTimeInSeconds = timeProvider.getCurrentTimeSeconds();
+    transportDelayAverage.add(Math.max(0, lastArrivalTimeInSeconds - timeStampInSeconds));
+  }
+
+  private void publishState() {
+    if (hasConverged()) {
+      statePublisher.publish(computeState(transportDelayAverage.getAverage()));
+    }
+  }
+
+  private boolean hasConverged() {
+    return initialized && (numberOfPoseUpdates >= MIN_NUMBER_OF_POSE_UPDATES || velocityMeasured);
+  }
+
+  private DroneStateStamped computeState(double predictionHorizonInSeconds) {
+    final double horizon = Math.min(predictionHorizonInSeconds, maxPredictionHorizonInSeconds);
+    final Pose pose =
+        Pose.builder()
+            .setX(filters[X].extrapolatePosition(horizon))
+            .setY(filters[Y].extrapolatePosition(horizon))
+            .setZ(filters[Z].extrapolatePosition(horizon))
+            .setYaw(EulerAngle.computeAngleDistance(0, filters[YAW].extrapolatePosition(horizon)))
+            .build();
+    final InertialFrameVelocity velocity =
+        Velocity.builder()
+            .setLinearX(filters[X].extrapolateVelocity(horizon))
+            .setLinearY(filters[Y].extrapolateVelocity(horizon))
+            .setLinearZ(filters[Z].extrapolateVelocity(horizon))
+            .setAngularZ(filters[YAW].extrapolateVelocity(horizon))
+            .build();
+    return DroneStateStamped.create(pose, velocity, filterTimeInSeconds);
+  }
+
+  /** {@code KalmanStateEstimator} builder static inner class. */
+  public static final class Builder {
+    private MessagesSubscriberService<PoseStamped> poseSubscriber;
+    @Nullable private MessagesSubscriberService<Odometry> odometrySubscriber;
+    private TimeProvider timeProvider;
+    private double positionMeasurementVariance = 0.0004;
+    private double yawMeasurementVariance = 0.0025;
+    private double velocityMeasurementVariance = 0.01;
+    private double yawRateMeasurementVariance = 0.01;
+    private double linearJerkSpectralDensity = 1;
+    private double angularJerkSpectralDensity = 1;
+    private double initialVelocityVariance = 1;
+    private double initialAccelerationVariance = 1;
+    private double maxPredictionHorizonInSeconds = 0.2;
+    private int numberOfAveragedTransportDelays = 20;
+
+    private Builder() {}
+
+    /**
+     * Sets the {@code poseSubscriber} and returns a reference to this Builder so that the methods
+     * can be chained together.
+     *
+     * @param val the {@code poseSubscriber} to set
+     * @return a reference to this Builder
+     */
+    public Builder withPoseSubscriber(MessagesSubscriberService<PoseStamped> val) {
+      poseSubscriber = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code odometrySubscriber} and returns a reference to this Builder so that the
+     * methods can be chained together. This parameter is optional, only the poses are used by
+     * default.
+     *
+     * @param val the {@code odometrySubscriber} to set
+     * @return a reference to this Builder
+     */
+    public Builder withOdometrySubscriber(MessagesSubscriberService<Odometry> val) {
+      odometrySubscriber = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code timeProvider} and returns a reference to this Builder so that the methods can
+     * be chained together.
+     *
+     * @param val the {@code timeProvider} to set
+     * @return a reference to this Builder
+     */
+    public Builder withTimeProvider(TimeProvider val) {
+      timeProvider = val;
+      return this;
+    }
+
+    /**
+     * Sets the variance of the measured x, y and z positions and returns a reference to this
+     * Builder so that the methods can be chained together.
+     *
+     * @param val the {@code positionMeasurementVariance} to set, in square meters
+     * @return a reference to this Builder
+     */
+    public Builder withPositionMeasurementVariance(double val) {
+      positionMeasurementVariance = val;
+      return this;
+    }
+
+    /**
+     * Sets the variance of the measured yaw and returns a reference to this Builder so that the
+     * methods can be chained together.
+     *
+     * @param val the {@code yawMeasurementVariance} to set, in square radians
+     * @return a reference to this Builder
+     */
+    public Builder withYawMeasurementVariance(double val) {
+      yawMeasurementVariance = val;
+      return this;
+    }
+
+    /**
+     * Sets the variance of the linear velocities measured by odometry and returns a reference to
+     * this Builder so that the methods can be chained together.
+     *
+     * @param val the {@code velocityMeasurementVariance} to set
+     * @return a reference to this Builder
+     */
+    public Builder withVelocityMeasurementVariance(double val) {
+      velocityMeasurementVariance = val;
+      return this;
+    }
+
+    /**
+     * Sets the variance of the yaw rate measured by odometry and returns a reference to this
+     * Builder so that the methods can be chained together.
+     *
+     * @param val the {@code yawRateMeasurementVariance} to set
+     * @return a reference to this Builder
+     */
+    public Builder withYawRateMeasurementVariance(double val) {
+      yawRateMeasurementVariance = val;
+      return this;
+    }
+
+    /**
+     * Sets the process noise of the x, y and z axes and returns a reference to this Builder so that
+     * the methods can be chained together.
+     *
+     * @param val the {@code linearJerkSpectralDensity} to set
+     * @return a reference to this Builder
+     */
+    public Builder withLinearJerkSpectralDensity(double val) {
+      linearJerkSpectralDensity = val;
+      return this;
+    }
+
+    /**
+     * Sets the process noise of the yaw and returns a reference to this Builder so that the methods
+     * can be chained together.
+     *
+     * @param val the {@code angularJerkSpectralDensity} to set
+     * @return a reference to this Builder
+     */
+    public Builder withAngularJerkSpectralDensity(double val) {
+      angularJerkSpectralDensity = val;
+      return this;
+    }
+
+    /**
+     * Sets the variance of the initial velocities and returns a reference to this Builder so that
+     * the methods can be chained together.
+     *
+     * @param val the {@code initialVelocityVariance} to set
+     * @return a reference to this Builder
+     */
+    public Builder withInitialVelocityVariance(double val) {
+      initialVelocityVariance = val;
+      return this;
+    }
+
+    /**
+     * Sets the variance of the initial accelerations and returns a reference to this Builder so
+     * that the methods can be chained together.
+     *
+     * @param val the {@code initialAccelerationVariance} to set
+     * @return a reference to this Builder
+     */
+    public Builder withInitialAccelerationVariance(double val) {
+      initialAccelerationVariance = val;
+      return this;
+    }
+
+    /**
+     * Sets the maximum time the state is predicted forward and returns a reference to this Builder
+     * so that the methods can be chained together.
+     *
+     * @param val the {@code maxPredictionHorizonInSeconds} to set
+     * @return a reference to this Builder
+     */
+    public Builder withMaxPredictionHorizonInSeconds(double val) {
+      maxPredictionHorizonInSeconds = val;
+      return this;
+    }
+
+    /**
+     * Sets the number of most recent transport delays which are averaged and returns a reference
+     * to this Builder so that the methods can be chained together.
+     *
+     * @param val the {@code numberOfAveragedTransportDelays} to set
+     * @return a reference to this Builder
+     */
+    public Builder withNumberOfAveragedTransportDelays(int val) {
+      numberOfAveragedTransportDelays = val;
+      return this;
+    }
+
+    /**
+     * Returns a {@code KalmanStateEstimator} built from the parameters previously set.
+     *
+     * @return a {@code KalmanStateEstimator} built with parameters of this {@code
+     *     KalmanStateEstimator.Builder}
+     */
+    public KalmanStateEstimator build() {
+      checkNotNull(poseSubscriber, "missing poseSubscriber");
+      checkNotNull(timeProvider, "missing timeProvider");
+      checkArgument(
+          maxPredictionHorizonInSeconds >= 0, "The prediction horizon must not be negative.");
+      return new KalmanStateEstimator(this);
+    }
+  }
+}
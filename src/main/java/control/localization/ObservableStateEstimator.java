@@ -0,0 +1,22 @@
+package control.localization;
+
+/**
+ * A {@link StateEstimator} which estimates a new state once when new data arrives and pushes the
+ * state to its observers. Polling {@link #getCurrentState()} returns the most recently estimated
+ * state without estimating it again.
+ */
+public interface ObservableStateEstimator extends StateEstimator {
+  /**
+   * Registers a state observer.
+   *
+   * @param stateObserver the state observer to be registered
+   */
+  void registerStateObserver(StateObserver stateObserver);
+
+  /**
+   * Removes a state observer.
+   *
+   * @param stateObserver the state observer to be removed
+   */
+  void removeStateObserver(StateObserver stateObserver);
+}
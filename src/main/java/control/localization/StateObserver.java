@@ -0,0 +1,17 @@
+package control.localization;
+
+import control.dto.DroneStateStamped;
+
+/**
+ * An observer of the states estimated by an {@link ObservableStateEstimator}.
+ */
+public interface StateObserver {
+  /**
+   * Notifies when there is a new estimated state. This method is called on the thread which
+   * delivers the data the state is estimated from (e.g., the rosjava callback thread), so it must
+   * not block.
+   *
+   * @param state the new estimated state
+   */
+  void onNewState(DroneStateStamped state);
+}
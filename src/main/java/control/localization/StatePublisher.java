@@ -0,0 +1,52 @@
+package control.localization;
+
+import com.google.common.base.Optional;
+import control.dto.DroneStateStamped;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the most recently estimated state of an {@link ObservableStateEstimator} and pushes each
+ * new state to the registered observers. Reading the most recent state never blocks.
+ */
+final class StatePublisher {
+  private final Collection<StateObserver> stateObservers = new CopyOnWriteArrayList<>();
+  @Nullable private volatile DroneStateStamped latestState;
+
+  private StatePublisher() {}
+
+  static StatePublisher create() {
+    return new StatePublisher();
+  }
+
+  void registerStateObserver(StateObserver stateObserver) {
+    stateObservers.add(stateObserver);
+  }
+
+  void removeStateObserver(StateObserver stateObserver) {
+    stateObservers.remove(stateObserver);
+  }
+
+  /**
+   * Stores a new state and notifies the observers.
+   *
+   * @param state the new estimated state
+   */
+  void publish(DroneStateStamped state) {
+    latestState = state;
+    for (final StateObserver stateObserver : stateObservers) {
+      stateObserver.onNewState(state);
+    }
+  }
+
+  /** Forgets the most recent state, e.g., when the localization is lost. */
+  void clear() {
+    latestState = null;
+  }
+
+  Optional<DroneStateStamped> getLatestState() {
+    return Optional.fromNullable(latestState);
+  }
+}
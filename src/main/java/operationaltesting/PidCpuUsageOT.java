@@ -3,8 +3,10 @@ package operationaltesting;
 import applications.trajectory.Trajectories;
 import applications.trajectory.geom.point.Point3D;
 import com.google.common.base.Optional;
-import commands.Command;
+import commands.AbstractFollowTrajectory;
 import commands.bebopcommands.BebopFollowTrajectory;
+import commands.schedulers.ControlLoopScheduler;
+import commands.schedulers.ScheduledControlLoop;
 import control.DefaultPidParameters;
 import control.DroneVelocityController;
 import control.Trajectory4d;
@@ -24,9 +26,9 @@ import services.parrot.BebopServiceFactory;
 import time.RosTime;
 import time.TimeProvider;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -59,7 +61,7 @@ public final class PidCpuUsageOT extends AbstractNodeMain {
             .getParameterTree()
             .getDouble(connectedNode.getName().toString() + "/duration_in_seconds");
 
-    final Collection<Command> followTrajectoryCommandList = new ArrayList<>();
+    final Collection<AbstractFollowTrajectory> followTrajectoryCommandList = new ArrayList<>();
     final TimeProvider timeProvider = RosTime.create(connectedNode);
 
     for (int i = 0; i < numberOfControllers; i++) {
@@ -72,25 +74,35 @@ public final class PidCpuUsageOT extends AbstractNodeMain {
               controlRateInSeconds));
     }
 
-    for (final Command command : followTrajectoryCommandList) {
-      Executors.newSingleThreadExecutor()
-          .submit(
-              new Runnable() {
-                @Override
-                public void run() {
-                  command.execute();
-                }
-              });
+    // the loops are started without blocking, so that no thread waits for each controller
+    final ControlLoopScheduler scheduler = ControlLoopScheduler.getSharedInstance();
+    final Collection<ScheduledControlLoop> loops = new ArrayList<>();
+    for (final AbstractFollowTrajectory command : followTrajectoryCommandList) {
+      loops.add(command.start(scheduler));
     }
 
     try {
-      TimeUnit.SECONDS.sleep((long) (durationInSeconds + 5));
+      TimeUnit.SECONDS.sleep(1);
+      logger.info(
+          "{} controllers are running on {} control loop threads, {} live threads in total.",
+          scheduler.getNumberOfActiveLoops(),
+          scheduler.getNumberOfStartedWorkers(),
+          ManagementFactory.getThreadMXBean().getThreadCount());
+      long missedTicks = 0;
+      for (final ScheduledControlLoop loop : loops) {
+        loop.awaitRetirement();
+        missedTicks += loop.getMissedTicks();
+      }
+      logger.info("The controllers missed {} ticks in total.", missedTicks);
     } catch (InterruptedException e) {
       logger.info("OT is interrupted.", e);
+      for (final ScheduledControlLoop loop : loops) {
+        loop.cancel();
+      }
     }
   }
 
-  private static Command createFollowTrajectoryCommand(
+  private static AbstractFollowTrajectory createFollowTrajectoryCommand(
       TimeProvider timeProvider,
       String controllerName,
       ConnectedNode connectedNode,
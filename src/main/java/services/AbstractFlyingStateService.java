@@ -5,6 +5,8 @@ import org.ros.internal.message.Message;
 import services.rossubscribers.FlyingState;
 import services.rossubscribers.MessageObserver;
 
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -12,9 +14,11 @@ import java.util.concurrent.atomic.AtomicReference;
  * @author Hoang Tung Dinh
  */
 public abstract class AbstractFlyingStateService<T extends Message>
-    implements FlyingStateService, MessageObserver<T> {
+    implements ObservableFlyingStateService, MessageObserver<T> {
 
   private final AtomicReference<FlyingState> currentFlyingState = new AtomicReference<>();
+  private final Collection<FlyingStateObserver> flyingStateObservers =
+      new CopyOnWriteArrayList<>();
 
   protected AbstractFlyingStateService() {}
 
@@ -28,7 +32,20 @@ public abstract class AbstractFlyingStateService<T extends Message>
     }
   }
 
+  @Override
+  public final void registerFlyingStateObserver(FlyingStateObserver flyingStateObserver) {
+    flyingStateObservers.add(flyingStateObserver);
+  }
+
+  @Override
+  public final void removeFlyingStateObserver(FlyingStateObserver flyingStateObserver) {
+    flyingStateObservers.remove(flyingStateObserver);
+  }
+
   protected void setCurrentFlyingState(FlyingState currentFlyingState) {
     this.currentFlyingState.set(currentFlyingState);
+    for (final FlyingStateObserver flyingStateObserver : flyingStateObservers) {
+      flyingStateObserver.onNewFlyingState(currentFlyingState);
+    }
   }
 }
@@ -0,0 +1,16 @@
+package services;
+
+import services.rossubscribers.FlyingState;
+
+/**
+ * An observer of the flying states received by an {@link ObservableFlyingStateService}.
+ */
+public interface FlyingStateObserver {
+  /**
+   * Notifies when a flying state is received. This method is called on the rosjava callback
+   * thread, so it must not block.
+   *
+   * @param flyingState the received flying state
+   */
+  void onNewFlyingState(FlyingState flyingState);
+}
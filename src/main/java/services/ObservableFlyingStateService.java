@@ -0,0 +1,21 @@
+package services;
+
+/**
+ * A {@link FlyingStateService} which pushes each received flying state to its observers, so that
+ * the commands waiting for a flying state are woken up without polling.
+ */
+public interface ObservableFlyingStateService extends FlyingStateService {
+  /**
+   * Registers a flying state observer.
+   *
+   * @param flyingStateObserver the flying state observer to be registered
+   */
+  void registerFlyingStateObserver(FlyingStateObserver flyingStateObserver);
+
+  /**
+   * Removes a flying state observer.
+   *
+   * @param flyingStateObserver the flying state observer to be removed
+   */
+  void removeFlyingStateObserver(FlyingStateObserver flyingStateObserver);
+}
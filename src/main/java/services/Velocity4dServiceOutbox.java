@@ -0,0 +1,209 @@
+package services;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import control.dto.BodyFrameVelocity;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.metrics.LatencyHistogram;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A decorator which sends the velocities of a {@link Velocity4dService} asynchronously. Sending a
+ * velocity only stores it in the outbox of the drone and returns, the velocity is then sent to the
+ * decorated service by a publisher thread. If the decorated service is slower than the control
+ * loop, the velocities which are still waiting in the outbox are replaced by the newest one, so
+ * that a slow transport neither stretches the control period nor delays the newest command.
+ *
+ * <p>The outbox holds at most one velocity and at most one velocity of a drone is being sent at a
+ * time, so that the velocities are sent in order. By default, the outboxes of all the drones share
+ * a pool of daemon threads which grows with the number of drones being sent a velocity at the same
+ * time, so that a slow drone does not delay the velocities of the other drones.
+ */
+public final class Velocity4dServiceOutbox implements Velocity4dService {
+
+  private static final Logger logger = LoggerFactory.getLogger(Velocity4dServiceOutbox.class);
+
+  private final Velocity4dService velocity4dService;
+  private final Executor executor;
+  private final Runnable publishTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          publishPendingVelocities();
+        }
+      };
+  private final AtomicLong numberOfSentVelocities = new AtomicLong();
+  private final AtomicLong numberOfCoalescedVelocities = new AtomicLong();
+  private final AtomicLong numberOfFailedVelocities = new AtomicLong();
+  private final LatencyHistogram publishLatency = LatencyHistogram.create();
+
+  // guarded by this
+  @Nullable private BodyFrameVelocity pendingBodyFrameVelocity;
+  @Nullable private InertialFrameVelocity pendingInertialFrameVelocity;
+  @Nullable private Pose pendingPose;
+  private long pendingSinceInNanoSeconds;
+  private boolean publishing;
+
+  private Velocity4dServiceOutbox(Velocity4dService velocity4dService, Executor executor) {
+    this.velocity4dService = velocity4dService;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates an outbox whose velocities are sent by the publisher threads shared by all the
+   * outboxes.
+   *
+   * @param velocity4dService the decorated velocity service
+   * @return an outbox instance
+   */
+  public static Velocity4dServiceOutbox create(Velocity4dService velocity4dService) {
+    return create(velocity4dService, SharedExecutorHolder.INSTANCE);
+  }
+
+  /**
+   * Creates an outbox whose velocities are sent by the given executor.
+   *
+   * @param velocity4dService the decorated velocity service
+   * @param executor the executor which sends the velocities to the decorated service
+   * @return an outbox instance
+   */
+  public static Velocity4dServiceOutbox create(
+      Velocity4dService velocity4dService, Executor executor) {
+    return new Velocity4dServiceOutbox(velocity4dService, executor);
+  }
+
+  @Override
+  public void sendInertialFrameVelocity(InertialFrameVelocity inertialFrameVelocity, Pose pose) {
+    offer(null, inertialFrameVelocity, pose);
+  }
+
+  @Override
+  public void sendBodyFrameVelocity(BodyFrameVelocity bodyFrameVelocity) {
+    offer(bodyFrameVelocity, null, null);
+  }
+
+  /** Returns the number of velocities which have been sent to the decorated service. */
+  public long getNumberOfSentVelocities() {
+    return numberOfSentVelocities.get();
+  }
+
+  /**
+   * Returns the number of velocities which have been dropped because a newer velocity arrived
+   * before they were sent.
+   */
+  public long getNumberOfCoalescedVelocities() {
+    return numberOfCoalescedVelocities.get();
+  }
+
+  /** Returns the number of velocities whose sending has thrown an exception. */
+  public long getNumberOfFailedVelocities() {
+    return numberOfFailedVelocities.get();
+  }
+
+  /** Returns the number of velocities which are waiting in the outbox, i.e., zero or one. */
+  public synchronized int getQueueDepth() {
+    return hasPendingVelocity() ? 1 : 0;
+  }
+
+  /**
+   * Gets the histogram of the time from the arrival of a velocity in the outbox to the end of its
+   * sending.
+   *
+   * @return the publish latency histogram
+   */
+  public LatencyHistogram getPublishLatency() {
+    return publishLatency;
+  }
+
+  private void offer(
+      @Nullable BodyFrameVelocity bodyFrameVelocity,
+      @Nullable InertialFrameVelocity inertialFrameVelocity,
+      @Nullable Pose pose) {
+    final boolean startPublishing;
+    synchronized (this) {
+      if (hasPendingVelocity()) {
+        numberOfCoalescedVelocities.incrementAndGet();
+        logger.trace("The previous velocity has not been sent yet. Replace it.");
+      } else {
+        pendingSinceInNanoSeconds = System.nanoTime();
+      }
+      pendingBodyFrameVelocity = bodyFrameVelocity;
+      pendingInertialFrameVelocity = inertialFrameVelocity;
+      pendingPose = pose;
+
+      startPublishing = !publishing;
+      publishing = true;
+    }
+
+    if (startPublishing) {
+      executor.execute(publishTask);
+    }
+  }
+
+  @VisibleForTesting
+  void publishPendingVelocities() {
+    while (true) {
+      final BodyFrameVelocity bodyFrameVelocity;
+      final InertialFrameVelocity inertialFrameVelocity;
+      final Pose pose;
+      final long sinceInNanoSeconds;
+      synchronized (this) {
+        if (!hasPendingVelocity()) {
+          publishing = false;
+          return;
+        }
+        bodyFrameVelocity = pendingBodyFrameVelocity;
+        inertialFrameVelocity = pendingInertialFrameVelocity;
+        pose = pendingPose;
+        sinceInNanoSeconds = pendingSinceInNanoSeconds;
+        pendingBodyFrameVelocity = null;
+        pendingInertialFrameVelocity = null;
+        pendingPose = null;
+      }
+
+      publish(bodyFrameVelocity, inertialFrameVelocity, pose);
+      publishLatency.record(System.nanoTime() - sinceInNanoSeconds);
+    }
+  }
+
+  private void publish(
+      @Nullable BodyFrameVelocity bodyFrameVelocity,
+      @Nullable InertialFrameVelocity inertialFrameVelocity,
+      @Nullable Pose pose) {
+    // a failing transport must not stop the sending of the next velocities
+    try {
+      if (bodyFrameVelocity != null) {
+        velocity4dService.sendBodyFrameVelocity(bodyFrameVelocity);
+      } else if (inertialFrameVelocity != null && pose != null) {
+        velocity4dService.sendInertialFrameVelocity(inertialFrameVelocity, pose);
+      }
+      numberOfSentVelocities.incrementAndGet();
+    } catch (RuntimeException e) {
+      numberOfFailedVelocities.incrementAndGet();
+      logger.warn("Cannot send a velocity.", e);
+    }
+  }
+
+  private boolean hasPendingVelocity() {
+    return pendingBodyFrameVelocity != null || pendingInertialFrameVelocity != null;
+  }
+
+  private static final class SharedExecutorHolder {
+    private static final ExecutorService INSTANCE =
+        Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                .setNameFormat("velocity-outbox-%d")
+                .setDaemon(true)
+                .build());
+
+    private SharedExecutorHolder() {}
+  }
+}
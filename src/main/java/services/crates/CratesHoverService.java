@@ -15,9 +15,9 @@ import services.HoverService;
 final class CratesHoverService implements HoverService {
 
   private static final Logger logger = LoggerFactory.getLogger(CratesHoverService.class);
-  private final ServiceClient<HoverRequest, HoverResponse> srvHover;
+  private final CratesServiceCaller<HoverRequest, HoverResponse> srvHover;
 
-  private CratesHoverService(ServiceClient<HoverRequest, HoverResponse> srvHover) {
+  private CratesHoverService(CratesServiceCaller<HoverRequest, HoverResponse> srvHover) {
     this.srvHover = srvHover;
   }
 
@@ -28,13 +28,26 @@ final class CratesHoverService implements HoverService {
    * @return an instance of {@link CratesHoverService}
    */
   public static CratesHoverService create(ServiceClient<HoverRequest, HoverResponse> srvHover) {
-    return new CratesHoverService(srvHover);
+    return create(srvHover, CratesServiceMetrics.create());
+  }
+
+  /**
+   * Creates an instance of {@link CratesHoverService} whose rosservice calls are recorded in the
+   * given metrics.
+   *
+   * @param srvHover the ros service client
+   * @param metrics the metrics of the rosservice calls of the drone
+   * @return an instance of {@link CratesHoverService}
+   */
+  static CratesHoverService create(
+      ServiceClient<HoverRequest, HoverResponse> srvHover, CratesServiceMetrics metrics) {
+    return new CratesHoverService(CratesServiceCaller.create(srvHover, metrics));
   }
 
   @Override
   public void sendHoverMessage() {
-    final HoverRequest hoverRequest = srvHover.newMessage();
+    final HoverRequest hoverRequest = srvHover.newRequest();
     logger.debug("Send hover request");
-    CratesUtilities.sendRequest(srvHover, hoverRequest);
+    srvHover.callAndWait(hoverRequest);
   }
 }
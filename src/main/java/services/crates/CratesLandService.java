@@ -14,9 +14,9 @@ import services.LandService;
  */
 final class CratesLandService implements LandService {
   private static final Logger logger = LoggerFactory.getLogger(CratesLandService.class);
-  private final ServiceClient<LandRequest, LandResponse> srvLand;
+  private final CratesServiceCaller<LandRequest, LandResponse> srvLand;
 
-  private CratesLandService(ServiceClient<LandRequest, LandResponse> srvLand) {
+  private CratesLandService(CratesServiceCaller<LandRequest, LandResponse> srvLand) {
     this.srvLand = srvLand;
   }
 
@@ -27,13 +27,26 @@ final class CratesLandService implements LandService {
    * @return an instance of {@link CratesLandService}
    */
   public static CratesLandService create(ServiceClient<LandRequest, LandResponse> srvLand) {
-    return new CratesLandService(srvLand);
+    return create(srvLand, CratesServiceMetrics.create());
+  }
+
+  /**
+   * Creates an instance of {@link CratesLandService} whose rosservice calls are recorded in the
+   * given metrics.
+   *
+   * @param srvLand the ros service client
+   * @param metrics the metrics of the rosservice calls of the drone
+   * @return an instance of {@link CratesLandService}
+   */
+  static CratesLandService create(
+      ServiceClient<LandRequest, LandResponse> srvLand, CratesServiceMetrics metrics) {
+    return new CratesLandService(CratesServiceCaller.create(srvLand, metrics));
   }
 
   @Override
   public void sendLandingMessage() {
-    final LandRequest landRequest = srvLand.newMessage();
+    final LandRequest landRequest = srvLand.newRequest();
     logger.debug("Send landing messages.");
-    CratesUtilities.sendRequest(srvLand, landRequest);
+    srvLand.callAndWait(landRequest);
   }
 }
@@ -0,0 +1,212 @@
+package services.crates;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.ros.internal.message.Message;
+import org.ros.node.service.ServiceClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An asynchronous caller of a rosservice of the Crates simulator. The responses are resolved on
+ * futures, which fail with the {@link org.ros.exception.RemoteException} of a failed call. All the
+ * calls are recorded in the {@link CratesServiceMetrics} of the drone.
+ *
+ * <p>Commands which are sent at the control rate, e.g., velocities, should be sent with {@link
+ * #callLatest(Message)}, which keeps at most one request in flight. A request which is sent while
+ * another one is in flight waits until the response arrives and is replaced if a newer request is
+ * sent in the meantime, so that a slow rosservice never queues up stale commands.
+ *
+ * @param <T> the type of the request message
+ * @param <U> the type of the response message
+ */
+final class CratesServiceCaller<T extends Message, U extends Message> {
+
+  private static final Logger logger = LoggerFactory.getLogger(CratesServiceCaller.class);
+  private static final long RESPONSE_TIMEOUT_IN_NANO_SECONDS =
+      TimeUnit.MILLISECONDS.toNanos(CratesUtilities.ROS_SERVICE_WAITING_TIME_IN_MILLISECONDS);
+
+  private final ServiceClient<T, U> serviceClient;
+  private final CratesServiceMetrics metrics;
+
+  // guarded by this
+  @Nullable private SettableFuture<U> inFlightResponse;
+  private long inFlightSinceInNanoSeconds;
+  private long generation;
+  @Nullable private T pendingRequest;
+  @Nullable private SettableFuture<U> pendingResponse;
+
+  private CratesServiceCaller(ServiceClient<T, U> serviceClient, CratesServiceMetrics metrics) {
+    this.serviceClient = serviceClient;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Creates an asynchronous caller of a rosservice.
+   *
+   * @param serviceClient the service client connected to the rosservice
+   * @param metrics the metrics of the drone
+   * @param <T> the type of the request message
+   * @param <U> the type of the response message
+   * @return a caller instance
+   */
+  static <T extends Message, U extends Message> CratesServiceCaller<T, U> create(
+      ServiceClient<T, U> serviceClient, CratesServiceMetrics metrics) {
+    return new CratesServiceCaller<>(serviceClient, metrics);
+  }
+
+  /** Returns a new request message. */
+  T newRequest() {
+    return serviceClient.newMessage();
+  }
+
+  /**
+   * Sends a request. This method does not block.
+   *
+   * @param request the request message
+   * @return the future response
+   */
+  ListenableFuture<U> call(T request) {
+    final SettableFuture<U> response = SettableFuture.create();
+    metrics.recordCall();
+    send(request, response);
+    return response;
+  }
+
+  /**
+   * Sends a request if no other request sent by this method is in flight, or makes it the pending
+   * request otherwise. The previous pending request is dropped and its future is cancelled. An
+   * in-flight request which has not been answered within the resend period of {@link
+   * CratesUtilities} is abandoned. This method does not block.
+   *
+   * @param request the request message
+   * @return the future response, which is cancelled if the request is replaced by a newer one
+   */
+  ListenableFuture<U> callLatest(T request) {
+    final SettableFuture<U> response = SettableFuture.create();
+    final long currentGeneration;
+    synchronized (this) {
+      final long currentTimeInNanoSeconds = System.nanoTime();
+      if (inFlightResponse != null
+          && currentTimeInNanoSeconds - inFlightSinceInNanoSeconds
+              < RESPONSE_TIMEOUT_IN_NANO_SECONDS) {
+        if (pendingResponse != null) {
+          metrics.recordReplacedRequest();
+          pendingResponse.cancel(false);
+        }
+        pendingRequest = request;
+        pendingResponse = response;
+        return response;
+      }
+
+      final SettableFuture<U> abandonedResponse = inFlightResponse;
+      if (pendingResponse != null) {
+        metrics.recordReplacedRequest();
+        pendingResponse.cancel(false);
+        pendingRequest = null;
+        pendingResponse = null;
+      }
+      // the completion of the abandoned request is ignored from now on
+      currentGeneration = startInFlight(response, currentTimeInNanoSeconds);
+      if (abandonedResponse != null) {
+        logger.debug("No response to the in-flight request. Abandon it.");
+        metrics.recordFailure();
+        abandonedResponse.cancel(false);
+      }
+    }
+
+    sendInFlight(request, response, currentGeneration);
+    return response;
+  }
+
+  /**
+   * Sends a request and blocks until it is answered, either with a success or a failure. If no
+   * response is received within the resend period of {@link CratesUtilities}, the request is sent
+   * again. The first response to any of the sent copies answers the call, which is recorded once
+   * in the metrics. This method returns without waiting for the response if the current thread is
+   * interrupted.
+   *
+   * @param request the request message
+   */
+  void callAndWait(T request) {
+    final SettableFuture<U> response = SettableFuture.create();
+    metrics.recordCall();
+    while (true) {
+      send(request, response);
+      try {
+        response.get(
+            CratesUtilities.ROS_SERVICE_WAITING_TIME_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+        return;
+      } catch (ExecutionException e) {
+        logger.debug("The rosservice answered with a failure.", e);
+        return;
+      } catch (TimeoutException e) {
+        logger.debug("No response from the rosservice. Send the request again.", e);
+      } catch (InterruptedException e) {
+        logger.info("Waiting for response is interrupted.", e);
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void send(T request, SettableFuture<U> response) {
+    try {
+      serviceClient.call(
+          request, CratesServiceResponseListener.create(response, metrics, System.nanoTime()));
+    } catch (RuntimeException e) {
+      logger.info("Cannot call the rosservice.", e);
+      if (response.setException(e)) {
+        metrics.recordFailure();
+      }
+    }
+  }
+
+  private long startInFlight(SettableFuture<U> response, long currentTimeInNanoSeconds) {
+    inFlightResponse = response;
+    inFlightSinceInNanoSeconds = currentTimeInNanoSeconds;
+    generation++;
+    return generation;
+  }
+
+  private void sendInFlight(T request, SettableFuture<U> response, final long sentGeneration) {
+    response.setFuture(call(request));
+    response.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            onInFlightCompleted(sentGeneration);
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  private void onInFlightCompleted(long completedGeneration) {
+    final T request;
+    final SettableFuture<U> response;
+    final long currentGeneration;
+    synchronized (this) {
+      // the response of an abandoned request does not release the next request
+      if (completedGeneration != generation) {
+        return;
+      }
+      if (pendingRequest == null || pendingResponse == null) {
+        inFlightResponse = null;
+        return;
+      }
+      request = pendingRequest;
+      response = pendingResponse;
+      pendingRequest = null;
+      pendingResponse = null;
+      currentGeneration = startInFlight(response, System.nanoTime());
+    }
+
+    sendInFlight(request, response, currentGeneration);
+  }
+}
@@ -1,5 +1,6 @@
 package services.crates;
 
+import control.localization.CratesSimStateEstimator;
 import hal_quadrotor.Hover;
 import hal_quadrotor.HoverRequest;
 import hal_quadrotor.HoverResponse;
@@ -30,6 +31,8 @@ import services.Velocity3dService;
 import services.rossubscribers.MessagesSubscriberService;
 import time.RosTime;
 
+import javax.annotation.Nullable;
+
 /** @author Hoang Tung Dinh */
 public final class CratesServiceFactory implements CommonServiceFactory {
 
@@ -40,6 +43,9 @@ public final class CratesServiceFactory implements CommonServiceFactory {
   private final String modelName;
   private final ConnectedNode connectedNode;
   private final String namePrefix;
+  private final CratesServiceMetrics serviceMetrics = CratesServiceMetrics.create();
+  // guarded by this
+  @Nullable private MessagesSubscriberService<State> stateSubscriber;
 
   private CratesServiceFactory(String droneName, String modelName, ConnectedNode connectedNode) {
     this.droneName = droneName;
@@ -61,12 +67,22 @@ public final class CratesServiceFactory implements CommonServiceFactory {
     return new CratesServiceFactory(droneName, modelName, connectedNode);
   }
 
+  /**
+   * Gets the metrics of the rosservice calls of the services created by this factory.
+   *
+   * @return the rosservice call metrics of the drone
+   */
+  public CratesServiceMetrics getServiceMetrics() {
+    return serviceMetrics;
+  }
+
   @Override
   public TakeOffService createTakeOffService() {
     try {
       return CratesTakeOffService.create(
           connectedNode.<TakeoffRequest, TakeoffResponse>newServiceClient(
-              namePrefix + "controller/AbstractParrotTakeOff", Takeoff._TYPE));
+              namePrefix + "controller/AbstractParrotTakeOff", Takeoff._TYPE),
+          serviceMetrics);
     } catch (ServiceNotFoundException e) {
       logger.info(
           "Take off service not found. Drone: {}. Model: {}. Exception: {}",
@@ -83,7 +99,8 @@ public final class CratesServiceFactory implements CommonServiceFactory {
     try {
       return CratesLandService.create(
           connectedNode.<LandRequest, LandResponse>newServiceClient(
-              namePrefix + "controller/AbstractParrotLand", Land._TYPE));
+              namePrefix + "controller/AbstractParrotLand", Land._TYPE),
+          serviceMetrics);
     } catch (ServiceNotFoundException e) {
       logger.debug(SERVICE_NOT_FOUND, e);
       throw new IllegalStateException(
@@ -93,12 +110,17 @@ public final class CratesServiceFactory implements CommonServiceFactory {
 
   @Override
   public FlyingStateService createFlyingStateService() {
-    final String topicName = namePrefix + "Truth";
-    final MessagesSubscriberService<State> flyingStateSubscriber =
-        MessagesSubscriberService.create(
-            connectedNode.<State>newSubscriber(topicName, State._TYPE),
-            RosTime.create(connectedNode));
-    return CratesFlyingStateService.create(flyingStateSubscriber);
+    return CratesFlyingStateService.create(getStateSubscriber());
+  }
+
+  /**
+   * Creates a state estimator for the drone. The estimator and the flying state service of the
+   * drone share one subscriber to the state topic of the drone.
+   *
+   * @return a state estimator for the drone
+   */
+  public CratesSimStateEstimator createStateEstimator() {
+    return CratesSimStateEstimator.create(getStateSubscriber(), RosTime.create(connectedNode));
   }
 
   /**
@@ -110,7 +132,8 @@ public final class CratesServiceFactory implements CommonServiceFactory {
     try {
       return CratesVelocity3dService.create(
           connectedNode.<VelocityRequest, VelocityResponse>newServiceClient(
-              namePrefix + "controller/Velocity", Velocity._TYPE));
+              namePrefix + "controller/Velocity", Velocity._TYPE),
+          serviceMetrics);
     } catch (ServiceNotFoundException e) {
       logger.debug(SERVICE_NOT_FOUND, e);
       throw new IllegalStateException(
@@ -127,7 +150,8 @@ public final class CratesServiceFactory implements CommonServiceFactory {
     try {
       return CratesVelocity2dService.create(
           connectedNode.<VelocityHeightRequest, VelocityHeightResponse>newServiceClient(
-              namePrefix + "controller/VelocityHeight", VelocityHeight._TYPE));
+              namePrefix + "controller/VelocityHeight", VelocityHeight._TYPE),
+          serviceMetrics);
     } catch (ServiceNotFoundException e) {
       logger.debug(SERVICE_NOT_FOUND, e);
       throw new IllegalStateException(
@@ -136,6 +160,17 @@ public final class CratesServiceFactory implements CommonServiceFactory {
     }
   }
 
+  private synchronized MessagesSubscriberService<State> getStateSubscriber() {
+    if (stateSubscriber == null) {
+      final String topicName = namePrefix + "Truth";
+      stateSubscriber =
+          MessagesSubscriberService.create(
+              connectedNode.<State>newSubscriber(topicName, State._TYPE),
+              RosTime.create(connectedNode));
+    }
+    return stateSubscriber;
+  }
+
   /**
    * Creates a {@link HoverService} for the drone.
    *
@@ -145,7 +180,8 @@ public final class CratesServiceFactory implements CommonServiceFactory {
     try {
       return CratesHoverService.create(
           connectedNode.<HoverRequest, HoverResponse>newServiceClient(
-              namePrefix + "controller/AbstractHover", Hover._TYPE));
+              namePrefix + "controller/AbstractHover", Hover._TYPE),
+          serviceMetrics);
     } catch (ServiceNotFoundException e) {
       logger.debug(SERVICE_NOT_FOUND, e);
       throw new IllegalStateException(
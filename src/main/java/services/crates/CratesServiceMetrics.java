@@ -0,0 +1,76 @@
+package services.crates;
+
+import utils.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of the rosservice calls of a drone in the Crates simulator: the round-trip time of
+ * the calls which have been answered, the number of failed calls, i.e., the calls answered with a
+ * failure or not answered in time, and the number of velocity requests which have been replaced by
+ * a newer request before being sent.
+ */
+public final class CratesServiceMetrics {
+
+  private final LatencyHistogram roundTripTime = LatencyHistogram.create();
+  private final AtomicLong numberOfCalls = new AtomicLong();
+  private final AtomicLong numberOfFailures = new AtomicLong();
+  private final AtomicLong numberOfReplacedRequests = new AtomicLong();
+
+  private CratesServiceMetrics() {}
+
+  /**
+   * Creates empty metrics.
+   *
+   * @return an empty metrics instance
+   */
+  public static CratesServiceMetrics create() {
+    return new CratesServiceMetrics();
+  }
+
+  /**
+   * Gets the histogram of the time from sending a request to receiving its response.
+   *
+   * @return the round-trip time histogram
+   */
+  public LatencyHistogram getRoundTripTime() {
+    return roundTripTime;
+  }
+
+  /** Returns the number of requests which have been sent. */
+  public long getNumberOfCalls() {
+    return numberOfCalls.get();
+  }
+
+  /** Returns the number of calls which have failed or have not been answered in time. */
+  public long getNumberOfFailures() {
+    return numberOfFailures.get();
+  }
+
+  /** Returns the number of failed calls divided by the number of calls. */
+  public double getFailureRate() {
+    final long calls = numberOfCalls.get();
+    return calls == 0 ? 0 : (double) numberOfFailures.get() / calls;
+  }
+
+  /** Returns the number of pending requests which have been replaced by a newer request. */
+  public long getNumberOfReplacedRequests() {
+    return numberOfReplacedRequests.get();
+  }
+
+  void recordCall() {
+    numberOfCalls.incrementAndGet();
+  }
+
+  void recordResponse(long roundTripTimeInNanoSeconds) {
+    roundTripTime.record(roundTripTimeInNanoSeconds);
+  }
+
+  void recordFailure() {
+    numberOfFailures.incrementAndGet();
+  }
+
+  void recordReplacedRequest() {
+    numberOfReplacedRequests.incrementAndGet();
+  }
+}
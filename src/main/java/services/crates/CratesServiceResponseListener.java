@@ -1,44 +1,57 @@
 package services.crates;
 
+import com.google.common.util.concurrent.SettableFuture;
 import org.ros.exception.RemoteException;
 import org.ros.internal.message.Message;
 import org.ros.node.service.ServiceResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
-
 /** @author Hoang Tung Dinh */
 final class CratesServiceResponseListener<T extends Message> implements ServiceResponseListener<T> {
 
   private static final Logger logger = LoggerFactory.getLogger(CratesServiceResponseListener.class);
-  private final CountDownLatch countDownLatch;
-
-  private CratesServiceResponseListener(CountDownLatch countDownLatch) {
-    this.countDownLatch = countDownLatch;
+  private final SettableFuture<T> response;
+  private final CratesServiceMetrics metrics;
+  private final long sendingTimeInNanoSeconds;
+
+  private CratesServiceResponseListener(
+      SettableFuture<T> response, CratesServiceMetrics metrics, long sendingTimeInNanoSeconds) {
+    this.response = response;
+    this.metrics = metrics;
+    this.sendingTimeInNanoSeconds = sendingTimeInNanoSeconds;
   }
 
   /**
    * Creates a service response listener for the Crates simulator.
    *
-   * @param countDownLatch the countdown latch for thread synchronization
+   * @param response the future which is resolved with the response, or failed with the exception
+   *     of a failed call, and which can be shared by the listeners of several copies of a request
+   * @param metrics the metrics in which the call is recorded if this listener completes the future
+   * @param sendingTimeInNanoSeconds the time at which the request has been sent, according to
+   *     {@link System#nanoTime()}
    * @param <T> the response message type
    * @return a new instance of the service response listener
    */
   public static <T extends Message> CratesServiceResponseListener<T> create(
-      CountDownLatch countDownLatch) {
-    return new CratesServiceResponseListener<>(countDownLatch);
+      SettableFuture<T> response, CratesServiceMetrics metrics, long sendingTimeInNanoSeconds) {
+    return new CratesServiceResponseListener<>(response, metrics, sendingTimeInNanoSeconds);
   }
 
   @Override
   public void onSuccess(T t) {
     logger.trace("Successfully sent message!!!");
-    countDownLatch.countDown();
+    if (response.set(t)) {
+      metrics.recordResponse(System.nanoTime() - sendingTimeInNanoSeconds);
+    }
   }
 
   @Override
   public void onFailure(RemoteException e) {
     logger.info("Cannot send message!!!");
-    countDownLatch.countDown();
+    if (response.setException(e)) {
+      metrics.recordResponse(System.nanoTime() - sendingTimeInNanoSeconds);
+      metrics.recordFailure();
+    }
   }
 }
@@ -12,9 +12,9 @@ import services.TakeOffService;
 final class CratesTakeOffService implements TakeOffService {
   @VisibleForTesting static final double DEFAULT_TAKE_OFF_ALTITUDE = 5;
   private static final Logger logger = LoggerFactory.getLogger(CratesTakeOffService.class);
-  private final ServiceClient<TakeoffRequest, TakeoffResponse> srvTakeOff;
+  private final CratesServiceCaller<TakeoffRequest, TakeoffResponse> srvTakeOff;
 
-  private CratesTakeOffService(ServiceClient<TakeoffRequest, TakeoffResponse> srvTakeOff) {
+  private CratesTakeOffService(CratesServiceCaller<TakeoffRequest, TakeoffResponse> srvTakeOff) {
     this.srvTakeOff = srvTakeOff;
   }
 
@@ -26,14 +26,27 @@ final class CratesTakeOffService implements TakeOffService {
    */
   public static CratesTakeOffService create(
       ServiceClient<TakeoffRequest, TakeoffResponse> srvTakeOff) {
-    return new CratesTakeOffService(srvTakeOff);
+    return create(srvTakeOff, CratesServiceMetrics.create());
+  }
+
+  /**
+   * Creates an instance of {@link CratesTakeOffService} whose rosservice calls are recorded in the
+   * given metrics.
+   *
+   * @param srvTakeOff the ros service client
+   * @param metrics the metrics of the rosservice calls of the drone
+   * @return an instance of {@link CratesTakeOffService}
+   */
+  static CratesTakeOffService create(
+      ServiceClient<TakeoffRequest, TakeoffResponse> srvTakeOff, CratesServiceMetrics metrics) {
+    return new CratesTakeOffService(CratesServiceCaller.create(srvTakeOff, metrics));
   }
 
   @Override
   public void sendTakingOffMessage() {
     logger.debug("Send taking off messages.");
-    final TakeoffRequest takeoffRequest = srvTakeOff.newMessage();
+    final TakeoffRequest takeoffRequest = srvTakeOff.newRequest();
     takeoffRequest.setAltitude(DEFAULT_TAKE_OFF_ALTITUDE);
-    CratesUtilities.sendRequest(srvTakeOff, takeoffRequest);
+    srvTakeOff.callAndWait(takeoffRequest);
   }
 }
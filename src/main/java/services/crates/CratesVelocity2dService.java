@@ -7,15 +7,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import services.Velocity2dService;
 
-/** @author Hoang Tung Dinh */
+/**
+ * A 2d-velocity service for a drone in the Crates simulator. Sending a velocity does not wait for
+ * the response of the rosservice. At most one velocity request is in flight, a velocity which is
+ * sent in the meantime replaces the previous pending one.
+ *
+ * @author Hoang Tung Dinh
+ */
 final class CratesVelocity2dService implements Velocity2dService {
 
   private static final Logger logger = LoggerFactory.getLogger(CratesVelocity2dService.class);
 
-  private final ServiceClient<VelocityHeightRequest, VelocityHeightResponse> srvVelocity;
+  private final CratesServiceCaller<VelocityHeightRequest, VelocityHeightResponse> srvVelocity;
 
   private CratesVelocity2dService(
-      ServiceClient<VelocityHeightRequest, VelocityHeightResponse> srvVelocity) {
+      CratesServiceCaller<VelocityHeightRequest, VelocityHeightResponse> srvVelocity) {
     this.srvVelocity = srvVelocity;
   }
 
@@ -28,7 +34,21 @@ final class CratesVelocity2dService implements Velocity2dService {
    */
   public static CratesVelocity2dService create(
       ServiceClient<VelocityHeightRequest, VelocityHeightResponse> srvVelocity) {
-    return new CratesVelocity2dService(srvVelocity);
+    return create(srvVelocity, CratesServiceMetrics.create());
+  }
+
+  /**
+   * Creates an instance of {@link CratesVelocity2dService} whose rosservice calls are recorded in
+   * the given metrics.
+   *
+   * @param srvVelocity the ros service client
+   * @param metrics the metrics of the rosservice calls of the drone
+   * @return an instance of {@link CratesVelocity2dService}
+   */
+  static CratesVelocity2dService create(
+      ServiceClient<VelocityHeightRequest, VelocityHeightResponse> srvVelocity,
+      CratesServiceMetrics metrics) {
+    return new CratesVelocity2dService(CratesServiceCaller.create(srvVelocity, metrics));
   }
 
   @Override
@@ -37,7 +57,7 @@ final class CratesVelocity2dService implements Velocity2dService {
       double inertialFrameVelocityY,
       double linearPositionZ,
       double angularPositionZ) {
-    final VelocityHeightRequest velocityHeightRequest = srvVelocity.newMessage();
+    final VelocityHeightRequest velocityHeightRequest = srvVelocity.newRequest();
     velocityHeightRequest.setDx(inertialFrameVelocityX);
     velocityHeightRequest.setDy(inertialFrameVelocityY);
     velocityHeightRequest.setZ(linearPositionZ);
@@ -48,6 +68,6 @@ final class CratesVelocity2dService implements Velocity2dService {
         inertialFrameVelocityY,
         linearPositionZ,
         angularPositionZ);
-    CratesUtilities.sendRequest(srvVelocity, velocityHeightRequest);
+    srvVelocity.callLatest(velocityHeightRequest);
   }
 }
@@ -7,12 +7,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import services.Velocity3dService;
 
-/** @author Hoang Tung Dinh */
+/**
+ * A 3d-velocity service for a drone in the Crates simulator. Sending a velocity does not wait for
+ * the response of the rosservice. At most one velocity request is in flight, a velocity which is
+ * sent in the meantime replaces the previous pending one.
+ *
+ * @author Hoang Tung Dinh
+ */
 final class CratesVelocity3dService implements Velocity3dService {
   private static final Logger logger = LoggerFactory.getLogger(CratesVelocity3dService.class);
-  private final ServiceClient<VelocityRequest, VelocityResponse> srvVelocity;
+  private final CratesServiceCaller<VelocityRequest, VelocityResponse> srvVelocity;
 
-  private CratesVelocity3dService(ServiceClient<VelocityRequest, VelocityResponse> srvVelocity) {
+  private CratesVelocity3dService(
+      CratesServiceCaller<VelocityRequest, VelocityResponse> srvVelocity) {
     this.srvVelocity = srvVelocity;
   }
 
@@ -24,7 +31,20 @@ final class CratesVelocity3dService implements Velocity3dService {
    */
   public static CratesVelocity3dService create(
       ServiceClient<VelocityRequest, VelocityResponse> srvVelocity) {
-    return new CratesVelocity3dService(srvVelocity);
+    return create(srvVelocity, CratesServiceMetrics.create());
+  }
+
+  /**
+   * Creates an instance of {@link CratesVelocity3dService} whose rosservice calls are recorded in
+   * the given metrics.
+   *
+   * @param srvVelocity the ros service client
+   * @param metrics the metrics of the rosservice calls of the drone
+   * @return an instance of {@link CratesVelocity3dService}
+   */
+  static CratesVelocity3dService create(
+      ServiceClient<VelocityRequest, VelocityResponse> srvVelocity, CratesServiceMetrics metrics) {
+    return new CratesVelocity3dService(CratesServiceCaller.create(srvVelocity, metrics));
   }
 
   @Override
@@ -33,7 +53,7 @@ final class CratesVelocity3dService implements Velocity3dService {
       double inertialFrameVelocityY,
       double inertialFrameVelocityZ,
       double angularPositionZ) {
-    final VelocityRequest velocityRequest = srvVelocity.newMessage();
+    final VelocityRequest velocityRequest = srvVelocity.newRequest();
     velocityRequest.setDx(inertialFrameVelocityX);
     velocityRequest.setDy(inertialFrameVelocityY);
     velocityRequest.setDz(inertialFrameVelocityZ);
@@ -44,6 +64,6 @@ final class CratesVelocity3dService implements Velocity3dService {
         inertialFrameVelocityY,
         inertialFrameVelocityZ,
         angularPositionZ);
-    CratesUtilities.sendRequest(srvVelocity, velocityRequest);
+    srvVelocity.callLatest(velocityRequest);
   }
 }
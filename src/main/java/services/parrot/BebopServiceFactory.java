@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import services.FlipService;
 import services.FlyingStateService;
 import services.Velocity4dService;
+import services.Velocity4dServiceOutbox;
 import services.rossubscribers.MessagesSubscriberService;
 import std_msgs.UInt8;
 import time.RosTime;
@@ -35,19 +36,21 @@ public final class BebopServiceFactory extends ParrotServiceFactory {
   @Override
   public Velocity4dService createVelocity4dService() {
     final String topicName = "/" + getDroneName() + "/cmd_vel";
+    // the velocities are published off the control loop thread
     final Velocity4dService velocity4dService =
-        ParrotVelocity4dService.builder()
-            .publisher(getConnectedNode().<Twist>newPublisher(topicName, Twist._TYPE))
-            .timeProvider(RosTime.create(getConnectedNode()))
-            .minLinearX(-1)
-            .minLinearY(-1)
-            .minLinearZ(-1)
-            .minAngularZ(-1)
-            .maxLinearX(1)
-            .maxLinearY(1)
-            .maxLinearZ(1)
-            .maxAngularZ(1)
-            .build();
+        Velocity4dServiceOutbox.create(
+            ParrotVelocity4dService.builder()
+                .publisher(getConnectedNode().<Twist>newPublisher(topicName, Twist._TYPE))
+                .timeProvider(RosTime.create(getConnectedNode()))
+                .minLinearX(-1)
+                .minLinearY(-1)
+                .minLinearZ(-1)
+                .minAngularZ(-1)
+                .maxLinearX(1)
+                .maxLinearY(1)
+                .maxLinearZ(1)
+                .maxAngularZ(1)
+                .build());
     logger.info("Velocity service connected to {}", topicName);
     return velocity4dService;
   }
@@ -3,7 +3,6 @@ package services.parrot;
 import control.dto.BodyFrameVelocity;
 import control.dto.InertialFrameVelocity;
 import control.dto.Pose;
-import control.dto.Velocity;
 import geometry_msgs.Twist;
 import org.ros.node.topic.Publisher;
 import org.slf4j.Logger;
@@ -97,38 +96,36 @@ final class ParrotVelocity4dService implements Velocity4dService {
 
   @Override
   public void sendBodyFrameVelocity(BodyFrameVelocity bodyFrameVelocity) {
-    final BodyFrameVelocity refinedVelocity = getRefinedVelocity(bodyFrameVelocity);
-
-    velocityLogger.trace(
-        "{} {} {} {} {}",
-        timeProvider.getCurrentTimeSeconds(),
-        refinedVelocity.linearX(),
-        refinedVelocity.linearY(),
-        refinedVelocity.linearZ(),
-        refinedVelocity.angularZ());
+    final double refinedLinearX = getRefinedLinearX(bodyFrameVelocity.linearX());
+    final double refinedLinearY = getRefinedLinearY(bodyFrameVelocity.linearY());
+    final double refinedLinearZ = getRefinedLinearZ(bodyFrameVelocity.linearZ());
+    final double refinedAngularZ = getRefinedAngularZ(bodyFrameVelocity.angularZ());
+
+    if (velocityLogger.isTraceEnabled()) {
+      velocityLogger.trace(
+          "{} {} {} {} {}",
+          timeProvider.getCurrentTimeSeconds(),
+          refinedLinearX,
+          refinedLinearY,
+          refinedLinearZ,
+          refinedAngularZ);
+    }
 
-    publisher.publish(newTwistMessage(refinedVelocity));
+    publisher.publish(
+        newTwistMessage(refinedLinearX, refinedLinearY, refinedLinearZ, refinedAngularZ));
   }
 
-  private Twist newTwistMessage(BodyFrameVelocity refinedVelocity) {
+  private Twist newTwistMessage(
+      double linearX, double linearY, double linearZ, double angularZ) {
     final Twist twist = publisher.newMessage();
-    twist.getLinear().setX(refinedVelocity.linearX());
-    twist.getLinear().setY(refinedVelocity.linearY());
-    twist.getLinear().setZ(refinedVelocity.linearZ());
-    twist.getAngular().setZ(refinedVelocity.angularZ());
+    twist.getLinear().setX(linearX);
+    twist.getLinear().setY(linearY);
+    twist.getLinear().setZ(linearZ);
+    twist.getAngular().setZ(angularZ);
 
     return twist;
   }
 
-  private BodyFrameVelocity getRefinedVelocity(BodyFrameVelocity velocity) {
-    return Velocity.builder()
-        .setLinearX(getRefinedLinearX(velocity.linearX()))
-        .setLinearY(getRefinedLinearY(velocity.linearY()))
-        .setLinearZ(getRefinedLinearZ(velocity.linearZ()))
-        .setAngularZ(getRefinedAngularZ(velocity.angularZ()))
-        .build();
-  }
-
   private double getRefinedLinearX(double linearX) {
     return getRefinedValue(linearX, minLinearX, maxLinearX);
   }
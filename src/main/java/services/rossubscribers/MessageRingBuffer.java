@@ -0,0 +1,164 @@
+package services.rossubscribers;
+
+import javax.annotation.Nullable;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded buffer of the most recent messages, written by a single thread (the rosjava callback
+ * thread) and read by any number of threads. Neither the writer nor the readers ever block: the
+ * writer overwrites the oldest message, and the readers take snapshots which do not copy the
+ * messages.
+ *
+ * @param <T> the type of the messages
+ */
+final class MessageRingBuffer<T> {
+  private final int capacity;
+  private final AtomicReferenceArray<Entry<T>> slots;
+  private volatile long writeSequence;
+  @Nullable private volatile T mostRecentMessage;
+
+  private MessageRingBuffer(int capacity) {
+    checkArgument(
+        capacity >= 1, String.format("Capacity must be at least 1, but it is %d.", capacity));
+    this.capacity = capacity;
+    this.slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param capacity the maximum number of messages kept in the buffer
+   * @param <U> the type of the messages
+   * @return an empty buffer
+   */
+  static <U> MessageRingBuffer<U> create(int capacity) {
+    return new MessageRingBuffer<>(capacity);
+  }
+
+  /**
+   * Adds a message to the buffer, overwriting the oldest message if the buffer is full. This method
+   * must only be called by a single thread.
+   *
+   * @param message the new message
+   */
+  void add(T message) {
+    final long sequence = writeSequence;
+    slots.set((int) (sequence % capacity), new Entry<>(sequence, message));
+    writeSequence = sequence + 1;
+    mostRecentMessage = message;
+  }
+
+  /** Returns the most recent message, or null if no message has been added yet. */
+  @Nullable
+  T getMostRecentMessage() {
+    return mostRecentMessage;
+  }
+
+  /**
+   * Gets a read-only snapshot of the messages in the buffer, from the oldest to the most recent one.
+   * The snapshot does not copy the messages. If the writer overwrites messages of the snapshot, the
+   * overwritten messages are skipped by the iterators and are not counted in its size anymore.
+   *
+   * @return a read-only snapshot of the messages in the buffer
+   */
+  Queue<T> snapshot() {
+    final long end = writeSequence;
+    return new Snapshot(Math.max(0, end - capacity), end);
+  }
+
+  private static final class Entry<T> {
+    private final long sequence;
+    private final T message;
+
+    private Entry(long sequence, T message) {
+      this.sequence = sequence;
+      this.message = message;
+    }
+  }
+
+  private final class Snapshot extends AbstractQueue<T> {
+    private final long start;
+    private final long end;
+
+    private Snapshot(long start, long end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return new SnapshotIterator(start, end);
+    }
+
+    @Override
+    public int size() {
+      // the messages are counted as they are iterated, so that the overwritten ones are skipped
+      int size = 0;
+      for (final Iterator<T> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+        size++;
+      }
+      return size;
+    }
+
+    @Override
+    public boolean offer(T t) {
+      throw new UnsupportedOperationException("A snapshot of the messages is read-only.");
+    }
+
+    @Override
+    public T poll() {
+      throw new UnsupportedOperationException("A snapshot of the messages is read-only.");
+    }
+
+    @Override
+    @Nullable
+    public T peek() {
+      final Iterator<T> iterator = iterator();
+      return iterator.hasNext() ? iterator.next() : null;
+    }
+  }
+
+  private final class SnapshotIterator implements Iterator<T> {
+    private final long end;
+    private long nextSequence;
+    @Nullable private T nextMessage;
+
+    private SnapshotIterator(long start, long end) {
+      this.end = end;
+      this.nextSequence = start;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (nextMessage == null && nextSequence < end) {
+        final Entry<T> entry = slots.get((int) (nextSequence % capacity));
+        if (entry.sequence == nextSequence) {
+          nextMessage = entry.message;
+        }
+        nextSequence++;
+      }
+      return nextMessage != null;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final T message = nextMessage;
+      nextMessage = null;
+      return message;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("A snapshot of the messages is read-only.");
+    }
+  }
+}
@@ -1,8 +1,6 @@
 package services.rossubscribers;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.EvictingQueue;
-import com.google.common.collect.Queues;
 import org.ros.internal.message.Message;
 import org.ros.message.MessageListener;
 import org.ros.node.topic.Subscriber;
@@ -10,17 +8,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import time.TimeProvider;
 
-import javax.annotation.Nullable;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
- * Message subscriber service listening to messages from a ROS topic and stored them in an {@link
- * EvictingQueue}.
+ * Message subscriber service listening to messages from a ROS topic and stored them in a bounded
+ * buffer of the most recent messages. The rosjava callback thread is the only writer of the buffer.
+ * Readers, e.g. control loops, never block the callback thread and are never blocked by it.
  *
  * @param <T> the type of the messages
  * @author mhct
@@ -72,7 +69,11 @@ public class MessagesSubscriberService<T extends Message> {
     return messagesListener.getMostRecentMessage();
   }
 
-  /** Returns the queue of most recent messages. */
+  /**
+   * Returns a read-only snapshot of the queue of most recent messages, from the oldest to the most
+   * recent one. The messages are not copied. Messages which are overwritten by newer ones while the
+   * snapshot is iterated are skipped.
+   */
   public Queue<T> getMessageQueue() {
     return messagesListener.getMessageQueue();
   }
@@ -97,13 +98,12 @@ public class MessagesSubscriberService<T extends Message> {
 
   private static final class MessagesListener<K extends Message> implements MessageListener<K> {
     private final Collection<MessageObserver<K>> messageObservers;
-    private final Queue<K> messageQueue;
-    @Nullable private K mostRecentMessage;
+    private final MessageRingBuffer<K> messageBuffer;
     private final TimeProvider timeProvider;
 
     private MessagesListener(int maxQueueSize, TimeProvider timeProvider) {
-      messageQueue = Queues.synchronizedQueue(EvictingQueue.<K>create(maxQueueSize));
-      messageObservers = new ArrayList<>();
+      messageBuffer = MessageRingBuffer.create(maxQueueSize);
+      messageObservers = new CopyOnWriteArrayList<>();
       this.timeProvider = timeProvider;
     }
 
@@ -124,8 +124,7 @@ public class MessagesSubscriberService<T extends Message> {
     public void onNewMessage(K newMessage) {
       logger.trace(
           "{} {}", timeProvider.getCurrentTimeSeconds(), newMessage.toRawMessage().getType());
-      messageQueue.add(newMessage);
-      mostRecentMessage = newMessage;
+      messageBuffer.add(newMessage);
       notifyMessageObservers(newMessage);
     }
 
@@ -154,15 +153,11 @@ public class MessagesSubscriberService<T extends Message> {
     }
 
     Optional<K> getMostRecentMessage() {
-      if (mostRecentMessage == null) {
-        return Optional.absent();
-      } else {
-        return Optional.of(mostRecentMessage);
-      }
+      return Optional.fromNullable(messageBuffer.getMostRecentMessage());
     }
 
     Queue<K> getMessageQueue() {
-      return new LinkedList<>(messageQueue);
+      return messageBuffer.snapshot();
     }
   }
 }
@@ -0,0 +1,285 @@
+package simulation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import commands.Command;
+import commands.schedulers.DiscreteEventExecutor;
+import control.PrimitiveVelocityController4d;
+import control.VelocityController4d;
+import control.dto.DroneStateStamped;
+import control.dto.Pose;
+import services.rossubscribers.FlyingState;
+import taskexecutor.Task;
+import time.VirtualClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static control.AbstractPrimitiveVelocityController4d.asPrimitive;
+
+/**
+ * Runs {@link SimulatedDrone}s in closed loop with their controllers in virtual time, without ROS
+ * and without waiting. The dynamics of all the drones are stepped by a periodic event of the {@link
+ * DiscreteEventExecutor} of the simulation, so that a flight of several minutes is computed in
+ * milliseconds and two runs of the same flight produce the same states.
+ *
+ * <p>The controllers can be executed in lockstep with the dynamics at the control rate of the
+ * simulation. At each tick, the estimated state of each drone is read, the response of its
+ * controller is computed and sent to the drone, and the dynamics are stepped until the next tick.
+ * Alternatively, whole {@link Task}s built on the services of the simulated drones can be executed
+ * in virtual time with {@link #execute(Task)}. The simulation must be driven by a single thread.
+ */
+public final class ClosedLoopSimulation {
+
+  private static final double DEFAULT_PHYSICS_STEP_IN_SECONDS = 0.005;
+  private static final double DEFAULT_CONTROL_RATE_IN_SECONDS = 0.05;
+  private static final double FLYING_STATE_TIMEOUT_IN_SECONDS = 60;
+  private static final int NUMBER_OF_AXES = 4;
+
+  private final VirtualClock clock = VirtualClock.create();
+  private final DiscreteEventExecutor executor = DiscreteEventExecutor.create(clock);
+  private final long physicsStepInNanoSeconds;
+  private final long controlRateInNanoSeconds;
+  private final List<SimulatedDrone> drones = new ArrayList<>();
+  private final Runnable physicsStep =
+      new Runnable() {
+        @Override
+        public void run() {
+          for (final SimulatedDrone drone : drones) {
+            drone.step(physicsStepInNanoSeconds / 1.0e9);
+          }
+          executor.schedule(this, physicsStepInNanoSeconds, TimeUnit.NANOSECONDS);
+        }
+      };
+
+  private ClosedLoopSimulation(double physicsStepInSeconds, double controlRateInSeconds) {
+    this.physicsStepInNanoSeconds = Math.round(physicsStepInSeconds * 1.0e9);
+    this.controlRateInNanoSeconds = Math.round(controlRateInSeconds * 1.0e9);
+    executor.schedule(physicsStep, physicsStepInNanoSeconds, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Creates a simulation with a physics step of 5 milliseconds and a control rate of 50
+   * milliseconds, the default control rate of the follow trajectory commands.
+   *
+   * @return a simulation instance
+   */
+  public static ClosedLoopSimulation create() {
+    return create(DEFAULT_PHYSICS_STEP_IN_SECONDS, DEFAULT_CONTROL_RATE_IN_SECONDS);
+  }
+
+  /**
+   * Creates a simulation.
+   *
+   * @param physicsStepInSeconds the duration of a step of the dynamics of the drones
+   * @param controlRateInSeconds the period of the control loops, which should be a multiple of the
+   *     physics step
+   * @return a simulation instance
+   */
+  public static ClosedLoopSimulation create(
+      double physicsStepInSeconds, double controlRateInSeconds) {
+    checkArgument(physicsStepInSeconds >= 1.0e-9, "The physics step must be positive.");
+    checkArgument(
+        controlRateInSeconds >= physicsStepInSeconds,
+        "The control rate must not be shorter than the physics step.");
+    return new ClosedLoopSimulation(physicsStepInSeconds, controlRateInSeconds);
+  }
+
+  /** Returns the virtual clock of this simulation, which is also the clock of its drones. */
+  public VirtualClock getClock() {
+    return clock;
+  }
+
+  /** Returns the discrete-event executor which drives this simulation. */
+  public DiscreteEventExecutor getExecutor() {
+    return executor;
+  }
+
+  /** Returns the drones of this simulation, in the order in which they have been added. */
+  public ImmutableList<SimulatedDrone> getDrones() {
+    return ImmutableList.copyOf(drones);
+  }
+
+  /**
+   * Adds a landed drone with the default parameters of {@link SimulatedDrone.Builder}.
+   *
+   * @param initialPose the initial pose of the drone, on the ground
+   * @return the added drone
+   */
+  public SimulatedDrone addDrone(Pose initialPose) {
+    return addDrone(SimulatedDrone.builder().withInitialPose(initialPose));
+  }
+
+  /**
+   * Adds a drone built by the given builder. The time provider of the drone is set to the clock of
+   * this simulation.
+   *
+   * @param droneBuilder the builder of the drone
+   * @return the added drone
+   */
+  public SimulatedDrone addDrone(SimulatedDrone.Builder droneBuilder) {
+    final SimulatedDrone drone = droneBuilder.withTimeProvider(clock).build();
+    drones.add(drone);
+    return drone;
+  }
+
+  /**
+   * Advances the simulation by the given duration.
+   *
+   * @param durationInSeconds the duration, which must not be negative
+   */
+  public void advance(double durationInSeconds) {
+    checkArgument(durationInSeconds >= 0, "The duration must not be negative.");
+    advanceTo(clock.getCurrentTimeNanoSeconds() + Math.round(durationInSeconds * 1.0e9));
+  }
+
+  /**
+   * Executes the commands of a task in virtual time. The commands should be built on the services
+   * of the drones of this simulation, with its clock as time provider. This method returns when all
+   * the commands have been executed, or when the current thread is interrupted.
+   *
+   * @param task the task to be executed
+   */
+  public void execute(final Task task) {
+    executor.run(
+        new Runnable() {
+          @Override
+          public void run() {
+            for (final Command command : task.getCommands()) {
+              if (Thread.currentThread().isInterrupted()) {
+                return;
+              }
+              command.execute();
+            }
+          }
+        });
+  }
+
+  /**
+   * Sends the take off message to all the drones and advances the simulation until all of them are
+   * hovering.
+   *
+   * @throws IllegalStateException if the drones are not hovering within one minute
+   */
+  public void takeOff() {
+    for (final SimulatedDrone drone : drones) {
+      drone.sendTakingOffMessage();
+    }
+    advanceUntilAllIn(FlyingState.HOVERING);
+  }
+
+  /**
+   * Sends the landing message to all the drones and advances the simulation until all of them are
+   * landed.
+   *
+   * @throws IllegalStateException if the drones are not landed within one minute
+   */
+  public void land() {
+    for (final SimulatedDrone drone : drones) {
+      drone.sendLandingMessage();
+    }
+    advanceUntilAllIn(FlyingState.LANDED);
+  }
+
+  /**
+   * Runs the control loop of one drone. The other drones keep following their last command.
+   *
+   * @param drone the controlled drone
+   * @param controller the controller of the drone, whose time starts at zero
+   * @param durationInSeconds the duration of the control loop
+   */
+  public void follow(
+      SimulatedDrone drone, VelocityController4d controller, double durationInSeconds) {
+    follow(ImmutableMap.of(drone, controller), durationInSeconds);
+  }
+
+  /**
+   * Runs the control loops of several drones at the same ticks. At the end, the controlled drones
+   * are sent a hover message, so that they do not drift while the simulation goes on.
+   *
+   * @param controllers the controllers of the controlled drones, whose time starts at zero
+   * @param durationInSeconds the duration of the control loops
+   */
+  public void follow(
+      Map<SimulatedDrone, ? extends VelocityController4d> controllers, double durationInSeconds) {
+    checkArgument(
+        drones.containsAll(controllers.keySet()), "The drones must belong to this simulation.");
+    checkArgument(durationInSeconds >= 0, "The duration must not be negative.");
+
+    final List<SimulatedDrone> controlledDrones = new ArrayList<>(controllers.size());
+    final List<PrimitiveVelocityController4d> primitiveControllers =
+        new ArrayList<>(controllers.size());
+    for (final Map.Entry<SimulatedDrone, ? extends VelocityController4d> entry :
+        controllers.entrySet()) {
+      controlledDrones.add(entry.getKey());
+      primitiveControllers.add(asPrimitive(entry.getValue()));
+    }
+
+    final double[] currentPose = new double[NUMBER_OF_AXES];
+    final double[] currentVelocity = new double[NUMBER_OF_AXES];
+    final double[] nextResponse = new double[NUMBER_OF_AXES];
+    final long startTimeInNanoSeconds = clock.getCurrentTimeNanoSeconds();
+    final long endTimeInNanoSeconds =
+        startTimeInNanoSeconds + Math.round(durationInSeconds * 1.0e9);
+
+    while (clock.getCurrentTimeNanoSeconds() < endTimeInNanoSeconds) {
+      final long tickTimeInNanoSeconds = clock.getCurrentTimeNanoSeconds();
+      final double currentTimeInSeconds = (tickTimeInNanoSeconds - startTimeInNanoSeconds) / 1.0e9;
+      for (int i = 0; i < controlledDrones.size(); i++) {
+        final SimulatedDrone drone = controlledDrones.get(i);
+        copyState(drone.getCurrentState().get(), currentPose, currentVelocity);
+        primitiveControllers
+            .get(i)
+            .computeNextResponse(currentPose, currentVelocity, currentTimeInSeconds, nextResponse);
+        drone.sendInertialFrameVelocity(nextResponse);
+      }
+      advanceTo(Math.min(tickTimeInNanoSeconds + controlRateInNanoSeconds, endTimeInNanoSeconds));
+    }
+
+    for (final SimulatedDrone drone : controlledDrones) {
+      drone.sendHoverMessage();
+    }
+  }
+
+  private void advanceUntilAllIn(FlyingState expectedFlyingState) {
+    final long deadlineInNanoSeconds =
+        clock.getCurrentTimeNanoSeconds() + Math.round(FLYING_STATE_TIMEOUT_IN_SECONDS * 1.0e9);
+    while (!areAllIn(expectedFlyingState)) {
+      checkState(
+          clock.getCurrentTimeNanoSeconds() < deadlineInNanoSeconds,
+          "The drones have not reached the %s state in %s seconds.",
+          expectedFlyingState,
+          FLYING_STATE_TIMEOUT_IN_SECONDS);
+      advanceTo(clock.getCurrentTimeNanoSeconds() + physicsStepInNanoSeconds);
+    }
+  }
+
+  private boolean areAllIn(FlyingState expectedFlyingState) {
+    for (final SimulatedDrone drone : drones) {
+      if (drone.getCurrentFlyingState().get() != expectedFlyingState) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void advanceTo(long timeInNanoSeconds) {
+    executor.advanceTo(timeInNanoSeconds);
+  }
+
+  private static void copyState(
+      DroneStateStamped state, double[] currentPose, double[] currentVelocity) {
+    currentPose[PrimitiveVelocityController4d.X] = state.pose().x();
+    currentPose[PrimitiveVelocityController4d.Y] = state.pose().y();
+    currentPose[PrimitiveVelocityController4d.Z] = state.pose().z();
+    currentPose[PrimitiveVelocityController4d.YAW] = state.pose().yaw();
+    currentVelocity[PrimitiveVelocityController4d.X] = state.inertialFrameVelocity().linearX();
+    currentVelocity[PrimitiveVelocityController4d.Y] = state.inertialFrameVelocity().linearY();
+    currentVelocity[PrimitiveVelocityController4d.Z] = state.inertialFrameVelocity().linearZ();
+    currentVelocity[PrimitiveVelocityController4d.YAW] = state.inertialFrameVelocity().angularZ();
+  }
+}
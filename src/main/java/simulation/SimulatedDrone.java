@@ -0,0 +1,596 @@
+package simulation;
+
+import com.google.common.base.Optional;
+import control.dto.BodyFrameVelocity;
+import control.dto.DroneStateStamped;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import control.localization.ObservableStateEstimator;
+import control.localization.StateObserver;
+import services.FlyingStateObserver;
+import services.HoverService;
+import services.LandService;
+import services.ObservableFlyingStateService;
+import services.ResetService;
+import services.TakeOffService;
+import services.Velocity2dService;
+import services.Velocity3dService;
+import services.Velocity4dService;
+import services.rossubscribers.FlyingState;
+import time.TimeProvider;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An in-process, deterministic simulation of a drone, which provides the state estimator and the
+ * services of the drone without ROS.
+ *
+ * <p>The drone is modelled kinematically. Its velocity follows the commanded velocity as a
+ * first-order system, and its pose integrates its velocity. Taking off climbs to the take-off
+ * altitude and landing descends to the ground at a constant vertical speed. As for a Parrot drone,
+ * the velocity messages are ignored while the drone is not in the air and the last message is
+ * followed until a new one is received. The height and the yaw of the {@link Velocity2dService}
+ * and {@link Velocity3dService} messages are tracked by proportional onboard controllers.
+ *
+ * <p>The dynamics only advance when {@link #step(double)} is called, e.g., by a {@link
+ * ClosedLoopSimulation}, and the states are stamped with the time of the time provider of the
+ * drone, which is normally a {@link time.VirtualClock} advanced by the same caller. The estimated
+ * position can be corrupted by a Gaussian noise drawn from a seeded generator, so that the runs
+ * remain reproducible.
+ */
+public final class SimulatedDrone
+    implements ObservableStateEstimator,
+        ObservableFlyingStateService,
+        Velocity4dService,
+        Velocity3dService,
+        Velocity2dService,
+        TakeOffService,
+        LandService,
+        HoverService,
+        ResetService {
+
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int Z = 2;
+  private static final int YAW = 3;
+  private static final int NUMBER_OF_AXES = 4;
+  // the proportional gain of the onboard height and yaw controllers, in 1/s
+  private static final double ONBOARD_POSITION_GAIN = 1.5;
+
+  private final TimeProvider timeProvider;
+  private final double groundAltitude;
+  private final double velocityTimeConstantInSeconds;
+  private final double takeOffAltitude;
+  private final double verticalSpeed;
+  private final double maxLinearSpeed;
+  private final double maxAngularSpeed;
+  private final double positionNoiseStandardDeviation;
+  private final Random random;
+  private final Collection<StateObserver> stateObservers = new CopyOnWriteArrayList<>();
+  private final Collection<FlyingStateObserver> flyingStateObservers =
+      new CopyOnWriteArrayList<>();
+
+  // guarded by this
+  private final double[] pose = new double[NUMBER_OF_AXES];
+  private final double[] velocity = new double[NUMBER_OF_AXES];
+  private final double[] command = new double[NUMBER_OF_AXES];
+  private final double[] desiredVelocity = new double[NUMBER_OF_AXES];
+  private CommandType commandType = CommandType.NONE;
+
+  private volatile FlyingState flyingState = FlyingState.LANDED;
+  private volatile DroneStateStamped estimatedState;
+
+  private SimulatedDrone(Builder builder) {
+    this.timeProvider = builder.timeProvider;
+    this.groundAltitude = builder.initialPose.z();
+    this.velocityTimeConstantInSeconds = builder.velocityTimeConstantInSeconds;
+    this.takeOffAltitude = builder.takeOffAltitude;
+    this.verticalSpeed = builder.verticalSpeed;
+    this.maxLinearSpeed = builder.maxLinearSpeed;
+    this.maxAngularSpeed = builder.maxAngularSpeed;
+    this.positionNoiseStandardDeviation = builder.positionNoiseStandardDeviation;
+    this.random = new Random(builder.seed);
+
+    pose[X] = builder.initialPose.x();
+    pose[Y] = builder.initialPose.y();
+    pose[Z] = builder.initialPose.z();
+    pose[YAW] = builder.initialPose.yaw();
+    estimatedState = estimateState();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Advances the dynamics of the drone and publishes the new estimated state, stamped with the
+   * current time of the time provider of the drone.
+   *
+   * @param durationInSeconds the duration of the step, which must be positive
+   */
+  public void step(double durationInSeconds) {
+    checkArgument(durationInSeconds > 0, "The duration must be positive.");
+    final FlyingState previousFlyingState;
+    final FlyingState currentFlyingState;
+    final DroneStateStamped state;
+    synchronized (this) {
+      previousFlyingState = flyingState;
+      integrate(durationInSeconds);
+      currentFlyingState = flyingState;
+      state = estimateState();
+      estimatedState = state;
+    }
+
+    publishFlyingState(previousFlyingState, currentFlyingState);
+    for (final StateObserver stateObserver : stateObservers) {
+      stateObserver.onNewState(state);
+    }
+  }
+
+  /**
+   * Gets the actual state of the drone, without the noise of the estimated state.
+   *
+   * @return the actual state of the drone
+   */
+  public synchronized DroneStateStamped getActualState() {
+    return createState(pose[X], pose[Y], pose[Z]);
+  }
+
+  @Override
+  public Optional<DroneStateStamped> getCurrentState() {
+    return Optional.of(estimatedState);
+  }
+
+  @Override
+  public void registerStateObserver(StateObserver stateObserver) {
+    stateObservers.add(stateObserver);
+  }
+
+  @Override
+  public void removeStateObserver(StateObserver stateObserver) {
+    stateObservers.remove(stateObserver);
+  }
+
+  @Override
+  public Optional<FlyingState> getCurrentFlyingState() {
+    return Optional.of(flyingState);
+  }
+
+  @Override
+  public void registerFlyingStateObserver(FlyingStateObserver flyingStateObserver) {
+    flyingStateObservers.add(flyingStateObserver);
+  }
+
+  @Override
+  public void removeFlyingStateObserver(FlyingStateObserver flyingStateObserver) {
+    flyingStateObservers.remove(flyingStateObserver);
+  }
+
+  @Override
+  public void sendInertialFrameVelocity(InertialFrameVelocity inertialFrameVelocity, Pose pose) {
+    sendCommand(
+        CommandType.VELOCITY_4D,
+        inertialFrameVelocity.linearX(),
+        inertialFrameVelocity.linearY(),
+        inertialFrameVelocity.linearZ(),
+        inertialFrameVelocity.angularZ());
+  }
+
+  @Override
+  public void sendBodyFrameVelocity(BodyFrameVelocity bodyFrameVelocity) {
+    sendCommand(
+        CommandType.BODY_FRAME_VELOCITY,
+        bodyFrameVelocity.linearX(),
+        bodyFrameVelocity.linearY(),
+        bodyFrameVelocity.linearZ(),
+        bodyFrameVelocity.angularZ());
+  }
+
+  @Override
+  public void sendVelocity3dMessage(
+      double inertialFrameVelocityX,
+      double inertialFrameVelocityY,
+      double inertialFrameVelocityZ,
+      double angularPositionZ) {
+    sendCommand(
+        CommandType.VELOCITY_3D,
+        inertialFrameVelocityX,
+        inertialFrameVelocityY,
+        inertialFrameVelocityZ,
+        angularPositionZ);
+  }
+
+  @Override
+  public void sendVelocityHeightMessage(
+      double inertialFrameVelocityX,
+      double inertialFrameVelocityY,
+      double linearPositionZ,
+      double angularPositionZ) {
+    sendCommand(
+        CommandType.VELOCITY_2D,
+        inertialFrameVelocityX,
+        inertialFrameVelocityY,
+        linearPositionZ,
+        angularPositionZ);
+  }
+
+  /**
+   * Sends a velocity in the inertial frame without allocating any object.
+   *
+   * @param inertialFrameVelocity the velocity, indexed as the responses of a {@link
+   *     control.PrimitiveVelocityController4d}
+   */
+  void sendInertialFrameVelocity(double[] inertialFrameVelocity) {
+    sendCommand(
+        CommandType.VELOCITY_4D,
+        inertialFrameVelocity[X],
+        inertialFrameVelocity[Y],
+        inertialFrameVelocity[Z],
+        inertialFrameVelocity[YAW]);
+  }
+
+  @Override
+  public void sendTakingOffMessage() {
+    changeFlyingState(FlyingState.LANDED, FlyingState.TAKING_OFF);
+  }
+
+  @Override
+  public void sendLandingMessage() {
+    final FlyingState previousFlyingState;
+    final FlyingState currentFlyingState;
+    synchronized (this) {
+      previousFlyingState = flyingState;
+      if (isInTheAir()) {
+        flyingState = FlyingState.LANDING;
+        commandType = CommandType.NONE;
+      }
+      currentFlyingState = flyingState;
+    }
+    publishFlyingState(previousFlyingState, currentFlyingState);
+  }
+
+  @Override
+  public void sendHoverMessage() {
+    changeFlyingState(FlyingState.FLYING, FlyingState.HOVERING);
+  }
+
+  /** Republishes the current flying state, the simulated drone has no state to reset. */
+  @Override
+  public void sendResetMessage() {
+    final FlyingState currentFlyingState = flyingState;
+    for (final FlyingStateObserver flyingStateObserver : flyingStateObservers) {
+      flyingStateObserver.onNewFlyingState(currentFlyingState);
+    }
+  }
+
+  private void sendCommand(
+      CommandType newCommandType,
+      double commandX,
+      double commandY,
+      double commandZ,
+      double commandYaw) {
+    final FlyingState previousFlyingState;
+    final FlyingState currentFlyingState;
+    synchronized (this) {
+      previousFlyingState = flyingState;
+      setCommand(newCommandType, commandX, commandY, commandZ, commandYaw);
+      currentFlyingState = flyingState;
+    }
+    publishFlyingState(previousFlyingState, currentFlyingState);
+  }
+
+  private void setCommand(
+      CommandType newCommandType,
+      double commandX,
+      double commandY,
+      double commandZ,
+      double commandYaw) {
+    if (flyingState != FlyingState.HOVERING && flyingState != FlyingState.FLYING) {
+      return;
+    }
+    flyingState = FlyingState.FLYING;
+    commandType = newCommandType;
+    command[X] = commandX;
+    command[Y] = commandY;
+    command[Z] = commandZ;
+    command[YAW] = commandYaw;
+  }
+
+  private void changeFlyingState(FlyingState expectedFlyingState, FlyingState newFlyingState) {
+    final boolean changed;
+    synchronized (this) {
+      changed = flyingState == expectedFlyingState;
+      if (changed) {
+        flyingState = newFlyingState;
+        commandType = CommandType.NONE;
+      }
+    }
+    if (changed) {
+      publishFlyingState(expectedFlyingState, newFlyingState);
+    }
+  }
+
+  private void publishFlyingState(
+      FlyingState previousFlyingState, FlyingState currentFlyingState) {
+    // the observers are notified without holding the lock, they may read the state of the drone
+    if (previousFlyingState != currentFlyingState) {
+      for (final FlyingStateObserver flyingStateObserver : flyingStateObservers) {
+        flyingStateObserver.onNewFlyingState(currentFlyingState);
+      }
+    }
+  }
+
+  private boolean isInTheAir() {
+    return flyingState == FlyingState.TAKING_OFF
+        || flyingState == FlyingState.HOVERING
+        || flyingState == FlyingState.FLYING;
+  }
+
+  private void integrate(double durationInSeconds) {
+    if (flyingState == FlyingState.LANDED) {
+      return;
+    }
+
+    computeDesiredVelocity();
+    final double gain = 1 - Math.exp(-durationInSeconds / velocityTimeConstantInSeconds);
+    for (int i = 0; i < NUMBER_OF_AXES; i++) {
+      velocity[i] += (desiredVelocity[i] - velocity[i]) * gain;
+      pose[i] += velocity[i] * durationInSeconds;
+    }
+    pose[YAW] = normalizeAngle(pose[YAW]);
+
+    if (flyingState == FlyingState.TAKING_OFF && pose[Z] >= groundAltitude + takeOffAltitude) {
+      flyingState = FlyingState.HOVERING;
+    } else if (pose[Z] <= groundAltitude) {
+      pose[Z] = groundAltitude;
+      if (flyingState == FlyingState.LANDING) {
+        flyingState = FlyingState.LANDED;
+        for (int i = 0; i < NUMBER_OF_AXES; i++) {
+          velocity[i] = 0;
+        }
+      } else {
+        velocity[Z] = Math.max(0, velocity[Z]);
+      }
+    }
+  }
+
+  private void computeDesiredVelocity() {
+    for (int i = 0; i < NUMBER_OF_AXES; i++) {
+      desiredVelocity[i] = 0;
+    }
+
+    if (flyingState == FlyingState.TAKING_OFF) {
+      desiredVelocity[Z] = verticalSpeed;
+    } else if (flyingState == FlyingState.LANDING) {
+      desiredVelocity[Z] = -verticalSpeed;
+    } else if (flyingState == FlyingState.FLYING) {
+      switch (commandType) {
+        case VELOCITY_4D:
+          System.arraycopy(command, 0, desiredVelocity, 0, NUMBER_OF_AXES);
+          break;
+        case BODY_FRAME_VELOCITY:
+          // the body frame rotates with the drone
+          final double cos = Math.cos(pose[YAW]);
+          final double sin = Math.sin(pose[YAW]);
+          desiredVelocity[X] = command[X] * cos - command[Y] * sin;
+          desiredVelocity[Y] = command[X] * sin + command[Y] * cos;
+          desiredVelocity[Z] = command[Z];
+          desiredVelocity[YAW] = command[YAW];
+          break;
+        case VELOCITY_3D:
+          desiredVelocity[X] = command[X];
+          desiredVelocity[Y] = command[Y];
+          desiredVelocity[Z] = command[Z];
+          desiredVelocity[YAW] = ONBOARD_POSITION_GAIN * normalizeAngle(command[YAW] - pose[YAW]);
+          break;
+        case VELOCITY_2D:
+          desiredVelocity[X] = command[X];
+          desiredVelocity[Y] = command[Y];
+          desiredVelocity[Z] = ONBOARD_POSITION_GAIN * (command[Z] - pose[Z]);
+          desiredVelocity[YAW] = ONBOARD_POSITION_GAIN * normalizeAngle(command[YAW] - pose[YAW]);
+          break;
+        default:
+          break;
+      }
+    }
+
+    desiredVelocity[X] = clamp(desiredVelocity[X], maxLinearSpeed);
+    desiredVelocity[Y] = clamp(desiredVelocity[Y], maxLinearSpeed);
+    desiredVelocity[Z] = clamp(desiredVelocity[Z], maxLinearSpeed);
+    desiredVelocity[YAW] = clamp(desiredVelocity[YAW], maxAngularSpeed);
+  }
+
+  private DroneStateStamped estimateState() {
+    if (positionNoiseStandardDeviation == 0) {
+      return createState(pose[X], pose[Y], pose[Z]);
+    }
+    return createState(
+        pose[X] + positionNoiseStandardDeviation * random.nextGaussian(),
+        pose[Y] + positionNoiseStandardDeviation * random.nextGaussian(),
+        pose[Z] + positionNoiseStandardDeviation * random.nextGaussian());
+  }
+
+  private DroneStateStamped createState(double x, double y, double z) {
+    final Pose currentPose = Pose.builder().setX(x).setY(y).setZ(z).setYaw(pose[YAW]).build();
+    final Velocity currentVelocity =
+        Velocity.builder()
+            .setLinearX(velocity[X])
+            .setLinearY(velocity[Y])
+            .setLinearZ(velocity[Z])
+            .setAngularZ(velocity[YAW])
+            .build();
+    return DroneStateStamped.create(
+        currentPose, currentVelocity, timeProvider.getCurrentTimeSeconds());
+  }
+
+  private static double clamp(double value, double maxAbsoluteValue) {
+    return Math.max(-maxAbsoluteValue, Math.min(maxAbsoluteValue, value));
+  }
+
+  private static double normalizeAngle(double angle) {
+    return angle - 2 * Math.PI * Math.floor((angle + Math.PI) / (2 * Math.PI));
+  }
+
+  private enum CommandType {
+    NONE,
+    VELOCITY_4D,
+    BODY_FRAME_VELOCITY,
+    VELOCITY_3D,
+    VELOCITY_2D
+  }
+
+  /** {@code SimulatedDrone} builder static inner class. */
+  public static final class Builder {
+    private TimeProvider timeProvider;
+    private Pose initialPose = Pose.createZeroPose();
+    private double velocityTimeConstantInSeconds = 0.2;
+    private double takeOffAltitude = 1;
+    private double verticalSpeed = 0.5;
+    private double maxLinearSpeed = 2;
+    private double maxAngularSpeed = 2;
+    private double positionNoiseStandardDeviation;
+    private long seed;
+
+    private Builder() {}
+
+    /**
+     * Sets the {@code timeProvider} and returns a reference to this Builder so that the methods can
+     * be chained together.
+     *
+     * @param val the {@code timeProvider} to set
+     * @return a reference to this Builder
+     */
+    public Builder withTimeProvider(TimeProvider val) {
+      timeProvider = val;
+      return this;
+    }
+
+    /**
+     * Sets the {@code initialPose} and returns a reference to this Builder so that the methods can
+     * be chained together. The drone is landed at this pose when it is created, and its altitude
+     * is the altitude of the ground. This parameter is optional, the drone starts at the origin by
+     * default.
+     *
+     * @param val the {@code initialPose} to set
+     * @return a reference to this Builder
+     */
+    public Builder withInitialPose(Pose val) {
+      initialPose = val;
+      return this;
+    }
+
+    /**
+     * Sets the time constant with which the velocity of the drone follows the commanded velocity
+     * and returns a reference to this Builder so that the methods can be chained together. This
+     * parameter is optional, it is 0.2 seconds by default.
+     *
+     * @param val the {@code velocityTimeConstantInSeconds} to set
+     * @return a reference to this Builder
+     */
+    public Builder withVelocityTimeConstantInSeconds(double val) {
+      velocityTimeConstantInSeconds = val;
+      return this;
+    }
+
+    /**
+     * Sets the altitude above the ground at which taking off ends and returns a reference to this
+     * Builder so that the methods can be chained together. This parameter is optional, it is 1
+     * meter by default.
+     *
+     * @param val the {@code takeOffAltitude} to set, in meters
+     * @return a reference to this Builder
+     */
+    public Builder withTakeOffAltitude(double val) {
+      takeOffAltitude = val;
+      return this;
+    }
+
+    /**
+     * Sets the vertical speed of taking off and landing and returns a reference to this Builder so
+     * that the methods can be chained together. This parameter is optional, it is 0.5 meters per
+     * second by default.
+     *
+     * @param val the {@code verticalSpeed} to set, in meters per second
+     * @return a reference to this Builder
+     */
+    public Builder withVerticalSpeed(double val) {
+      verticalSpeed = val;
+      return this;
+    }
+
+    /**
+     * Sets the maximum linear speed of the drone along each axis and returns a reference to this
+     * Builder so that the methods can be chained together. This parameter is optional, it is 2
+     * meters per second by default.
+     *
+     * @param val the {@code maxLinearSpeed} to set, in meters per second
+     * @return a reference to this Builder
+     */
+    public Builder withMaxLinearSpeed(double val) {
+      maxLinearSpeed = val;
+      return this;
+    }
+
+    /**
+     * Sets the maximum yaw rate of the drone and returns a reference to this Builder so that the
+     * methods can be chained together. This parameter is optional, it is 2 radians per second by
+     * default.
+     *
+     * @param val the {@code maxAngularSpeed} to set, in radians per second
+     * @return a reference to this Builder
+     */
+    public Builder withMaxAngularSpeed(double val) {
+      maxAngularSpeed = val;
+      return this;
+    }
+
+    /**
+     * Sets the standard deviation of the noise on the estimated x, y and z positions and returns a
+     * reference to this Builder so that the methods can be chained together. This parameter is
+     * optional, the estimated state is exact by default.
+     *
+     * @param val the {@code positionNoiseStandardDeviation} to set, in meters
+     * @return a reference to this Builder
+     */
+    public Builder withPositionNoiseStandardDeviation(double val) {
+      positionNoiseStandardDeviation = val;
+      return this;
+    }
+
+    /**
+     * Sets the seed of the noise generator and returns a reference to this Builder so that the
+     * methods can be chained together. This parameter is optional, it is 0 by default.
+     *
+     * @param val the {@code seed} to set
+     * @return a reference to this Builder
+     */
+    public Builder withSeed(long val) {
+      seed = val;
+      return this;
+    }
+
+    /**
+     * Returns a {@code SimulatedDrone} built from the parameters previously set.
+     *
+     * @return a {@code SimulatedDrone} built with parameters of this {@code SimulatedDrone.Builder}
+     */
+    public SimulatedDrone build() {
+      checkNotNull(timeProvider, "missing timeProvider");
+      checkNotNull(initialPose, "missing initialPose");
+      checkArgument(velocityTimeConstantInSeconds > 0, "The time constant must be positive.");
+      checkArgument(takeOffAltitude > 0, "The take-off altitude must be positive.");
+      checkArgument(verticalSpeed > 0, "The vertical speed must be positive.");
+      checkArgument(maxLinearSpeed > 0, "The maximum linear speed must be positive.");
+      checkArgument(maxAngularSpeed > 0, "The maximum angular speed must be positive.");
+      checkArgument(
+          positionNoiseStandardDeviation >= 0, "The standard deviation must not be negative.");
+      return new SimulatedDrone(this);
+    }
+  }
+}
@@ -0,0 +1,8 @@
+/**
+ * This package contains an in-process simulation of drones, which runs the control stack in
+ * virtual time without ROS.
+ */
+@ParametersAreNonnullByDefault
+package simulation;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -40,6 +40,10 @@ public final class Task {
     return commands;
   }
 
+  public TaskType getTaskType() {
+    return taskType;
+  }
+
   /**
    * Checks whether this task has higher priority than another task.
    *
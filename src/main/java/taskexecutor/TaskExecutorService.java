@@ -1,20 +1,58 @@
 package taskexecutor;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import commands.Command;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.metrics.LatencyHistogram;
 
 import javax.annotation.Nullable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkArgument;
 
-/** @author Hoang Tung Dinh */
+/**
+ * A task executor which executes the tasks of one drone on a single long-lived worker thread. A new
+ * task is accepted if it has a higher priority than the last accepted task, in which case it
+ * preempts the running task: the running task is interrupted and stops at the latest before its
+ * next command. Submitting a task is thread-safe and never blocks.
+ *
+ * <p>The commands of two tasks never run at the same time, so that a preempted command cannot keep
+ * sending messages to the drone while the emergency task is flying it. The time from the submission
+ * of an emergency task to the start of its first command is recorded in a {@link
+ * LatencyHistogram}. If the preempted command does not react to the interruption within the maximum
+ * preemption latency, a warning is logged and the command is interrupted again, until it stops.
+ *
+ * <p>The worker is a daemon thread, which is only created when the first task is submitted.
+ *
+ * @author Hoang Tung Dinh
+ */
 public final class TaskExecutorService implements TaskExecutor {
+
+  private static final Logger logger = LoggerFactory.getLogger(TaskExecutorService.class);
+  private static final long DEFAULT_MAX_PREEMPTION_LATENCY_IN_MILLISECONDS = 100;
+
+  private static final ThreadFactory WORKER_THREAD_FACTORY =
+      new ThreadFactoryBuilder().setNameFormat("task-executor-%d").setDaemon(true).build();
+
+  private final long maxPreemptionLatencyInNanoSeconds;
+  private final LatencyHistogram emergencyLatency = LatencyHistogram.create();
+
+  @Nullable private ExecutorService worker;
   @Nullable private Task task;
+  @Nullable private RunTask runningTask;
   @Nullable private Future<?> future;
+  private boolean shutdown;
 
-  private TaskExecutorService() {}
+  private TaskExecutorService(long maxPreemptionLatencyInNanoSeconds) {
+    this.maxPreemptionLatencyInNanoSeconds = maxPreemptionLatencyInNanoSeconds;
+  }
 
   /**
    * Gets an instace of this class.
@@ -22,42 +60,162 @@ public final class TaskExecutorService implements TaskExecutor {
    * @return a builder instance
    */
   public static TaskExecutorService create() {
-    return new TaskExecutorService();
+    return create(DEFAULT_MAX_PREEMPTION_LATENCY_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
   }
 
-  private void runTask() {
-    checkNotNull(task, "Task must not be null when this method is called");
-    final ExecutorService executorService = Executors.newSingleThreadExecutor();
-    final Runnable runnable = new RunCommands(task.getCommands());
-    future = executorService.submit(runnable);
+  /**
+   * Gets an instance of this class.
+   *
+   * @param maxPreemptionLatency the time an emergency task waits for the preempted task to react to
+   *     its interruption before the preempted task is interrupted again
+   * @param unit the time unit of {@code maxPreemptionLatency}
+   * @return a task executor instance
+   */
+  public static TaskExecutorService create(long maxPreemptionLatency, TimeUnit unit) {
+    checkArgument(maxPreemptionLatency > 0, "The maximum preemption latency must be positive.");
+    return new TaskExecutorService(unit.toNanos(maxPreemptionLatency));
   }
 
   @Override
-  public Status submitTask(Task newTask) {
-    if (task == null || newTask.hasHigherPriority(task)) {
-      if (future != null) {
-        future.cancel(true);
-      }
-      task = newTask;
-      runTask();
-      return Status.ACCEPTED;
+  public synchronized Status submitTask(Task newTask) {
+    final long submissionTimeInNanoSeconds = System.nanoTime();
+    if (shutdown || (task != null && !newTask.hasHigherPriority(task))) {
+      return Status.REJECTED;
+    }
+
+    final RunTask preemptedTask =
+        runningTask != null && !runningTask.isFinished() ? runningTask : null;
+    if (future != null) {
+      future.cancel(true);
+    }
+    if (worker == null) {
+      worker = Executors.newSingleThreadExecutor(WORKER_THREAD_FACTORY);
     }
+    task = newTask;
+    runningTask = new RunTask(newTask, submissionTimeInNanoSeconds);
+    // the new task only starts on the same worker once the preempted command has returned
+    future = worker.submit(runningTask);
 
-    return Status.REJECTED;
+    if (preemptedTask != null && newTask.getTaskType().isEmergency()) {
+      scheduleWatchdog(runningTask, preemptedTask);
+    }
+    return Status.ACCEPTED;
   }
 
-  private static final class RunCommands implements Runnable {
-    private final Iterable<Command> commands;
+  /**
+   * Gets the histogram of the time from the submission of an accepted emergency task to the start
+   * of its first command.
+   *
+   * @return the emergency latency histogram
+   */
+  public LatencyHistogram getEmergencyLatency() {
+    return emergencyLatency;
+  }
 
-    private RunCommands(Iterable<Command> commands) {
-      this.commands = commands;
+  /** Stops the running task and the worker. No task is accepted afterwards. */
+  public synchronized void shutdown() {
+    shutdown = true;
+    if (worker != null) {
+      worker.shutdownNow();
+    }
+  }
+
+  private void scheduleWatchdog(final RunTask emergencyTask, final RunTask preemptedTask) {
+    WatchdogHolder.INSTANCE.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            interruptIfNotStarted(emergencyTask, preemptedTask);
+          }
+        },
+        maxPreemptionLatencyInNanoSeconds,
+        TimeUnit.NANOSECONDS);
+  }
+
+  private synchronized void interruptIfNotStarted(RunTask emergencyTask, RunTask preemptedTask) {
+    if (emergencyTask != runningTask || emergencyTask.hasStarted() || shutdown) {
+      return;
+    }
+
+    logger.warn(
+        "The preempted task did not stop within {} ms. Interrupt it again.",
+        TimeUnit.NANOSECONDS.toMillis(maxPreemptionLatencyInNanoSeconds));
+    preemptedTask.interrupt();
+    scheduleWatchdog(emergencyTask, preemptedTask);
+  }
+
+  private synchronized boolean isCurrent(RunTask runTask) {
+    return runTask == runningTask;
+  }
+
+  private final class RunTask implements Runnable {
+    private final Task task;
+    private final long submissionTimeInNanoSeconds;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean finished;
+    @Nullable private Thread thread;
+
+    private RunTask(Task task, long submissionTimeInNanoSeconds) {
+      this.task = task;
+      this.submissionTimeInNanoSeconds = submissionTimeInNanoSeconds;
     }
 
     @Override
     public void run() {
-      for (final Command command : commands) {
-        command.execute();
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      setThread(Thread.currentThread());
+
+      if (task.getTaskType().isEmergency()) {
+        emergencyLatency.record(System.nanoTime() - submissionTimeInNanoSeconds);
+      }
+
+      try {
+        for (final Command command : task.getCommands()) {
+          if (Thread.currentThread().isInterrupted() || !isCurrent(this)) {
+            logger.debug("The task is preempted. Stop executing its commands.");
+            return;
+          }
+          command.execute();
+        }
+      } finally {
+        setThread(null);
+        finished = true;
+      }
+    }
+
+    private synchronized void setThread(@Nullable Thread runningThread) {
+      thread = runningThread;
+    }
+
+    /**
+     * Interrupts the worker while it executes this task. The worker is never interrupted once it
+     * has left this task, so that the interruption cannot reach the next task.
+     */
+    private synchronized void interrupt() {
+      if (thread != null) {
+        thread.interrupt();
       }
     }
+
+    private boolean hasStarted() {
+      return started.get();
+    }
+
+    private boolean isFinished() {
+      return finished;
+    }
+  }
+
+  private static final class WatchdogHolder {
+    private static final ScheduledExecutorService INSTANCE =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("task-executor-watchdog-%d")
+                .setDaemon(true)
+                .build());
+
+    private WatchdogHolder() {}
   }
 }
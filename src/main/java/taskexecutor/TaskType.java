@@ -21,4 +21,13 @@ public enum TaskType {
   public boolean hasHigherPriorityThan(TaskType taskType) {
     return taskPriority < taskType.taskPriority;
   }
+
+  /**
+   * Checks whether this task type is an emergency.
+   *
+   * @return true if this task type has higher priority than a normal task
+   */
+  public boolean isEmergency() {
+    return hasHigherPriorityThan(NORMAL_TASK);
+  }
 }
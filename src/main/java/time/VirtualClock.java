@@ -0,0 +1,60 @@
+package time;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A {@link TimeProvider} whose time only advances when it is told to, e.g., by a simulation. The
+ * time starts at zero and never goes backwards. It can be read from any thread.
+ */
+public final class VirtualClock implements TimeProvider {
+
+  private final AtomicLong currentTimeInNanoSeconds = new AtomicLong();
+
+  private VirtualClock() {}
+
+  /**
+   * Creates a virtual clock whose time is zero.
+   *
+   * @return a virtual clock instance
+   */
+  public static VirtualClock create() {
+    return new VirtualClock();
+  }
+
+  @Override
+  public long getCurrentTimeNanoSeconds() {
+    return currentTimeInNanoSeconds.get();
+  }
+
+  @Override
+  public double getCurrentTimeSeconds() {
+    return currentTimeInNanoSeconds.get() / 1.0e9;
+  }
+
+  /**
+   * Advances the time by the given duration.
+   *
+   * @param durationInNanoSeconds the duration, which must not be negative
+   */
+  public void advance(long durationInNanoSeconds) {
+    checkArgument(durationInNanoSeconds >= 0, "The duration must not be negative.");
+    currentTimeInNanoSeconds.addAndGet(durationInNanoSeconds);
+  }
+
+  /**
+   * Advances the time to the given time.
+   *
+   * @param timeInNanoSeconds the new time, which must not be before the current time
+   */
+  public void advanceTo(long timeInNanoSeconds) {
+    while (true) {
+      final long current = currentTimeInNanoSeconds.get();
+      checkArgument(timeInNanoSeconds >= current, "The virtual time cannot go backwards.");
+      if (currentTimeInNanoSeconds.compareAndSet(current, timeInNanoSeconds)) {
+        return;
+      }
+    }
+  }
+}
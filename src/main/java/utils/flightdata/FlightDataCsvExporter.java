@@ -0,0 +1,49 @@
+package utils.flightdata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts flight data files to CSV files. Each file given as an argument is converted into a file
+ * with the same name and the {@code .csv} extension, in the same directory.
+ */
+public final class FlightDataCsvExporter {
+
+  private static final Logger logger = LoggerFactory.getLogger(FlightDataCsvExporter.class);
+
+  private FlightDataCsvExporter() {}
+
+  public static void main(String[] args) throws IOException {
+    for (final String arg : args) {
+      final Path csvFile = export(Paths.get(arg));
+      logger.info("Exported {} to {}.", arg, csvFile);
+    }
+  }
+
+  /**
+   * Converts a flight data file to a CSV file.
+   *
+   * @param file the flight data file
+   * @return the CSV file
+   * @throws IOException if the flight data file cannot be read or the CSV file cannot be written
+   */
+  public static Path export(Path file) throws IOException {
+    final String fileName = file.getFileName().toString();
+    final int extensionIndex = fileName.lastIndexOf('.');
+    final String baseName = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+    final Path csvFile = file.resolveSibling(baseName + ".csv");
+
+    final FlightDataReader reader = FlightDataReader.open(file);
+    try (final Writer writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+      reader.writeCsv(writer);
+    }
+    return csvFile;
+  }
+}
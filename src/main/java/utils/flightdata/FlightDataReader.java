@@ -0,0 +1,134 @@
+package utils.flightdata;
+
+import com.google.common.base.Joiner;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * A reader of a flight data file written by a {@link FlightDataRecorder}. The file is mapped into
+ * memory, so that the records can be accessed randomly without being copied. The reader sees the
+ * records which had been written when it was opened.
+ */
+public final class FlightDataReader {
+
+  private static final Joiner CSV_JOINER = Joiner.on(',');
+
+  private final MappedByteBuffer buffer;
+  private final int numberOfRecords;
+  private final long numberOfDroppedRecords;
+
+  private FlightDataReader(MappedByteBuffer buffer) {
+    this.buffer = buffer;
+    checkArgument(
+        buffer.getInt(FlightDataRecord.MAGIC_NUMBER_OFFSET) == FlightDataRecord.MAGIC_NUMBER,
+        "The file is not a flight data file.");
+    checkArgument(
+        buffer.getInt(FlightDataRecord.VERSION_OFFSET) == FlightDataRecord.VERSION,
+        "The version of the flight data file is not supported.");
+    checkArgument(
+        buffer.getInt(FlightDataRecord.NUMBER_OF_FIELDS_OFFSET)
+            == FlightDataRecord.NUMBER_OF_FIELDS,
+        "The number of fields of the flight data file is not supported.");
+    this.numberOfRecords = (int) buffer.getLong(FlightDataRecord.NUMBER_OF_RECORDS_OFFSET);
+    this.numberOfDroppedRecords =
+        buffer.getLong(FlightDataRecord.NUMBER_OF_DROPPED_RECORDS_OFFSET);
+  }
+
+  /**
+   * Opens a flight data file.
+   *
+   * @param file the flight data file
+   * @return a reader instance
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file is not a flight data file
+   */
+  public static FlightDataReader open(Path file) throws IOException {
+    try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "r")) {
+      final MappedByteBuffer buffer =
+          randomAccessFile
+              .getChannel()
+              .map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      return new FlightDataReader(buffer);
+    }
+  }
+
+  /** Returns the number of records in the file. */
+  public int getNumberOfRecords() {
+    return numberOfRecords;
+  }
+
+  /** Returns the number of records which have been dropped by the recorder. */
+  public long getNumberOfDroppedRecords() {
+    return numberOfDroppedRecords;
+  }
+
+  /**
+   * Gets one value of a record.
+   *
+   * @param recordIndex the index of the record
+   * @param field the index of the field, as defined by {@link FlightDataRecord}
+   * @return the value of the field
+   */
+  public double getValue(int recordIndex, int field) {
+    checkElementIndex(recordIndex, numberOfRecords);
+    checkElementIndex(field, FlightDataRecord.NUMBER_OF_FIELDS);
+    return buffer.getDouble(getOffset(recordIndex) + field * 8);
+  }
+
+  /**
+   * Reads all the values of a record.
+   *
+   * @param recordIndex the index of the record
+   * @param values the array into which the values are written, indexed as described by {@link
+   *     FlightDataRecord}
+   */
+  public void readRecord(int recordIndex, double[] values) {
+    checkElementIndex(recordIndex, numberOfRecords);
+    checkArgument(
+        values.length >= FlightDataRecord.NUMBER_OF_FIELDS,
+        "The array must have at least %s elements.",
+        FlightDataRecord.NUMBER_OF_FIELDS);
+    final int offset = getOffset(recordIndex);
+    for (int i = 0; i < FlightDataRecord.NUMBER_OF_FIELDS; i++) {
+      values[i] = buffer.getDouble(offset + i * 8);
+    }
+  }
+
+  /**
+   * Writes the records as comma-separated values, with a header line containing the names of the
+   * fields.
+   *
+   * @param output the destination of the comma-separated values
+   * @throws IOException if the values cannot be written
+   */
+  public void writeCsv(Appendable output) throws IOException {
+    CSV_JOINER.appendTo(output, FlightDataRecord.getFieldNames());
+    output.append('\n');
+
+    final double[] values = new double[FlightDataRecord.NUMBER_OF_FIELDS];
+    for (int i = 0; i < numberOfRecords; i++) {
+      readRecord(i, values);
+      for (int j = 0; j < values.length; j++) {
+        if (j > 0) {
+          output.append(',');
+        }
+        output.append(Double.toString(values[j]));
+      }
+      output.append('\n');
+    }
+  }
+
+  private static int getOffset(int recordIndex) {
+    return FlightDataRecord.HEADER_SIZE_IN_BYTES
+        + recordIndex * FlightDataRecord.RECORD_SIZE_IN_BYTES;
+  }
+}
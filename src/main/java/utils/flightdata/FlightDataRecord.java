@@ -0,0 +1,72 @@
+package utils.flightdata;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * The layout of a flight data record. A record is a fixed number of little-endian doubles, indexed
+ * by the constants of this class. The components of each pose and velocity are x, y, z and yaw.
+ *
+ * <p>A flight data file starts with a header of {@link #HEADER_SIZE_IN_BYTES} bytes, followed by
+ * the records. The header contains a magic number, the format version, the number of fields per
+ * record, the record size in bytes, the capacity of the file in records, the number of records
+ * written so far and the number of dropped records. With NumPy, the records of a file can be read
+ * by {@code np.fromfile(path, dtype='<f8', offset=64).reshape(-1, 22)[:numberOfRecords]}.
+ */
+public final class FlightDataRecord {
+
+  /** The time at which the record has been taken, according to the system time provider. */
+  public static final int SYSTEM_TIME = 0;
+  /** The time since the start of the trajectory. */
+  public static final int TRAJECTORY_TIME = 1;
+  /** The first of the four components of the actual pose. */
+  public static final int ACTUAL_POSE = 2;
+  /** The first of the four components of the actual velocity. */
+  public static final int ACTUAL_VELOCITY = 6;
+  /** The first of the four components of the desired pose. */
+  public static final int DESIRED_POSE = 10;
+  /** The first of the four components of the desired velocity. */
+  public static final int DESIRED_VELOCITY = 14;
+  /** The first of the four components of the velocity response of the controller. */
+  public static final int COMMAND = 18;
+  /** The number of fields of a record. */
+  public static final int NUMBER_OF_FIELDS = 22;
+
+  static final int MAGIC_NUMBER = 0x42534644;
+  static final int VERSION = 1;
+  static final int RECORD_SIZE_IN_BYTES = NUMBER_OF_FIELDS * 8;
+  static final int HEADER_SIZE_IN_BYTES = 64;
+  static final int MAGIC_NUMBER_OFFSET = 0;
+  static final int VERSION_OFFSET = 4;
+  static final int NUMBER_OF_FIELDS_OFFSET = 8;
+  static final int RECORD_SIZE_OFFSET = 12;
+  static final int CAPACITY_OFFSET = 16;
+  static final int NUMBER_OF_RECORDS_OFFSET = 24;
+  static final int NUMBER_OF_DROPPED_RECORDS_OFFSET = 32;
+
+  private static final List<String> FIELD_NAMES = createFieldNames();
+
+  private FlightDataRecord() {}
+
+  /**
+   * Gets the names of the fields, in the order of their indices. These names are used as the
+   * header of the exported CSV files.
+   *
+   * @return the names of the fields
+   */
+  public static List<String> getFieldNames() {
+    return FIELD_NAMES;
+  }
+
+  private static List<String> createFieldNames() {
+    final ImmutableList.Builder<String> fieldNames = ImmutableList.builder();
+    fieldNames.add("system_time", "trajectory_time");
+    for (final String group :
+        ImmutableList.of(
+            "actual_pose", "actual_velocity", "desired_pose", "desired_velocity", "command")) {
+      fieldNames.add(group + "_x", group + "_y", group + "_z", group + "_yaw");
+    }
+    return fieldNames.build();
+  }
+}
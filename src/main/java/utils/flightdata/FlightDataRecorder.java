@@ -0,0 +1,285 @@
+package utils.flightdata;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A recorder of the flight data of one drone. The records are appended to a pre-allocated,
+ * memory-mapped file whose layout is described by {@link FlightDataRecord}.
+ *
+ * <p>Recording does not touch the file: the record is copied into a primitive ring buffer, which is
+ * drained into the file by a writer thread shared by all the recorders. Recording never blocks and
+ * does not allocate any memory. If the ring buffer or the file is full, the record is dropped and
+ * counted. Only one thread may record at a time (e.g., the control loop of the drone), while the
+ * recorder may be closed from any thread. Closing waits for a record which is being queued, so that
+ * every record for which {@link #record(double[])} returns true is written or counted as dropped.
+ */
+public final class FlightDataRecorder implements Closeable {
+
+  private static final int DEFAULT_CAPACITY_IN_RECORDS = 100 * 60 * 30;
+  private static final int DEFAULT_RING_CAPACITY_IN_RECORDS = 1024;
+  private static final long DRAIN_PERIOD_IN_MILLISECONDS = 20;
+  private static final String FILE_EXTENSION = ".fdr";
+
+  private final Path file;
+  private final long capacityInRecords;
+  private final int ringCapacityInRecords;
+  private final double[] ring;
+  private final AtomicLong droppedRecords = new AtomicLong();
+  private final ScheduledFuture<?> drainFuture;
+
+  // written by the recording thread only
+  private volatile long head;
+  // true while a record is being queued, so that close() does not drain before it is published
+  private volatile boolean recording;
+  // written by the writer only
+  private volatile long tail;
+  private volatile boolean closed;
+
+  // only accessed by the writer, which holds the lock of this recorder
+  private final MappedByteBuffer buffer;
+  private long numberOfRecords;
+
+  private FlightDataRecorder(
+      Path file,
+      long capacityInRecords,
+      int ringCapacityInRecords,
+      MappedByteBuffer buffer,
+      ScheduledExecutorService writer) {
+    this.file = file;
+    this.capacityInRecords = capacityInRecords;
+    this.ringCapacityInRecords = ringCapacityInRecords;
+    this.ring = new double[ringCapacityInRecords * FlightDataRecord.NUMBER_OF_FIELDS];
+    this.buffer = buffer;
+    writeHeader();
+
+    drainFuture =
+        writer.scheduleWithFixedDelay(
+            new Runnable() {
+              @Override
+              public void run() {
+                drain();
+              }
+            },
+            DRAIN_PERIOD_IN_MILLISECONDS,
+            DRAIN_PERIOD_IN_MILLISECONDS,
+            TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a recorder writing to a file with the default capacity, which is enough for 30 minutes
+   * of records at 100 Hz. An existing file is overwritten.
+   *
+   * @param file the file to which the records are written
+   * @return a recorder instance
+   * @throws IOException if the file cannot be created or mapped
+   */
+  public static FlightDataRecorder create(Path file) throws IOException {
+    return create(file, DEFAULT_CAPACITY_IN_RECORDS);
+  }
+
+  /**
+   * Creates a recorder writing to a file with the given capacity. An existing file is overwritten.
+   *
+   * @param file the file to which the records are written
+   * @param capacityInRecords the maximum number of records in the file
+   * @return a recorder instance
+   * @throws IOException if the file cannot be created or mapped
+   */
+  public static FlightDataRecorder create(Path file, long capacityInRecords) throws IOException {
+    return create(
+        file, capacityInRecords, DEFAULT_RING_CAPACITY_IN_RECORDS, WriterHolder.INSTANCE);
+  }
+
+  /**
+   * Creates a recorder for a drone in the default directory, which is a directory named after the
+   * start time of the process in {@code ~/logs/flightdata}. The name of the file is the name of the
+   * drone.
+   *
+   * @param droneName the name of the drone
+   * @return a recorder instance
+   * @throws IOException if the file cannot be created or mapped
+   */
+  public static FlightDataRecorder createInDefaultDirectory(String droneName) throws IOException {
+    final Path directory = DefaultDirectoryHolder.INSTANCE;
+    Files.createDirectories(directory);
+    return create(directory.resolve(droneName + FILE_EXTENSION));
+  }
+
+  @VisibleForTesting
+  static FlightDataRecorder create(
+      Path file,
+      long capacityInRecords,
+      int ringCapacityInRecords,
+      ScheduledExecutorService writer)
+      throws IOException {
+    checkArgument(capacityInRecords > 0, "The capacity must be positive.");
+    checkArgument(ringCapacityInRecords > 0, "The ring capacity must be positive.");
+    final long sizeInBytes =
+        FlightDataRecord.HEADER_SIZE_IN_BYTES
+            + capacityInRecords * FlightDataRecord.RECORD_SIZE_IN_BYTES;
+    checkArgument(sizeInBytes <= Integer.MAX_VALUE, "The capacity is too large to be mapped.");
+
+    try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+      randomAccessFile.setLength(0);
+      randomAccessFile.setLength(sizeInBytes);
+      final MappedByteBuffer buffer =
+          randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, sizeInBytes);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      // the mapping stays valid after the file has been closed
+      return new FlightDataRecorder(file, capacityInRecords, ringCapacityInRecords, buffer, writer);
+    }
+  }
+
+  /**
+   * Records the values of a record. The values are copied, so that the array can be reused.
+   *
+   * @param values the values of the record, indexed as described by {@link FlightDataRecord}
+   * @return true if the record has been queued, false if it has been dropped because the recorder
+   *     is closed or full
+   */
+  public boolean record(double[] values) {
+    checkArgument(
+        values.length == FlightDataRecord.NUMBER_OF_FIELDS,
+        "A record must have %s values.",
+        FlightDataRecord.NUMBER_OF_FIELDS);
+    recording = true;
+    try {
+      final long currentHead = head;
+      if (closed || currentHead - tail >= ringCapacityInRecords) {
+        droppedRecords.incrementAndGet();
+        return false;
+      }
+
+      System.arraycopy(
+          values,
+          0,
+          ring,
+          (int) (currentHead % ringCapacityInRecords) * FlightDataRecord.NUMBER_OF_FIELDS,
+          FlightDataRecord.NUMBER_OF_FIELDS);
+      // publishes the record to the writer
+      head = currentHead + 1;
+      return true;
+    } finally {
+      recording = false;
+    }
+  }
+
+  /** Returns the file to which the records are written. */
+  public Path getFile() {
+    return file;
+  }
+
+  /** Returns the number of records which have been dropped so far. */
+  public long getNumberOfDroppedRecords() {
+    return droppedRecords.get();
+  }
+
+  /**
+   * Writes the queued records to the file, flushes the file and stops the recording. A record which
+   * is being queued concurrently is waited for and written. Records which are recorded afterwards
+   * are dropped.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    drainFuture.cancel(false);
+    // a record which has not seen the closed flag is published before the final drain
+    while (recording) {
+      Thread.yield();
+    }
+    synchronized (this) {
+      drain();
+      buffer.force();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized void drain() {
+    final long currentHead = head;
+    long currentTail = tail;
+    while (currentTail != currentHead) {
+      if (numberOfRecords < capacityInRecords) {
+        writeRecord((int) (currentTail % ringCapacityInRecords));
+      } else {
+        droppedRecords.incrementAndGet();
+      }
+      currentTail++;
+    }
+    tail = currentTail;
+
+    buffer.putLong(FlightDataRecord.NUMBER_OF_RECORDS_OFFSET, numberOfRecords);
+    buffer.putLong(FlightDataRecord.NUMBER_OF_DROPPED_RECORDS_OFFSET, droppedRecords.get());
+  }
+
+  private void writeRecord(int ringIndex) {
+    final int ringOffset = ringIndex * FlightDataRecord.NUMBER_OF_FIELDS;
+    final int fileOffset =
+        (int)
+            (FlightDataRecord.HEADER_SIZE_IN_BYTES
+                + numberOfRecords * FlightDataRecord.RECORD_SIZE_IN_BYTES);
+    for (int i = 0; i < FlightDataRecord.NUMBER_OF_FIELDS; i++) {
+      buffer.putDouble(fileOffset + i * 8, ring[ringOffset + i]);
+    }
+    numberOfRecords++;
+  }
+
+  private void writeHeader() {
+    buffer.putInt(FlightDataRecord.MAGIC_NUMBER_OFFSET, FlightDataRecord.MAGIC_NUMBER);
+    buffer.putInt(FlightDataRecord.VERSION_OFFSET, FlightDataRecord.VERSION);
+    buffer.putInt(FlightDataRecord.NUMBER_OF_FIELDS_OFFSET, FlightDataRecord.NUMBER_OF_FIELDS);
+    buffer.putInt(FlightDataRecord.RECORD_SIZE_OFFSET, FlightDataRecord.RECORD_SIZE_IN_BYTES);
+    buffer.putLong(FlightDataRecord.CAPACITY_OFFSET, capacityInRecords);
+    buffer.putLong(FlightDataRecord.NUMBER_OF_RECORDS_OFFSET, 0);
+    buffer.putLong(FlightDataRecord.NUMBER_OF_DROPPED_RECORDS_OFFSET, 0);
+  }
+
+  private static final class WriterHolder {
+    private static final ScheduledExecutorService INSTANCE = createWriter();
+
+    private WriterHolder() {}
+
+    private static ScheduledExecutorService createWriter() {
+      final ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("flight-data-writer-%d")
+                  .setDaemon(true)
+                  .build());
+      // the drains of the closed recorders must not stay in the work queue
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+
+  private static final class DefaultDirectoryHolder {
+    private static final Path INSTANCE =
+        Paths.get(
+            System.getProperty("user.home"),
+            "logs",
+            "flightdata",
+            new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new Date()));
+
+    private DefaultDirectoryHolder() {}
+  }
+}
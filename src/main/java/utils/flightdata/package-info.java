@@ -0,0 +1,8 @@
+/**
+ * This package contains the flight data recorder, which stores the states and responses of the
+ * control loops in binary files, and the classes for reading and exporting those files.
+ */
+@ParametersAreNonnullByDefault
+package utils.flightdata;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -0,0 +1,66 @@
+package utils.math;
+
+/**
+ * The circular mean of the most recent angles of a window. The angles are averaged as unit vectors,
+ * so that the mean of angles on both sides of the wrap at pi is not corrupted by the wrap (e.g., the
+ * mean of 179 and -179 degrees is 180 degrees instead of 0). Adding an angle and getting the mean
+ * take constant time and do not allocate any memory. This class is not thread-safe.
+ */
+public final class CircularRunningAverage {
+
+  private final RunningAverage sines;
+  private final RunningAverage cosines;
+  private final MathMode mathMode;
+
+  private CircularRunningAverage(int windowSize, MathMode mathMode) {
+    this.sines = RunningAverage.create(windowSize);
+    this.cosines = RunningAverage.create(windowSize);
+    this.mathMode = mathMode;
+  }
+
+  /**
+   * Creates an empty circular running average.
+   *
+   * @param windowSize the number of most recent angles to be averaged
+   * @return an empty circular running average
+   */
+  public static CircularRunningAverage create(int windowSize) {
+    return new CircularRunningAverage(windowSize, MathMode.getDefault());
+  }
+
+  /**
+   * Adds an angle, which replaces the oldest angle if the window is full.
+   *
+   * @param angle the new angle in radians
+   */
+  public void add(double angle) {
+    sines.add(mathMode.sin(angle));
+    cosines.add(mathMode.cos(angle));
+  }
+
+  /**
+   * Gets the circular mean of the angles in the window. The mean is in range [-pi, pi], and is zero
+   * if no angle has been added.
+   *
+   * @return the circular mean of the angles in the window
+   */
+  public double getAverage() {
+    return mathMode.atan2(sines.getAverage(), cosines.getAverage());
+  }
+
+  /** Returns the number of angles in the window. */
+  public int getCount() {
+    return sines.getCount();
+  }
+
+  /** Returns whether the window is full. */
+  public boolean isFull() {
+    return sines.isFull();
+  }
+
+  /** Removes all angles. */
+  public void clear() {
+    sines.clear();
+    cosines.clear();
+  }
+}
@@ -0,0 +1,211 @@
+package utils.math;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A Kalman filter of a one-dimensional constant acceleration model, whose state is the position,
+ * the velocity and the acceleration. The acceleration is driven by a white noise jerk. Both the
+ * position and the velocity can be measured. The state and its covariance are kept in fixed-size
+ * primitive arrays, so that predicting and updating do not allocate any memory. This class is not
+ * thread-safe.
+ */
+public final class ConstantAccelerationKalmanFilter {
+
+  private static final int POSITION = 0;
+  private static final int VELOCITY = 1;
+  private static final int ACCELERATION = 2;
+  private static final int SIZE = 3;
+
+  private final double jerkSpectralDensity;
+  private final double[] state = new double[SIZE];
+  // row-major and symmetric
+  private final double[] covariance = new double[SIZE * SIZE];
+  private final double[] gain = new double[SIZE];
+  private final double[] measuredRow = new double[SIZE];
+
+  private ConstantAccelerationKalmanFilter(double jerkSpectralDensity) {
+    checkArgument(jerkSpectralDensity > 0, "The jerk spectral density must be positive.");
+    this.jerkSpectralDensity = jerkSpectralDensity;
+  }
+
+  /**
+   * Creates a filter. The filter must be initialized with {@link #reset(double, double, double,
+   * double)} before it is used.
+   *
+   * @param jerkSpectralDensity the spectral density of the white noise jerk, which is the process
+   *     noise of the model
+   * @return a filter
+   */
+  public static ConstantAccelerationKalmanFilter create(double jerkSpectralDensity) {
+    return new ConstantAccelerationKalmanFilter(jerkSpectralDensity);
+  }
+
+  /**
+   * Initializes the state with a known position and a zero velocity and acceleration.
+   *
+   * @param position the initial position
+   * @param positionVariance the variance of the initial position
+   * @param velocityVariance the variance of the initial (zero) velocity
+   * @param accelerationVariance the variance of the initial (zero) acceleration
+   */
+  public void reset(
+      double position,
+      double positionVariance,
+      double velocityVariance,
+      double accelerationVariance) {
+    state[POSITION] = position;
+    state[VELOCITY] = 0;
+    state[ACCELERATION] = 0;
+    for (int i = 0; i < SIZE * SIZE; i++) {
+      covariance[i] = 0;
+    }
+    covariance[index(POSITION, POSITION)] = positionVariance;
+    covariance[index(VELOCITY, VELOCITY)] = velocityVariance;
+    covariance[index(ACCELERATION, ACCELERATION)] = accelerationVariance;
+  }
+
+  /**
+   * Predicts the state forward in time.
+   *
+   * @param timeDeltaInSeconds the time since the last prediction or update, must not be negative
+   */
+  public void predict(double timeDeltaInSeconds) {
+    checkArgument(timeDeltaInSeconds >= 0, "The time delta must not be negative.");
+    final double dt = timeDeltaInSeconds;
+    final double halfDt2 = dt * dt / 2;
+
+    state[POSITION] += state[VELOCITY] * dt + state[ACCELERATION] * halfDt2;
+    state[VELOCITY] += state[ACCELERATION] * dt;
+
+    final double p00 = covariance[index(POSITION, POSITION)];
+    final double p01 = covariance[index(POSITION, VELOCITY)];
+    final double p02 = covariance[index(POSITION, ACCELERATION)];
+    final double p11 = covariance[index(VELOCITY, VELOCITY)];
+    final double p12 = covariance[index(VELOCITY, ACCELERATION)];
+    final double p22 = covariance[index(ACCELERATION, ACCELERATION)];
+
+    // the rows of F * P, where F is the state transition matrix
+    final double fp00 = p00 + dt * p01 + halfDt2 * p02;
+    final double fp01 = p01 + dt * p11 + halfDt2 * p12;
+    final double fp02 = p02 + dt * p12 + halfDt2 * p22;
+    final double fp11 = p11 + dt * p12;
+    final double fp12 = p12 + dt * p22;
+
+    // F * P * F^T + Q, where Q is the discretized white noise jerk
+    final double q = jerkSpectralDensity;
+    final double dt2 = dt * dt;
+    final double dt3 = dt2 * dt;
+    setSymmetric(POSITION, POSITION, fp00 + dt * fp01 + halfDt2 * fp02 + q * dt3 * dt2 / 20);
+    setSymmetric(POSITION, VELOCITY, fp01 + dt * fp02 + q * dt2 * dt2 / 8);
+    setSymmetric(POSITION, ACCELERATION, fp02 + q * dt3 / 6);
+    setSymmetric(VELOCITY, VELOCITY, fp11 + dt * fp12 + q * dt3 / 3);
+    setSymmetric(VELOCITY, ACCELERATION, fp12 + q * dt2 / 2);
+    setSymmetric(ACCELERATION, ACCELERATION, p22 + q * dt);
+  }
+
+  /**
+   * Updates the state with a measured position.
+   *
+   * @param measuredPosition the measured position
+   * @param variance the variance of the measurement
+   */
+  public void updatePosition(double measuredPosition, double variance) {
+    update(POSITION, measuredPosition, variance);
+  }
+
+  /**
+   * Updates the state with a measured velocity.
+   *
+   * @param measuredVelocity the measured velocity
+   * @param variance the variance of the measurement
+   */
+  public void updateVelocity(double measuredVelocity, double variance) {
+    update(VELOCITY, measuredVelocity, variance);
+  }
+
+  /** Returns the estimated position. */
+  public double getPosition() {
+    return state[POSITION];
+  }
+
+  /**
+   * Sets the estimated position without changing its uncertainty, e.g., to wrap an angle.
+   *
+   * @param position the new position
+   */
+  public void setPosition(double position) {
+    state[POSITION] = position;
+  }
+
+  /** Returns the estimated velocity. */
+  public double getVelocity() {
+    return state[VELOCITY];
+  }
+
+  /** Returns the estimated acceleration. */
+  public double getAcceleration() {
+    return state[ACCELERATION];
+  }
+
+  /** Returns the variance of the estimated position. */
+  public double getPositionVariance() {
+    return covariance[index(POSITION, POSITION)];
+  }
+
+  /** Returns the variance of the estimated velocity. */
+  public double getVelocityVariance() {
+    return covariance[index(VELOCITY, VELOCITY)];
+  }
+
+  /**
+   * Extrapolates the position without changing the state of the filter.
+   *
+   * @param timeDeltaInSeconds the time after the last prediction or update
+   * @return the extrapolated position
+   */
+  public double extrapolatePosition(double timeDeltaInSeconds) {
+    final double dt = timeDeltaInSeconds;
+    return state[POSITION] + state[VELOCITY] * dt + state[ACCELERATION] * dt * dt / 2;
+  }
+
+  /**
+   * Extrapolates the velocity without changing the state of the filter.
+   *
+   * @param timeDeltaInSeconds the time after the last prediction or update
+   * @return the extrapolated velocity
+   */
+  public double extrapolateVelocity(double timeDeltaInSeconds) {
+    return state[VELOCITY] + state[ACCELERATION] * timeDeltaInSeconds;
+  }
+
+  private void update(int measuredIndex, double measurement, double variance) {
+    checkArgument(variance > 0, "The variance of the measurement must be positive.");
+    final double innovation = measurement - state[measuredIndex];
+    final double innovationVariance = covariance[index(measuredIndex, measuredIndex)] + variance;
+
+    for (int i = 0; i < SIZE; i++) {
+      measuredRow[i] = covariance[index(measuredIndex, i)];
+      gain[i] = measuredRow[i] / innovationVariance;
+    }
+
+    for (int i = 0; i < SIZE; i++) {
+      state[i] += gain[i] * innovation;
+    }
+
+    // P = P - K * H * P, where H * P is the measured row of P
+    for (int i = 0; i < SIZE; i++) {
+      for (int j = i; j < SIZE; j++) {
+        setSymmetric(i, j, covariance[index(i, j)] - gain[i] * measuredRow[j]);
+      }
+    }
+  }
+
+  private void setSymmetric(int row, int column, double value) {
+    covariance[index(row, column)] = value;
+    covariance[index(column, row)] = value;
+  }
+
+  private static int index(int row, int column) {
+    return row * SIZE + column;
+  }
+}
@@ -0,0 +1,84 @@
+package utils.math;
+
+/**
+ * The implementation of the trigonometric functions used by the transformations of this package.
+ * {@link #STRICT} uses {@link StrictMath}, whose results are bit-for-bit reproducible on all
+ * platforms. {@link #FAST} uses {@link Math}, which the JVM may replace by faster intrinsics, at the
+ * cost of results which may differ in the last bits between platforms.
+ *
+ * <p>The default mode is {@link #STRICT}. It can be switched to {@link #FAST} by setting the system
+ * property {@value #FAST_MATH_PROPERTY} to {@code true}.
+ */
+public enum MathMode {
+  STRICT {
+    @Override
+    public double sin(double angle) {
+      return StrictMath.sin(angle);
+    }
+
+    @Override
+    public double cos(double angle) {
+      return StrictMath.cos(angle);
+    }
+
+    @Override
+    public double asin(double value) {
+      return StrictMath.asin(value);
+    }
+
+    @Override
+    public double atan2(double y, double x) {
+      return StrictMath.atan2(y, x);
+    }
+  },
+
+  FAST {
+    @Override
+    public double sin(double angle) {
+      return Math.sin(angle);
+    }
+
+    @Override
+    public double cos(double angle) {
+      return Math.cos(angle);
+    }
+
+    @Override
+    public double asin(double value) {
+      return Math.asin(value);
+    }
+
+    @Override
+    public double atan2(double y, double x) {
+      return Math.atan2(y, x);
+    }
+  };
+
+  /** The system property which enables the fast math mode by default. */
+  public static final String FAST_MATH_PROPERTY = "utils.math.fastMath";
+
+  private static final MathMode DEFAULT_MODE =
+      Boolean.getBoolean(FAST_MATH_PROPERTY) ? FAST : STRICT;
+
+  /**
+   * Gets the mode used by {@link Transformations} and by {@link RotationMatrix3d} when no mode is
+   * given explicitly.
+   *
+   * @return the default math mode
+   */
+  public static MathMode getDefault() {
+    return DEFAULT_MODE;
+  }
+
+  /** Returns the trigonometric sine of an angle. */
+  public abstract double sin(double angle);
+
+  /** Returns the trigonometric cosine of an angle. */
+  public abstract double cos(double angle);
+
+  /** Returns the arc sine of a value. */
+  public abstract double asin(double value);
+
+  /** Returns the angle theta of the conversion of the rectangular coordinates (x, y) to polar. */
+  public abstract double atan2(double y, double x);
+}
@@ -0,0 +1,245 @@
+package utils.math;
+
+import applications.trajectory.geom.point.Point3D;
+
+/**
+ * An immutable 3x3 rotation matrix operating on primitive values. Applying the matrix to a vector
+ * does not allocate any object when the primitive methods ({@link #applyX(double, double, double)},
+ * {@link #applyY(double, double, double)}, {@link #applyZ(double, double, double)}) are used, so a
+ * rotation with constant angles should be created once and reused.
+ * @see <a href="https://en.wikipedia.org/wiki/Rotation_matrix">Rotation matrix</a>
+ */
+public final class RotationMatrix3d {
+
+  private static final RotationMatrix3d IDENTITY = new RotationMatrix3d(1, 0, 0, 0, 1, 0, 0, 0, 1);
+
+  private final double m00;
+  private final double m01;
+  private final double m02;
+  private final double m10;
+  private final double m11;
+  private final double m12;
+  private final double m20;
+  private final double m21;
+  private final double m22;
+
+  private RotationMatrix3d(
+      double m00,
+      double m01,
+      double m02,
+      double m10,
+      double m11,
+      double m12,
+      double m20,
+      double m21,
+      double m22) {
+    this.m00 = m00;
+    this.m01 = m01;
+    this.m02 = m02;
+    this.m10 = m10;
+    this.m11 = m11;
+    this.m12 = m12;
+    this.m20 = m20;
+    this.m21 = m21;
+    this.m22 = m22;
+  }
+
+  /** Returns the identity rotation. */
+  public static RotationMatrix3d identity() {
+    return IDENTITY;
+  }
+
+  /**
+   * Creates the matrix of an extrinsic Euler rotation, using the default {@link MathMode}.
+   *
+   * @param rotationAngleX the rotation angle about the x-axis according to the right hand rule
+   * @param rotationAngleY the rotation angle about the y-axis according to the right hand rule
+   * @param rotationAngleZ the rotation angle about the z-axis according to the right hand rule
+   * @param rotationOrder the rotation order of the transform
+   * @return the rotation matrix
+   */
+  public static RotationMatrix3d create(
+      double rotationAngleX,
+      double rotationAngleY,
+      double rotationAngleZ,
+      RotationOrder rotationOrder) {
+    return create(
+        rotationAngleX, rotationAngleY, rotationAngleZ, rotationOrder, MathMode.getDefault());
+  }
+
+  /**
+   * Creates the matrix of an extrinsic Euler rotation.
+   *
+   * @param rotationAngleX the rotation angle about the x-axis according to the right hand rule
+   * @param rotationAngleY the rotation angle about the y-axis according to the right hand rule
+   * @param rotationAngleZ the rotation angle about the z-axis according to the right hand rule
+   * @param rotationOrder the rotation order of the transform
+   * @param mathMode the implementation of the trigonometric functions
+   * @return the rotation matrix
+   */
+  public static RotationMatrix3d create(
+      double rotationAngleX,
+      double rotationAngleY,
+      double rotationAngleZ,
+      RotationOrder rotationOrder,
+      MathMode mathMode) {
+    return rotationOrder.compose(
+        aroundX(rotationAngleX, mathMode),
+        aroundY(rotationAngleY, mathMode),
+        aroundZ(rotationAngleZ, mathMode));
+  }
+
+  /**
+   * Creates the matrix which reverses an extrinsic Euler rotation, i.e., the inverse of {@link
+   * #create(double, double, double, RotationOrder)}, using the default {@link MathMode}.
+   *
+   * @param rotationAngleX the initial rotation angle about the x-axis
+   * @param rotationAngleY the initial rotation angle about the y-axis
+   * @param rotationAngleZ the initial rotation angle about the z-axis
+   * @param initialRotationOrder the initial rotation order
+   * @return the inverse rotation matrix
+   */
+  public static RotationMatrix3d createReverse(
+      double rotationAngleX,
+      double rotationAngleY,
+      double rotationAngleZ,
+      RotationOrder initialRotationOrder) {
+    // the inverse of a rotation matrix is its transpose
+    return create(rotationAngleX, rotationAngleY, rotationAngleZ, initialRotationOrder).transpose();
+  }
+
+  /**
+   * Creates the rotation matrix of a unit quaternion.
+   *
+   * @param w the scalar component of the quaternion
+   * @param x the x component of the quaternion
+   * @param y the y component of the quaternion
+   * @param z the z component of the quaternion
+   * @return the rotation matrix
+   * @see <a
+   *     href="https://en.wikipedia.org/wiki/Quaternions_and_spatial_rotation#Quaternion-derived_rotation_matrix">Equations</a>
+   */
+  public static RotationMatrix3d fromQuaternion(double w, double x, double y, double z) {
+    return new RotationMatrix3d(
+        1 - 2 * (y * y + z * z),
+        2 * (x * y - z * w),
+        2 * (x * z + y * w),
+        2 * (x * y + z * w),
+        1 - 2 * (x * x + z * z),
+        2 * (y * z - x * w),
+        2 * (x * z - y * w),
+        2 * (y * z + x * w),
+        1 - 2 * (x * x + y * y));
+  }
+
+  static RotationMatrix3d aroundX(double rotationAngle, MathMode mathMode) {
+    final double sinX = mathMode.sin(rotationAngle);
+    final double cosX = mathMode.cos(rotationAngle);
+    return new RotationMatrix3d(1, 0, 0, 0, cosX, -sinX, 0, sinX, cosX);
+  }
+
+  static RotationMatrix3d aroundY(double rotationAngle, MathMode mathMode) {
+    final double sinY = mathMode.sin(rotationAngle);
+    final double cosY = mathMode.cos(rotationAngle);
+    return new RotationMatrix3d(cosY, 0, sinY, 0, 1, 0, -sinY, 0, cosY);
+  }
+
+  static RotationMatrix3d aroundZ(double rotationAngle, MathMode mathMode) {
+    final double sinZ = mathMode.sin(rotationAngle);
+    final double cosZ = mathMode.cos(rotationAngle);
+    return new RotationMatrix3d(cosZ, -sinZ, 0, sinZ, cosZ, 0, 0, 0, 1);
+  }
+
+  /**
+   * Multiplies this matrix with another matrix. The resulting rotation applies {@code other} first
+   * and then this rotation.
+   *
+   * @param other the right hand side of the multiplication
+   * @return the product of the two matrices
+   */
+  public RotationMatrix3d multiply(RotationMatrix3d other) {
+    return new RotationMatrix3d(
+        m00 * other.m00 + m01 * other.m10 + m02 * other.m20,
+        m00 * other.m01 + m01 * other.m11 + m02 * other.m21,
+        m00 * other.m02 + m01 * other.m12 + m02 * other.m22,
+        m10 * other.m00 + m11 * other.m10 + m12 * other.m20,
+        m10 * other.m01 + m11 * other.m11 + m12 * other.m21,
+        m10 * other.m02 + m11 * other.m12 + m12 * other.m22,
+        m20 * other.m00 + m21 * other.m10 + m22 * other.m20,
+        m20 * other.m01 + m21 * other.m11 + m22 * other.m21,
+        m20 * other.m02 + m21 * other.m12 + m22 * other.m22);
+  }
+
+  /** Returns the transpose of this matrix, which is also the inverse rotation. */
+  public RotationMatrix3d transpose() {
+    return new RotationMatrix3d(m00, m10, m20, m01, m11, m21, m02, m12, m22);
+  }
+
+  /** Returns the x component of the vector (x, y, z) after the rotation. */
+  public double applyX(double x, double y, double z) {
+    return m00 * x + m01 * y + m02 * z;
+  }
+
+  /** Returns the y component of the vector (x, y, z) after the rotation. */
+  public double applyY(double x, double y, double z) {
+    return m10 * x + m11 * y + m12 * z;
+  }
+
+  /** Returns the z component of the vector (x, y, z) after the rotation. */
+  public double applyZ(double x, double y, double z) {
+    return m20 * x + m21 * y + m22 * z;
+  }
+
+  /**
+   * Rotates a point.
+   *
+   * @param point the point to be rotated
+   * @return a new point representing the rotated point
+   */
+  public Point3D apply(Point3D point) {
+    final double x = point.getX();
+    final double y = point.getY();
+    final double z = point.getZ();
+    return Point3D.create(applyX(x, y, z), applyY(x, y, z), applyZ(x, y, z));
+  }
+
+  /**
+   * Gets an element of this matrix.
+   *
+   * @param row the row of the element, between 0 and 2
+   * @param column the column of the element, between 0 and 2
+   * @return the value of the element
+   */
+  public double get(int row, int column) {
+    final int index = row * 3 + column;
+    switch (index) {
+      case 0:
+        return m00;
+      case 1:
+        return m01;
+      case 2:
+        return m02;
+      case 3:
+        return m10;
+      case 4:
+        return m11;
+      case 5:
+        return m12;
+      case 6:
+        return m20;
+      case 7:
+        return m21;
+      case 8:
+        return m22;
+      default:
+        throw new IndexOutOfBoundsException("The row and the column must be between 0 and 2.");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "RotationMatrix3d{[%s, %s, %s], [%s, %s, %s], [%s, %s, %s]}",
+        m00, m01, m02, m10, m11, m12, m20, m21, m22);
+  }
+}
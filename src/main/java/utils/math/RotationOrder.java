@@ -1,36 +1,29 @@
 package utils.math;
 
-import org.ejml.simple.SimpleMatrix;
-
 /** @author Hoang Tung Dinh */
 public enum RotationOrder {
   XYZ {
     @Override
-    SimpleMatrix get3dRotationMatrix(
-        SimpleMatrix rotationMatrixX, SimpleMatrix rotationMatrixY, SimpleMatrix rotationMatrixZ) {
-      return rotationMatrixZ.mult(rotationMatrixY).mult(rotationMatrixX);
+    RotationMatrix3d compose(
+        RotationMatrix3d rotationMatrixX,
+        RotationMatrix3d rotationMatrixY,
+        RotationMatrix3d rotationMatrixZ) {
+      return rotationMatrixZ.multiply(rotationMatrixY).multiply(rotationMatrixX);
     }
   },
 
   ZYX {
     @Override
-    SimpleMatrix get3dRotationMatrix(
-        SimpleMatrix rotationMatrixX, SimpleMatrix rotationMatrixY, SimpleMatrix rotationMatrixZ) {
-      return rotationMatrixX.mult(rotationMatrixY).mult(rotationMatrixZ);
+    RotationMatrix3d compose(
+        RotationMatrix3d rotationMatrixX,
+        RotationMatrix3d rotationMatrixY,
+        RotationMatrix3d rotationMatrixZ) {
+      return rotationMatrixX.multiply(rotationMatrixY).multiply(rotationMatrixZ);
     }
   };
 
-  abstract SimpleMatrix get3dRotationMatrix(
-      SimpleMatrix rotationMatrixX, SimpleMatrix rotationMatrixY, SimpleMatrix rotationMatrixZ);
-
-  RotationOrder getInverseOrder() {
-    switch (this) {
-      case XYZ:
-        return ZYX;
-      case ZYX:
-        return XYZ;
-      default:
-        throw new IllegalStateException("The inverse is not defined for the input order.");
-    }
-  }
+  abstract RotationMatrix3d compose(
+      RotationMatrix3d rotationMatrixX,
+      RotationMatrix3d rotationMatrixY,
+      RotationMatrix3d rotationMatrixZ);
 }
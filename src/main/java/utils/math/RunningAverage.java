@@ -0,0 +1,84 @@
+package utils.math;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The average of the most recent values of a window. The values are kept in a primitive ring
+ * buffer together with their running sum, so that adding a value and getting the average take
+ * constant time and do not allocate any memory, whatever the size of the window. The sum is
+ * recomputed from the buffer whenever the buffer wraps around, so that rounding errors do not
+ * accumulate. This class is not thread-safe.
+ */
+public final class RunningAverage {
+
+  private final double[] values;
+  private int nextIndex;
+  private int count;
+  private double sum;
+
+  private RunningAverage(int windowSize) {
+    checkArgument(windowSize >= 1, "The window size must be at least one.");
+    values = new double[windowSize];
+  }
+
+  /**
+   * Creates an empty running average.
+   *
+   * @param windowSize the number of most recent values to be averaged
+   * @return an empty running average
+   */
+  public static RunningAverage create(int windowSize) {
+    return new RunningAverage(windowSize);
+  }
+
+  /**
+   * Adds a value, which replaces the oldest value if the window is full.
+   *
+   * @param value the new value
+   */
+  public void add(double value) {
+    if (count == values.length) {
+      sum -= values[nextIndex];
+    } else {
+      count++;
+    }
+    values[nextIndex] = value;
+    sum += value;
+    nextIndex++;
+
+    if (nextIndex == values.length) {
+      nextIndex = 0;
+      recomputeSum();
+    }
+  }
+
+  /** Returns the average of the values in the window, or zero if no value has been added. */
+  public double getAverage() {
+    return count == 0 ? 0 : sum / count;
+  }
+
+  /** Returns the number of values in the window. */
+  public int getCount() {
+    return count;
+  }
+
+  /** Returns whether the window is full. */
+  public boolean isFull() {
+    return count == values.length;
+  }
+
+  /** Removes all values. */
+  public void clear() {
+    nextIndex = 0;
+    count = 0;
+    sum = 0;
+  }
+
+  private void recomputeSum() {
+    double exactSum = 0;
+    for (int i = 0; i < count; i++) {
+      exactSum += values[i];
+    }
+    sum = exactSum;
+  }
+}
@@ -7,7 +7,6 @@ import control.dto.InertialFrameVelocity;
 import control.dto.Pose;
 import control.dto.Velocity;
 import geometry_msgs.Quaternion;
-import org.ejml.simple.SimpleMatrix;
 
 /** @author Hoang Tung Dinh */
 public final class Transformations {
@@ -23,14 +22,25 @@ public final class Transformations {
    *     href="https://en.wikipedia.org/wiki/Conversion_between_quaternions_and_Euler_angles">Equations</a>
    */
   public static EulerAngle quaternionToEulerAngle(Quaternion quaternion) {
-    final double q0 = quaternion.getW();
-    final double q1 = quaternion.getX();
-    final double q2 = quaternion.getY();
-    final double q3 = quaternion.getZ();
+    return quaternionToEulerAngle(
+        quaternion.getW(), quaternion.getX(), quaternion.getY(), quaternion.getZ());
+  }
 
-    final double eulerX = StrictMath.atan2(2 * (q0 * q1 + q2 * q3), 1 - 2 * (q1 * q1 + q2 * q2));
-    final double eulerY = StrictMath.asin(2 * (q0 * q2 - q3 * q1));
-    final double eulerZ = StrictMath.atan2(2 * (q0 * q3 + q1 * q2), 1 - 2 * (q2 * q2 + q3 * q3));
+  /**
+   * Compute euler angle from the components of a quaternion angle. The resulting angles are always
+   * in range [-pi, pi]
+   *
+   * @param q0 the w component of the quaternion
+   * @param q1 the x component of the quaternion
+   * @param q2 the y component of the quaternion
+   * @param q3 the z component of the quaternion
+   * @return the angle in euler representation.
+   */
+  public static EulerAngle quaternionToEulerAngle(double q0, double q1, double q2, double q3) {
+    final MathMode mathMode = MathMode.getDefault();
+    final double eulerX = mathMode.atan2(2 * (q0 * q1 + q2 * q3), 1 - 2 * (q1 * q1 + q2 * q2));
+    final double eulerY = mathMode.asin(2 * (q0 * q2 - q3 * q1));
+    final double eulerZ = mathMode.atan2(2 * (q0 * q3 + q1 * q2), 1 - 2 * (q2 * q2 + q3 * q3));
 
     return EulerAngle.builder().setAngleX(eulerX).setAngleY(eulerY).setAngleZ(eulerZ).build();
   }
@@ -50,8 +60,8 @@ public final class Transformations {
     final double angularZ = inertialFrameVelocity.angularZ();
 
     final double theta = -pose.yaw();
-    final double sin = StrictMath.sin(theta);
-    final double cos = StrictMath.cos(theta);
+    final double sin = MathMode.getDefault().sin(theta);
+    final double cos = MathMode.getDefault().cos(theta);
 
     final double linearX =
         inertialFrameVelocity.linearX() * cos - inertialFrameVelocity.linearY() * sin;
@@ -82,8 +92,8 @@ public final class Transformations {
 
     final double theta = pose.yaw();
 
-    final double sin = StrictMath.sin(theta);
-    final double cos = StrictMath.cos(theta);
+    final double sin = MathMode.getDefault().sin(theta);
+    final double cos = MathMode.getDefault().cos(theta);
 
     final double linearX = bodyFrameVelocity.linearX() * cos - bodyFrameVelocity.linearY() * sin;
     final double linearY = bodyFrameVelocity.linearX() * sin + bodyFrameVelocity.linearY() * cos;
@@ -143,24 +153,9 @@ public final class Transformations {
       double rotationAngleY,
       double rotationAngleZ,
       RotationOrder rotationOrder) {
-    // This method invokes some matrix multiplications and it could be a computational
-    // bottleneck. Currently,
-    // three rotation matrices are computed separately and then multiplied all together after
-    // that. This allows
-    // the rotation order to be changed later. However, if the rotation order is decided and
-    // fixed, all matrix
-    // multiplications can be hardcoded manually, which can improve the computational
-    // efficiency.
-    final SimpleMatrix rotationMatrixX = getRotationMatrixX(rotationAngleX);
-    final SimpleMatrix rotationMatrixY = getRotationMatrixY(rotationAngleY);
-    final SimpleMatrix rotationMatrixZ = getRotationMatrixZ(rotationAngleZ);
-
-    final SimpleMatrix rotationMatrix =
-        rotationOrder.get3dRotationMatrix(rotationMatrixX, rotationMatrixY, rotationMatrixZ);
-    final SimpleMatrix originalPoint =
-        new SimpleMatrix(new double[][] {{point.getX()}, {point.getY()}, {point.getZ()}});
-    final SimpleMatrix rotatedPoint = rotationMatrix.mult(originalPoint);
-    return Point3D.create(rotatedPoint.get(0, 0), rotatedPoint.get(1, 0), rotatedPoint.get(2, 0));
+    // the matrix is computed for each call, use a RotationMatrix3d directly for constant angles
+    return RotationMatrix3d.create(rotationAngleX, rotationAngleY, rotationAngleZ, rotationOrder)
+        .apply(point);
   }
 
   /**
@@ -181,29 +176,8 @@ public final class Transformations {
       double rotationAngleY,
       double rotationAngleZ,
       RotationOrder initialRotationOrder) {
-    return rotate(
-        rotatedPoint,
-        -rotationAngleX,
-        -rotationAngleY,
-        -rotationAngleZ,
-        initialRotationOrder.getInverseOrder());
-  }
-
-  private static SimpleMatrix getRotationMatrixZ(double rotationAngle) {
-    final double sinZ = StrictMath.sin(rotationAngle);
-    final double cosZ = StrictMath.cos(rotationAngle);
-    return new SimpleMatrix(new double[][] {{cosZ, -sinZ, 0}, {sinZ, cosZ, 0}, {0, 0, 1}});
-  }
-
-  private static SimpleMatrix getRotationMatrixY(double rotationAngle) {
-    final double sinY = StrictMath.sin(rotationAngle);
-    final double cosY = StrictMath.cos(rotationAngle);
-    return new SimpleMatrix(new double[][] {{cosY, 0, sinY}, {0, 1, 0}, {-sinY, 0, cosY}});
-  }
-
-  private static SimpleMatrix getRotationMatrixX(double rotationAngle) {
-    final double sinX = StrictMath.sin(rotationAngle);
-    final double cosX = StrictMath.cos(rotationAngle);
-    return new SimpleMatrix(new double[][] {{1, 0, 0}, {0, cosX, -sinX}, {0, sinX, cosX}});
+    return RotationMatrix3d.createReverse(
+            rotationAngleX, rotationAngleY, rotationAngleZ, initialRotationOrder)
+        .apply(rotatedPoint);
   }
 }
@@ -0,0 +1,135 @@
+package utils.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A histogram of durations in nanoseconds. The values are counted in logarithmic buckets, each power
+ * of two being split into eight linear sub-buckets, so that percentiles are reported with a
+ * relative error of at most 12.5%. Recording a value does not allocate any memory.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int NUMBER_OF_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private final long[] bucketCounts = new long[NUMBER_OF_BUCKETS];
+  private long count;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max;
+
+  private LatencyHistogram() {}
+
+  /**
+   * Creates an empty histogram.
+   *
+   * @return an empty histogram
+   */
+  public static LatencyHistogram create() {
+    return new LatencyHistogram();
+  }
+
+  /**
+   * Records a duration. Negative durations are recorded as zero.
+   *
+   * @param valueInNanoSeconds the duration in nanoseconds
+   */
+  public synchronized void record(long valueInNanoSeconds) {
+    final long value = Math.max(0, valueInNanoSeconds);
+    bucketCounts[bucketIndex(value)]++;
+    count++;
+    sum += value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /** Returns the number of recorded values. */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /** Returns the smallest recorded value, or zero if no value has been recorded. */
+  public synchronized long getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  /** Returns the largest recorded value, or zero if no value has been recorded. */
+  public synchronized long getMax() {
+    return max;
+  }
+
+  /** Returns the mean of the recorded values, or zero if no value has been recorded. */
+  public synchronized double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * Gets an upper bound of the given percentile of the recorded values.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the upper bound of the bucket containing the percentile, or zero if no value has been
+   *     recorded
+   */
+  public synchronized long getPercentile(double percentile) {
+    checkArgument(
+        percentile >= 0 && percentile <= 100, "The percentile must be between 0 and 100.");
+    if (count == 0) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long accumulatedCount = 0;
+    for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+      accumulatedCount += bucketCounts[i];
+      if (accumulatedCount >= rank) {
+        return Math.min(max, bucketUpperBound(i));
+      }
+    }
+
+    return max;
+  }
+
+  /** Removes all recorded values. */
+  public synchronized void reset() {
+    for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+      bucketCounts[i] = 0;
+    }
+    count = 0;
+    sum = 0;
+    min = Long.MAX_VALUE;
+    max = 0;
+  }
+
+  private static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  private static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    final int subBucket = index % SUB_BUCKET_COUNT;
+    final long upperBound =
+        ((long) (SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    // the last bucket would overflow
+    return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format(
+        "count=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, max=%.3fms",
+        count,
+        getMean() / 1.0e6,
+        getPercentile(50) / 1.0e6,
+        getPercentile(99) / 1.0e6,
+        max / 1.0e6);
+  }
+}
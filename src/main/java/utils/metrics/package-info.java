@@ -0,0 +1,7 @@
+/**
+ * This package contains classes for collecting runtime metrics.
+ */
+@ParametersAreNonnullByDefault
+package utils.metrics;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -0,0 +1,378 @@
+package applications.cratessim;
+
+import applications.swarm.SwarmRuntime;
+import applications.trajectory.MultiTrajectoryServer;
+import applications.trajectory.Trajectories;
+import applications.trajectory.TrajectoryServer;
+import applications.trajectory.geom.point.Point4D;
+import choreo.Choreography;
+import control.FiniteTrajectory4d;
+import hal_quadrotor.LandRequest;
+import hal_quadrotor.LandResponse;
+import hal_quadrotor.State;
+import hal_quadrotor.TakeoffRequest;
+import hal_quadrotor.TakeoffResponse;
+import hal_quadrotor.VelocityRequest;
+import hal_quadrotor.VelocityResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.ros.message.MessageListener;
+import org.ros.message.Time;
+import org.ros.exception.ServiceNotFoundException;
+import org.ros.node.ConnectedNode;
+import org.ros.node.service.ServiceClient;
+import org.ros.node.service.ServiceResponseListener;
+import org.ros.node.topic.Subscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link CratesSwarmMemberFactory}. The Crates simulator is replaced by mocked services
+ * and state topics of drones which follow the received commands exactly.
+ */
+public class CratesSwarmMemberFactoryTest {
+
+  private static final int NUMBER_OF_DRONES = 4;
+  private static final String MODEL_NAME = "arducopter";
+  private static final long SIMULATION_STEP_IN_MILLISECONDS = 10;
+
+  private ConnectedNode connectedNode;
+  private List<FakeCratesDrone> drones;
+  private ScheduledExecutorService simulator;
+  private SwarmRuntime swarmRuntime;
+
+  @Before
+  public void setUp() throws ServiceNotFoundException {
+    connectedNode = mock(ConnectedNode.class);
+    when(connectedNode.getCurrentTime())
+        .thenAnswer(
+            new Answer<Time>() {
+              @Override
+              public Time answer(InvocationOnMock invocation) {
+                return Time.fromMillis(System.currentTimeMillis());
+              }
+            });
+
+    drones = new ArrayList<>();
+    final List<String> droneNames = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+      final String droneName = "UAV" + i;
+      final FakeCratesDrone drone = new FakeCratesDrone(i);
+      drone.connectTo(connectedNode, "/hal/quadrotor/" + MODEL_NAME + "/" + droneName + "/");
+      drones.add(drone);
+      droneNames.add(droneName);
+    }
+
+    simulator = Executors.newSingleThreadScheduledExecutor();
+    simulator.scheduleAtFixedRate(
+        new Runnable() {
+          @Override
+          public void run() {
+            for (final FakeCratesDrone drone : drones) {
+              drone.step(SIMULATION_STEP_IN_MILLISECONDS / 1000.0);
+            }
+          }
+        },
+        0,
+        SIMULATION_STEP_IN_MILLISECONDS,
+        TimeUnit.MILLISECONDS);
+
+    swarmRuntime =
+        SwarmRuntime.builder()
+            .withMultiTrajectoryServer(
+                new MultiTrajectoryServer() {
+                  @Override
+                  public List<TrajectoryServer> getAllDifferentTrajectories() {
+                    final List<TrajectoryServer> trajectoryServers = new ArrayList<>();
+                    for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+                      trajectoryServers.add(createTrajectoryServer(i));
+                    }
+                    return trajectoryServers;
+                  }
+                })
+            .withSwarmMemberFactory(
+                CratesSwarmMemberFactory.create(connectedNode, MODEL_NAME, droneNames))
+            .build();
+  }
+
+  @After
+  public void tearDown() {
+    swarmRuntime.shutdown();
+    simulator.shutdownNow();
+  }
+
+  @Test
+  public void testSwarmOfCratesDronesFliesAndLands() throws InterruptedException {
+    swarmRuntime.start();
+
+    assertThat(swarmRuntime.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(swarmRuntime.getFailedDroneNames()).isEmpty();
+    for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+      final FakeCratesDrone drone = drones.get(i);
+      synchronized (drone) {
+        assertThat(drone.controller).isEqualTo("Idle");
+        assertThat(drone.x).isWithin(0.2).of(i + 1);
+        assertThat(drone.y).isWithin(0.2).of(0);
+        assertThat(drone.z).isWithin(1.0e-9).of(0);
+      }
+    }
+  }
+
+  @Test
+  public void testStateTopicIsSubscribedOncePerDrone() throws InterruptedException {
+    swarmRuntime.start();
+
+    assertThat(swarmRuntime.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    verify(connectedNode, times(NUMBER_OF_DRONES)).newSubscriber(anyString(), anyString());
+  }
+
+  /**
+   * Creates a trajectory which starts above (i, 0), moves by one meter along the x axis and holds
+   * its last point, so that the drone catches up before landing.
+   */
+  private static TrajectoryServer createTrajectoryServer(int droneIndex) {
+    final Point4D startPoint = Point4D.create(droneIndex, 0, 1, 0);
+    final Point4D endPoint = Point4D.create(droneIndex + 1, 0, 1, 0);
+    final FiniteTrajectory4d trajectory =
+        Choreography.builder()
+            .withTrajectory(Trajectories.newStraightLineTrajectory(startPoint, endPoint, 1))
+            .forTime(6)
+            .build();
+    return new TrajectoryServer() {
+      @Override
+      public FiniteTrajectory4d getConcreteTrajectory() {
+        return trajectory;
+      }
+    };
+  }
+
+  /**
+   * A drone of the Crates simulator. It takes off to one meter, flies with exactly the requested
+   * inertial frame velocity and yaw and publishes its state after each step.
+   */
+  private static final class FakeCratesDrone {
+    private static final double TAKE_OFF_ALTITUDE = 1;
+    private static final double VERTICAL_SPEED = 1;
+
+    private final List<MessageListener<State>> stateListeners = new CopyOnWriteArrayList<>();
+
+    // guarded by this
+    private String controller = "Idle";
+    private double x;
+    private double y;
+    private double z;
+    private double yaw;
+    private double velocityX;
+    private double velocityY;
+    private double velocityZ;
+
+    FakeCratesDrone(double x) {
+      this.x = x;
+    }
+
+    void connectTo(ConnectedNode connectedNode, String namePrefix)
+        throws ServiceNotFoundException {
+      final ServiceClient<TakeoffRequest, TakeoffResponse> takeOffClient =
+          mockServiceClient(
+              TakeoffRequest.class,
+              TakeoffResponse.class,
+              new Runnable() {
+                @Override
+                public void run() {
+                  takeOff();
+                }
+              });
+      doReturn(takeOffClient)
+          .when(connectedNode)
+          .newServiceClient(eq(namePrefix + "controller/AbstractParrotTakeOff"), anyString());
+
+      final ServiceClient<LandRequest, LandResponse> landClient =
+          mockServiceClient(
+              LandRequest.class,
+              LandResponse.class,
+              new Runnable() {
+                @Override
+                public void run() {
+                  land();
+                }
+              });
+      doReturn(landClient)
+          .when(connectedNode)
+          .newServiceClient(eq(namePrefix + "controller/AbstractParrotLand"), anyString());
+
+      final ServiceClient<VelocityRequest, VelocityResponse> velocityClient =
+          mock(ServiceClient.class);
+      when(velocityClient.newMessage())
+          .thenAnswer(
+              new Answer<VelocityRequest>() {
+                @Override
+                public VelocityRequest answer(InvocationOnMock invocation) {
+                  return mock(VelocityRequest.class, new MessageFields());
+                }
+              });
+      doAnswer(
+              new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) {
+                  final VelocityRequest request = (VelocityRequest) invocation.getArguments()[0];
+                  setVelocity(request.getDx(), request.getDy(), request.getDz(), request.getYaw());
+                  respond(invocation, mock(VelocityResponse.class));
+                  return null;
+                }
+              })
+          .when(velocityClient)
+          .call(any(VelocityRequest.class), any(ServiceResponseListener.class));
+      doReturn(velocityClient)
+          .when(connectedNode)
+          .newServiceClient(eq(namePrefix + "controller/Velocity"), anyString());
+
+      final Subscriber<State> stateSubscriber = mock(Subscriber.class);
+      doAnswer(
+              new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) {
+                  stateListeners.add((MessageListener<State>) invocation.getArguments()[0]);
+                  return null;
+                }
+              })
+          .when(stateSubscriber)
+          .addMessageListener(any(MessageListener.class));
+      doReturn(stateSubscriber)
+          .when(connectedNode)
+          .newSubscriber(eq(namePrefix + "Truth"), anyString());
+    }
+
+    synchronized void takeOff() {
+      if ("Idle".equals(controller)) {
+        controller = "AbstractParrotTakeOff";
+      }
+    }
+
+    synchronized void land() {
+      controller = "AbstractParrotLand";
+      velocityX = 0;
+      velocityY = 0;
+      velocityZ = 0;
+    }
+
+    synchronized void setVelocity(
+        double newVelocityX, double newVelocityY, double newVelocityZ, double newYaw) {
+      if ("AbstractHover".equals(controller) || "Velocity".equals(controller)) {
+        controller = "Velocity";
+        velocityX = newVelocityX;
+        velocityY = newVelocityY;
+        velocityZ = newVelocityZ;
+        yaw = newYaw;
+      }
+    }
+
+    void step(double timeStepInSeconds) {
+      final State state;
+      synchronized (this) {
+        switch (controller) {
+          case "AbstractParrotTakeOff":
+            z = Math.min(TAKE_OFF_ALTITUDE, z + VERTICAL_SPEED * timeStepInSeconds);
+            if (z == TAKE_OFF_ALTITUDE) {
+              controller = "AbstractHover";
+            }
+            break;
+          case "AbstractParrotLand":
+            z = Math.max(0, z - VERTICAL_SPEED * timeStepInSeconds);
+            if (z == 0) {
+              controller = "Idle";
+            }
+            break;
+          case "Velocity":
+            x += velocityX * timeStepInSeconds;
+            y += velocityY * timeStepInSeconds;
+            z += velocityZ * timeStepInSeconds;
+            break;
+          default:
+            break;
+        }
+        state = createState();
+      }
+
+      for (final MessageListener<State> stateListener : stateListeners) {
+        stateListener.onNewMessage(state);
+      }
+    }
+
+    private State createState() {
+      final State state = mock(State.class, new MessageFields());
+      state.setController(controller);
+      state.setX(x);
+      state.setY(y);
+      state.setZ(z);
+      state.setYaw(yaw);
+      // the velocity in the state message is in the body frame
+      state.setU(velocityX * Math.cos(yaw) + velocityY * Math.sin(yaw));
+      state.setV(-velocityX * Math.sin(yaw) + velocityY * Math.cos(yaw));
+      state.setW(velocityZ);
+      state.setR(0);
+      return state;
+    }
+
+    private static <Q, R> ServiceClient<Q, R> mockServiceClient(
+        Class<Q> requestClass, final Class<R> responseClass, final Runnable onCall) {
+      final ServiceClient<Q, R> serviceClient = mock(ServiceClient.class);
+      when(serviceClient.newMessage()).thenReturn(mock(requestClass));
+      doAnswer(
+              new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) {
+                  onCall.run();
+                  respond(invocation, mock(responseClass));
+                  return null;
+                }
+              })
+          .when(serviceClient)
+          .call(any(requestClass), any(ServiceResponseListener.class));
+      return serviceClient;
+    }
+
+    private static <R> void respond(InvocationOnMock invocation, R response) {
+      ((ServiceResponseListener<R>) invocation.getArguments()[1]).onSuccess(response);
+    }
+  }
+
+  /** Makes the getters of a mocked message return the values passed to its setters. */
+  private static final class MessageFields implements Answer<Object> {
+    private final Map<String, Object> fields = new ConcurrentHashMap<>();
+
+    @Override
+    public Object answer(InvocationOnMock invocation) throws Throwable {
+      final String methodName = invocation.getMethod().getName();
+      if (methodName.startsWith("set") && invocation.getArguments().length == 1) {
+        fields.put(methodName.substring(3), invocation.getArguments()[0]);
+        return null;
+      }
+      if (methodName.startsWith("get") && fields.containsKey(methodName.substring(3))) {
+        return fields.get(methodName.substring(3));
+      }
+      return RETURNS_MOCKS.answer(invocation);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package applications.swarm;
+
+import applications.trajectory.MultiTrajectoryServer;
+import applications.trajectory.Trajectories;
+import applications.trajectory.TrajectoryServer;
+import applications.trajectory.geom.point.Point4D;
+import choreo.Choreography;
+import commands.schedulers.ControlLoopScheduler;
+import control.FiniteTrajectory4d;
+import control.dto.Pose;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import services.rossubscribers.FlyingState;
+import simulation.SimulatedDrone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests for {@link SimulatedSwarmMemberFactory}.
+ */
+public class SimulatedSwarmMemberFactoryTest {
+
+  private static final int NUMBER_OF_DRONES = 20;
+
+  private ControlLoopScheduler controlLoopScheduler;
+  private SimulatedSwarmMemberFactory swarmMemberFactory;
+  private SwarmRuntime swarmRuntime;
+
+  @Before
+  public void setUp() {
+    controlLoopScheduler = ControlLoopScheduler.create(2);
+    swarmMemberFactory = SimulatedSwarmMemberFactory.create(controlLoopScheduler, 0.005);
+  }
+
+  @After
+  public void tearDown() {
+    if (swarmRuntime != null) {
+      swarmRuntime.shutdown();
+    }
+    swarmMemberFactory.shutdown();
+    controlLoopScheduler.shutdown();
+  }
+
+  @Test
+  public void testSwarmOfSimulatedDronesFliesAndLands() throws InterruptedException {
+    swarmRuntime =
+        SwarmRuntime.builder()
+            .withMultiTrajectoryServer(
+                new MultiTrajectoryServer() {
+                  @Override
+                  public List<TrajectoryServer> getAllDifferentTrajectories() {
+                    final List<TrajectoryServer> trajectoryServers = new ArrayList<>();
+                    for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+                      trajectoryServers.add(createTrajectoryServer(i));
+                    }
+                    return trajectoryServers;
+                  }
+                })
+            .withSwarmMemberFactory(swarmMemberFactory)
+            .build();
+
+    swarmRuntime.start();
+
+    assertThat(swarmRuntime.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(swarmRuntime.getFailedDroneNames()).isEmpty();
+    final List<SimulatedDrone> drones = swarmMemberFactory.getDrones();
+    assertThat(drones).hasSize(NUMBER_OF_DRONES);
+    for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+      final SimulatedDrone drone = drones.get(i);
+      final Pose pose = drone.getActualState().pose();
+      assertThat(drone.getCurrentFlyingState().get()).isEqualTo(FlyingState.LANDED);
+      assertThat(pose.x()).isWithin(0.2).of(i + 1);
+      assertThat(pose.y()).isWithin(0.2).of(0);
+      assertThat(pose.z()).isWithin(1.0e-9).of(0);
+    }
+  }
+
+  /**
+   * Creates a trajectory which starts above (i, 0), moves by one meter along the x axis and holds
+   * its last point, so that the drone catches up before landing.
+   */
+  private static TrajectoryServer createTrajectoryServer(int droneIndex) {
+    final Point4D startPoint = Point4D.create(droneIndex, 0, 1, 0);
+    final Point4D endPoint = Point4D.create(droneIndex + 1, 0, 1, 0);
+    final FiniteTrajectory4d trajectory =
+        Choreography.builder()
+            .withTrajectory(Trajectories.newStraightLineTrajectory(startPoint, endPoint, 1))
+            .forTime(4)
+            .build();
+    return new TrajectoryServer() {
+      @Override
+      public FiniteTrajectory4d getConcreteTrajectory() {
+        return trajectory;
+      }
+    };
+  }
+}
@@ -0,0 +1,216 @@
+package applications.swarm;
+
+import applications.trajectory.MultiTrajectoryServer;
+import applications.trajectory.TrajectoryServer;
+import commands.Command;
+import commands.schedulers.ControlLoopScheduler;
+import commands.schedulers.SwarmTickBarrier;
+import control.FiniteTrajectory4d;
+import org.junit.After;
+import org.junit.Test;
+import taskexecutor.Task;
+import taskexecutor.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link SwarmRuntime}.
+ */
+public class SwarmRuntimeTest {
+
+  private static final int NUMBER_OF_DRONES = 100;
+
+  private final AtomicInteger flyCommands = new AtomicInteger();
+  private final AtomicInteger emergencyCommands = new AtomicInteger();
+  private final AtomicInteger synchronizedCommands = new AtomicInteger();
+  private SwarmRuntime swarmRuntime;
+
+  @After
+  public void tearDown() {
+    if (swarmRuntime != null) {
+      swarmRuntime.shutdown();
+    }
+  }
+
+  @Test
+  public void testStart_allDronesFinish() throws InterruptedException {
+    swarmRuntime = createSwarmRuntime(NUMBER_OF_DRONES, -1, false);
+    assertThat(swarmRuntime.getNumberOfDrones()).isEqualTo(NUMBER_OF_DRONES);
+
+    swarmRuntime.start();
+
+    assertThat(swarmRuntime.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(flyCommands.get()).isEqualTo(2 * NUMBER_OF_DRONES);
+    assertThat(emergencyCommands.get()).isEqualTo(0);
+    assertThat(swarmRuntime.getFailedDroneNames()).isEmpty();
+  }
+
+  @Test
+  public void testStart_failingDroneIsIsolated() throws InterruptedException {
+    swarmRuntime = createSwarmRuntime(NUMBER_OF_DRONES, 3, false);
+    swarmRuntime.start();
+
+    assertThat(swarmRuntime.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    // the failing drone skips its second fly command and executes its emergency task instead
+    assertThat(flyCommands.get()).isEqualTo(2 * NUMBER_OF_DRONES - 2);
+    assertThat(emergencyCommands.get()).isEqualTo(1);
+    assertThat(swarmRuntime.getFailedDroneNames()).containsExactly("drone3");
+  }
+
+  @Test
+  public void testEmergencyLand_preemptsBlockingFlyTasks() throws InterruptedException {
+    swarmRuntime = createSwarmRuntime(NUMBER_OF_DRONES, -1, true);
+    swarmRuntime.start();
+    assertThat(swarmRuntime.awaitTermination(100, TimeUnit.MILLISECONDS)).isFalse();
+
+    swarmRuntime.emergencyLand();
+
+    assertThat(swarmRuntime.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(emergencyCommands.get()).isEqualTo(NUMBER_OF_DRONES);
+  }
+
+  @Test
+  public void testStart_failedDroneIsRemovedFromTheBarrier() throws InterruptedException {
+    final ControlLoopScheduler scheduler = ControlLoopScheduler.create(1);
+    try {
+      final SwarmTickBarrier swarmTickBarrier = SwarmTickBarrier.create(3, 0.02, scheduler);
+      swarmRuntime =
+          SwarmRuntime.builder()
+              .withMultiTrajectoryServer(createMultiTrajectoryServer(3))
+              .withSwarmMemberFactory(
+                  new SwarmMemberFactory() {
+                    @Override
+                    public SwarmMember create(int droneIndex, FiniteTrajectory4d trajectory) {
+                      final Command takeOff =
+                          droneIndex == 1 ? createFailingCommand() : createFlyCommand(false);
+                      final Task flyTask =
+                          Task.create(
+                              TaskType.NORMAL_TASK,
+                              takeOff,
+                              createSynchronizedCommand(swarmTickBarrier));
+                      final Task emergencyTask =
+                          Task.create(TaskType.FIRST_ORDER_EMERGENCY, createEmergencyCommand());
+                      return SwarmMember.create("drone" + droneIndex, flyTask, emergencyTask);
+                    }
+                  })
+              .withSwarmTickBarrier(swarmTickBarrier)
+              .build();
+
+      swarmRuntime.start();
+
+      assertThat(swarmRuntime.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(swarmRuntime.getFailedDroneNames()).containsExactly("drone1");
+      assertThat(synchronizedCommands.get()).isEqualTo(2);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStart_twice() {
+    swarmRuntime = createSwarmRuntime(1, -1, false);
+    swarmRuntime.start();
+    swarmRuntime.start();
+  }
+
+  private SwarmRuntime createSwarmRuntime(
+      final int numberOfDrones, final int failingDroneIndex, final boolean blockingFlyTasks) {
+    return SwarmRuntime.builder()
+        .withMultiTrajectoryServer(createMultiTrajectoryServer(numberOfDrones))
+        .withSwarmMemberFactory(
+            new SwarmMemberFactory() {
+              @Override
+              public SwarmMember create(int droneIndex, FiniteTrajectory4d trajectory) {
+                final Command flyCommand =
+                    droneIndex == failingDroneIndex
+                        ? createFailingCommand()
+                        : createFlyCommand(blockingFlyTasks);
+                final Task flyTask =
+                    Task.create(TaskType.NORMAL_TASK, flyCommand, createFlyCommand(false));
+                final Task emergencyTask =
+                    Task.create(TaskType.FIRST_ORDER_EMERGENCY, createEmergencyCommand());
+                return SwarmMember.create("drone" + droneIndex, flyTask, emergencyTask);
+              }
+            })
+        .build();
+  }
+
+  private static MultiTrajectoryServer createMultiTrajectoryServer(final int numberOfDrones) {
+    return new MultiTrajectoryServer() {
+      @Override
+      public List<TrajectoryServer> getAllDifferentTrajectories() {
+        final List<TrajectoryServer> trajectoryServers = new ArrayList<>();
+        for (int i = 0; i < numberOfDrones; i++) {
+          trajectoryServers.add(createTrajectoryServer());
+        }
+        return trajectoryServers;
+      }
+    };
+  }
+
+  private static TrajectoryServer createTrajectoryServer() {
+    final FiniteTrajectory4d trajectory = mock(FiniteTrajectory4d.class);
+    return new TrajectoryServer() {
+      @Override
+      public FiniteTrajectory4d getConcreteTrajectory() {
+        return trajectory;
+      }
+    };
+  }
+
+  private Command createFlyCommand(final boolean blocking) {
+    return new Command() {
+      @Override
+      public void execute() {
+        flyCommands.incrementAndGet();
+        if (blocking) {
+          try {
+            TimeUnit.SECONDS.sleep(10);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+  }
+
+  private Command createSynchronizedCommand(final SwarmTickBarrier swarmTickBarrier) {
+    return new Command() {
+      @Override
+      public void execute() {
+        final Runnable controlLoop =
+            new Runnable() {
+              @Override
+              public void run() {}
+            };
+        if (swarmTickBarrier.run(controlLoop, 0.1)) {
+          synchronizedCommands.incrementAndGet();
+        }
+      }
+    };
+  }
+
+  private static Command createFailingCommand() {
+    return new Command() {
+      @Override
+      public void execute() {
+        throw new IllegalStateException("The drone failed.");
+      }
+    };
+  }
+
+  private Command createEmergencyCommand() {
+    return new Command() {
+      @Override
+      public void execute() {
+        emergencyCommands.incrementAndGet();
+      }
+    };
+  }
+}
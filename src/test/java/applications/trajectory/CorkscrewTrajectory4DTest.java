@@ -150,9 +150,15 @@ public class CorkscrewTrajectory4DTest {
     List<Double> ly = Lists.newArrayList();
     List<Double> lz = Lists.newArrayList();
     for (int i = 0; i < 1000; i++) {
-      lx.add(getVelocityX(trajectory, i / 10d));
-      ly.add(getVelocityY(trajectory, i / 10d));
-      lz.add(getVelocityZ(trajectory, i / 10d));
+      final double t = i / 10d;
+      // the corkscrew jumps from the circle onto its destination at the end
+      if (t <= trajectory.getTrajectoryDuration()
+          && t + TestUtils.DELTA > trajectory.getTrajectoryDuration()) {
+        continue;
+      }
+      lx.add(getVelocityX(trajectory, t));
+      ly.add(getVelocityY(trajectory, t));
+      lz.add(getVelocityZ(trajectory, t));
     }
     assertBounds(lx, -1, 1);
     assertBounds(ly, -1, 1);
@@ -0,0 +1,218 @@
+package applications.trajectory;
+
+import applications.trajectory.geom.point.Point3D;
+import applications.trajectory.geom.point.Point4D;
+import control.FiniteTrajectory4d;
+import control.TrajectoryState4d;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static control.PrimitiveVelocityController4d.X;
+import static control.PrimitiveVelocityController4d.YAW;
+import static org.junit.Assert.assertEquals;
+
+public class SampledTrajectory4DTest {
+
+  private static FiniteTrajectory4d newCorkscrew() {
+    return Trajectories.newCorkscrewTrajectory(
+        Point4D.create(0, 0, 1, 0), Point3D.create(3, 2, 2), 0.5, 0.3, 0.2, 0);
+  }
+
+  @Test
+  public void testHermiteInterpolationFollowsTrajectory() {
+    verifyInterpolation(
+        Trajectories.sampledTrajectoryBuilder()
+            .setTrajectory(newCorkscrew())
+            .setResolution(0.05)
+            .setMethod(SampledTrajectory4D.Method.HERMITE)
+            .build());
+  }
+
+  @Test
+  public void testCubicInterpolationFollowsTrajectory() {
+    verifyInterpolation(
+        Trajectories.sampledTrajectoryBuilder()
+            .setTrajectory(newCorkscrew())
+            .setResolution(0.05)
+            .setMethod(SampledTrajectory4D.Method.CUBIC)
+            .build());
+  }
+
+  @Test
+  public void testHoldsLastPositionAfterDuration() {
+    final SampledTrajectory4D sampled =
+        Trajectories.newSampledTrajectory(
+            Trajectories.newStraightLineTrajectory(
+                Point4D.create(0, 0, 1, 0), Point4D.create(2, 0, 1, 0), 1),
+            0.1);
+    assertEquals(2, sampled.getTrajectoryDuration(), TestUtils.EPSILON);
+
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    sampled.getDesiredState(0, state);
+    assertEquals(0, state.getPosition(X), TestUtils.EPSILON);
+    assertEquals(1, state.getVelocity(X), TestUtils.EPSILON);
+
+    sampled.getDesiredState(5, state);
+    assertEquals(2, state.getPosition(X), TestUtils.EPSILON);
+    assertEquals(0, state.getVelocity(X), 0);
+  }
+
+  @Test
+  public void testYawIsUnwrapped() {
+    final FiniteTrajectory4d spinning =
+        Trajectories.newStraightLineTrajectory(
+            Point4D.create(0, 0, 1, 0), Point4D.create(1, 0, 1, 3 * Math.PI), 0.5);
+    final SampledTrajectory4D sampled = Trajectories.newSampledTrajectory(spinning, 0.1);
+
+    assertThat(sampled.getMaximumInterpolationError()).isLessThan(TestUtils.EPSILON);
+    assertEquals(0, sampled.getDesiredAngleZ(0), TestUtils.EPSILON);
+    assertEquals(3 * Math.PI, sampled.getDesiredAngleZ(2), TestUtils.EPSILON);
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    sampled.getDesiredState(1, state);
+    assertEquals(1.5 * Math.PI, state.getVelocity(YAW), TestUtils.EPSILON);
+  }
+
+  @Test
+  public void testWrappedYawIsInterpolatedContinuously() {
+    final FiniteTrajectory4d wrapping =
+        new FiniteTrajectory4d() {
+          @Override
+          public double getTrajectoryDuration() {
+            return 10;
+          }
+
+          @Override
+          public double getDesiredPositionX(double timeInSeconds) {
+            return 0;
+          }
+
+          @Override
+          public double getDesiredPositionY(double timeInSeconds) {
+            return 0;
+          }
+
+          @Override
+          public double getDesiredPositionZ(double timeInSeconds) {
+            return 1;
+          }
+
+          @Override
+          public double getDesiredAngleZ(double timeInSeconds) {
+            return timeInSeconds % (2 * Math.PI);
+          }
+        };
+    final SampledTrajectory4D sampled =
+        Trajectories.sampledTrajectoryBuilder()
+            .setTrajectory(wrapping)
+            .setResolution(0.1)
+            .setMethod(SampledTrajectory4D.Method.CUBIC)
+            .build();
+
+    assertThat(sampled.getMaximumInterpolationError()).isLessThan(TestUtils.EPSILON);
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    for (double t = 0; t < 10; t += 0.05) {
+      sampled.getDesiredState(t, state);
+      assertEquals(t, state.getPosition(YAW), TestUtils.EPSILON);
+      assertEquals(1, state.getVelocity(YAW), 0.01);
+    }
+  }
+
+  @Test
+  public void testHermiteSamplesTrajectoryForwardInTime() {
+    final double[] lastTime = {Double.NEGATIVE_INFINITY};
+    final boolean[] wentBackwards = {false};
+    final FiniteTrajectory4d accelerating =
+        new FiniteTrajectory4d() {
+          @Override
+          public double getTrajectoryDuration() {
+            return 2;
+          }
+
+          @Override
+          public double getDesiredPositionX(double timeInSeconds) {
+            wentBackwards[0] |= timeInSeconds < lastTime[0];
+            lastTime[0] = timeInSeconds;
+            return timeInSeconds * timeInSeconds;
+          }
+
+          @Override
+          public double getDesiredPositionY(double timeInSeconds) {
+            return 0;
+          }
+
+          @Override
+          public double getDesiredPositionZ(double timeInSeconds) {
+            return 1;
+          }
+
+          @Override
+          public double getDesiredAngleZ(double timeInSeconds) {
+            return 0;
+          }
+        };
+    final SampledTrajectory4D sampled =
+        Trajectories.sampledTrajectoryBuilder()
+            .setTrajectory(accelerating)
+            .setResolution(0.1)
+            .setMethod(SampledTrajectory4D.Method.HERMITE)
+            .build();
+
+    assertThat(wentBackwards[0]).isFalse();
+    assertThat(sampled.getMaximumInterpolationError()).isLessThan(TestUtils.EPSILON);
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    sampled.getDesiredState(0, state);
+    sampled.getDesiredState(1, state);
+    assertEquals(1, state.getPosition(X), TestUtils.EPSILON);
+    assertEquals(2, state.getVelocity(X), TestUtils.EPSILON);
+  }
+
+  @Test
+  public void testSampleAllInParallel() {
+    final List<FiniteTrajectory4d> trajectories = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      trajectories.add(newCorkscrew());
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<SampledTrajectory4D> sampled =
+          SampledTrajectory4D.sampleAll(
+              trajectories, 0.05, SampledTrajectory4D.Method.HERMITE, executor);
+      assertThat(sampled).hasSize(8);
+      for (final SampledTrajectory4D trajectory : sampled) {
+        trajectory.getDesiredPositionY(0);
+      }
+      for (final SampledTrajectory4D trajectory : sampled) {
+        assertEquals(
+            sampled.get(0).getDesiredPositionY(3.33), trajectory.getDesiredPositionY(3.33), 0);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void verifyInterpolation(SampledTrajectory4D sampled) {
+    assertThat(sampled.getMaximumInterpolationError()).isLessThan(TestUtils.EPSILON);
+
+    final FiniteTrajectory4d reference = newCorkscrew();
+    for (double t = 0; t < reference.getTrajectoryDuration(); t += 0.037) {
+      assertEquals(
+          reference.getDesiredPositionX(t),
+          sampled.getDesiredPositionX(t),
+          sampled.getMaximumInterpolationError() + TestUtils.EPSILON);
+      assertEquals(
+          reference.getDesiredPositionY(t),
+          sampled.getDesiredPositionY(t),
+          sampled.getMaximumInterpolationError() + TestUtils.EPSILON);
+      assertEquals(
+          reference.getDesiredPositionZ(t),
+          sampled.getDesiredPositionZ(t),
+          sampled.getMaximumInterpolationError() + TestUtils.EPSILON);
+    }
+  }
+}
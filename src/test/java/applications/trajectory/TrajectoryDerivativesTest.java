@@ -0,0 +1,191 @@
+package applications.trajectory;
+
+import applications.trajectory.geom.point.Point3D;
+import applications.trajectory.geom.point.Point4D;
+import control.DifferentiableTrajectory1d;
+import control.DifferentiableTrajectory4d;
+import control.Trajectory1d;
+import control.Trajectory4d;
+import control.TrajectoryState4d;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static control.PrimitiveVelocityController4d.X;
+import static control.PrimitiveVelocityController4d.Y;
+import static control.PrimitiveVelocityController4d.YAW;
+import static control.PrimitiveVelocityController4d.Z;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the closed-form derivatives of the trajectories with central differences of their
+ * positions.
+ */
+public class TrajectoryDerivativesTest {
+  private static final double STEP = 0.001;
+  private static final double ACCELERATION_DELTA = 0.01;
+
+  @Test
+  public void testCircleTrajectory4D() {
+    verifyDerivatives(
+        Trajectories.newCircleTrajectory4D(Point3D.create(1, 2, 5), 1, 0.1, Math.PI / 6), 9);
+  }
+
+  @Test
+  public void testConstantYawCircleTrajectory4D() {
+    verifyDerivatives(
+        Trajectories.newConstantYawCircleTrajectory4D(Point3D.create(0, 0, 2), 0.5, 0.2, 0, 1),
+        20);
+  }
+
+  @Test
+  public void testCorkscrewTrajectory4D() {
+    final Trajectory4d trajectory =
+        Trajectories.newCorkscrewTrajectory(
+            Point4D.create(0, 0, 1, 0), Point3D.create(3, 2, 2), 0.5, 0.3, 0.2, 0);
+    verifyDerivatives(trajectory, 7);
+  }
+
+  @Test
+  public void testCorkscrewTrajectory4DHoldsAtEnd() {
+    final Trajectory4d trajectory =
+        Trajectories.newCorkscrewTrajectory(
+            Point4D.create(0, 0, 1, 0), Point3D.create(1, 0, 1), 0.5, 0.3, 0.2, 0);
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    TrajectoryUtils.getDesiredState(trajectory, 0, state);
+    TrajectoryUtils.getDesiredState(trajectory, 5, state);
+
+    for (final int axis : new int[] {X, Y, Z, YAW}) {
+      assertEquals(0, state.getVelocity(axis), 0);
+      assertEquals(0, state.getAcceleration(axis), 0);
+    }
+  }
+
+  @Test
+  public void testStraightLineTrajectory4D() {
+    final Trajectory4d trajectory =
+        Trajectories.newStraightLineTrajectory(
+            Point4D.create(0, 0, 1, 0), Point4D.create(3, 4, 1, 1), 1);
+    verifyDerivatives(trajectory, 4.9);
+
+    // the hold position is used from the evaluation following the end of the movement
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    TrajectoryUtils.getDesiredState(trajectory, 5.5, state);
+    TrajectoryUtils.getDesiredState(trajectory, 6, state);
+    assertEquals(3, state.getPosition(X), 0);
+    assertEquals(0, state.getVelocity(X), 0);
+  }
+
+  @Test
+  public void testSwingTrajectory4D() {
+    verifyDerivatives(
+        Trajectories.newPendulumSwingTrajectory(Point4D.create(0, 1, 3, 0), 1, 0.2, Math.PI / 4),
+        10);
+  }
+
+  @Test
+  public void testWiggleTrajectory() {
+    final Trajectory4d trajectory =
+        Trajectories.newWiggleTrajectory(Point4D.create(0, 0, 1, 0), 2, 1);
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    for (double t = 0; t < 6; t += 0.5) {
+      TrajectoryUtils.getDesiredState(trajectory, t, state);
+      assertEquals(trajectory.getDesiredPositionX(t), state.getPosition(X), 0);
+      assertEquals(trajectory.getDesiredPositionY(t), state.getPosition(Y), 0);
+      assertEquals(0, state.getVelocity(X), 0);
+      assertEquals(0, state.getVelocity(Y), 0);
+    }
+  }
+
+  @Test
+  public void testFiniteDifferenceFallback() {
+    final Trajectory4d quadratic =
+        new Trajectory4d() {
+          @Override
+          public double getDesiredPositionX(double timeInSeconds) {
+            return timeInSeconds * timeInSeconds;
+          }
+
+          @Override
+          public double getDesiredPositionY(double timeInSeconds) {
+            return 2 * timeInSeconds;
+          }
+
+          @Override
+          public double getDesiredPositionZ(double timeInSeconds) {
+            return 1;
+          }
+
+          @Override
+          public double getDesiredAngleZ(double timeInSeconds) {
+            return -timeInSeconds;
+          }
+        };
+
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    TrajectoryUtils.getDesiredState(quadratic, 3, state);
+
+    assertEquals(9, state.getPosition(X), 0);
+    assertEquals(6, state.getVelocity(X), TestUtils.EPSILON);
+    assertEquals(2, state.getAcceleration(X), TestUtils.EPSILON);
+    assertEquals(2, state.getVelocity(Y), TestUtils.EPSILON);
+    assertEquals(0, state.getVelocity(Z), TestUtils.EPSILON);
+    assertEquals(-1, state.getVelocity(YAW), TestUtils.EPSILON);
+    assertEquals(
+        6,
+        TrajectoryUtils.getDesiredVelocity(TrajectoryUtils.getTrajectoryLinearX(quadratic), 3),
+        TestUtils.EPSILON);
+  }
+
+  @Test
+  public void testAxisViewEvaluatesStateOncePerTime() {
+    final Trajectory4d circle =
+        Trajectories.newCircleTrajectory4D(Point3D.create(1, 2, 5), 1, 0.1, Math.PI / 6);
+    final int[] numberOfEvaluations = new int[1];
+    final DifferentiableTrajectory4d counting =
+        new Trajectory4DForwardingDecorator(circle) {
+          @Override
+          protected void positionDelegate(double timeInSeconds) {
+            numberOfEvaluations[0]++;
+          }
+        };
+    final DifferentiableTrajectory1d axis = TrajectoryUtils.getTrajectoryLinearX(counting);
+
+    axis.getDesiredVelocity(2);
+    axis.getDesiredAcceleration(2);
+    assertThat(numberOfEvaluations[0]).isEqualTo(1);
+
+    axis.getDesiredVelocity(2.1);
+    assertThat(numberOfEvaluations[0]).isEqualTo(2);
+  }
+
+  private static void verifyDerivatives(Trajectory4d trajectory, double durationInSeconds) {
+    assertThat(trajectory).isInstanceOf(DifferentiableTrajectory4d.class);
+    final TrajectoryState4d state = TrajectoryState4d.create();
+    for (double t = 0; t < durationInSeconds; t += 0.1) {
+      TrajectoryUtils.getDesiredState(trajectory, t, state);
+
+      assertEquals(trajectory.getDesiredPositionX(t), state.getPosition(X), TestUtils.EPSILON);
+      assertEquals(trajectory.getDesiredPositionY(t), state.getPosition(Y), TestUtils.EPSILON);
+      assertEquals(trajectory.getDesiredPositionZ(t), state.getPosition(Z), TestUtils.EPSILON);
+      assertEquals(trajectory.getDesiredAngleZ(t), state.getPosition(YAW), TestUtils.EPSILON);
+
+      verifyAxis(state, X, t, TrajectoryUtils.getTrajectoryLinearX(trajectory));
+      verifyAxis(state, Y, t, TrajectoryUtils.getTrajectoryLinearY(trajectory));
+      verifyAxis(state, Z, t, TrajectoryUtils.getTrajectoryLinearZ(trajectory));
+      verifyAxis(state, YAW, t, TrajectoryUtils.getTrajectoryAngularZ(trajectory));
+    }
+  }
+
+  private static void verifyAxis(
+      TrajectoryState4d state, int axis, double t, Trajectory1d trajectory) {
+    final double before = trajectory.getDesiredPosition(t - STEP);
+    final double current = trajectory.getDesiredPosition(t);
+    final double after = trajectory.getDesiredPosition(t + STEP);
+
+    assertEquals((after - before) / (2 * STEP), state.getVelocity(axis), TestUtils.EPSILON);
+    assertEquals(
+        (after - 2 * current + before) / (STEP * STEP),
+        state.getAcceleration(axis),
+        ACCELERATION_DELTA);
+  }
+}
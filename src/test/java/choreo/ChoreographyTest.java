@@ -3,16 +3,25 @@ package choreo;
 import applications.trajectory.Trajectories;
 import applications.trajectory.geom.point.Point3D;
 import applications.trajectory.geom.point.Point4D;
+import control.FiniteTrajectory4d;
 import control.Trajectory4d;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static applications.trajectory.TestUtils.verifyTrajectoryPos4D;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
 /** @author Kristof Coninx <kristof.coninx AT cs.kuleuven.be> */
 public class ChoreographyTest {
+  private static final double SAMPLE_INTERVAL = 0.25;
 
   private Choreography choreotarget;
   private double duration = 20d;
@@ -38,14 +47,51 @@ public class ChoreographyTest {
 
   @Test
   public void testTwoSegmentTrajectoryChoreo() {
+    verifyTrajectoryPos4D(choreotarget, 0, Point4D.create(5, 5, 5, 2));
     verifyTrajectoryPos4D(choreotarget, 2, Point4D.create(5, 5, 5, 2));
-    //First invocation past duration still get's old point. all following
-    // trigger change in segment for first call.
-    choreotarget.getDesiredPositionX(0d + duration);
+    // the second segment starts exactly at the end of the first one.
+    verifyTrajectoryPos4D(choreotarget, duration, Point4D.create(radius, 0, 0, 0));
     verifyTrajectoryPos4D(
         choreotarget, (1 / frequency) + duration, Point4D.create(radius, 0, 0, 0));
   }
 
+  @Test
+  public void testRandomAccess() {
+    choreotarget.getDesiredPositionX(0);
+    assertEquals(0, choreotarget.getDesiredPositionX(duration + 1 / frequency / 4), 0.001);
+    assertEquals(radius, choreotarget.getDesiredPositionY(duration + 1 / frequency / 4), 0.001);
+    verifyTrajectoryPos4D(choreotarget, 2, Point4D.create(5, 5, 5, 2));
+    verifyTrajectoryPos4D(choreotarget, duration, Point4D.create(radius, 0, 0, 0));
+  }
+
+  @Test
+  public void testGetSegmentIndex() {
+    assertEquals(2, choreotarget.getNumberOfSegments());
+    assertEquals(0, choreotarget.getSegmentIndex(-1));
+    assertEquals(0, choreotarget.getSegmentIndex(0));
+    assertEquals(0, choreotarget.getSegmentIndex(duration - 0.001));
+    assertEquals(1, choreotarget.getSegmentIndex(duration));
+    assertEquals(1, choreotarget.getSegmentIndex(3 * duration));
+    assertEquals(duration, choreotarget.getSegmentStartTime(1), 0);
+  }
+
+  @Test
+  public void testSeekAndReplay() {
+    choreotarget.getDesiredPositionX(100);
+    verifyTrajectoryPos4D(choreotarget, 100 + duration, Point4D.create(radius, 0, 0, 0));
+
+    final Choreography replay = choreotarget.replay();
+    verifyTrajectoryPos4D(replay, 500, Point4D.create(5, 5, 5, 2));
+    verifyTrajectoryPos4D(replay, 500 + duration, Point4D.create(radius, 0, 0, 0));
+
+    final Choreography seek = choreotarget.seek(duration + 1 / frequency / 4);
+    assertEquals(0, seek.getDesiredPositionX(42), 0.001);
+    assertEquals(radius, seek.getDesiredPositionY(42), 0.001);
+    assertEquals(-radius, seek.getDesiredPositionX(42 + 1 / frequency / 4), 0.001);
+    assertEquals(0, seek.getDesiredPositionY(42 + 1 / frequency / 4), 0.001);
+    assertEquals(2 * duration, seek.getTrajectoryDuration(), 0);
+  }
+
   @Test
   public void testComplexExample() {
     Trajectory4d first =
@@ -129,4 +175,103 @@ public class ChoreographyTest {
             .build();
     assertEquals(14, choreotarget.getTrajectoryDuration(), 0);
   }
+
+  @Test
+  public void testSeekBackwardsWithStraightLineAndCorkscrew() {
+    final Choreography choreography = createLineAndCorkscrewChoreography();
+    final double[][] expected = computeLineAndCorkscrewPositions(choreography);
+
+    choreography.getDesiredPositionX(0);
+    // from the end to the beginning, so that the segments are evaluated backwards in time
+    for (int i = expected.length - 1; i >= 0; i--) {
+      verifyPosition(choreography, i * SAMPLE_INTERVAL, expected[i]);
+    }
+
+    final Choreography seek = choreography.seek(4 * SAMPLE_INTERVAL);
+    seek.getDesiredPositionX(0);
+    for (int i = expected.length - 1; i >= 4; i--) {
+      verifyPosition(seek, (i - 4) * SAMPLE_INTERVAL, expected[i]);
+    }
+  }
+
+  @Test
+  public void testConcurrentReadersWithStraightLineAndCorkscrew() throws Exception {
+    final Choreography choreography = createLineAndCorkscrewChoreography();
+    final double[][] expected = computeLineAndCorkscrewPositions(choreography);
+    choreography.getDesiredPositionX(0);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final List<Future<Void>> readers = new ArrayList<>();
+      for (final boolean forward : new boolean[] {true, false}) {
+        readers.add(
+            executor.submit(
+                new Callable<Void>() {
+                  @Override
+                  public Void call() {
+                    for (int round = 0; round < 50; round++) {
+                      for (int j = 0; j < expected.length; j++) {
+                        final int i = forward ? j : expected.length - 1 - j;
+                        verifyPosition(choreography, i * SAMPLE_INTERVAL, expected[i]);
+                      }
+                    }
+                    return null;
+                  }
+                }));
+      }
+      for (final Future<Void> reader : readers) {
+        reader.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Choreography createLineAndCorkscrewChoreography() {
+    return Choreography.builder()
+        .withTrajectory(createStraightLine())
+        .withTrajectory(createCorkscrew())
+        .forTime(12)
+        .build();
+  }
+
+  private static FiniteTrajectory4d createStraightLine() {
+    return Trajectories.newStraightLineTrajectory(
+        Point4D.create(0, 0, 1, 0), Point4D.create(2, 0, 1, 0), 1);
+  }
+
+  private static FiniteTrajectory4d createCorkscrew() {
+    return Trajectories.newCorkscrewTrajectory(
+        Point4D.create(2, 0, 1, 0), Point3D.create(2, 4, 1), 0.5, 0.3, 0.2, 0);
+  }
+
+  /** Evaluates new segments forward in time, as a drone following the choreography would. */
+  private static double[][] computeLineAndCorkscrewPositions(Choreography choreography) {
+    final Trajectory4d line = createStraightLine();
+    final Trajectory4d corkscrew = createCorkscrew();
+    line.getDesiredPositionX(0);
+    corkscrew.getDesiredPositionX(0);
+
+    final double corkscrewStartTime = choreography.getSegmentStartTime(1);
+    final int numberOfSamples = (int) (choreography.getTrajectoryDuration() / SAMPLE_INTERVAL);
+    final double[][] positions = new double[numberOfSamples][];
+    for (int i = 0; i < numberOfSamples; i++) {
+      final double time = i * SAMPLE_INTERVAL;
+      final Trajectory4d segment = time < corkscrewStartTime ? line : corkscrew;
+      final double segmentTime = time < corkscrewStartTime ? time : time - corkscrewStartTime;
+      positions[i] =
+          new double[] {
+            segment.getDesiredPositionX(segmentTime),
+            segment.getDesiredPositionY(segmentTime),
+            segment.getDesiredPositionZ(segmentTime),
+            segment.getDesiredAngleZ(segmentTime)
+          };
+    }
+    return positions;
+  }
+
+  private static void verifyPosition(Trajectory4d trajectory, double time, double[] expected) {
+    verifyTrajectoryPos4D(
+        trajectory, time, Point4D.create(expected[0], expected[1], expected[2], expected[3]));
+  }
 }
@@ -1,12 +1,22 @@
 package commands;
 
+import com.google.common.base.Optional;
 import commands.bebopcommands.BebopFollowTrajectory;
+import commands.schedulers.ControlLoopMetrics;
 import control.VelocityController4d;
+import control.dto.DroneStateStamped;
+import control.dto.Pose;
+import control.dto.Velocity;
 import control.localization.StateEstimator;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import services.Velocity4dService;
+import time.TimeProvider;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for {@link BebopFollowTrajectory}'s builder.
@@ -38,4 +48,41 @@ public class FollowTrajectoryBuilderTest extends AbstractBuilderTest {
         .withVelocityController4d(mock(VelocityController4d.class))
         .build();
   }
+
+  @Test
+  public void testControlLoopMetricsAreRecorded() {
+    final StateEstimator stateEstimator = mock(StateEstimator.class);
+    when(stateEstimator.getCurrentState())
+        .thenAnswer(
+            new Answer<Optional<DroneStateStamped>>() {
+              private double timeStampInSeconds;
+
+              @Override
+              public Optional<DroneStateStamped> answer(InvocationOnMock invocation) {
+                timeStampInSeconds++;
+                return Optional.of(
+                    DroneStateStamped.create(
+                        Pose.createZeroPose(), Velocity.createZeroVelocity(), timeStampInSeconds));
+              }
+            });
+    final ControlLoopMetrics metrics = ControlLoopMetrics.create();
+
+    final BebopFollowTrajectory followTrajectory =
+        BebopFollowTrajectory.builder()
+            .withVelocity4dService(mock(Velocity4dService.class))
+            .withStateEstimator(stateEstimator)
+            .withTimeProvider(mock(TimeProvider.class))
+            .withDurationInSeconds(0.3)
+            .withVelocityController4d(mock(VelocityController4d.class))
+            .withMetricsSink(metrics)
+            .build();
+
+    followTrajectory.execute();
+
+    assertThat(followTrajectory.getMetricsSink()).isSameAs(metrics);
+    final long numberOfTicks = metrics.getComputeLatencyHistogram().getCount();
+    assertThat(numberOfTicks).isGreaterThan(0L);
+    assertThat(metrics.getPublishLatencyHistogram().getCount()).isEqualTo(numberOfTicks);
+    assertThat(metrics.getJitterHistogram().getCount()).isEqualTo(numberOfTicks - 1);
+  }
 }
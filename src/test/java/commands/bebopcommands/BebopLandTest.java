@@ -8,10 +8,14 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import services.FlyingStateObserver;
 import services.FlyingStateService;
 import services.LandService;
+import services.ObservableFlyingStateService;
 import services.rossubscribers.FlyingState;
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -21,6 +25,7 @@ import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -97,6 +102,41 @@ public class BebopLandTest {
     assertThat(future.isDone()).isFalse();
   }
 
+  @Test
+  public void testExecute_wakesUpWhenLandedStateIsObserved() throws Exception {
+    final ObservableFlyingStateService observableFlyingStateService =
+        mock(ObservableFlyingStateService.class);
+    when(observableFlyingStateService.getCurrentFlyingState())
+        .thenReturn(Optional.of(FlyingState.LANDING));
+    final Command landCommand = BebopLand.create(landService, observableFlyingStateService);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<?> landFuture =
+          executor.submit(
+              new Runnable() {
+                @Override
+                public void run() {
+                  landCommand.execute();
+                }
+              });
+
+      final ArgumentCaptor<FlyingStateObserver> flyingStateObserver =
+          ArgumentCaptor.forClass(FlyingStateObserver.class);
+      verify(observableFlyingStateService, timeout(1000))
+          .registerFlyingStateObserver(flyingStateObserver.capture());
+
+      when(observableFlyingStateService.getCurrentFlyingState())
+          .thenReturn(Optional.of(FlyingState.LANDED));
+      flyingStateObserver.getValue().onNewFlyingState(FlyingState.LANDED);
+      landFuture.get(1, TimeUnit.SECONDS);
+
+      verify(observableFlyingStateService)
+          .removeFlyingStateObserver(flyingStateObserver.getValue());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private Object[] flyingStateValues() {
     return new Object[] {
       new Object[] {Optional.of(FlyingState.TAKING_OFF)},
@@ -0,0 +1,122 @@
+package commands.bebopcommands;
+
+import bebop_msgs.Ardrone3PilotingStateFlyingStateChanged;
+import commands.Command;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import services.ResetService;
+import services.TakeOffService;
+import services.parrot.BebopFlyingStateService;
+import services.rossubscribers.MessagesSubscriberService;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link BebopTakeOff}.
+ */
+public class BebopTakeOffTest {
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private TakeOffService takeOffService;
+  private ResetService resetService;
+  private BebopFlyingStateService flyingStateService;
+  private Future<?> future;
+  private CountDownLatch resetMessageSent;
+  private CountDownLatch takeOffMessageSent;
+
+  @Before
+  public void setUp() {
+    takeOffService = mock(TakeOffService.class);
+    resetService = mock(ResetService.class);
+    resetMessageSent = new CountDownLatch(1);
+    doAnswer(countDown(resetMessageSent)).when(resetService).sendResetMessage();
+    takeOffMessageSent = new CountDownLatch(1);
+    doAnswer(countDown(takeOffMessageSent)).when(takeOffService).sendTakingOffMessage();
+    @SuppressWarnings("unchecked")
+    final MessagesSubscriberService<Ardrone3PilotingStateFlyingStateChanged> subscriber =
+        mock(MessagesSubscriberService.class);
+    flyingStateService = BebopFlyingStateService.create(subscriber);
+
+    final Command takeOffCommand =
+        BebopTakeOff.create(takeOffService, flyingStateService, resetService);
+    future =
+        executor.submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                takeOffCommand.execute();
+              }
+            });
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testExecute_flyingStatesReceived()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    assertThat(resetMessageSent.await(1, TimeUnit.SECONDS)).isTrue();
+    verify(takeOffService, never()).sendTakingOffMessage();
+
+    flyingStateService.onNewMessage(
+        createFlyingStateMessage(Ardrone3PilotingStateFlyingStateChanged.STATE_LANDED));
+    assertThat(takeOffMessageSent.await(1, TimeUnit.SECONDS)).isTrue();
+
+    flyingStateService.onNewMessage(
+        createFlyingStateMessage(Ardrone3PilotingStateFlyingStateChanged.STATE_TAKINGOFF));
+    try {
+      future.get(100, TimeUnit.MILLISECONDS);
+      fail("The take off command must wait for the hovering state.");
+    } catch (TimeoutException e) {
+      // the command is still waiting
+    }
+
+    flyingStateService.onNewMessage(
+        createFlyingStateMessage(Ardrone3PilotingStateFlyingStateChanged.STATE_HOVERING));
+    future.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testExecute_interrupted() throws InterruptedException {
+    assertThat(resetMessageSent.await(1, TimeUnit.SECONDS)).isTrue();
+    executor.shutdownNow();
+    assertThat(executor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(future.isDone()).isTrue();
+  }
+
+  private static Answer<Void> countDown(final CountDownLatch latch) {
+    return new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        latch.countDown();
+        return null;
+      }
+    };
+  }
+
+  private static Ardrone3PilotingStateFlyingStateChanged createFlyingStateMessage(byte state) {
+    final Ardrone3PilotingStateFlyingStateChanged message =
+        mock(Ardrone3PilotingStateFlyingStateChanged.class);
+    when(message.getState()).thenReturn(state);
+    return message;
+  }
+}
@@ -0,0 +1,105 @@
+package commands.schedulers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ControlLoopSchedulerTest {
+
+  private ControlLoopScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    scheduler = ControlLoopScheduler.create(2);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testLoopIsRetiredAfterDuration() throws InterruptedException {
+    final AtomicInteger counter = new AtomicInteger();
+    final ScheduledControlLoop loop = scheduler.schedule(createCountingTask(counter), 0.01, 0.2);
+
+    assertThat(loop.awaitRetirement(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(loop.isRetired()).isTrue();
+
+    final int numberOfExecutions = counter.get();
+    assertThat(numberOfExecutions).isAtLeast(10);
+    assertThat((long) numberOfExecutions).isEqualTo(loop.getExecutedTicks());
+
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertThat(counter.get()).isEqualTo(numberOfExecutions);
+    assertThat(scheduler.getNumberOfActiveLoops()).isEqualTo(0);
+  }
+
+  @Test
+  public void testManyLoopsShareBoundedWorkers() throws InterruptedException {
+    final List<ScheduledControlLoop> loops = new ArrayList<>();
+    final AtomicInteger counter = new AtomicInteger();
+    for (int i = 0; i < 50; i++) {
+      loops.add(scheduler.schedule(createCountingTask(counter), 0.02, 0.2));
+    }
+
+    assertThat(scheduler.getNumberOfActiveLoops()).isEqualTo(50);
+    for (final ScheduledControlLoop loop : loops) {
+      assertThat(loop.awaitRetirement(1, TimeUnit.SECONDS)).isTrue();
+      assertThat(loop.getExecutedTicks()).isGreaterThan(0L);
+    }
+    assertThat(scheduler.getNumberOfStartedWorkers()).isAtMost(2);
+  }
+
+  @Test
+  public void testSlowTaskMissesTicks() throws InterruptedException {
+    final Runnable slowTask =
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        };
+
+    final ScheduledControlLoop loop = scheduler.schedule(slowTask, 0.01, 0.3);
+    assertThat(loop.awaitRetirement(1, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(loop.getMissedTicks()).isGreaterThan(0L);
+    assertThat(loop.getExecutedTicks()).isLessThan(10L);
+  }
+
+  @Test
+  public void testCancelRetiresLoop() throws InterruptedException {
+    final AtomicInteger counter = new AtomicInteger();
+    final ScheduledControlLoop loop = scheduler.schedule(createCountingTask(counter), 0.01, 10);
+
+    TimeUnit.MILLISECONDS.sleep(50);
+    loop.cancel();
+    assertThat(loop.awaitRetirement(100, TimeUnit.MILLISECONDS)).isTrue();
+
+    final int numberOfExecutions = counter.get();
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertThat(counter.get()).isEqualTo(numberOfExecutions);
+    assertThat(scheduler.getNumberOfQueuedTasks()).isEqualTo(0);
+  }
+
+  private static Runnable createCountingTask(final AtomicInteger counter) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        counter.incrementAndGet();
+      }
+    };
+  }
+}
@@ -0,0 +1,140 @@
+package commands.schedulers;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class DiscreteEventExecutorTest {
+
+  private DiscreteEventExecutor executor;
+
+  @Before
+  public void setUp() {
+    executor = DiscreteEventExecutor.create();
+  }
+
+  @Test
+  public void testEventsRunInTheOrderOfTheirTimes() {
+    final List<String> runEvents = new ArrayList<>();
+    executor.schedule(createRecordingTask(runEvents, "late"), 20, TimeUnit.MILLISECONDS);
+    executor.schedule(createRecordingTask(runEvents, "first"), 10, TimeUnit.MILLISECONDS);
+    executor.schedule(createRecordingTask(runEvents, "second"), 10, TimeUnit.MILLISECONDS);
+
+    executor.advance(15, TimeUnit.MILLISECONDS);
+    assertThat(runEvents).containsExactly("first@10", "second@10").inOrder();
+    assertThat(executor.getClock().getCurrentTimeNanoSeconds())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(15));
+
+    executor.advance(15, TimeUnit.MILLISECONDS);
+    assertThat(runEvents).containsExactly("first@10", "second@10", "late@20").inOrder();
+    assertThat(executor.getNumberOfPendingEvents()).isEqualTo(0);
+  }
+
+  @Test
+  public void testPeriodicTaskRunsInVirtualTime() {
+    final AtomicInteger counter = new AtomicInteger();
+    final AtomicReference<ScheduledControlLoop> loop = new AtomicReference<>();
+    final long startTimeInNanoSeconds = System.nanoTime();
+
+    executor.run(
+        new Runnable() {
+          @Override
+          public void run() {
+            loop.set(PeriodicTaskRunner.run(createCountingTask(counter), 0.05, 120));
+          }
+        });
+
+    assertThat(System.nanoTime() - startTimeInNanoSeconds).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    assertThat(executor.getClock().getCurrentTimeSeconds()).isWithin(1.0e-9).of(120);
+    assertThat(counter.get()).isEqualTo(2400);
+    assertThat(loop.get().getExecutedTicks()).isEqualTo(2400L);
+    assertThat(loop.get().getMissedTicks()).isEqualTo(0L);
+  }
+
+  @Test
+  public void testExecutorIsOnlyBoundWhileRunning() {
+    final AtomicReference<DiscreteEventExecutor> boundExecutor = new AtomicReference<>();
+    executor.run(
+        new Runnable() {
+          @Override
+          public void run() {
+            boundExecutor.set(DiscreteEventExecutor.getCurrent().orNull());
+          }
+        });
+
+    assertThat(boundExecutor.get()).isSameAs(executor);
+    assertThat(DiscreteEventExecutor.getCurrent().isPresent()).isFalse();
+  }
+
+  @Test
+  public void testAwaitConditionTimesOutInVirtualTime() throws InterruptedException {
+    final Supplier<Boolean> neverSatisfied = Suppliers.ofInstance(false);
+
+    assertThat(executor.awaitCondition(neverSatisfied, 50, TimeUnit.MILLISECONDS)).isFalse();
+    assertThat(executor.getClock().getCurrentTimeNanoSeconds())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testAwaitConditionIsSatisfiedByAnEvent() throws InterruptedException {
+    final AtomicInteger counter = new AtomicInteger();
+    executor.schedule(createCountingTask(counter), 30, TimeUnit.MILLISECONDS);
+
+    executor.awaitCondition(
+        new Supplier<Boolean>() {
+          @Override
+          public Boolean get() {
+            return counter.get() > 0;
+          }
+        });
+
+    assertThat(executor.getClock().getCurrentTimeNanoSeconds())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(30));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testAwaitConditionWithoutEventsFails() throws InterruptedException {
+    executor.awaitCondition(Suppliers.ofInstance(false));
+  }
+
+  @Test
+  public void testSleepStopsOnInterruption() {
+    Thread.currentThread().interrupt();
+    try {
+      executor.sleep(1, TimeUnit.SECONDS);
+      fail("The sleep should have been interrupted.");
+    } catch (InterruptedException e) {
+      assertThat(executor.getClock().getCurrentTimeNanoSeconds()).isEqualTo(0L);
+    }
+  }
+
+  private Runnable createRecordingTask(final List<String> runEvents, final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        final long timeInMilliSeconds =
+            TimeUnit.NANOSECONDS.toMillis(executor.getClock().getCurrentTimeNanoSeconds());
+        runEvents.add(name + "@" + timeInMilliSeconds);
+      }
+    };
+  }
+
+  private static Runnable createCountingTask(final AtomicInteger counter) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        counter.incrementAndGet();
+      }
+    };
+  }
+}
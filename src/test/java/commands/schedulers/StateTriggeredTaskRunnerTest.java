@@ -0,0 +1,75 @@
+package commands.schedulers;
+
+import control.dto.DroneStateStamped;
+import control.localization.ObservableStateEstimator;
+import control.localization.StateObserver;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class StateTriggeredTaskRunnerTest {
+
+  @Test
+  public void testTaskRunsOnNewStatesAndCoalescesPendingStates() throws Exception {
+    final ObservableStateEstimator stateEstimator = mock(ObservableStateEstimator.class);
+    final CountDownLatch firstTickStarted = new CountDownLatch(1);
+    final CountDownLatch releaseFirstTick = new CountDownLatch(1);
+    final AtomicInteger counter = new AtomicInteger();
+    final Runnable task =
+        new Runnable() {
+          @Override
+          public void run() {
+            if (counter.incrementAndGet() == 1) {
+              firstTickStarted.countDown();
+              try {
+                releaseFirstTick.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+          }
+        };
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final Future<Long> coalescedStates =
+        executor.submit(
+            new Callable<Long>() {
+              @Override
+              public Long call() {
+                return StateTriggeredTaskRunner.run(task, stateEstimator, 0.5);
+              }
+            });
+
+    final ArgumentCaptor<StateObserver> observerCaptor =
+        ArgumentCaptor.forClass(StateObserver.class);
+    verify(stateEstimator, timeout(1000)).registerStateObserver(observerCaptor.capture());
+    final StateObserver stateObserver = observerCaptor.getValue();
+    final DroneStateStamped state = mock(DroneStateStamped.class);
+
+    stateObserver.onNewState(state);
+    assertThat(firstTickStarted.await(1, TimeUnit.SECONDS)).isTrue();
+
+    // one state is queued while the first tick is running, the others are coalesced into it
+    for (int i = 0; i < 5; i++) {
+      stateObserver.onNewState(state);
+    }
+    releaseFirstTick.countDown();
+
+    assertThat(coalescedStates.get(2, TimeUnit.SECONDS)).isEqualTo(4L);
+    assertThat(counter.get()).isEqualTo(2);
+    verify(stateEstimator).removeStateObserver(stateObserver);
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,254 @@
+package commands.schedulers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SwarmTickBarrierTest {
+
+  private static final double RATE_IN_SECONDS = 0.02;
+
+  private ControlLoopScheduler scheduler;
+  private ExecutorService drones;
+
+  @Before
+  public void setUp() {
+    scheduler = ControlLoopScheduler.create(1);
+    drones = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    drones.shutdownNow();
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testAllDronesSampleTheSameLogicalTime() throws Exception {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(3, RATE_IN_SECONDS, scheduler);
+    final List<List<Long>> sampledTimes = new ArrayList<>();
+    final List<Future<Boolean>> results = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final List<Long> times = Collections.synchronizedList(new ArrayList<Long>());
+      sampledTimes.add(times);
+      results.add(drones.submit(createDrone(barrier, createSamplingLoop(barrier, times), 0.2)));
+    }
+
+    for (final Future<Boolean> result : results) {
+      assertThat(result.get(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    final List<Long> firstDroneTimes = sampledTimes.get(0);
+    assertThat(firstDroneTimes.size()).isAtLeast(5);
+    assertThat(firstDroneTimes.get(0)).isEqualTo(0L);
+    assertThat(sampledTimes.get(1)).isEqualTo(firstDroneTimes);
+    assertThat(sampledTimes.get(2)).isEqualTo(firstDroneTimes);
+    assertThat(barrier.getSkew().getCount()).isEqualTo((long) firstDroneTimes.size());
+  }
+
+  @Test
+  public void testLoopsDoNotStartBeforeAllDronesArrived() throws Exception {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(2, RATE_IN_SECONDS, scheduler);
+    final List<Long> times = Collections.synchronizedList(new ArrayList<Long>());
+    final Future<Boolean> firstDrone =
+        drones.submit(createDrone(barrier, createSamplingLoop(barrier, times), 0.1));
+
+    try {
+      firstDrone.get(200, TimeUnit.MILLISECONDS);
+      throw new AssertionError("The first drone must wait for the second drone.");
+    } catch (TimeoutException e) {
+      assertThat(times).isEmpty();
+    }
+
+    barrier.removeDrone();
+    assertThat(firstDrone.get(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(times).isNotEmpty();
+  }
+
+  @Test
+  public void testInterruptedDroneIsNotWaitedFor() throws Exception {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(2, RATE_IN_SECONDS, scheduler);
+    final List<Long> times = Collections.synchronizedList(new ArrayList<Long>());
+    final Future<Boolean> interruptedDrone =
+        drones.submit(createDrone(barrier, createSamplingLoop(barrier, times), 0.1));
+    try {
+      interruptedDrone.get(100, TimeUnit.MILLISECONDS);
+      throw new AssertionError("The first drone must wait for the second drone.");
+    } catch (TimeoutException e) {
+      interruptedDrone.cancel(true);
+    }
+
+    final List<Long> otherTimes = Collections.synchronizedList(new ArrayList<Long>());
+    final Future<Boolean> otherDrone =
+        drones.submit(createDrone(barrier, createSamplingLoop(barrier, otherTimes), 0.1));
+    assertThat(otherDrone.get(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(otherTimes).isNotEmpty();
+    assertThat(times).isEmpty();
+  }
+
+  @Test
+  public void testInterruptedDroneIsNotRemovedTwice() throws Exception {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(3, RATE_IN_SECONDS, scheduler);
+    final Thread interruptedDrone =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                barrier.run(createSamplingLoop(barrier, new ArrayList<Long>()), 0.1);
+              }
+            });
+    interruptedDrone.start();
+    // the drone leaves the barrier whether it is interrupted before or while waiting
+    interruptedDrone.interrupt();
+    interruptedDrone.join(1000);
+    assertThat(interruptedDrone.isAlive()).isFalse();
+    // the pipeline of the interrupted drone reports that it has stopped
+    barrier.removeDrone();
+
+    final Future<Boolean> secondDrone =
+        drones.submit(
+            createDrone(
+                barrier,
+                createSamplingLoop(barrier, Collections.synchronizedList(new ArrayList<Long>())),
+                0.1));
+    try {
+      secondDrone.get(200, TimeUnit.MILLISECONDS);
+      throw new AssertionError("The second drone must wait for the third drone.");
+    } catch (TimeoutException e) {
+      // expected
+    }
+
+    final Future<Boolean> thirdDrone =
+        drones.submit(
+            createDrone(
+                barrier,
+                createSamplingLoop(barrier, Collections.synchronizedList(new ArrayList<Long>())),
+                0.1));
+    assertThat(secondDrone.get(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(thirdDrone.get(2, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRemoveDrone_noDroneLeft() {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(1, RATE_IN_SECONDS, scheduler);
+    barrier.removeDrone();
+    barrier.removeDrone();
+  }
+
+  @Test
+  public void testFailingDroneDoesNotStopTheOtherDrones() throws Exception {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(2, RATE_IN_SECONDS, scheduler);
+    final Runnable failingLoop =
+        new Runnable() {
+          @Override
+          public void run() {
+            throw new IllegalStateException("Failing control loop.");
+          }
+        };
+    final List<Long> times = Collections.synchronizedList(new ArrayList<Long>());
+
+    final Future<Boolean> failingDrone = drones.submit(createDrone(barrier, failingLoop, 0.2));
+    final Future<Boolean> healthyDrone =
+        drones.submit(createDrone(barrier, createSamplingLoop(barrier, times), 0.2));
+
+    assertThat(failingDrone.get(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(healthyDrone.get(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(times.size()).isAtLeast(5);
+  }
+
+  @Test
+  public void testLateDroneIsRejected() throws Exception {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(1, RATE_IN_SECONDS, scheduler);
+    final AtomicBoolean lateLoopExecuted = new AtomicBoolean();
+    final Runnable lateLoop =
+        new Runnable() {
+          @Override
+          public void run() {
+            lateLoopExecuted.set(true);
+          }
+        };
+
+    final Future<Boolean> drone =
+        drones.submit(
+            createDrone(
+                barrier,
+                createSamplingLoop(barrier, Collections.synchronizedList(new ArrayList<Long>())),
+                0.2));
+    TimeUnit.MILLISECONDS.sleep(50);
+
+    assertThat(barrier.run(lateLoop, 0.2)).isFalse();
+    assertThat(drone.get(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(lateLoopExecuted.get()).isFalse();
+  }
+
+  @Test
+  public void testLogicalTimeIncreasesAfterALateTick() throws Exception {
+    final SwarmTickBarrier barrier = SwarmTickBarrier.create(1, RATE_IN_SECONDS, scheduler);
+    final List<Long> times = Collections.synchronizedList(new ArrayList<Long>());
+    final Runnable samplingLoop = createSamplingLoop(barrier, times);
+    final Runnable slowLoop =
+        new Runnable() {
+          @Override
+          public void run() {
+            samplingLoop.run();
+            if (times.size() == 3) {
+              // makes the next tick more than half a period late
+              try {
+                TimeUnit.MILLISECONDS.sleep((long) (RATE_IN_SECONDS * 1.6e3));
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+          }
+        };
+
+    assertThat(drones.submit(createDrone(barrier, slowLoop, 0.2)).get(2, TimeUnit.SECONDS))
+        .isTrue();
+
+    assertThat(times.size()).isAtLeast(5);
+    for (int i = 1; i < times.size(); i++) {
+      assertThat(times.get(i)).isGreaterThan(times.get(i - 1));
+    }
+  }
+
+  @Test
+  public void testComputeTickIndex() {
+    assertThat(SwarmTickBarrier.computeTickIndex(-1, 0, 100)).isEqualTo(0L);
+    assertThat(SwarmTickBarrier.computeTickIndex(0, 149, 100)).isEqualTo(1L);
+    assertThat(SwarmTickBarrier.computeTickIndex(1, 360, 100)).isEqualTo(4L);
+    assertThat(SwarmTickBarrier.computeTickIndex(4, 400, 100)).isEqualTo(5L);
+  }
+
+  private static Runnable createSamplingLoop(
+      final SwarmTickBarrier barrier, final List<Long> sampledTimes) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        sampledTimes.add(barrier.getClock().getCurrentTimeNanoSeconds());
+      }
+    };
+  }
+
+  private static Callable<Boolean> createDrone(
+      final SwarmTickBarrier barrier, final Runnable controlLoop, final double durationInSeconds) {
+    return new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return barrier.run(controlLoop, durationInSeconds);
+      }
+    };
+  }
+}
@@ -0,0 +1,104 @@
+package control;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.geom.point.Point3D;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrimitiveVelocityController4dTest {
+
+  private static final double DELTA = 0.000001;
+
+  private static DroneVelocityController createController() {
+    final Trajectory4d trajectory =
+        Trajectories.circleTrajectoryBuilder()
+            .setLocation(Point3D.create(1.5, -2.5, 1.5))
+            .setRadius(1.5)
+            .setFrequency(0.1)
+            .fixYawAt(-Math.PI / 2)
+            .build();
+
+    return DroneVelocityController.pidBuilder()
+        .withTrajectory4d(trajectory)
+        .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+        .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+        .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+        .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+        .build();
+  }
+
+  private static void assertSameResponse(
+      VelocityController4d immutableController, PrimitiveVelocityController4d primitiveController) {
+    final double[] pose = new double[4];
+    final double[] velocity = new double[4];
+    final double[] response = new double[4];
+
+    for (int i = 0; i < 20; i++) {
+      final double timeInSeconds = i * 0.05;
+      final Pose currentPose =
+          Pose.builder().setX(i * 0.1).setY(-i * 0.2).setZ(1).setYaw(i * 0.01).build();
+      final InertialFrameVelocity currentVelocity =
+          Velocity.builder().setLinearX(0.1).setLinearY(-0.2).setLinearZ(0).setAngularZ(0).build();
+
+      final InertialFrameVelocity expected =
+          immutableController.computeNextResponse(currentPose, currentVelocity, timeInSeconds);
+
+      AbstractPrimitiveVelocityController4d.copyPose(currentPose, pose);
+      AbstractPrimitiveVelocityController4d.copyVelocity(currentVelocity, velocity);
+      primitiveController.computeNextResponse(pose, velocity, timeInSeconds, response);
+
+      assertThat(response[PrimitiveVelocityController4d.X]).isWithin(DELTA).of(expected.linearX());
+      assertThat(response[PrimitiveVelocityController4d.Y]).isWithin(DELTA).of(expected.linearY());
+      assertThat(response[PrimitiveVelocityController4d.Z]).isWithin(DELTA).of(expected.linearZ());
+      assertThat(response[PrimitiveVelocityController4d.YAW])
+          .isWithin(DELTA)
+          .of(expected.angularZ());
+    }
+  }
+
+  @Test
+  public void testDroneVelocityControllerPrimitivePathMatchesImmutablePath() {
+    assertSameResponse(createController(), createController());
+  }
+
+  @Test
+  public void testPidCoFilterPrimitivePathMatchesImmutablePath() {
+    assertSameResponse(
+        PidCoFilter4d.create(createController(), 0.1),
+        PidCoFilter4d.create(createController(), 0.1));
+  }
+
+  @Test
+  public void testAsPrimitiveAdaptsImmutableController() {
+    final VelocityController4d immutableController = mock(VelocityController4d.class);
+    when(immutableController.computeNextResponse(
+            any(Pose.class), any(InertialFrameVelocity.class), anyDouble()))
+        .thenReturn(
+            Velocity.builder().setLinearX(1).setLinearY(2).setLinearZ(3).setAngularZ(4).build());
+
+    final PrimitiveVelocityController4d primitiveController =
+        AbstractPrimitiveVelocityController4d.asPrimitive(immutableController);
+    final double[] response = new double[4];
+    primitiveController.computeNextResponse(new double[4], new double[4], 0, response);
+
+    assertThat(response[PrimitiveVelocityController4d.X]).isWithin(DELTA).of(1);
+    assertThat(response[PrimitiveVelocityController4d.Y]).isWithin(DELTA).of(2);
+    assertThat(response[PrimitiveVelocityController4d.Z]).isWithin(DELTA).of(3);
+    assertThat(response[PrimitiveVelocityController4d.YAW]).isWithin(DELTA).of(4);
+  }
+
+  @Test
+  public void testAsPrimitiveReturnsPrimitiveControllerItself() {
+    final DroneVelocityController controller = createController();
+    assertThat(AbstractPrimitiveVelocityController4d.asPrimitive(controller))
+        .isSameAs(controller);
+  }
+}
@@ -0,0 +1,171 @@
+package control;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.geom.point.Point3D;
+import com.google.common.collect.ImmutableList;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import org.junit.Test;
+import services.Velocity4dService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SwarmVelocityControllerTest {
+
+  private static final double DELTA = 0.000001;
+  private static final int NUMBER_OF_DRONES = 5;
+
+  private static final PidParameters BOUNDED_PARAMETERS =
+      PidParameters.builder()
+          .setKp(2)
+          .setKd(0.5)
+          .setKi(0.3)
+          .setMinVelocity(-1)
+          .setMaxVelocity(1)
+          .setMinIntegralError(-0.2)
+          .setMaxIntegralError(0.2)
+          .build();
+
+  private static List<Trajectory4d> createTrajectories() {
+    final List<Trajectory4d> trajectories = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+      trajectories.add(
+          Trajectories.circleTrajectoryBuilder()
+              .setLocation(Point3D.create(i, -i, 1.5))
+              .setRadius(1 + 0.1 * i)
+              .setFrequency(0.1)
+              .fixYawAt(Math.PI - 0.05 * i)
+              .build());
+    }
+    return trajectories;
+  }
+
+  private static Pose createPose(int droneIndex, int tick) {
+    // the yaw crosses the discontinuity at pi
+    return Pose.builder()
+        .setX(droneIndex + tick * 0.1)
+        .setY(-tick * 0.2)
+        .setZ(1 + 0.1 * droneIndex)
+        .setYaw(normalizeAngle(Math.PI - 0.1 + tick * 0.02))
+        .build();
+  }
+
+  private static InertialFrameVelocity createVelocity(int droneIndex) {
+    return Velocity.builder()
+        .setLinearX(0.1 * droneIndex)
+        .setLinearY(-0.2)
+        .setLinearZ(0.05)
+        .setAngularZ(0.01)
+        .build();
+  }
+
+  @Test
+  public void testComputeNextResponses_sameAsDroneVelocityControllers() {
+    assertSameResponses(DefaultPidParameters.LINEAR_X.getParameters());
+  }
+
+  @Test
+  public void testComputeNextResponses_boundedVelocityAndIntegralError() {
+    assertSameResponses(BOUNDED_PARAMETERS);
+  }
+
+  private static void assertSameResponses(PidParameters parameters) {
+    final List<Trajectory4d> trajectories = createTrajectories();
+    final SwarmVelocityController swarmController =
+        SwarmVelocityController.builder()
+            .withTrajectories(trajectories)
+            .withLinearXParameters(parameters)
+            .withLinearYParameters(parameters)
+            .withLinearZParameters(parameters)
+            .withAngularZParameters(parameters)
+            .build();
+
+    final List<DroneVelocityController> droneControllers = new ArrayList<>();
+    for (final Trajectory4d trajectory : trajectories) {
+      droneControllers.add(
+          DroneVelocityController.pidBuilder()
+              .withTrajectory4d(trajectory)
+              .withLinearXParameters(parameters)
+              .withLinearYParameters(parameters)
+              .withLinearZParameters(parameters)
+              .withAngularZParameters(parameters)
+              .build());
+    }
+
+    assertThat(swarmController.getNumberOfDrones()).isEqualTo(NUMBER_OF_DRONES);
+    for (int tick = 0; tick < 30; tick++) {
+      final double timeInSeconds = tick * 0.05;
+      for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+        swarmController.setCurrentState(i, createPose(i, tick), createVelocity(i));
+      }
+      swarmController.computeNextResponses(timeInSeconds);
+
+      for (int i = 0; i < NUMBER_OF_DRONES; i++) {
+        final InertialFrameVelocity expected =
+            droneControllers
+                .get(i)
+                .computeNextResponse(createPose(i, tick), createVelocity(i), timeInSeconds);
+        assertThat(swarmController.getNextResponse(i, PrimitiveVelocityController4d.X))
+            .isWithin(DELTA)
+            .of(expected.linearX());
+        assertThat(swarmController.getNextResponse(i, PrimitiveVelocityController4d.Y))
+            .isWithin(DELTA)
+            .of(expected.linearY());
+        assertThat(swarmController.getNextResponse(i, PrimitiveVelocityController4d.Z))
+            .isWithin(DELTA)
+            .of(expected.linearZ());
+        assertThat(swarmController.getNextResponse(i, PrimitiveVelocityController4d.YAW))
+            .isWithin(DELTA)
+            .of(expected.angularZ());
+      }
+    }
+  }
+
+  @Test
+  public void testSendNextResponses() {
+    final SwarmVelocityController swarmController =
+        SwarmVelocityController.builder()
+            .withTrajectories(createTrajectories().subList(0, 2))
+            .withLinearXParameters(BOUNDED_PARAMETERS)
+            .withLinearYParameters(BOUNDED_PARAMETERS)
+            .withLinearZParameters(BOUNDED_PARAMETERS)
+            .withAngularZParameters(BOUNDED_PARAMETERS)
+            .build();
+    final Velocity4dService firstVelocityService = mock(Velocity4dService.class);
+    final Velocity4dService secondVelocityService = mock(Velocity4dService.class);
+
+    final Pose pose = createPose(0, 0);
+    swarmController.setCurrentState(0, pose, createVelocity(0));
+    swarmController.setCurrentState(1, new double[4], new double[4]);
+    swarmController.computeNextResponses(0);
+    swarmController.sendNextResponses(
+        ImmutableList.of(firstVelocityService, secondVelocityService));
+
+    final double[] response = new double[4];
+    swarmController.getNextResponse(0, response);
+    verify(firstVelocityService)
+        .sendInertialFrameVelocity(
+            Velocity.builder()
+                .setLinearX(response[PrimitiveVelocityController4d.X])
+                .setLinearY(response[PrimitiveVelocityController4d.Y])
+                .setLinearZ(response[PrimitiveVelocityController4d.Z])
+                .setAngularZ(response[PrimitiveVelocityController4d.YAW])
+                .build(),
+            pose);
+    // without a pose, the response cannot be transformed into the body frame of the drone
+    verify(secondVelocityService, never())
+        .sendInertialFrameVelocity(any(InertialFrameVelocity.class), any(Pose.class));
+  }
+
+  private static double normalizeAngle(double angle) {
+    return Math.atan2(Math.sin(angle), Math.cos(angle));
+  }
+}
@@ -0,0 +1,149 @@
+package control;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.TrajectoryUtils;
+import applications.trajectory.geom.point.Point3D;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class TrajectorySampler4dTest {
+
+  private static final double DELTA = 0.000001;
+
+  @Test
+  public void testDifferentiableTrajectoryIsEvaluatedOncePerPointInTime() {
+    final CountingDifferentiableTrajectory trajectory =
+        new CountingDifferentiableTrajectory(
+            Trajectories.newCircleTrajectory4D(Point3D.create(0, 0, 1), 1, 0.1, 0));
+    final DroneVelocityController controller = createController(trajectory);
+
+    final double[] pose = new double[4];
+    final double[] velocity = new double[4];
+    final double[] response = new double[4];
+    controller.computeNextResponse(pose, velocity, 1, response);
+
+    // the lag time of the linear controllers and the current time of the angular controller
+    assertThat(trajectory.numberOfStateEvaluations).isEqualTo(2);
+    assertThat(trajectory.numberOfPositionEvaluations).isEqualTo(0);
+  }
+
+  @Test
+  public void testPerAxisTrajectoryIsEvaluatedPerAxis() {
+    final CountingTrajectory trajectory = new CountingTrajectory();
+    final TrajectorySampler4d sampler = TrajectorySampler4d.create(trajectory);
+
+    assertThat(sampler.getTrajectoryLinearX().getDesiredPosition(2)).isWithin(DELTA).of(4);
+    assertThat(sampler.getTrajectoryLinearX().getDesiredPosition(2)).isWithin(DELTA).of(4);
+    assertThat(trajectory.numberOfEvaluationsX).isEqualTo(1);
+    assertThat(trajectory.numberOfEvaluationsY).isEqualTo(0);
+
+    assertThat(sampler.getTrajectoryLinearX().getDesiredVelocity(2)).isWithin(0.001).of(4);
+    assertThat(sampler.getTrajectoryLinearY().getDesiredVelocity(2)).isWithin(0.001).of(-1);
+    assertThat(sampler.getTrajectoryLinearY().getDesiredPosition(2)).isWithin(DELTA).of(-2);
+    // the central difference is computed once for all axes
+    assertThat(trajectory.numberOfEvaluationsY).isEqualTo(3);
+  }
+
+  @Test
+  public void testSameResponseAsWithoutSampler() {
+    final Trajectory4d trajectory =
+        Trajectories.newCircleTrajectory4D(Point3D.create(0, 0, 1), 1, 0.1, 0);
+    final Trajectory4d sameTrajectory =
+        Trajectories.newCircleTrajectory4D(Point3D.create(0, 0, 1), 1, 0.1, 0);
+    final DroneVelocityController controller = createController(trajectory);
+    final VelocityController1d controllerX =
+        LinearPidController1d.create(
+            DefaultPidParameters.LINEAR_X.getParameters(),
+            TrajectoryUtils.getTrajectoryLinearX(sameTrajectory));
+
+    final double[] pose = {0.5, 0, 1, 0};
+    final double[] velocity = new double[4];
+    final double[] response = new double[4];
+    for (int i = 0; i < 10; i++) {
+      final double timeInSeconds = i * 0.1;
+      controller.computeNextResponse(pose, velocity, timeInSeconds, response);
+      assertThat(response[PrimitiveVelocityController4d.X])
+          .isWithin(DELTA)
+          .of(controllerX.computeNextResponse(pose[0], velocity[0], timeInSeconds));
+    }
+  }
+
+  private static DroneVelocityController createController(Trajectory4d trajectory) {
+    return DroneVelocityController.pidBuilder()
+        .withTrajectory4d(trajectory)
+        .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+        .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+        .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+        .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+        .build();
+  }
+
+  private static final class CountingTrajectory implements Trajectory4d {
+    private int numberOfEvaluationsX;
+    private int numberOfEvaluationsY;
+
+    @Override
+    public double getDesiredPositionX(double timeInSeconds) {
+      numberOfEvaluationsX++;
+      return timeInSeconds * timeInSeconds;
+    }
+
+    @Override
+    public double getDesiredPositionY(double timeInSeconds) {
+      numberOfEvaluationsY++;
+      return -timeInSeconds;
+    }
+
+    @Override
+    public double getDesiredPositionZ(double timeInSeconds) {
+      return 1;
+    }
+
+    @Override
+    public double getDesiredAngleZ(double timeInSeconds) {
+      return 0;
+    }
+  }
+
+  private static final class CountingDifferentiableTrajectory
+      implements DifferentiableTrajectory4d {
+    private final Trajectory4d target;
+    private int numberOfStateEvaluations;
+    private int numberOfPositionEvaluations;
+
+    private CountingDifferentiableTrajectory(Trajectory4d target) {
+      this.target = target;
+    }
+
+    @Override
+    public void getDesiredState(double timeInSeconds, TrajectoryState4d state) {
+      numberOfStateEvaluations++;
+      TrajectoryUtils.getDesiredState(target, timeInSeconds, state);
+    }
+
+    @Override
+    public double getDesiredPositionX(double timeInSeconds) {
+      numberOfPositionEvaluations++;
+      return target.getDesiredPositionX(timeInSeconds);
+    }
+
+    @Override
+    public double getDesiredPositionY(double timeInSeconds) {
+      numberOfPositionEvaluations++;
+      return target.getDesiredPositionY(timeInSeconds);
+    }
+
+    @Override
+    public double getDesiredPositionZ(double timeInSeconds) {
+      numberOfPositionEvaluations++;
+      return target.getDesiredPositionZ(timeInSeconds);
+    }
+
+    @Override
+    public double getDesiredAngleZ(double timeInSeconds) {
+      numberOfPositionEvaluations++;
+      return target.getDesiredAngleZ(timeInSeconds);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package control;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.geom.point.Point4D;
+import commands.Command;
+import commands.bebopcommands.BebopFollowTrajectory;
+import control.dto.Pose;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import simulation.ClosedLoopSimulation;
+import simulation.SimulatedDrone;
+import taskexecutor.Task;
+import taskexecutor.TaskType;
+import utils.flightdata.FlightDataReader;
+import utils.flightdata.FlightDataRecord;
+import utils.flightdata.FlightDataRecorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class VelocityController4dLoggerTest {
+
+  private static final Point4D HOVERING_POINT = Point4D.create(0, 0, 1, 0);
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("flight-data");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (final Path file : Files.newDirectoryStream(directory)) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void testLastRecordsAreOnDiskAfterClose() throws IOException {
+    final Path file = directory.resolve("drone.fdr");
+    final Trajectory4d trajectory = Trajectories.newHoldPositionTrajectory(HOVERING_POINT);
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final VelocityController4dLogger logger =
+        VelocityController4dLogger.create(
+            createController(trajectory),
+            trajectory,
+            simulation.getClock(),
+            FlightDataRecorder.create(file, 100));
+    final double[] currentPose = new double[4];
+    final double[] currentVelocity = new double[4];
+    final double[] nextResponse = new double[4];
+    for (int i = 0; i < 10; i++) {
+      logger.computeNextResponse(currentPose, currentVelocity, i * 0.05, nextResponse);
+    }
+
+    logger.close();
+
+    final FlightDataReader reader = FlightDataReader.open(file);
+    assertThat(reader.getNumberOfRecords()).isEqualTo(10);
+    assertThat(reader.getValue(9, FlightDataRecord.TRAJECTORY_TIME)).isWithin(1.0e-9).of(0.45);
+    assertThat(reader.getValue(9, FlightDataRecord.DESIRED_POSE + 2)).isWithin(1.0e-9).of(1);
+  }
+
+  @Test
+  public void testFollowTrajectoryCommandClosesTheLogger() throws IOException {
+    final Path file = directory.resolve("drone.fdr");
+    final Trajectory4d trajectory = Trajectories.newHoldPositionTrajectory(HOVERING_POINT);
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone = simulation.addDrone(Pose.createZeroPose());
+    final Command followTrajectory =
+        BebopFollowTrajectory.builder()
+            .withStateEstimator(drone)
+            .withVelocity4dService(drone)
+            .withVelocityController4d(
+                VelocityController4dLogger.create(
+                    createController(trajectory),
+                    trajectory,
+                    simulation.getClock(),
+                    FlightDataRecorder.create(file, 1000)))
+            .withTimeProvider(simulation.getClock())
+            .withDurationInSeconds(2)
+            .withControlRateInSeconds(0.05)
+            .build();
+
+    simulation.takeOff();
+    simulation.execute(Task.create(TaskType.NORMAL_TASK, followTrajectory));
+
+    final FlightDataReader reader = FlightDataReader.open(file);
+    final int numberOfRecords = reader.getNumberOfRecords();
+    assertThat(numberOfRecords).isAtLeast(39);
+    assertThat(reader.getValue(numberOfRecords - 1, FlightDataRecord.TRAJECTORY_TIME))
+        .isWithin(0.05 + 1.0e-9)
+        .of(2);
+  }
+
+  private static DroneVelocityController createController(Trajectory4d trajectory) {
+    return DroneVelocityController.pidBuilder()
+        .withTrajectory4d(trajectory)
+        .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+        .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+        .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+        .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+        .build();
+  }
+}
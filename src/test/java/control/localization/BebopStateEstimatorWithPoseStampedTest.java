@@ -5,11 +5,16 @@ import control.dto.DroneStateStamped;
 import geometry_msgs.PoseStamped;
 import geometry_msgs.Quaternion;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import services.rossubscribers.MessageObserver;
 import services.rossubscribers.MessagesSubscriberService;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -77,6 +82,55 @@ public class BebopStateEstimatorWithPoseStampedTest {
     testCorrectSecondState(stateEstimator);
   }
 
+  @Test
+  public void testPushNewStates() {
+    final MessagesSubscriberService<PoseStamped> poseSubscriber =
+        mock(MessagesSubscriberService.class);
+    final ObservableStateEstimator stateEstimator =
+        BebopStateEstimatorWithPoseStamped.create(poseSubscriber, 1);
+    final StateObserver stateObserver = mock(StateObserver.class);
+    stateEstimator.registerStateObserver(stateObserver);
+
+    final ArgumentCaptor<MessageObserver> messageObserverCaptor =
+        ArgumentCaptor.forClass(MessageObserver.class);
+    verify(poseSubscriber).registerMessageObserver(messageObserverCaptor.capture());
+    final MessageObserver<PoseStamped> messageObserver = messageObserverCaptor.getValue();
+
+    final PoseStamped firstPose = createPose(1.0, 0.0, 0.0, 0.0);
+    messageObserver.onNewMessage(firstPose);
+    verify(stateObserver, never()).onNewState(any(DroneStateStamped.class));
+
+    final PoseStamped secondPose = createPose(2.0, 1.0, 2.0, 3.0);
+    messageObserver.onNewMessage(secondPose);
+    final ArgumentCaptor<DroneStateStamped> stateCaptor =
+        ArgumentCaptor.forClass(DroneStateStamped.class);
+    verify(stateObserver).onNewState(stateCaptor.capture());
+    assertThat(stateCaptor.getValue().getTimeStampInSeconds()).isWithin(DELTA).of(2.0);
+    assertThat(stateCaptor.getValue().inertialFrameVelocity().linearZ()).isWithin(DELTA).of(3.0);
+
+    // polling returns the pushed state without processing the pose again
+    when(poseSubscriber.getMostRecentMessage()).thenReturn(Optional.of(secondPose));
+    testCorrectFirstState(stateEstimator);
+    verify(stateObserver).onNewState(any(DroneStateStamped.class));
+
+    stateEstimator.removeStateObserver(stateObserver);
+    final PoseStamped thirdPose = createPose(3.0, 0.0, 0.0, 0.0);
+    messageObserver.onNewMessage(thirdPose);
+    verify(stateObserver).onNewState(any(DroneStateStamped.class));
+    when(poseSubscriber.getMostRecentMessage()).thenReturn(Optional.of(thirdPose));
+    testCorrectSecondState(stateEstimator);
+  }
+
+  private static PoseStamped createPose(double timeStamp, double x, double y, double z) {
+    final PoseStamped pose = mock(PoseStamped.class, RETURNS_DEEP_STUBS);
+    when(pose.getHeader().getStamp().toSeconds()).thenReturn(timeStamp);
+    when(pose.getPose().getPosition().getX()).thenReturn(x);
+    when(pose.getPose().getPosition().getY()).thenReturn(y);
+    when(pose.getPose().getPosition().getZ()).thenReturn(z);
+    when(pose.getPose().getOrientation()).thenReturn(mock(Quaternion.class, RETURNS_DEEP_STUBS));
+    return pose;
+  }
+
   private static void testCorrectSecondState(StateEstimator stateEstimator) {
     final Optional<DroneStateStamped> secondState = stateEstimator.getCurrentState();
     assertThat(secondState).isPresent();
@@ -0,0 +1,109 @@
+package control.localization;
+
+import com.google.common.base.Optional;
+import control.dto.DroneStateStamped;
+import control.dto.Pose;
+import control.dto.Velocity;
+import org.apache.commons.math3.random.GaussianRandomGenerator;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FakeStateEstimatorGroupTest {
+
+  private static final double DELTA = 0.000001;
+
+  private ScheduledFuture<?> tickFuture;
+  private FakeStateEstimatorGroup group;
+
+  @Before
+  public void setUp() {
+    final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    tickFuture = mock(ScheduledFuture.class);
+    doReturn(tickFuture)
+        .when(executor)
+        .scheduleAtFixedRate(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+
+    // a zero deviation makes the noise deterministic
+    group =
+        FakeStateEstimatorGroup.create(
+            20, new GaussianRandomGenerator(new MersenneTwister(1)), 0.5, 0, executor);
+    verify(executor)
+        .scheduleAtFixedRate(any(Runnable.class), eq(0L), eq(50000000L), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testAllDronesAreUpdatedByOneTick() {
+    final FakeStateEstimatorDecorator firstDrone =
+        group.addStateEstimator(createStateEstimator(1), 1);
+    final FakeStateEstimatorDecorator secondDrone =
+        group.addStateEstimator(createStateEstimator(2), 1);
+    final StateObserver stateObserver = mock(StateObserver.class);
+    secondDrone.registerStateObserver(stateObserver);
+    assertThat(firstDrone.getCurrentState()).isAbsent();
+
+    group.tick();
+
+    assertThat(firstDrone.getCurrentState().get().pose().x()).isWithin(DELTA).of(1.5);
+    assertThat(secondDrone.getCurrentState().get().pose().x()).isWithin(DELTA).of(2.5);
+    assertThat(secondDrone.getCurrentState().get().inertialFrameVelocity().linearZ())
+        .isWithin(DELTA)
+        .of(0.5);
+    verify(stateObserver).onNewState(secondDrone.getCurrentState().get());
+  }
+
+  @Test
+  public void testRemovedDroneIsNotUpdated() {
+    final StateEstimator actualStateEstimator = createStateEstimator(1);
+    final FakeStateEstimatorDecorator drone = group.addStateEstimator(actualStateEstimator, 1);
+    group.tick();
+    final DroneStateStamped state = drone.getCurrentState().get();
+
+    drone.shutdown();
+    group.tick();
+
+    assertThat(drone.getCurrentState().get()).isSameAs(state);
+  }
+
+  @Test
+  public void testStateIsClearedWhenTheActualStateIsLost() {
+    final StateEstimator actualStateEstimator = createStateEstimator(1);
+    final FakeStateEstimatorDecorator drone = group.addStateEstimator(actualStateEstimator, 1);
+    group.tick();
+    assertThat(drone.getCurrentState()).isPresent();
+
+    when(actualStateEstimator.getCurrentState()).thenReturn(Optional.<DroneStateStamped>absent());
+    group.tick();
+    assertThat(drone.getCurrentState()).isAbsent();
+  }
+
+  @Test
+  public void testShutdown() {
+    group.shutdown();
+    verify(tickFuture).cancel(false);
+  }
+
+  private static StateEstimator createStateEstimator(double x) {
+    final StateEstimator stateEstimator = mock(StateEstimator.class);
+    final DroneStateStamped state =
+        DroneStateStamped.create(
+            Pose.builder().setX(x).setY(0).setZ(0).setYaw(0).build(),
+            Velocity.builder().setLinearX(0).setLinearY(0).setLinearZ(0).setAngularZ(0).build(),
+            1);
+    when(stateEstimator.getCurrentState()).thenReturn(Optional.of(state));
+    return stateEstimator;
+  }
+}
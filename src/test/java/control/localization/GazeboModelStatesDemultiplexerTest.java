@@ -0,0 +1,141 @@
+package control.localization;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import control.dto.DroneStateStamped;
+import gazebo_msgs.ModelStates;
+import geometry_msgs.Pose;
+import geometry_msgs.Twist;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import services.rossubscribers.MessageObserver;
+import services.rossubscribers.MessagesSubscriberService;
+import time.TimeProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GazeboModelStatesDemultiplexerTest {
+
+  private static final double DELTA = 0.000001;
+
+  private MessagesSubscriberService<ModelStates> modelStateSubscriber;
+  private GazeboModelStatesDemultiplexer demultiplexer;
+  private MessageObserver<ModelStates> messageObserver;
+
+  @Before
+  public void setUp() {
+    modelStateSubscriber = mock(MessagesSubscriberService.class);
+    when(modelStateSubscriber.getMostRecentMessage()).thenReturn(Optional.<ModelStates>absent());
+    final TimeProvider timeProvider = mock(TimeProvider.class);
+    when(timeProvider.getCurrentTimeSeconds()).thenReturn(5.0);
+    demultiplexer = GazeboModelStatesDemultiplexer.create(modelStateSubscriber, timeProvider);
+
+    final ArgumentCaptor<MessageObserver> messageObserverCaptor =
+        ArgumentCaptor.forClass(MessageObserver.class);
+    verify(modelStateSubscriber).registerMessageObserver(messageObserverCaptor.capture());
+    messageObserver = messageObserverCaptor.getValue();
+  }
+
+  @Test
+  public void testStatesAreDemultiplexed() {
+    final StateEstimator firstDrone = demultiplexer.getStateEstimator("drone_1");
+    final StateEstimator secondDrone = demultiplexer.getStateEstimator("drone_2");
+    final StateEstimator missingDrone = demultiplexer.getStateEstimator("drone_3");
+    assertThat(demultiplexer.getStateEstimator("drone_1")).isSameAs(firstDrone);
+
+    messageObserver.onNewMessage(
+        createModelStates(ImmutableList.of("ground_plane", "drone_1", "drone_2")));
+
+    assertStateX(firstDrone, 1);
+    assertStateX(secondDrone, 2);
+    assertThat(missingDrone.getCurrentState()).isAbsent();
+    assertThat(firstDrone.getCurrentState().get().getTimeStampInSeconds()).isWithin(DELTA).of(5);
+    assertThat(firstDrone.getCurrentState().get().inertialFrameVelocity().linearX())
+        .isWithin(DELTA)
+        .of(10);
+  }
+
+  @Test
+  public void testIndicesAreRecomputedWhenTheModelsChange() {
+    final StateEstimator firstDrone = demultiplexer.getStateEstimator("drone_1");
+    final StateEstimator secondDrone = demultiplexer.getStateEstimator("drone_2");
+
+    messageObserver.onNewMessage(
+        createModelStates(ImmutableList.of("ground_plane", "drone_1", "drone_2")));
+    assertStateX(firstDrone, 1);
+
+    // same number of models in another order
+    messageObserver.onNewMessage(
+        createModelStates(ImmutableList.of("drone_2", "ground_plane", "drone_1")));
+    assertStateX(firstDrone, 2);
+    assertStateX(secondDrone, 0);
+
+    // a model is deleted
+    messageObserver.onNewMessage(createModelStates(ImmutableList.of("drone_1", "drone_2")));
+    assertStateX(firstDrone, 0);
+    assertStateX(secondDrone, 1);
+  }
+
+  @Test
+  public void testLateSpawnedModelIsFoundWithTheSameNumberOfModels() {
+    final StateEstimator firstDrone = demultiplexer.getStateEstimator("drone_1");
+    final StateEstimator secondDrone = demultiplexer.getStateEstimator("drone_2");
+
+    messageObserver.onNewMessage(
+        createModelStates(ImmutableList.of("ground_plane", "drone_1", "obstacle")));
+    assertStateX(firstDrone, 1);
+    assertThat(secondDrone.getCurrentState()).isAbsent();
+
+    // the obstacle is replaced by the second drone, the number of models does not change
+    messageObserver.onNewMessage(
+        createModelStates(ImmutableList.of("ground_plane", "drone_1", "drone_2")));
+    assertStateX(firstDrone, 1);
+    assertStateX(secondDrone, 2);
+  }
+
+  @Test
+  public void testPollingCatchesUpWithTheMostRecentMessage() {
+    final StateEstimator stateEstimator =
+        GazeboModelStateEstimator.create(modelStateSubscriber, "drone_1", mock(TimeProvider.class));
+    assertThat(stateEstimator.getCurrentState()).isAbsent();
+
+    final ModelStates modelStates = createModelStates(ImmutableList.of("drone_2", "drone_1"));
+    when(modelStateSubscriber.getMostRecentMessage()).thenReturn(Optional.of(modelStates));
+    assertStateX(stateEstimator, 1);
+  }
+
+  private static void assertStateX(StateEstimator stateEstimator, double x) {
+    final Optional<DroneStateStamped> state = stateEstimator.getCurrentState();
+    assertThat(state).isPresent();
+    assertThat(state.get().pose().x()).isWithin(DELTA).of(x);
+  }
+
+  /** Creates model states in which the x coordinate of each model is its index. */
+  private static ModelStates createModelStates(List<String> modelNames) {
+    final List<Pose> poses = new ArrayList<>();
+    final List<Twist> twists = new ArrayList<>();
+    for (int i = 0; i < modelNames.size(); i++) {
+      final Pose pose = mock(Pose.class, RETURNS_DEEP_STUBS);
+      when(pose.getPosition().getX()).thenReturn((double) i);
+      when(pose.getOrientation().getW()).thenReturn(1.0);
+      poses.add(pose);
+      final Twist twist = mock(Twist.class, RETURNS_DEEP_STUBS);
+      when(twist.getLinear().getX()).thenReturn(10.0 * (i + 1) - 10);
+      twists.add(twist);
+    }
+
+    final ModelStates modelStates = mock(ModelStates.class);
+    when(modelStates.getName()).thenReturn(modelNames);
+    when(modelStates.getPose()).thenReturn(poses);
+    when(modelStates.getTwist()).thenReturn(twists);
+    return modelStates;
+  }
+}
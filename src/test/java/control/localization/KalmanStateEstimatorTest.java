@@ -0,0 +1,140 @@
+package control.localization;
+
+import com.google.common.base.Optional;
+import control.dto.DroneStateStamped;
+import geometry_msgs.PoseStamped;
+import nav_msgs.Odometry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import services.rossubscribers.MessageObserver;
+import services.rossubscribers.MessagesSubscriberService;
+import time.TimeProvider;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KalmanStateEstimatorTest {
+
+  private static final double TRANSPORT_DELAY = 0.05;
+  private static final double TIME_STEP = 0.02;
+
+  private MessagesSubscriberService<PoseStamped> poseSubscriber;
+  private MessagesSubscriberService<Odometry> odometrySubscriber;
+  private TimeProvider timeProvider;
+  private KalmanStateEstimator stateEstimator;
+  private MessageObserver<PoseStamped> poseObserver;
+  private MessageObserver<Odometry> odometryObserver;
+
+  @Before
+  public void setUp() {
+    poseSubscriber = mock(MessagesSubscriberService.class);
+    odometrySubscriber = mock(MessagesSubscriberService.class);
+    timeProvider = mock(TimeProvider.class);
+    when(poseSubscriber.getMostRecentMessage()).thenReturn(Optional.<PoseStamped>absent());
+    when(odometrySubscriber.getMostRecentMessage()).thenReturn(Optional.<Odometry>absent());
+
+    stateEstimator =
+        KalmanStateEstimator.builder()
+            .withPoseSubscriber(poseSubscriber)
+            .withOdometrySubscriber(odometrySubscriber)
+            .withTimeProvider(timeProvider)
+            .build();
+
+    final ArgumentCaptor<MessageObserver> poseObserverCaptor =
+        ArgumentCaptor.forClass(MessageObserver.class);
+    verify(poseSubscriber).registerMessageObserver(poseObserverCaptor.capture());
+    poseObserver = poseObserverCaptor.getValue();
+    final ArgumentCaptor<MessageObserver> odometryObserverCaptor =
+        ArgumentCaptor.forClass(MessageObserver.class);
+    verify(odometrySubscriber).registerMessageObserver(odometryObserverCaptor.capture());
+    odometryObserver = odometryObserverCaptor.getValue();
+  }
+
+  @Test
+  public void testNoStateBeforeTwoPoses() {
+    assertThat(stateEstimator.getCurrentState()).isAbsent();
+
+    when(timeProvider.getCurrentTimeSeconds()).thenReturn(1 + TRANSPORT_DELAY);
+    poseObserver.onNewMessage(createPoseStamped(1, 0, 0, 1));
+    assertThat(stateEstimator.getCurrentState()).isAbsent();
+
+    when(timeProvider.getCurrentTimeSeconds()).thenReturn(1 + TIME_STEP + TRANSPORT_DELAY);
+    poseObserver.onNewMessage(createPoseStamped(1 + TIME_STEP, 0, 0, 1));
+    assertThat(stateEstimator.getCurrentState()).isPresent();
+  }
+
+  @Test
+  public void testStateIsPredictedToTheCurrentTime() {
+    final StateObserver stateObserver = mock(StateObserver.class);
+    stateEstimator.registerStateObserver(stateObserver);
+
+    // the drone flies along the x axis at 1 m/s
+    double timeStamp = 0;
+    for (int i = 0; i < 200; i++) {
+      timeStamp = i * TIME_STEP;
+      when(timeProvider.getCurrentTimeSeconds()).thenReturn(timeStamp + TRANSPORT_DELAY);
+      poseObserver.onNewMessage(createPoseStamped(timeStamp, timeStamp, 2, 0));
+    }
+
+    verify(stateObserver, atLeastOnce()).onNewState(any(DroneStateStamped.class));
+    assertThat(stateEstimator.getAverageTransportDelayInSeconds())
+        .isWithin(0.000001)
+        .of(TRANSPORT_DELAY);
+
+    // the control tick happens 0.01 s after the last pose arrived
+    final double tickTime = timeStamp + TRANSPORT_DELAY + 0.01;
+    when(timeProvider.getCurrentTimeSeconds()).thenReturn(tickTime);
+    final Optional<DroneStateStamped> state = stateEstimator.getCurrentState();
+    assertThat(state).isPresent();
+    assertThat(state.get().getTimeStampInSeconds()).isWithin(0.000001).of(timeStamp);
+    assertThat(state.get().pose().x()).isWithin(0.01).of(tickTime);
+    assertThat(state.get().pose().y()).isWithin(0.01).of(2);
+    assertThat(state.get().inertialFrameVelocity().linearX()).isWithin(0.05).of(1);
+  }
+
+  @Test
+  public void testOdometryIsRotatedToTheInertialFrame() {
+    when(timeProvider.getCurrentTimeSeconds()).thenReturn(1.0);
+    poseObserver.onNewMessage(createPoseStamped(1, 0, 0, Math.PI / 2));
+
+    for (int i = 1; i <= 20; i++) {
+      final double timeStamp = 1 + i * 0.001;
+      when(timeProvider.getCurrentTimeSeconds()).thenReturn(timeStamp);
+      odometryObserver.onNewMessage(createOdometry(timeStamp, 1));
+    }
+
+    final Optional<DroneStateStamped> state = stateEstimator.getCurrentState();
+    assertThat(state).isPresent();
+    assertThat(state.get().inertialFrameVelocity().linearX()).isWithin(0.05).of(0);
+    assertThat(state.get().inertialFrameVelocity().linearY()).isWithin(0.05).of(1);
+  }
+
+  private static PoseStamped createPoseStamped(double timeStamp, double x, double y, double yaw) {
+    final PoseStamped poseStamped = mock(PoseStamped.class, RETURNS_DEEP_STUBS);
+    when(poseStamped.getHeader().getStamp().toSeconds()).thenReturn(timeStamp);
+    when(poseStamped.getPose().getPosition().getX()).thenReturn(x);
+    when(poseStamped.getPose().getPosition().getY()).thenReturn(y);
+    when(poseStamped.getPose().getPosition().getZ()).thenReturn(1.0);
+    when(poseStamped.getPose().getOrientation().getW()).thenReturn(Math.cos(yaw / 2));
+    when(poseStamped.getPose().getOrientation().getX()).thenReturn(0.0);
+    when(poseStamped.getPose().getOrientation().getY()).thenReturn(0.0);
+    when(poseStamped.getPose().getOrientation().getZ()).thenReturn(Math.sin(yaw / 2));
+    return poseStamped;
+  }
+
+  private static Odometry createOdometry(double timeStamp, double bodyLinearX) {
+    final Odometry odometry = mock(Odometry.class, RETURNS_DEEP_STUBS);
+    when(odometry.getHeader().getStamp().toSeconds()).thenReturn(timeStamp);
+    when(odometry.getTwist().getTwist().getLinear().getX()).thenReturn(bodyLinearX);
+    when(odometry.getTwist().getTwist().getLinear().getY()).thenReturn(0.0);
+    when(odometry.getTwist().getTwist().getLinear().getZ()).thenReturn(0.0);
+    when(odometry.getTwist().getTwist().getAngular().getZ()).thenReturn(0.0);
+    return odometry;
+  }
+}
@@ -0,0 +1,156 @@
+package services;
+
+import control.dto.BodyFrameVelocity;
+import control.dto.InertialFrameVelocity;
+import control.dto.Pose;
+import control.dto.Velocity;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link Velocity4dServiceOutbox}.
+ */
+public class Velocity4dServiceOutboxTest {
+
+  private final List<Runnable> submittedTasks = new ArrayList<>();
+  private final Executor manualExecutor =
+      new Executor() {
+        @Override
+        public void execute(Runnable command) {
+          submittedTasks.add(command);
+        }
+      };
+
+  private Velocity4dService velocity4dService;
+
+  @Before
+  public void setUp() {
+    velocity4dService = mock(Velocity4dService.class);
+  }
+
+  @Test
+  public void testPendingVelocitiesAreCoalesced() {
+    final Velocity4dServiceOutbox outbox =
+        Velocity4dServiceOutbox.create(velocity4dService, manualExecutor);
+    final BodyFrameVelocity v0 = createVelocity(0.1);
+    final BodyFrameVelocity v1 = createVelocity(0.2);
+    final BodyFrameVelocity v2 = createVelocity(0.3);
+
+    outbox.sendBodyFrameVelocity(v0);
+    outbox.sendBodyFrameVelocity(v1);
+    outbox.sendBodyFrameVelocity(v2);
+    assertThat(submittedTasks).hasSize(1);
+    assertThat(outbox.getQueueDepth()).isEqualTo(1);
+    verify(velocity4dService, never()).sendBodyFrameVelocity(any(BodyFrameVelocity.class));
+
+    submittedTasks.get(0).run();
+    verify(velocity4dService).sendBodyFrameVelocity(v2);
+    verify(velocity4dService, never()).sendBodyFrameVelocity(v0);
+    verify(velocity4dService, never()).sendBodyFrameVelocity(v1);
+    assertThat(outbox.getNumberOfSentVelocities()).isEqualTo(1L);
+    assertThat(outbox.getNumberOfCoalescedVelocities()).isEqualTo(2L);
+    assertThat(outbox.getQueueDepth()).isEqualTo(0);
+    assertThat(outbox.getPublishLatency().getCount()).isEqualTo(1L);
+
+    outbox.sendBodyFrameVelocity(v0);
+    assertThat(submittedTasks).hasSize(2);
+    submittedTasks.get(1).run();
+    verify(velocity4dService).sendBodyFrameVelocity(v0);
+  }
+
+  @Test
+  public void testInertialFrameVelocityIsSentWithItsPose() {
+    final Velocity4dServiceOutbox outbox =
+        Velocity4dServiceOutbox.create(velocity4dService, manualExecutor);
+    final InertialFrameVelocity velocity = createVelocity(0.5);
+    final Pose pose = Pose.builder().setX(1).setY(2).setZ(3).setYaw(0.1).build();
+
+    outbox.sendInertialFrameVelocity(velocity, pose);
+    submittedTasks.get(0).run();
+    verify(velocity4dService).sendInertialFrameVelocity(velocity, pose);
+  }
+
+  @Test
+  public void testFailingTransportDoesNotStopTheOutbox() {
+    final Velocity4dServiceOutbox outbox =
+        Velocity4dServiceOutbox.create(velocity4dService, manualExecutor);
+    final BodyFrameVelocity failingVelocity = createVelocity(0.1);
+    final BodyFrameVelocity nextVelocity = createVelocity(0.2);
+    doThrow(new IllegalStateException("Cannot publish."))
+        .when(velocity4dService)
+        .sendBodyFrameVelocity(failingVelocity);
+
+    outbox.sendBodyFrameVelocity(failingVelocity);
+    submittedTasks.get(0).run();
+    outbox.sendBodyFrameVelocity(nextVelocity);
+    submittedTasks.get(1).run();
+
+    verify(velocity4dService).sendBodyFrameVelocity(nextVelocity);
+    assertThat(outbox.getNumberOfFailedVelocities()).isEqualTo(1L);
+    assertThat(outbox.getNumberOfSentVelocities()).isEqualTo(1L);
+  }
+
+  @Test
+  public void testSlowTransportDoesNotBlockTheSender() throws InterruptedException {
+    final CountDownLatch transportReleased = new CountDownLatch(1);
+    final Velocity4dService slowVelocity4dService =
+        new Velocity4dService() {
+          @Override
+          public void sendInertialFrameVelocity(
+              InertialFrameVelocity inertialFrameVelocity, Pose pose) {}
+
+          @Override
+          public void sendBodyFrameVelocity(BodyFrameVelocity bodyFrameVelocity) {
+            velocity4dService.sendBodyFrameVelocity(bodyFrameVelocity);
+            try {
+              transportReleased.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        };
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final Velocity4dServiceOutbox outbox =
+        Velocity4dServiceOutbox.create(slowVelocity4dService, executor);
+
+    final long startTimeInNanoSeconds = System.nanoTime();
+    final BodyFrameVelocity lastVelocity = createVelocity(1);
+    for (int i = 0; i < 100; i++) {
+      outbox.sendBodyFrameVelocity(i == 99 ? lastVelocity : createVelocity(i * 0.001));
+    }
+    assertThat(System.nanoTime() - startTimeInNanoSeconds)
+        .isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+
+    transportReleased.countDown();
+    verify(velocity4dService, timeout(1000)).sendBodyFrameVelocity(lastVelocity);
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(outbox.getNumberOfSentVelocities() + outbox.getNumberOfCoalescedVelocities())
+        .isEqualTo(100L);
+  }
+
+  private static Velocity createVelocity(double linearX) {
+    return Velocity.builder()
+        .setLinearX(linearX)
+        .setLinearY(0)
+        .setLinearZ(0)
+        .setAngularZ(0)
+        .build();
+  }
+}
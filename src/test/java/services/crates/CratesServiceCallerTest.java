@@ -0,0 +1,120 @@
+package services.crates;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import hal_quadrotor.VelocityRequest;
+import hal_quadrotor.VelocityResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ros.exception.RemoteException;
+import org.ros.node.service.ServiceClient;
+import org.ros.node.service.ServiceResponseListener;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CratesServiceCallerTest {
+
+  private ServiceClient<VelocityRequest, VelocityResponse> serviceClient;
+  private CratesServiceMetrics metrics;
+  private CratesServiceCaller<VelocityRequest, VelocityResponse> caller;
+
+  @Before
+  public void setUp() {
+    serviceClient = mock(ServiceClient.class);
+    metrics = CratesServiceMetrics.create();
+    caller = CratesServiceCaller.create(serviceClient, metrics);
+  }
+
+  @Test
+  public void testResponseIsResolvedOnTheFuture() throws Exception {
+    final ListenableFuture<VelocityResponse> response = caller.call(mock(VelocityRequest.class));
+    assertThat(response.isDone()).isFalse();
+
+    final VelocityResponse velocityResponse = mock(VelocityResponse.class);
+    captureLastListener().onSuccess(velocityResponse);
+    assertThat(response.get()).isSameAs(velocityResponse);
+    assertThat(metrics.getFailureRate()).isEqualTo(0.0);
+  }
+
+  @Test
+  public void testFailedCallFailsTheFuture() throws InterruptedException {
+    final ListenableFuture<VelocityResponse> response = caller.call(mock(VelocityRequest.class));
+    captureLastListener().onFailure(mock(RemoteException.class));
+
+    try {
+      response.get();
+      throw new AssertionError("The future must fail.");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(RemoteException.class);
+    }
+    assertThat(metrics.getNumberOfFailures()).isEqualTo(1L);
+    assertThat(metrics.getFailureRate()).isEqualTo(1.0);
+  }
+
+  @Test
+  public void testUnansweredRequestIsAbandoned() throws InterruptedException {
+    final VelocityRequest unansweredRequest = mock(VelocityRequest.class);
+    final VelocityRequest pendingRequest = mock(VelocityRequest.class);
+    final VelocityRequest newRequest = mock(VelocityRequest.class);
+
+    final ListenableFuture<VelocityResponse> unansweredResponse =
+        caller.callLatest(unansweredRequest);
+    final ListenableFuture<VelocityResponse> pendingResponse = caller.callLatest(pendingRequest);
+    TimeUnit.MILLISECONDS.sleep(CratesUtilities.ROS_SERVICE_WAITING_TIME_IN_MILLISECONDS + 50);
+    caller.callLatest(newRequest);
+
+    assertThat(unansweredResponse.isCancelled()).isTrue();
+    assertThat(pendingResponse.isCancelled()).isTrue();
+    verify(serviceClient).call(eq(newRequest), any(ServiceResponseListener.class));
+    verify(serviceClient, times(2))
+        .call(any(VelocityRequest.class), any(ServiceResponseListener.class));
+    assertThat(metrics.getNumberOfFailures()).isEqualTo(1L);
+    assertThat(metrics.getNumberOfReplacedRequests()).isEqualTo(1L);
+  }
+
+  @Test
+  public void testLateResponseToAResentRequestAnswersTheCall() throws InterruptedException {
+    final VelocityRequest request = mock(VelocityRequest.class);
+    final Thread callingThread =
+        new Thread() {
+          @Override
+          public void run() {
+            caller.callAndWait(request);
+          }
+        };
+    callingThread.start();
+
+    final ArgumentCaptor<ServiceResponseListener> argumentCaptor =
+        ArgumentCaptor.forClass(ServiceResponseListener.class);
+    verify(
+            serviceClient,
+            timeout(CratesUtilities.ROS_SERVICE_WAITING_TIME_IN_MILLISECONDS * 5).atLeast(2))
+        .call(eq(request), argumentCaptor.capture());
+    final List<ServiceResponseListener> listeners = argumentCaptor.getAllValues();
+    listeners.get(0).onSuccess(mock(VelocityResponse.class));
+    callingThread.join(TimeUnit.SECONDS.toMillis(1));
+    assertThat(callingThread.isAlive()).isFalse();
+    listeners.get(listeners.size() - 1).onFailure(mock(RemoteException.class));
+
+    assertThat(metrics.getNumberOfCalls()).isEqualTo(1L);
+    assertThat(metrics.getNumberOfFailures()).isEqualTo(0L);
+    assertThat(metrics.getRoundTripTime().getCount()).isEqualTo(1L);
+  }
+
+  private ServiceResponseListener<VelocityResponse> captureLastListener() {
+    final ArgumentCaptor<ServiceResponseListener> argumentCaptor =
+        ArgumentCaptor.forClass(ServiceResponseListener.class);
+    verify(serviceClient, times(1)).call(any(VelocityRequest.class), argumentCaptor.capture());
+    return argumentCaptor.getValue();
+  }
+}
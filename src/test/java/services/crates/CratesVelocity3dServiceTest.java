@@ -6,16 +6,13 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.ros.node.service.ServiceClient;
 import org.ros.node.service.ServiceResponseListener;
-import services.Velocity3dService;
-
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 import static com.google.common.truth.Truth.assertThat;
-import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -23,12 +20,7 @@ import static org.mockito.Mockito.when;
 public abstract class CratesVelocity3dServiceTest {
 
   private static void checkCorrectVelocitySent(
-      double velX,
-      double velY,
-      double velZ,
-      double posYaw,
-      ArgumentCaptor<VelocityRequest> velocityRequestArgumentCaptor) {
-    final VelocityRequest velocityRequest = velocityRequestArgumentCaptor.getValue();
+      double velX, double velY, double velZ, double posYaw, VelocityRequest velocityRequest) {
     verify(velocityRequest).setDx(velX);
     verify(velocityRequest).setDy(velY);
     verify(velocityRequest).setDz(velZ);
@@ -39,65 +31,39 @@ public abstract class CratesVelocity3dServiceTest {
       ServiceResponseListener<VelocityResponse> serviceResponseListener);
 
   @Test
-  public void testSendVelocityMessage() throws InterruptedException {
+  public void testSendVelocityMessage() {
     final ServiceClient<VelocityRequest, VelocityResponse> serviceClient =
-        mock(ServiceClient.class, RETURNS_DEEP_STUBS);
-    when(serviceClient.newMessage()).thenReturn(mock(VelocityRequest.class));
-
-    final Velocity3dService cratesVelocity3dService = CratesVelocity3dService.create(serviceClient);
-    final double velX = 1;
-    final double velY = 2;
-    final double velZ = 3;
-    final double posYaw = -1;
-
-    final Future<?> future =
-        checkSendingMessageBeforeReponse(cratesVelocity3dService, velX, velY, velZ, posYaw);
-
-    final ArgumentCaptor<VelocityRequest> velocityRequestArgumentCaptor =
-        ArgumentCaptor.forClass(VelocityRequest.class);
+        mock(ServiceClient.class);
+    final VelocityRequest firstRequest = mock(VelocityRequest.class);
+    final VelocityRequest replacedRequest = mock(VelocityRequest.class);
+    final VelocityRequest lastRequest = mock(VelocityRequest.class);
+    when(serviceClient.newMessage()).thenReturn(firstRequest, replacedRequest, lastRequest);
+
+    final CratesServiceMetrics metrics = CratesServiceMetrics.create();
+    final CratesVelocity3dService cratesVelocity3dService =
+        CratesVelocity3dService.create(serviceClient, metrics);
+
+    // sending does not wait for the response
+    cratesVelocity3dService.sendVelocity3dMessage(1, 2, 3, -1);
     final ArgumentCaptor<ServiceResponseListener> serviceResponseListenerArgumentCaptor =
         ArgumentCaptor.forClass(ServiceResponseListener.class);
-    verify(serviceClient, atLeastOnce())
-        .call(
-            velocityRequestArgumentCaptor.capture(),
-            serviceResponseListenerArgumentCaptor.capture());
-
-    checkCorrectVelocitySent(velX, velY, velZ, posYaw, velocityRequestArgumentCaptor);
-    checkResponseToMessage(future, serviceResponseListenerArgumentCaptor);
-  }
-
-  private Future<?> checkSendingMessageBeforeReponse(
-      final Velocity3dService velocity3dService,
-      final double velX,
-      final double velY,
-      final double velZ,
-      final double posYaw)
-      throws InterruptedException {
-    final Future<?> future =
-        Executors.newSingleThreadExecutor()
-            .submit(
-                new Runnable() {
-                  @Override
-                  public void run() {
-                    velocity3dService.sendVelocity3dMessage(velX, velY, velZ, posYaw);
-                  }
-                });
-
-    TimeUnit.MILLISECONDS.sleep(300);
-
-    assertThat(future.isDone()).isFalse();
-    return future;
-  }
-
-  private void checkResponseToMessage(
-      Future<?> future,
-      ArgumentCaptor<ServiceResponseListener> serviceResponseListenerArgumentCaptor)
-      throws InterruptedException {
-    final ServiceResponseListener<VelocityResponse> serviceResponseListener =
-        serviceResponseListenerArgumentCaptor.getValue();
-    responseToMessage(serviceResponseListener);
-
-    TimeUnit.MILLISECONDS.sleep(50);
-    assertThat(future.isDone()).isTrue();
+    verify(serviceClient)
+        .call(eq(firstRequest), serviceResponseListenerArgumentCaptor.capture());
+    checkCorrectVelocitySent(1, 2, 3, -1, firstRequest);
+
+    // at most one request is in flight, the pending request is replaced by the newest one
+    cratesVelocity3dService.sendVelocity3dMessage(4, 5, 6, 0);
+    cratesVelocity3dService.sendVelocity3dMessage(7, 8, 9, 1);
+    verify(serviceClient, times(1))
+        .call(any(VelocityRequest.class), any(ServiceResponseListener.class));
+
+    responseToMessage(serviceResponseListenerArgumentCaptor.getValue());
+    verify(serviceClient).call(eq(lastRequest), any(ServiceResponseListener.class));
+    verify(serviceClient, never()).call(eq(replacedRequest), any(ServiceResponseListener.class));
+    checkCorrectVelocitySent(7, 8, 9, 1, lastRequest);
+
+    assertThat(metrics.getNumberOfCalls()).isEqualTo(2L);
+    assertThat(metrics.getNumberOfReplacedRequests()).isEqualTo(1L);
+    assertThat(metrics.getRoundTripTime().getCount()).isEqualTo(1L);
   }
 }
@@ -0,0 +1,100 @@
+package services.rossubscribers;
+
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class MessageRingBufferTest {
+
+  @Test
+  public void testEmptyBuffer() {
+    final MessageRingBuffer<Integer> buffer = MessageRingBuffer.create(3);
+    assertThat(buffer.getMostRecentMessage()).isNull();
+    assertThat(buffer.snapshot()).isEmpty();
+  }
+
+  @Test
+  public void testOldestMessagesAreOverwritten() {
+    final MessageRingBuffer<Integer> buffer = MessageRingBuffer.create(3);
+    for (int i = 0; i < 5; i++) {
+      buffer.add(i);
+    }
+    assertThat(buffer.getMostRecentMessage()).isEqualTo(4);
+    assertThat(buffer.snapshot()).containsExactly(2, 3, 4).inOrder();
+    assertThat(buffer.snapshot().peek()).isEqualTo(2);
+  }
+
+  @Test
+  public void testSnapshotIgnoresNewerMessages() {
+    final MessageRingBuffer<Integer> buffer = MessageRingBuffer.create(3);
+    buffer.add(0);
+    buffer.add(1);
+    final Queue<Integer> snapshot = buffer.snapshot();
+    buffer.add(2);
+    assertThat(snapshot).containsExactly(0, 1).inOrder();
+
+    // the oldest message of the snapshot is overwritten
+    buffer.add(3);
+    assertThat(snapshot).containsExactly(1);
+  }
+
+  @Test
+  public void testSizeOfWrappedSnapshotMatchesIteration() {
+    final MessageRingBuffer<Integer> buffer = MessageRingBuffer.create(3);
+    for (int i = 0; i < 5; i++) {
+      buffer.add(i);
+    }
+    final Queue<Integer> snapshot = buffer.snapshot();
+    assertThat(snapshot).hasSize(3);
+
+    buffer.add(5);
+    assertThat(snapshot).hasSize(2);
+    assertThat(snapshot).containsExactly(3, 4).inOrder();
+
+    buffer.add(6);
+    buffer.add(7);
+    assertThat(snapshot).isEmpty();
+    assertThat(snapshot.peek()).isNull();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSnapshotIsReadOnly() {
+    final MessageRingBuffer<Integer> buffer = MessageRingBuffer.create(3);
+    buffer.add(0);
+    buffer.snapshot().poll();
+  }
+
+  @Test
+  public void testConcurrentReadersSeeOrderedMessages() throws InterruptedException {
+    final MessageRingBuffer<Integer> buffer = MessageRingBuffer.create(8);
+    final AtomicBoolean isRunning = new AtomicBoolean(true);
+    final Thread writer =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                int message = 0;
+                while (isRunning.get()) {
+                  buffer.add(message++);
+                }
+              }
+            });
+    writer.start();
+
+    try {
+      for (int i = 0; i < 10000; i++) {
+        int lastMessage = -1;
+        for (final int message : buffer.snapshot()) {
+          assertThat(message).isGreaterThan(lastMessage);
+          lastMessage = message;
+        }
+      }
+    } finally {
+      isRunning.set(false);
+      writer.join();
+    }
+  }
+}
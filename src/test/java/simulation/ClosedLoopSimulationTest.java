@@ -0,0 +1,181 @@
+package simulation;
+
+import applications.trajectory.Trajectories;
+import applications.trajectory.geom.point.Point4D;
+import choreo.Choreography;
+import commands.Command;
+import commands.WaitForLocalizationDecorator;
+import commands.bebopcommands.BebopFollowTrajectory;
+import commands.bebopcommands.BebopLand;
+import commands.bebopcommands.BebopTakeOff;
+import control.DefaultPidParameters;
+import control.DroneVelocityController;
+import control.Trajectory4d;
+import control.dto.DroneStateStamped;
+import control.dto.Pose;
+import control.dto.Velocity;
+import org.junit.Test;
+import services.rossubscribers.FlyingState;
+import taskexecutor.Task;
+import taskexecutor.TaskType;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ClosedLoopSimulationTest {
+
+  private static final Point4D HOVERING_POINT = Point4D.create(0, 0, 1, 0);
+  private static final Point4D TARGET_POINT = Point4D.create(2, 1, 1.5, 0);
+
+  @Test
+  public void testTakeOffClimbsToTheTakeOffAltitude() {
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone = simulation.addDrone(Pose.createZeroPose());
+
+    simulation.takeOff();
+
+    assertThat(drone.getCurrentFlyingState().get()).isEqualTo(FlyingState.HOVERING);
+    assertThat(drone.getActualState().pose().z()).isWithin(0.05).of(1);
+    assertThat(simulation.getClock().getCurrentTimeSeconds()).isLessThan(10.0);
+  }
+
+  @Test
+  public void testFlyingAChoreographyReachesItsLastPoint() {
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone = simulation.addDrone(Pose.createZeroPose());
+    final Choreography choreography = createChoreography();
+
+    simulation.takeOff();
+    simulation.follow(
+        drone, createController(choreography), choreography.getTrajectoryDuration() + 5);
+
+    final Pose pose = drone.getActualState().pose();
+    assertThat(pose.x()).isWithin(0.1).of(TARGET_POINT.getX());
+    assertThat(pose.y()).isWithin(0.1).of(TARGET_POINT.getY());
+    assertThat(pose.z()).isWithin(0.1).of(TARGET_POINT.getZ());
+
+    simulation.land();
+    assertThat(drone.getCurrentFlyingState().get()).isEqualTo(FlyingState.LANDED);
+    assertThat(drone.getActualState().pose().z()).isWithin(1.0e-9).of(0);
+  }
+
+  @Test
+  public void testTaskOfSeveralMinutesRunsInVirtualTime() {
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone = simulation.addDrone(Pose.createZeroPose());
+    final Choreography choreography = createChoreography(180);
+    final Command followChoreography =
+        BebopFollowTrajectory.builder()
+            .withStateEstimator(drone)
+            .withVelocity4dService(drone)
+            .withVelocityController4d(createController(choreography))
+            .withTimeProvider(simulation.getClock())
+            .withDurationInSeconds(choreography.getTrajectoryDuration() + 5)
+            .build();
+    final Task task =
+        Task.create(
+            TaskType.NORMAL_TASK,
+            BebopTakeOff.create(drone, drone, drone),
+            WaitForLocalizationDecorator.create(drone, followChoreography),
+            BebopLand.create(drone, drone));
+    final long startTimeInNanoSeconds = System.nanoTime();
+
+    simulation.execute(task);
+
+    assertThat(System.nanoTime() - startTimeInNanoSeconds).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    assertThat(simulation.getClock().getCurrentTimeSeconds())
+        .isGreaterThan(choreography.getTrajectoryDuration());
+    assertThat(drone.getCurrentFlyingState().get()).isEqualTo(FlyingState.LANDED);
+    final Pose pose = drone.getActualState().pose();
+    assertThat(pose.x()).isWithin(0.1).of(TARGET_POINT.getX());
+    assertThat(pose.y()).isWithin(0.1).of(TARGET_POINT.getY());
+  }
+
+  @Test
+  public void testRunsWithTheSameSeedAreIdentical() {
+    assertThat(flyWithNoise(42)).isEqualTo(flyWithNoise(42));
+    assertThat(flyWithNoise(42)).isNotEqualTo(flyWithNoise(43));
+  }
+
+  @Test
+  public void testVelocitiesAreIgnoredOnTheGround() {
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone = simulation.addDrone(Pose.createZeroPose());
+
+    drone.sendVelocity3dMessage(1, 1, 1, 0);
+    simulation.advance(1);
+
+    assertThat(drone.getCurrentFlyingState().get()).isEqualTo(FlyingState.LANDED);
+    assertThat(drone.getActualState().pose()).isEqualTo(Pose.createZeroPose());
+  }
+
+  @Test
+  public void testBodyFrameVelocityIsRotatedWithTheYaw() {
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone =
+        simulation.addDrone(
+            Pose.builder().setX(0).setY(0).setZ(0).setYaw(Math.PI / 2).build());
+    simulation.takeOff();
+
+    drone.sendBodyFrameVelocity(
+        Velocity.builder().setLinearX(1).setLinearY(0).setLinearZ(0).setAngularZ(0).build());
+    simulation.advance(2);
+
+    final Pose pose = drone.getActualState().pose();
+    assertThat(drone.getCurrentFlyingState().get()).isEqualTo(FlyingState.FLYING);
+    assertThat(pose.x()).isWithin(1.0e-6).of(0);
+    assertThat(pose.y()).isGreaterThan(1.0);
+  }
+
+  @Test
+  public void testDurationsAreRoundedToTheNearestNanoSecond() {
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone = simulation.addDrone(Pose.createZeroPose());
+
+    // 1.001 * 1.0e9 is slightly below 1001000000
+    simulation.advance(1.001);
+    assertThat(simulation.getClock().getCurrentTimeNanoSeconds()).isEqualTo(1001000000L);
+
+    simulation.follow(drone, createController(createChoreography()), 1.001);
+    assertThat(simulation.getClock().getCurrentTimeNanoSeconds()).isEqualTo(2002000000L);
+  }
+
+  private static DroneStateStamped flyWithNoise(long seed) {
+    final ClosedLoopSimulation simulation = ClosedLoopSimulation.create();
+    final SimulatedDrone drone =
+        simulation.addDrone(
+            SimulatedDrone.builder().withPositionNoiseStandardDeviation(0.02).withSeed(seed));
+    final Choreography choreography = createChoreography();
+
+    simulation.takeOff();
+    simulation.follow(drone, createController(choreography), choreography.getTrajectoryDuration());
+    return drone.getActualState();
+  }
+
+  private static Choreography createChoreography() {
+    return createChoreography(2);
+  }
+
+  private static Choreography createChoreography(double holdingTimeInSeconds) {
+    final Trajectory4d hold = Trajectories.newHoldPositionTrajectory(HOVERING_POINT);
+    final Trajectory4d line =
+        Trajectories.newStraightLineTrajectory(HOVERING_POINT, TARGET_POINT, 0.5);
+    return Choreography.builder()
+        .withTrajectory(hold)
+        .forTime(holdingTimeInSeconds)
+        .withTrajectory(line)
+        .forTime(5)
+        .build();
+  }
+
+  private static DroneVelocityController createController(Trajectory4d trajectory) {
+    return DroneVelocityController.pidBuilder()
+        .withTrajectory4d(trajectory)
+        .withLinearXParameters(DefaultPidParameters.LINEAR_X.getParameters())
+        .withLinearYParameters(DefaultPidParameters.LINEAR_Y.getParameters())
+        .withLinearZParameters(DefaultPidParameters.LINEAR_Z.getParameters())
+        .withAngularZParameters(DefaultPidParameters.ANGULAR_Z.getParameters())
+        .build();
+  }
+}
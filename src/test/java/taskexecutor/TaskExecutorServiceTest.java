@@ -0,0 +1,189 @@
+package taskexecutor;
+
+import commands.Command;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class TaskExecutorServiceTest {
+
+  private TaskExecutorService taskExecutor;
+  private CountDownLatch releaseCommand;
+  private AtomicBoolean overlapped;
+
+  @Before
+  public void setUp() {
+    taskExecutor = TaskExecutorService.create(50, TimeUnit.MILLISECONDS);
+    releaseCommand = new CountDownLatch(1);
+    overlapped = new AtomicBoolean();
+  }
+
+  @After
+  public void tearDown() {
+    releaseCommand.countDown();
+    taskExecutor.shutdown();
+  }
+
+  @Test
+  public void testEmergencyPreemptsInterruptibleTask() throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final Command nextNormalCommand = mock(Command.class);
+    final Command emergencyCommand = mock(Command.class);
+
+    assertThat(
+            taskExecutor.submitTask(
+                Task.create(
+                    TaskType.NORMAL_TASK,
+                    createBlockingCommand(started, true),
+                    nextNormalCommand)))
+        .isEqualTo(TaskExecutor.Status.ACCEPTED);
+    assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(
+            taskExecutor.submitTask(Task.create(TaskType.FIRST_ORDER_EMERGENCY, emergencyCommand)))
+        .isEqualTo(TaskExecutor.Status.ACCEPTED);
+
+    verify(emergencyCommand, timeout(1000)).execute();
+    verify(nextNormalCommand, never()).execute();
+    assertThat(taskExecutor.getEmergencyLatency().getCount()).isEqualTo(1);
+    assertThat(taskExecutor.getEmergencyLatency().getMax())
+        .isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testTasksWithoutHigherPriorityAreRejected() {
+    final Command emergencyCommand = mock(Command.class);
+    assertThat(
+            taskExecutor.submitTask(Task.create(TaskType.SECOND_ORDER_EMERGENCY, emergencyCommand)))
+        .isEqualTo(TaskExecutor.Status.ACCEPTED);
+
+    final Command otherCommand = mock(Command.class);
+    assertThat(taskExecutor.submitTask(Task.create(TaskType.SECOND_ORDER_EMERGENCY, otherCommand)))
+        .isEqualTo(TaskExecutor.Status.REJECTED);
+    assertThat(taskExecutor.submitTask(Task.create(TaskType.NORMAL_TASK, otherCommand)))
+        .isEqualTo(TaskExecutor.Status.REJECTED);
+
+    verify(emergencyCommand, timeout(1000)).execute();
+    verify(otherCommand, never()).execute();
+  }
+
+  @Test
+  public void testPreemptedCommandIgnoringInterruptionIsInterruptedAgain()
+      throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicBoolean preemptedCommandRunning = new AtomicBoolean(true);
+    final Command emergencyCommand = createCommandRecording(preemptedCommandRunning);
+
+    taskExecutor.submitTask(
+        Task.create(
+            TaskType.NORMAL_TASK,
+            new Command() {
+              @Override
+              public void execute() {
+                started.countDown();
+                try {
+                  // the first interruption is swallowed
+                  waitUntilInterrupted();
+                  waitUntilInterrupted();
+                } finally {
+                  preemptedCommandRunning.set(false);
+                }
+              }
+            }));
+    assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+    taskExecutor.submitTask(Task.create(TaskType.FIRST_ORDER_EMERGENCY, emergencyCommand));
+
+    verify(emergencyCommand, timeout(1000)).execute();
+    assertThat(overlapped.get()).isFalse();
+    assertThat(taskExecutor.getEmergencyLatency().getMin())
+        .isAtLeast(TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testEmergencyWaitsForThePreemptedCommandToStop() throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicBoolean preemptedCommandRunning = new AtomicBoolean(true);
+    final Command blockingCommand = createBlockingCommand(started, false);
+    final Command emergencyCommand = createCommandRecording(preemptedCommandRunning);
+
+    taskExecutor.submitTask(
+        Task.create(
+            TaskType.NORMAL_TASK,
+            new Command() {
+              @Override
+              public void execute() {
+                blockingCommand.execute();
+                preemptedCommandRunning.set(false);
+              }
+            }));
+    assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+    taskExecutor.submitTask(Task.create(TaskType.FIRST_ORDER_EMERGENCY, emergencyCommand));
+
+    verify(emergencyCommand, after(200).never()).execute();
+    releaseCommand.countDown();
+    verify(emergencyCommand, timeout(1000)).execute();
+    assertThat(overlapped.get()).isFalse();
+  }
+
+  /**
+   * Creates a mock command which records in {@link #overlapped} whether the preempted command was
+   * still running when it has been executed.
+   */
+  private Command createCommandRecording(final AtomicBoolean preemptedCommandRunning) {
+    final Command command = mock(Command.class);
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                overlapped.set(preemptedCommandRunning.get());
+                return null;
+              }
+            })
+        .when(command)
+        .execute();
+    return command;
+  }
+
+  private static void waitUntilInterrupted() {
+    try {
+      new CountDownLatch(1).await();
+    } catch (InterruptedException e) {
+      // the caller decides whether to go on
+    }
+  }
+
+  private Command createBlockingCommand(
+      final CountDownLatch started, final boolean interruptible) {
+    return new Command() {
+      @Override
+      public void execute() {
+        started.countDown();
+        while (true) {
+          try {
+            releaseCommand.await();
+            return;
+          } catch (InterruptedException e) {
+            if (interruptible) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+          }
+        }
+      }
+    };
+  }
+}
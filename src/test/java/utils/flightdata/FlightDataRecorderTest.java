@@ -0,0 +1,148 @@
+package utils.flightdata;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class FlightDataRecorderTest {
+
+  private Path directory;
+  private ScheduledExecutorService writer;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("flight-data");
+    writer = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    writer.shutdownNow();
+    for (final Path file : Files.newDirectoryStream(directory)) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void testRecordsAreReadBack() throws IOException {
+    final Path file = directory.resolve("drone.fdr");
+    final FlightDataRecorder recorder = FlightDataRecorder.create(file, 100, 16, writer);
+    for (int i = 0; i < 10; i++) {
+      assertThat(recorder.record(createRecord(i))).isTrue();
+      recorder.drain();
+    }
+    recorder.close();
+
+    final FlightDataReader reader = FlightDataReader.open(file);
+    assertThat(reader.getNumberOfRecords()).isEqualTo(10);
+    assertThat(reader.getNumberOfDroppedRecords()).isEqualTo(0L);
+    final double[] values = new double[FlightDataRecord.NUMBER_OF_FIELDS];
+    for (int i = 0; i < 10; i++) {
+      reader.readRecord(i, values);
+      assertThat(values).isEqualTo(createRecord(i), 0);
+    }
+    assertThat(reader.getValue(3, FlightDataRecord.COMMAND + 2)).isEqualTo(320.0);
+  }
+
+  @Test
+  public void testRecordsAreWrittenByTheSharedWriter() throws Exception {
+    final Path file = directory.resolve("drone.fdr");
+    final FlightDataRecorder recorder = FlightDataRecorder.create(file, 100, 16, writer);
+    for (int i = 0; i < 5; i++) {
+      recorder.record(createRecord(i));
+    }
+
+    // the header is updated by the writer without closing the recorder
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(FlightDataReader.open(file).getNumberOfRecords()).isEqualTo(5);
+    recorder.close();
+  }
+
+  @Test
+  public void testRecordsAreDroppedWhenFull() throws IOException {
+    final Path file = directory.resolve("drone.fdr");
+    final FlightDataRecorder recorder = FlightDataRecorder.create(file, 3, 2, writer);
+    assertThat(recorder.record(createRecord(0))).isTrue();
+    assertThat(recorder.record(createRecord(1))).isTrue();
+    assertThat(recorder.record(createRecord(2))).isFalse();
+    recorder.drain();
+    assertThat(recorder.record(createRecord(3))).isTrue();
+    assertThat(recorder.record(createRecord(4))).isTrue();
+    recorder.close();
+    assertThat(recorder.record(createRecord(5))).isFalse();
+
+    final FlightDataReader reader = FlightDataReader.open(file);
+    assertThat(reader.getNumberOfRecords()).isEqualTo(3);
+    assertThat(reader.getValue(2, FlightDataRecord.SYSTEM_TIME)).isEqualTo(300.0);
+    assertThat(recorder.getNumberOfDroppedRecords()).isEqualTo(3L);
+    assertThat(reader.getNumberOfDroppedRecords()).isEqualTo(2L);
+  }
+
+  @Test
+  public void testRecordsQueuedWhileClosingAreWritten() throws Exception {
+    for (int run = 0; run < 200; run++) {
+      final Path file = directory.resolve("drone.fdr");
+      final FlightDataRecorder recorder = FlightDataRecorder.create(file, 5000, 5000, writer);
+      final CountDownLatch recordingStarted = new CountDownLatch(1);
+      final AtomicInteger queuedRecords = new AtomicInteger();
+      final Thread recordingThread =
+          new Thread() {
+            @Override
+            public void run() {
+              recordingStarted.countDown();
+              while (recorder.record(createRecord(queuedRecords.get()))) {
+                queuedRecords.incrementAndGet();
+              }
+            }
+          };
+      recordingThread.start();
+      recordingStarted.await();
+
+      recorder.close();
+      recordingThread.join();
+
+      assertThat(FlightDataReader.open(file).getNumberOfRecords())
+          .isEqualTo(queuedRecords.get());
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testCsvExport() throws IOException {
+    final Path file = directory.resolve("drone.fdr");
+    final FlightDataRecorder recorder = FlightDataRecorder.create(file, 10, 10, writer);
+    recorder.record(createRecord(1));
+    recorder.record(createRecord(2));
+    recorder.close();
+
+    final Path csvFile = FlightDataCsvExporter.export(file);
+    assertThat(csvFile.getFileName().toString()).isEqualTo("drone.csv");
+    final List<String> lines = Files.readAllLines(csvFile, StandardCharsets.UTF_8);
+    assertThat(lines).hasSize(3);
+    assertThat(lines.get(0)).startsWith("system_time,trajectory_time,actual_pose_x,");
+    assertThat(lines.get(0)).endsWith(",command_z,command_yaw");
+    assertThat(lines.get(2)).startsWith("200.0,201.0,202.0,");
+  }
+
+  private static double[] createRecord(int index) {
+    final double[] values = new double[FlightDataRecord.NUMBER_OF_FIELDS];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = index * 100 + i;
+    }
+    return values;
+  }
+}
@@ -0,0 +1,40 @@
+package utils.math;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CircularRunningAverageTest {
+
+  private static final double DELTA = 0.000001;
+
+  @Test
+  public void testAverageAwayFromWrap() {
+    final CircularRunningAverage average = CircularRunningAverage.create(3);
+    average.add(0.1);
+    average.add(0.2);
+    average.add(0.3);
+    assertThat(average.getAverage()).isWithin(DELTA).of(0.2);
+  }
+
+  @Test
+  public void testAverageAcrossWrap() {
+    final CircularRunningAverage average = CircularRunningAverage.create(2);
+    average.add(Math.PI - 0.1);
+    average.add(-Math.PI + 0.1);
+    assertThat(Math.abs(average.getAverage())).isWithin(DELTA).of(Math.PI);
+
+    average.add(-Math.PI + 0.3);
+    assertThat(average.getAverage()).isWithin(DELTA).of(-Math.PI + 0.2);
+  }
+
+  @Test
+  public void testOldestAnglesLeaveTheWindow() {
+    final CircularRunningAverage average = CircularRunningAverage.create(2);
+    average.add(3);
+    average.add(-1);
+    average.add(-1);
+    assertThat(average.isFull()).isTrue();
+    assertThat(average.getAverage()).isWithin(DELTA).of(-1);
+  }
+}
@@ -0,0 +1,69 @@
+package utils.math;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ConstantAccelerationKalmanFilterTest {
+
+  private static final double TIME_STEP = 0.01;
+
+  @Test
+  public void testStaticPositionConverges() {
+    final ConstantAccelerationKalmanFilter filter = ConstantAccelerationKalmanFilter.create(1);
+    filter.reset(0, 1, 1, 1);
+
+    for (int i = 0; i < 200; i++) {
+      filter.predict(TIME_STEP);
+      filter.updatePosition(3, 0.0004);
+    }
+
+    assertThat(filter.getPosition()).isWithin(0.001).of(3);
+    assertThat(filter.getVelocity()).isWithin(0.01).of(0);
+    assertThat(filter.getPositionVariance()).isLessThan(0.0004);
+  }
+
+  @Test
+  public void testConstantVelocityIsEstimatedFromPositions() {
+    final ConstantAccelerationKalmanFilter filter = ConstantAccelerationKalmanFilter.create(1);
+    filter.reset(0, 0.0004, 1, 1);
+
+    for (int i = 1; i <= 300; i++) {
+      filter.predict(TIME_STEP);
+      filter.updatePosition(2 * i * TIME_STEP, 0.0004);
+    }
+
+    assertThat(filter.getVelocity()).isWithin(0.01).of(2);
+    assertThat(filter.getAcceleration()).isWithin(0.1).of(0);
+    assertThat(filter.extrapolatePosition(0.1)).isWithin(0.01).of(6.2);
+    assertThat(filter.extrapolateVelocity(0.1)).isWithin(0.02).of(2);
+    // extrapolating does not change the state
+    assertThat(filter.getPosition()).isWithin(0.01).of(6);
+  }
+
+  @Test
+  public void testVelocityMeasurementsUpdateTheVelocity() {
+    final ConstantAccelerationKalmanFilter filter = ConstantAccelerationKalmanFilter.create(1);
+    filter.reset(0, 0.0004, 1, 1);
+
+    final double velocityVarianceBefore = filter.getVelocityVariance();
+    filter.updateVelocity(1.5, 0.01);
+
+    assertThat(filter.getVelocity()).isWithin(0.05).of(1.5);
+    assertThat(filter.getVelocityVariance()).isLessThan(velocityVarianceBefore);
+    assertThat(filter.getPosition()).isWithin(0.000001).of(0);
+  }
+
+  @Test
+  public void testPredictionIncreasesUncertainty() {
+    final ConstantAccelerationKalmanFilter filter = ConstantAccelerationKalmanFilter.create(1);
+    filter.reset(1, 0.0004, 0.01, 0.01);
+    filter.updateVelocity(1, 0.01);
+
+    final double positionVarianceBefore = filter.getPositionVariance();
+    filter.predict(0.5);
+
+    assertThat(filter.getPosition()).isWithin(0.1).of(1.25);
+    assertThat(filter.getPositionVariance()).isGreaterThan(positionVarianceBefore);
+  }
+}
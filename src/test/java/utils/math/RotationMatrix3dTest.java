@@ -0,0 +1,72 @@
+package utils.math;
+
+import applications.trajectory.geom.point.Point3D;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RotationMatrix3dTest {
+
+  private static final double DELTA = 0.000001;
+
+  private static void assertPoint3DEqual(Point3D p0, Point3D p1) {
+    assertThat(p0.getX()).isWithin(DELTA).of(p1.getX());
+    assertThat(p0.getY()).isWithin(DELTA).of(p1.getY());
+    assertThat(p0.getZ()).isWithin(DELTA).of(p1.getZ());
+  }
+
+  @Test
+  public void testReverseUndoesRotation() {
+    final Point3D point = Point3D.create(1.5, -0.4, 2.3);
+    for (final RotationOrder order : RotationOrder.values()) {
+      final RotationMatrix3d rotation = RotationMatrix3d.create(0.3, 1.1, -2.0, order);
+      final RotationMatrix3d reverse = RotationMatrix3d.createReverse(0.3, 1.1, -2.0, order);
+      assertPoint3DEqual(reverse.apply(rotation.apply(point)), point);
+    }
+  }
+
+  @Test
+  public void testZyxIsReverseOrderOfXyz() {
+    final Point3D point = Point3D.create(1, 2, 3);
+    final Point3D rotated =
+        RotationMatrix3d.create(0.3, 1.1, -2.0, RotationOrder.XYZ).apply(point);
+    final Point3D reversed =
+        RotationMatrix3d.create(-0.3, -1.1, 2.0, RotationOrder.ZYX).apply(rotated);
+    assertPoint3DEqual(reversed, point);
+  }
+
+  @Test
+  public void testPrimitiveApplyEqualsPointApply() {
+    final RotationMatrix3d rotation = RotationMatrix3d.create(0.7, -0.2, 0.4, RotationOrder.XYZ);
+    final Point3D rotated = rotation.apply(Point3D.create(1, 2, 3));
+    assertThat(rotation.applyX(1, 2, 3)).isWithin(DELTA).of(rotated.getX());
+    assertThat(rotation.applyY(1, 2, 3)).isWithin(DELTA).of(rotated.getY());
+    assertThat(rotation.applyZ(1, 2, 3)).isWithin(DELTA).of(rotated.getZ());
+  }
+
+  @Test
+  public void testQuaternionAroundZ() {
+    final double halfAngle = Math.PI / 4;
+    final RotationMatrix3d fromQuaternion =
+        RotationMatrix3d.fromQuaternion(Math.cos(halfAngle), 0, 0, Math.sin(halfAngle));
+    final RotationMatrix3d fromEuler =
+        RotationMatrix3d.create(0, 0, Math.PI / 2, RotationOrder.XYZ);
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 3; column++) {
+        assertThat(fromQuaternion.get(row, column))
+            .isWithin(DELTA)
+            .of(fromEuler.get(row, column));
+      }
+    }
+  }
+
+  @Test
+  public void testFastMathIsCloseToStrictMath() {
+    final Point3D point = Point3D.create(1.5, -0.4, 2.3);
+    final Point3D strict =
+        RotationMatrix3d.create(0.3, 1.1, -2.0, RotationOrder.XYZ, MathMode.STRICT).apply(point);
+    final Point3D fast =
+        RotationMatrix3d.create(0.3, 1.1, -2.0, RotationOrder.XYZ, MathMode.FAST).apply(point);
+    assertPoint3DEqual(fast, strict);
+  }
+}
@@ -0,0 +1,58 @@
+package utils.math;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RunningAverageTest {
+
+  private static final double DELTA = 0.000001;
+
+  @Test
+  public void testAverageOfPartialWindow() {
+    final RunningAverage average = RunningAverage.create(4);
+    assertThat(average.getAverage()).isWithin(DELTA).of(0);
+    average.add(1);
+    average.add(2);
+    assertThat(average.getCount()).isEqualTo(2);
+    assertThat(average.isFull()).isFalse();
+    assertThat(average.getAverage()).isWithin(DELTA).of(1.5);
+  }
+
+  @Test
+  public void testOldestValuesLeaveTheWindow() {
+    final RunningAverage average = RunningAverage.create(3);
+    for (int i = 1; i <= 10; i++) {
+      average.add(i);
+    }
+    assertThat(average.isFull()).isTrue();
+    assertThat(average.getCount()).isEqualTo(3);
+    assertThat(average.getAverage()).isWithin(DELTA).of(9);
+  }
+
+  @Test
+  public void testNoAccumulatedRoundingErrors() {
+    final RunningAverage average = RunningAverage.create(7);
+    average.add(1.0e12);
+    for (int i = 0; i < 1000; i++) {
+      average.add(0.1);
+    }
+    assertThat(average.getAverage()).isWithin(DELTA).of(0.1);
+  }
+
+  @Test
+  public void testClear() {
+    final RunningAverage average = RunningAverage.create(2);
+    average.add(5);
+    average.add(7);
+    average.clear();
+    assertThat(average.getCount()).isEqualTo(0);
+    average.add(1);
+    assertThat(average.getAverage()).isWithin(DELTA).of(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyWindow() {
+    RunningAverage.create(0);
+  }
+}
@@ -0,0 +1,67 @@
+package utils.metrics;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LatencyHistogramTest {
+
+  private static final double DELTA = 1.0e-6;
+
+  @Test
+  public void testEmptyHistogram() {
+    final LatencyHistogram histogram = LatencyHistogram.create();
+    assertThat(histogram.getCount()).isEqualTo(0L);
+    assertThat(histogram.getMin()).isEqualTo(0L);
+    assertThat(histogram.getMax()).isEqualTo(0L);
+    assertThat(histogram.getPercentile(99)).isEqualTo(0L);
+  }
+
+  @Test
+  public void testStatistics() {
+    final LatencyHistogram histogram = LatencyHistogram.create();
+    for (long i = 1; i <= 100; i++) {
+      histogram.record(i * 1000);
+    }
+
+    assertThat(histogram.getCount()).isEqualTo(100L);
+    assertThat(histogram.getMin()).isEqualTo(1000L);
+    assertThat(histogram.getMax()).isEqualTo(100000L);
+    assertThat(histogram.getMean()).isWithin(DELTA).of(50500);
+    assertThat(histogram.getPercentile(100)).isEqualTo(100000L);
+  }
+
+  @Test
+  public void testPercentileRelativeError() {
+    final LatencyHistogram histogram = LatencyHistogram.create();
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000);
+    }
+
+    final long median = histogram.getPercentile(50);
+    assertThat(median).isAtLeast(500000L);
+    assertThat(median).isAtMost((long) (500000 * 1.125));
+
+    final long p99 = histogram.getPercentile(99);
+    assertThat(p99).isAtLeast(990000L);
+    assertThat(p99).isAtMost(1000000L);
+  }
+
+  @Test
+  public void testNegativeValuesAreRecordedAsZero() {
+    final LatencyHistogram histogram = LatencyHistogram.create();
+    histogram.record(-5);
+    assertThat(histogram.getCount()).isEqualTo(1L);
+    assertThat(histogram.getMax()).isEqualTo(0L);
+  }
+
+  @Test
+  public void testReset() {
+    final LatencyHistogram histogram = LatencyHistogram.create();
+    histogram.record(Long.MAX_VALUE);
+    histogram.reset();
+    assertThat(histogram.getCount()).isEqualTo(0L);
+    assertThat(histogram.getMax()).isEqualTo(0L);
+    assertThat(histogram.getPercentile(50)).isEqualTo(0L);
+  }
+}